@@ -0,0 +1,114 @@
+package com.redhat.cloud.notifications.auth;
+
+import com.redhat.cloud.notifications.Base64Utils;
+import com.redhat.cloud.notifications.auth.principal.ConsoleIdentity;
+import com.redhat.cloud.notifications.auth.principal.ConsoleIdentityWrapper;
+import com.redhat.cloud.notifications.auth.rbac.RbacRaw;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.Json;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Caches the decoded {@code x-rh-identity} header and the RBAC access of the identity. The UI fires many API calls in
+ * parallel on each page load, so the same header is usually received several times in a very short period of time.
+ * The entries are keyed on a SHA-256 hash of the header and expire according to the {@code rbac-cache} configuration.
+ * Concurrent lookups of a missing entry share the same pending computation, which means that RBAC is called only once.
+ */
+@ApplicationScoped
+public class ConsoleIdentityCache {
+
+    public static final String CACHE_NAME = "rbac-cache";
+    public static final String CACHE_HITS_COUNTER_NAME = "rbac.identity-cache.hits";
+    public static final String CACHE_MISSES_COUNTER_NAME = "rbac.identity-cache.misses";
+
+    @CacheName(CACHE_NAME)
+    Cache cache;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter(CACHE_HITS_COUNTER_NAME);
+        misses = meterRegistry.counter(CACHE_MISSES_COUNTER_NAME);
+    }
+
+    /**
+     * Retrieves the identity from the cache or computes it if it is missing.
+     * @param xRhIdHeader the raw identity header
+     * @param rbacLoader loads the RBAC access of a decoded identity, or returns a {@code null} item if the identity
+     *                   does not rely on RBAC
+     * @return the cached identity
+     */
+    public Uni<CachedIdentity> get(String xRhIdHeader, Function<ConsoleIdentity, Uni<RbacRaw>> rbacLoader) {
+        /*
+         * The loader is only invoked on a cache miss. Failures are not cached: the next lookup will invoke the loader
+         * again.
+         */
+        boolean[] loaded = new boolean[1];
+        return Uni.createFrom().deferred(() -> cache.<String, CachedIdentity>getAsync(hash(xRhIdHeader), key -> {
+            loaded[0] = true;
+            return Uni.createFrom().item(() -> decode(xRhIdHeader))
+                    .onItem().transformToUni(identity -> rbacLoader.apply(identity)
+                            .onItem().transform(rbacRaw -> new CachedIdentity(identity, rbacRaw))
+                    );
+        })).onItem().invoke(() -> {
+            if (loaded[0]) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+        });
+    }
+
+    public static ConsoleIdentity decode(String xRhIdHeader) {
+        String xRhDecoded = Base64Utils.decode(xRhIdHeader);
+        ConsoleIdentity identity = Json.decodeValue(xRhDecoded, ConsoleIdentityWrapper.class).getIdentity();
+        identity.rawIdentity = xRhIdHeader;
+        return identity;
+    }
+
+    private static String hash(String xRhIdHeader) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(xRhIdHeader.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class CachedIdentity {
+
+        private final ConsoleIdentity identity;
+        private final RbacRaw rbacRaw;
+
+        public CachedIdentity(ConsoleIdentity identity, RbacRaw rbacRaw) {
+            this.identity = identity;
+            this.rbacRaw = rbacRaw;
+        }
+
+        public ConsoleIdentity getIdentity() {
+            return identity;
+        }
+
+        public RbacRaw getRbacRaw() {
+            return rbacRaw;
+        }
+    }
+}
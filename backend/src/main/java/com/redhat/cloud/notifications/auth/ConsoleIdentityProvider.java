@@ -1,15 +1,16 @@
 package com.redhat.cloud.notifications.auth;
 
-import com.redhat.cloud.notifications.Base64Utils;
 import com.redhat.cloud.notifications.auth.principal.ConsoleIdentity;
-import com.redhat.cloud.notifications.auth.principal.ConsoleIdentityWrapper;
 import com.redhat.cloud.notifications.auth.principal.ConsolePrincipal;
 import com.redhat.cloud.notifications.auth.principal.ConsolePrincipalFactory;
 import com.redhat.cloud.notifications.auth.principal.IllegalIdentityHeaderException;
 import com.redhat.cloud.notifications.auth.principal.rhid.RhIdentity;
 import com.redhat.cloud.notifications.auth.principal.turnpike.TurnpikeSamlIdentity;
+import com.redhat.cloud.notifications.auth.rbac.RbacRaw;
 import com.redhat.cloud.notifications.auth.rbac.RbacServer;
 import com.redhat.cloud.notifications.models.InternalRoleAccess;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.netty.channel.ConnectTimeoutException;
 import io.quarkus.logging.Log;
 import io.quarkus.security.AuthenticationFailedException;
@@ -18,7 +19,6 @@ import io.quarkus.security.identity.IdentityProvider;
 import io.quarkus.security.identity.SecurityIdentity;
 import io.quarkus.security.runtime.QuarkusSecurityIdentity;
 import io.smallrye.mutiny.Uni;
-import io.vertx.core.json.Json;
 import io.vertx.ext.web.RoutingContext;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
@@ -49,6 +49,8 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
     // This permission is added to users of the ${internal.admin-role} group
     public static final String RBAC_INTERNAL_ADMIN = "write:internal";
 
+    public static final String RBAC_LATENCY_TIMER_NAME = "rbac.access.latency";
+
     @ConfigProperty(name = "internal.admin-role")
     String adminRole;
 
@@ -59,6 +61,12 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
     @Inject
     RoutingContext routingContext;
 
+    @Inject
+    ConsoleIdentityCache consoleIdentityCache;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
     @ConfigProperty(name = "rbac.enabled", defaultValue = "true")
     Boolean isRbacEnabled;
 
@@ -82,7 +90,7 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
             Principal principal;
             String xH = rhAuthReq.getAttribute(X_RH_IDENTITY_HEADER);
             if (xH != null) {
-                ConsoleIdentity identity = getRhIdentityFromString(xH);
+                ConsoleIdentity identity = ConsoleIdentityCache.decode(xH);
                 try {
                     principal = ConsolePrincipalFactory.fromIdentity(identity);
                 } catch (IllegalIdentityHeaderException e) {
@@ -108,11 +116,12 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
         // Retrieve the identity header from the authentication request
         return Uni.createFrom().item(() -> (String) rhAuthReq.getAttribute(X_RH_IDENTITY_HEADER))
                 .onItem().transformToUni(xRhIdHeader ->
-                        // Start building a QuarkusSecurityIdentity
-                        Uni.createFrom().item(QuarkusSecurityIdentity.builder())
-                                .onItem().transformToUni(builder -> {
-                                    // Decode the header and deserialize the resulting JSON
-                                    ConsoleIdentity identity = getRhIdentityFromString(xRhIdHeader);
+                        // The decoded identity and its RBAC access are retrieved from the cache or computed if missing
+                        consoleIdentityCache.get(xRhIdHeader, this::getRbacInfo)
+                                .onItem().transformToUni(cachedIdentity -> {
+                                    // Start building a QuarkusSecurityIdentity
+                                    QuarkusSecurityIdentity.Builder builder = QuarkusSecurityIdentity.builder();
+                                    ConsoleIdentity identity = cachedIdentity.getIdentity();
                                     try {
                                         ConsolePrincipal<?> principal = ConsolePrincipalFactory.fromIdentity(identity);
                                         builder.setPrincipal(principal);
@@ -120,40 +129,24 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
                                         return Uni.createFrom().failure(() -> new AuthenticationFailedException(e));
                                     }
                                     if (identity instanceof RhIdentity) {
-                                        return rbacServer.getRbacInfo("notifications,integrations", xRhIdHeader)
-                                                /*
-                                                 * RBAC server calls fail regularly because of RBAC instability so we need to retry.
-                                                 * IOException is thrown when the connection between us and RBAC is reset during an RBAC call execution.
-                                                 * ConnectTimeoutException is thrown when RBAC does not respond at all to our call.
-                                                 */
-                                                .onFailure(failure -> failure.getClass() == IOException.class || failure.getClass() == ConnectTimeoutException.class)
-                                                .retry()
-                                                .withBackOff(initialBackOff, maxBackOff)
-                                                .atMost(maxRetryAttempts)
-                                                // After we're done retrying, an RBAC server call failure will cause an authentication failure
-                                                .onFailure().transform(failure -> {
-                                                    throw new AuthenticationFailedException("RBAC authentication call failed", failure);
-                                                })
-                                                // Otherwise, we can finish building the QuarkusSecurityIdentity and return the result
-                                                .onItem().transform(rbacRaw -> {
-                                                    if (rbacRaw.canRead("notifications", "events")) {
-                                                        builder.addRole(RBAC_READ_NOTIFICATIONS_EVENTS);
-                                                    }
-                                                    if (rbacRaw.canRead("notifications", "notifications")) {
-                                                        builder.addRole(RBAC_READ_NOTIFICATIONS);
-                                                    }
-                                                    if (rbacRaw.canWrite("notifications", "notifications")) {
-                                                        builder.addRole(RBAC_WRITE_NOTIFICATIONS);
-                                                    }
-                                                    if (rbacRaw.canRead("integrations", "endpoints")) {
-                                                        builder.addRole(RBAC_READ_INTEGRATIONS_ENDPOINTS);
-                                                    }
-                                                    if (rbacRaw.canWrite("integrations", "endpoints")) {
-                                                        builder.addRole(RBAC_WRITE_INTEGRATIONS_ENDPOINTS);
-                                                    }
-                                                    routingContext.put("x-rh-rbac-org-id", ((RhIdentity) identity).getOrgId());
-                                                    return builder.build();
-                                                });
+                                        RbacRaw rbacRaw = cachedIdentity.getRbacRaw();
+                                        if (rbacRaw.canRead("notifications", "events")) {
+                                            builder.addRole(RBAC_READ_NOTIFICATIONS_EVENTS);
+                                        }
+                                        if (rbacRaw.canRead("notifications", "notifications")) {
+                                            builder.addRole(RBAC_READ_NOTIFICATIONS);
+                                        }
+                                        if (rbacRaw.canWrite("notifications", "notifications")) {
+                                            builder.addRole(RBAC_WRITE_NOTIFICATIONS);
+                                        }
+                                        if (rbacRaw.canRead("integrations", "endpoints")) {
+                                            builder.addRole(RBAC_READ_INTEGRATIONS_ENDPOINTS);
+                                        }
+                                        if (rbacRaw.canWrite("integrations", "endpoints")) {
+                                            builder.addRole(RBAC_WRITE_INTEGRATIONS_ENDPOINTS);
+                                        }
+                                        routingContext.put("x-rh-rbac-org-id", ((RhIdentity) identity).getOrgId());
+                                        return Uni.createFrom().item(builder.build());
                                     } else if (identity instanceof TurnpikeSamlIdentity) {
                                         builder.addRole(RBAC_INTERNAL_USER);
                                         for (String role : ((TurnpikeSamlIdentity) identity).associate.roles) {
@@ -179,10 +172,37 @@ public class ConsoleIdentityProvider implements IdentityProvider<ConsoleAuthenti
                 );
     }
 
-    private static ConsoleIdentity getRhIdentityFromString(String xRhIdHeader) {
-        String xRhDecoded = Base64Utils.decode(xRhIdHeader);
-        ConsoleIdentity identity = Json.decodeValue(xRhDecoded, ConsoleIdentityWrapper.class).getIdentity();
-        identity.rawIdentity = xRhIdHeader;
-        return identity;
+    /*
+     * Only the identities from console.redhat.com rely on RBAC. This method is called on cache misses only and a
+     * null item is returned for the other identities.
+     */
+    private Uni<RbacRaw> getRbacInfo(ConsoleIdentity identity) {
+        if (!(identity instanceof RhIdentity)) {
+            return Uni.createFrom().nullItem();
+        }
+        try {
+            // Invalid identities are rejected before RBAC is called. The failure is not cached.
+            ConsolePrincipalFactory.fromIdentity(identity);
+        } catch (IllegalIdentityHeaderException e) {
+            return Uni.createFrom().failure(() -> new AuthenticationFailedException(e));
+        }
+        Timer.Sample rbacTimer = Timer.start(meterRegistry);
+        return rbacServer.getRbacInfo("notifications,integrations", identity.rawIdentity)
+                /*
+                 * RBAC server calls fail regularly because of RBAC instability so we need to retry.
+                 * IOException is thrown when the connection between us and RBAC is reset during an RBAC call execution.
+                 * ConnectTimeoutException is thrown when RBAC does not respond at all to our call.
+                 */
+                .onFailure(failure -> failure.getClass() == IOException.class || failure.getClass() == ConnectTimeoutException.class)
+                .retry()
+                .withBackOff(initialBackOff, maxBackOff)
+                .atMost(maxRetryAttempts)
+                // After we're done retrying, an RBAC server call failure will cause an authentication failure
+                .onFailure().transform(failure -> {
+                    throw new AuthenticationFailedException("RBAC authentication call failed", failure);
+                })
+                .onTermination().invoke((rbacRaw, failure, cancelled) ->
+                        rbacTimer.stop(meterRegistry.timer(RBAC_LATENCY_TIMER_NAME, "success", String.valueOf(failure == null && !cancelled)))
+                );
     }
 }
@@ -0,0 +1,60 @@
+package com.redhat.cloud.notifications.db;
+
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository;
+import com.redhat.cloud.notifications.models.DisplayNameBackfill;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Optional;
+
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Updates the denormalized display names of the events after a bundle, an application or an event type was renamed.
+ * The events are updated in small chunks, each chunk being committed in its own transaction, with a pause between
+ * two chunks to limit the impact on the event log and on the engine insertions. The position of each backfill is
+ * stored in the database, so an interrupted backfill resumes where it stopped after a restart.
+ */
+@ApplicationScoped
+public class DisplayNameBackfillJob {
+
+    @ConfigProperty(name = "notifications.display-name-backfill.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "notifications.display-name-backfill.throttle", defaultValue = "PT0.2S")
+    Duration throttle;
+
+    @ConfigProperty(name = "notifications.display-name-backfill.max-run-duration", defaultValue = "PT50S")
+    Duration maxRunDuration;
+
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
+    @Scheduled(identity = "DisplayNameBackfill", every = "${notifications.display-name-backfill.period:60s}", delayed = "${notifications.display-name-backfill.initial-delay:30s}", concurrentExecution = SKIP)
+    public void run() {
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        while (System.nanoTime() < deadline) {
+            Optional<DisplayNameBackfill> backfill = displayNameBackfillRepository.processNextChunk(chunkSize);
+            if (backfill.isEmpty()) {
+                return;
+            }
+            if (backfill.get().getLastEventTypeId() == null) {
+                Log.infof("Display name backfill of %s %s completed, %d events updated",
+                        backfill.get().getTargetType(), backfill.get().getTargetId(), backfill.get().getUpdatedEvents());
+            } else {
+                Log.debugf("Display name backfill of %s %s in progress, %d events updated",
+                        backfill.get().getTargetType(), backfill.get().getTargetId(), backfill.get().getUpdatedEvents());
+            }
+            try {
+                Thread.sleep(throttle.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.redhat.cloud.notifications.db;
+
+import com.redhat.cloud.notifications.db.repositories.EventRepository;
+import com.redhat.cloud.notifications.db.repositories.NotificationRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.function.IntUnaryOperator;
+
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Copies the legacy text payloads of the events and details of the notification history entries into their jsonb
+ * columns, which were added by the V1.86.0 migration. The rows are updated in small chunks, each chunk being committed
+ * in its own transaction, with a pause between two chunks. Once the backfill is done, each run only costs one read of
+ * two empty partial indexes. The job keeps running after that because engine pods from a previous version may still
+ * insert rows without the jsonb columns during a rolling deployment.
+ */
+@ApplicationScoped
+public class JsonbBackfillJob {
+
+    @ConfigProperty(name = "notifications.jsonb-backfill.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "notifications.jsonb-backfill.throttle", defaultValue = "PT0.2S")
+    Duration throttle;
+
+    @ConfigProperty(name = "notifications.jsonb-backfill.max-run-duration", defaultValue = "PT50S")
+    Duration maxRunDuration;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Inject
+    NotificationRepository notificationRepository;
+
+    @Scheduled(identity = "JsonbBackfill", every = "${notifications.jsonb-backfill.period:60s}", delayed = "${notifications.jsonb-backfill.initial-delay:30s}", concurrentExecution = SKIP)
+    public void run() {
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        int events = backfill(eventRepository::backfillPayloadJsonbChunk, deadline);
+        int historyEntries = backfill(notificationRepository::backfillDetailsJsonbChunk, deadline);
+        if (events > 0 || historyEntries > 0) {
+            Log.infof("Jsonb column backfilled for %d events and %d notification history entries", events, historyEntries);
+        }
+    }
+
+    private int backfill(IntUnaryOperator chunkBackfill, long deadline) {
+        int processed = 0;
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            int chunk = chunkBackfill.applyAsInt(chunkSize);
+            processed += chunk;
+            if (chunk < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(throttle.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return processed;
+    }
+}
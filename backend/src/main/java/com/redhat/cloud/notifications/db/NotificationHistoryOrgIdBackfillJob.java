@@ -0,0 +1,57 @@
+package com.redhat.cloud.notifications.db;
+
+import com.redhat.cloud.notifications.db.repositories.NotificationRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Sets the org ID of the notification history entries which were created before it was denormalized from the event
+ * table. The entries are updated in small chunks, each chunk being committed in its own transaction, with a pause
+ * between two chunks. Once the backfill is done, each run only costs one read of an empty partial index. The job keeps
+ * running after that because engine pods from a previous version may still insert history entries without an org ID
+ * during a rolling deployment.
+ */
+@ApplicationScoped
+public class NotificationHistoryOrgIdBackfillJob {
+
+    @ConfigProperty(name = "notifications.history-org-id-backfill.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "notifications.history-org-id-backfill.throttle", defaultValue = "PT0.2S")
+    Duration throttle;
+
+    @ConfigProperty(name = "notifications.history-org-id-backfill.max-run-duration", defaultValue = "PT50S")
+    Duration maxRunDuration;
+
+    @Inject
+    NotificationRepository notificationRepository;
+
+    @Scheduled(identity = "NotificationHistoryOrgIdBackfill", every = "${notifications.history-org-id-backfill.period:60s}", delayed = "${notifications.history-org-id-backfill.initial-delay:30s}", concurrentExecution = SKIP)
+    public void run() {
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        int processed = 0;
+        while (System.nanoTime() < deadline) {
+            int chunk = notificationRepository.backfillOrgIdChunk(chunkSize);
+            processed += chunk;
+            if (chunk < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(throttle.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (processed > 0) {
+            Log.infof("Org ID backfilled for %d notification history entries", processed);
+        }
+    }
+}
@@ -22,12 +22,18 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.Supplier;
 
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.APPLICATION;
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.EVENT_TYPE;
+
 @ApplicationScoped
 public class ApplicationRepository {
 
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
     @Transactional
     public Application createApp(Application app) {
         Bundle bundle = entityManager.find(Bundle.class, app.getBundleId());
@@ -42,17 +48,19 @@ public class ApplicationRepository {
 
     @Transactional
     public int updateApplication(UUID id, Application app) {
+        List<String> oldDisplayName = entityManager.createQuery("SELECT displayName FROM Application WHERE id = :id", String.class)
+                .setParameter("id", id)
+                .getResultList();
         String appQuery = "UPDATE Application SET name = :name, displayName = :displayName WHERE id = :id";
         int rowCount = entityManager.createQuery(appQuery)
                 .setParameter("name", app.getName())
                 .setParameter("displayName", app.getDisplayName())
                 .setParameter("id", id)
                 .executeUpdate();
-        String eventQuery = "UPDATE Event SET applicationDisplayName = :displayName WHERE applicationId = :applicationId";
-        entityManager.createQuery(eventQuery)
-                .setParameter("displayName", app.getDisplayName())
-                .setParameter("applicationId", id)
-                .executeUpdate();
+        if (rowCount > 0 && !oldDisplayName.contains(app.getDisplayName())) {
+            // The events are updated asynchronously to keep this transaction short.
+            displayNameBackfillRepository.schedule(APPLICATION, id, app.getDisplayName());
+        }
         return rowCount;
     }
 
@@ -141,6 +149,33 @@ public class ApplicationRepository {
                 .getResultList();
     }
 
+    /**
+     * Returns the IDs of the applications that have at least 1 forced email notification, across all bundles.
+     */
+    public Set<UUID> getApplicationIdsWithForcedEmail(String orgId) {
+        String query = "SELECT DISTINCT a.id FROM Application a " +
+                "JOIN a.eventTypes et " +
+                "JOIN et.behaviors etb " +
+                "JOIN etb.behaviorGroup.actions action " +
+                "WHERE (etb.behaviorGroup.orgId is NULL OR etb.behaviorGroup.orgId = :orgId) " +
+                "AND EXISTS (" +
+                    "SELECT 1 FROM SystemSubscriptionProperties props " +
+                    "WHERE action.id.endpointId = props.id AND props.ignorePreferences = true" +
+                ")";
+        return Set.copyOf(entityManager.createQuery(query, UUID.class)
+                .setParameter("orgId", orgId)
+                .getResultList());
+    }
+
+    /**
+     * Returns all applications with their bundle and their event types loaded by a single query.
+     */
+    public List<Application> getApplicationsWithEventTypes() {
+        String query = "SELECT DISTINCT a FROM Application a JOIN FETCH a.bundle LEFT JOIN FETCH a.eventTypes";
+        return entityManager.createQuery(query, Application.class)
+                .getResultList();
+    }
+
     public UUID getApplicationIdOfEventType(UUID eventTypeId) {
         String query = "SELECT application.id FROM EventType WHERE id = :id";
         return entityManager.createQuery(query, UUID.class)
@@ -180,6 +215,9 @@ public class ApplicationRepository {
 
     @Transactional
     public int updateEventType(UUID id, EventType eventType) {
+        List<String> oldDisplayName = entityManager.createQuery("SELECT displayName FROM EventType WHERE id = :id", String.class)
+                .setParameter("id", id)
+                .getResultList();
         String eventTypeQuery = "UPDATE EventType SET name = :name, displayName = :displayName, description = :description, fullyQualifiedName = :fullyQualifiedName WHERE id = :id";
         int rowCount = entityManager.createQuery(eventTypeQuery)
                 .setParameter("name", eventType.getName())
@@ -188,11 +226,10 @@ public class ApplicationRepository {
                 .setParameter("description", eventType.getDescription())
                 .setParameter("id", id)
                 .executeUpdate();
-        String eventQuery = "UPDATE Event SET eventTypeDisplayName = :displayName WHERE eventType.id = :eventTypeId";
-        entityManager.createQuery(eventQuery)
-                .setParameter("displayName", eventType.getDisplayName())
-                .setParameter("eventTypeId", id)
-                .executeUpdate();
+        if (rowCount > 0 && !oldDisplayName.contains(eventType.getDisplayName())) {
+            // The events are updated asynchronously to keep this transaction short.
+            displayNameBackfillRepository.schedule(EVENT_TYPE, id, eventType.getDisplayName());
+        }
         return rowCount;
     }
 
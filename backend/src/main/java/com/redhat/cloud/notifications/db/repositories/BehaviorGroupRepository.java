@@ -19,9 +19,12 @@ import javax.ws.rs.NotFoundException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static javax.persistence.LockModeType.PESSIMISTIC_WRITE;
 import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
@@ -323,15 +326,13 @@ public class BehaviorGroupRepository {
         eventTypesToAdd.removeAll(eventTypesFromDb);
 
         if (!eventTypesToAdd.isEmpty()) {
-            for (UUID eventTypeId : eventTypesToAdd) {
-                String insertQuery = "INSERT INTO event_type_behavior (event_type_id, behavior_group_id, created) " +
-                        "SELECT :eventTypeId, :behaviorGroupId, :created";
-                entityManager.createNativeQuery(insertQuery)
-                        .setParameter("eventTypeId", eventTypeId)
-                        .setParameter("behaviorGroupId", behaviorGroupId)
-                        .setParameter("created", LocalDateTime.now(UTC))
-                        .executeUpdate();
-            }
+            String insertQuery = "INSERT INTO event_type_behavior (event_type_id, behavior_group_id, created) " +
+                    "SELECT unnest(CAST(:eventTypeIds AS uuid[])), :behaviorGroupId, :created";
+            entityManager.createNativeQuery(insertQuery)
+                    .setParameter("eventTypeIds", toSqlArray(eventTypesToAdd))
+                    .setParameter("behaviorGroupId", behaviorGroupId)
+                    .setParameter("created", LocalDateTime.now(UTC))
+                    .executeUpdate();
         }
     }
 
@@ -390,14 +391,14 @@ public class BehaviorGroupRepository {
                  */
                 List<UUID> behaviorsToInsert = new ArrayList<>(behaviorGroupIds);
                 behaviorsToInsert.removeAll(behaviorsFromDb);
-                for (UUID behaviorGroupId : behaviorsToInsert) {
+                if (!behaviorsToInsert.isEmpty()) {
                     String insertQuery = "INSERT INTO event_type_behavior (event_type_id, behavior_group_id, created) " +
-                            "SELECT :eventTypeId, :behaviorGroupId, :created " +
-                            "WHERE EXISTS (SELECT 1 FROM behavior_group WHERE org_id = :orgId AND id = :behaviorGroupId) " +
+                            "SELECT :eventTypeId, id, :created FROM behavior_group " +
+                            "WHERE org_id = :orgId AND id = ANY(CAST(:behaviorGroupIds AS uuid[])) " +
                             "ON CONFLICT (event_type_id, behavior_group_id) DO NOTHING";
                     entityManager.createNativeQuery(insertQuery)
                             .setParameter("eventTypeId", eventTypeId)
-                            .setParameter("behaviorGroupId", behaviorGroupId)
+                            .setParameter("behaviorGroupIds", toSqlArray(behaviorsToInsert))
                             .setParameter("created", LocalDateTime.now(UTC))
                             .setParameter("orgId", orgId)
                             .executeUpdate();
@@ -587,24 +588,30 @@ public class BehaviorGroupRepository {
                     .executeUpdate();
         }
 
-        for (UUID endpointId : endpointIds) {
+        if (!endpointIds.isEmpty()) {
             /*
-             * Then, we'll execute an "upsert" based on the given endpointIds list:
+             * Then, we'll execute a single "upsert" based on the given endpointIds list:
              * - if an action already exists, its position will be updated
              * - otherwise, the action will be inserted into the database
              * In the end, all inserted or updated actions will have the same position than the endpointIds list order.
+             * An endpoint can only be upserted once per statement, so the duplicates keep the position of their first occurrence.
              */
+            Set<UUID> distinctEndpointIds = new LinkedHashSet<>(endpointIds);
+            List<Integer> positions = distinctEndpointIds.stream()
+                    .map(endpointIds::indexOf)
+                    .collect(Collectors.toList());
+
             String upsertQuery = "INSERT INTO behavior_group_action (behavior_group_id, endpoint_id, position, created) " +
-                    "SELECT :behaviorGroupId, :endpointId, :position, :created " +
-                    "WHERE EXISTS (SELECT 1 FROM endpoints WHERE org_id " +
-                    (orgId == null ? "IS NULL" : "= :orgId") +
-                    " AND id = :endpointId) " +
-                    "ON CONFLICT (behavior_group_id, endpoint_id) DO UPDATE SET position = :position";
+                    "SELECT :behaviorGroupId, e.id, a.pos, :created " +
+                    "FROM unnest(CAST(:endpointIds AS uuid[]), CAST(:positions AS int[])) AS a(endpoint_id, pos) " +
+                    "JOIN endpoints e ON e.id = a.endpoint_id " +
+                    "WHERE e.org_id " + (orgId == null ? "IS NULL" : "= :orgId") + " " +
+                    "ON CONFLICT (behavior_group_id, endpoint_id) DO UPDATE SET position = EXCLUDED.position";
 
             var sessionQuery = entityManager.createNativeQuery(upsertQuery)
                     .setParameter("behaviorGroupId", behaviorGroupId)
-                    .setParameter("endpointId", endpointId)
-                    .setParameter("position", endpointIds.indexOf(endpointId))
+                    .setParameter("endpointIds", toSqlArray(distinctEndpointIds))
+                    .setParameter("positions", toSqlArray(positions))
                     .setParameter("created", LocalDateTime.now(UTC));
 
             if (orgId != null) {
@@ -615,6 +622,15 @@ public class BehaviorGroupRepository {
         }
     }
 
+    /*
+     * The IDs are bound as a single PostgreSQL array literal, so the bulk statements don't depend on the number of IDs.
+     */
+    private static String toSqlArray(Collection<?> values) {
+        return values.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
     public void updateDefaultBehaviorGroupActions(UUID behaviorGroupId, List<UUID> endpointIds) {
         updateBehaviorGroupActions(null, behaviorGroupId, endpointIds);
     }
@@ -13,12 +13,17 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.BUNDLE;
+
 @ApplicationScoped
 public class BundleRepository {
 
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
     @Transactional
     public Bundle createBundle(Bundle bundle) {
         // The returned bundle will contain an ID and a creation timestamp.
@@ -49,17 +54,19 @@ public class BundleRepository {
 
     @Transactional
     public int updateBundle(UUID id, Bundle bundle) {
+        List<String> oldDisplayName = entityManager.createQuery("SELECT displayName FROM Bundle WHERE id = :id", String.class)
+                .setParameter("id", id)
+                .getResultList();
         String bundleQuery = "UPDATE Bundle SET name = :name, displayName = :displayName WHERE id = :id";
         int rowCount = entityManager.createQuery(bundleQuery)
                 .setParameter("name", bundle.getName())
                 .setParameter("displayName", bundle.getDisplayName())
                 .setParameter("id", id)
                 .executeUpdate();
-        String eventQuery = "UPDATE Event SET bundleDisplayName = :displayName WHERE bundleId = :bundleId";
-        entityManager.createQuery(eventQuery)
-                .setParameter("displayName", bundle.getDisplayName())
-                .setParameter("bundleId", id)
-                .executeUpdate();
+        if (rowCount > 0 && !oldDisplayName.contains(bundle.getDisplayName())) {
+            // The events are updated asynchronously to keep this transaction short.
+            displayNameBackfillRepository.schedule(BUNDLE, id, bundle.getDisplayName());
+        }
         return rowCount;
     }
 
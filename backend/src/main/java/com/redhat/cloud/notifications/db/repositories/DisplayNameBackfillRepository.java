@@ -0,0 +1,223 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.models.DisplayNameBackfill;
+import com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType;
+import com.redhat.cloud.notifications.models.Event;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.APPLICATION;
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.BUNDLE;
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.EVENT_TYPE;
+import static java.time.ZoneOffset.UTC;
+
+@ApplicationScoped
+public class DisplayNameBackfillRepository {
+
+    @Inject
+    EntityManager entityManager;
+
+    /**
+     * Schedules the update of the display name of the events related to the given target. This method has to be
+     * called from the transaction which renames the target.
+     */
+    public void schedule(TargetType targetType, UUID targetId, String displayName) {
+        String sql = "INSERT INTO display_name_backfill (id, target_type, target_id, display_name, created) " +
+                "VALUES (:id, :targetType, :targetId, :displayName, :created) " +
+                "ON CONFLICT (target_type, target_id) DO UPDATE SET display_name = EXCLUDED.display_name, " +
+                "last_event_type_id = NULL, last_event_created = NULL, last_event_id = NULL, updated_events = 0, " +
+                "created = EXCLUDED.created, updated = NULL";
+        entityManager.createNativeQuery(sql)
+                .setParameter("id", UUID.randomUUID())
+                .setParameter("targetType", targetType.name())
+                .setParameter("targetId", targetId)
+                .setParameter("displayName", displayName)
+                .setParameter("created", LocalDateTime.now(UTC))
+                .executeUpdate();
+    }
+
+    public List<DisplayNameBackfill> getPendingBackfills() {
+        return entityManager.createQuery("FROM DisplayNameBackfill ORDER BY created", DisplayNameBackfill.class)
+                .getResultList();
+    }
+
+    /**
+     * Returns the display names which are being backfilled. The read paths use them to show the current display names
+     * of the events until the backfill is done.
+     */
+    public PendingDisplayNames getPendingDisplayNames() {
+        Map<TargetType, Map<UUID, String>> displayNames = new EnumMap<>(TargetType.class);
+        for (DisplayNameBackfill backfill : getPendingBackfills()) {
+            displayNames.computeIfAbsent(backfill.getTargetType(), targetType -> new HashMap<>())
+                    .put(backfill.getTargetId(), backfill.getDisplayName());
+        }
+        return new PendingDisplayNames(displayNames);
+    }
+
+    /**
+     * Updates the next chunk of events of a pending backfill. The backfill row remains locked until the end of the
+     * transaction, so several backend pods can work on different backfills at the same time without any conflict.
+     * @return the processed backfill, or an empty {@link Optional} if there is no pending backfill available
+     */
+    @Transactional
+    public Optional<DisplayNameBackfill> processNextChunk(int chunkSize) {
+        String lockQuery = "SELECT * FROM display_name_backfill ORDER BY created LIMIT 1 FOR UPDATE SKIP LOCKED";
+        @SuppressWarnings("unchecked")
+        List<DisplayNameBackfill> backfills = entityManager.createNativeQuery(lockQuery, DisplayNameBackfill.class)
+                .getResultList();
+        if (backfills.isEmpty()) {
+            return Optional.empty();
+        }
+        DisplayNameBackfill backfill = backfills.get(0);
+
+        List<UUID> eventTypeIds = getEventTypeIds(backfill);
+        UUID eventTypeId = backfill.getLastEventTypeId();
+        if (eventTypeId == null || !eventTypeIds.contains(eventTypeId)) {
+            eventTypeId = nextEventTypeId(eventTypeIds, eventTypeId);
+            resetPosition(backfill, eventTypeId);
+        }
+
+        if (eventTypeId != null) {
+            List<Object[]> chunk = getChunk(backfill, eventTypeId, chunkSize);
+            if (!chunk.isEmpty()) {
+                Object[] last = chunk.get(chunk.size() - 1);
+                LocalDateTime lastCreated = ((Timestamp) last[0]).toLocalDateTime();
+                UUID lastId = (UUID) last[1];
+                backfill.setUpdatedEvents(backfill.getUpdatedEvents() + updateChunk(backfill, eventTypeId, lastCreated, lastId));
+                backfill.setLastEventCreated(lastCreated);
+                backfill.setLastEventId(lastId);
+            }
+            if (chunk.size() < chunkSize) {
+                // All events of the current event type were updated.
+                eventTypeId = nextEventTypeId(eventTypeIds, eventTypeId);
+                resetPosition(backfill, eventTypeId);
+            }
+        }
+
+        backfill.setUpdated(LocalDateTime.now(UTC));
+        if (eventTypeId == null) {
+            entityManager.remove(backfill);
+        }
+        return Optional.of(backfill);
+    }
+
+    private List<UUID> getEventTypeIds(DisplayNameBackfill backfill) {
+        List<UUID> eventTypeIds;
+        switch (backfill.getTargetType()) {
+            case BUNDLE:
+                eventTypeIds = entityManager.createQuery("SELECT id FROM EventType WHERE application.bundle.id = :targetId", UUID.class)
+                        .setParameter("targetId", backfill.getTargetId())
+                        .getResultList();
+                break;
+            case APPLICATION:
+                eventTypeIds = entityManager.createQuery("SELECT id FROM EventType WHERE application.id = :targetId", UUID.class)
+                        .setParameter("targetId", backfill.getTargetId())
+                        .getResultList();
+                break;
+            case EVENT_TYPE:
+                eventTypeIds = List.of(backfill.getTargetId());
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected target type: " + backfill.getTargetType());
+        }
+        // The event types are always processed in the same order, which makes the backfill resumable.
+        return eventTypeIds.stream()
+                .sorted(Comparator.comparing(UUID::toString))
+                .collect(Collectors.toList());
+    }
+
+    private static UUID nextEventTypeId(List<UUID> eventTypeIds, UUID current) {
+        return eventTypeIds.stream()
+                .filter(eventTypeId -> current == null || eventTypeId.toString().compareTo(current.toString()) > 0)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void resetPosition(DisplayNameBackfill backfill, UUID eventTypeId) {
+        backfill.setLastEventTypeId(eventTypeId);
+        backfill.setLastEventCreated(null);
+        backfill.setLastEventId(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> getChunk(DisplayNameBackfill backfill, UUID eventTypeId, int chunkSize) {
+        // The explicit lower bound on the 'created' column allows Postgres to skip the partitions of the event table
+        // that were already processed.
+        String sql = "SELECT created, id FROM event WHERE event_type_id = :eventTypeId";
+        if (backfill.getLastEventCreated() != null) {
+            sql += " AND created >= :lastCreated AND (created, id) > (:lastCreated, :lastId)";
+        }
+        sql += " ORDER BY created, id LIMIT :chunkSize";
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("eventTypeId", eventTypeId)
+                .setParameter("chunkSize", chunkSize);
+        if (backfill.getLastEventCreated() != null) {
+            query.setParameter("lastCreated", backfill.getLastEventCreated());
+            query.setParameter("lastId", backfill.getLastEventId());
+        }
+        return query.getResultList();
+    }
+
+    private int updateChunk(DisplayNameBackfill backfill, UUID eventTypeId, LocalDateTime chunkLastCreated, UUID chunkLastId) {
+        String column = backfill.getTargetType().getEventColumn();
+        String sql = "UPDATE event SET " + column + " = :displayName WHERE event_type_id = :eventTypeId " +
+                "AND created <= :chunkLastCreated AND (created, id) <= (:chunkLastCreated, :chunkLastId) " +
+                "AND " + column + " <> :displayName";
+        if (backfill.getLastEventCreated() != null) {
+            sql += " AND created >= :lastCreated AND (created, id) > (:lastCreated, :lastId)";
+        }
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("displayName", backfill.getDisplayName())
+                .setParameter("eventTypeId", eventTypeId)
+                .setParameter("chunkLastCreated", chunkLastCreated)
+                .setParameter("chunkLastId", chunkLastId);
+        if (backfill.getLastEventCreated() != null) {
+            query.setParameter("lastCreated", backfill.getLastEventCreated());
+            query.setParameter("lastId", backfill.getLastEventId());
+        }
+        return query.executeUpdate();
+    }
+
+    public static class PendingDisplayNames {
+
+        private final Map<TargetType, Map<UUID, String>> displayNames;
+
+        PendingDisplayNames(Map<TargetType, Map<UUID, String>> displayNames) {
+            this.displayNames = displayNames;
+        }
+
+        public String getBundleDisplayName(Event event) {
+            return get(BUNDLE, event.getBundleId(), event.getBundleDisplayName());
+        }
+
+        public String getApplicationDisplayName(Event event) {
+            return get(APPLICATION, event.getApplicationId(), event.getApplicationDisplayName());
+        }
+
+        public String getEventTypeDisplayName(Event event) {
+            if (event.getEventType() == null) {
+                return event.getEventTypeDisplayName();
+            }
+            // The event type proxy is not initialized by this call.
+            return get(EVENT_TYPE, event.getEventType().getId(), event.getEventTypeDisplayName());
+        }
+
+        private String get(TargetType targetType, UUID targetId, String defaultDisplayName) {
+            return displayNames.getOrDefault(targetType, Map.of()).getOrDefault(targetId, defaultDisplayName);
+        }
+    }
+}
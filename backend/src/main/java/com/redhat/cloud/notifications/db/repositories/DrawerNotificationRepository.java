@@ -0,0 +1,82 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.models.DrawerNotification;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@ApplicationScoped
+public class DrawerNotificationRepository {
+
+    @Inject
+    EntityManager entityManager;
+
+    /**
+     * Retrieves a page of the drawer feed of a user, from the most recent entry to the oldest one. The page starts
+     * right after the entry identified by {@code afterCreated} and {@code afterId} when these are provided. This keyset
+     * pagination relies on the {@code ix_drawer_notification_feed} index and costs the same whatever the page depth.
+     * The event of each entry is joined on its partition key as well as its ID, so that only its partition is probed.
+     * @return at most {@code limit} entries
+     */
+    public List<DrawerNotification> getFeed(String orgId, String userId, Boolean read, LocalDateTime afterCreated, UUID afterId, int limit) {
+        String hql = "SELECT dn FROM DrawerNotification dn JOIN FETCH dn.event e " +
+                "WHERE e.created = dn.eventCreated AND dn.orgId = :orgId AND dn.userId = :userId";
+        if (read != null) {
+            hql += " AND dn.read = :read";
+        }
+        if (afterCreated != null && afterId != null) {
+            hql += " AND (dn.created < :afterCreated OR (dn.created = :afterCreated AND dn.id < :afterId))";
+        }
+        hql += " ORDER BY dn.created DESC, dn.id DESC";
+
+        TypedQuery<DrawerNotification> query = entityManager.createQuery(hql, DrawerNotification.class)
+                .setParameter("orgId", orgId)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (read != null) {
+            query.setParameter("read", read);
+        }
+        if (afterCreated != null && afterId != null) {
+            query.setParameter("afterCreated", afterCreated);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    /*
+     * The unread count is maintained by database triggers on every insertion, update or deletion of a drawer entry.
+     * Reading it is a primary key lookup instead of a COUNT(*) over the whole drawer of the user.
+     */
+    public long getUnreadCount(String orgId, String userId) {
+        String sql = "SELECT unread_count FROM drawer_unread_counter WHERE org_id = :orgId AND user_id = :userId";
+        try {
+            return ((Number) entityManager.createNativeQuery(sql)
+                    .setParameter("orgId", orgId)
+                    .setParameter("userId", userId)
+                    .getSingleResult()).longValue();
+        } catch (NoResultException e) {
+            return 0L;
+        }
+    }
+
+    @Transactional
+    public int updateReadStatus(String orgId, String userId, Set<UUID> notificationIds, boolean read) {
+        // Entries which already have the requested status are skipped so that the counter triggers have less work.
+        String hql = "UPDATE DrawerNotification SET read = :read " +
+                "WHERE orgId = :orgId AND userId = :userId AND id IN (:notificationIds) AND read <> :read";
+        return entityManager.createQuery(hql)
+                .setParameter("read", read)
+                .setParameter("orgId", orgId)
+                .setParameter("userId", userId)
+                .setParameter("notificationIds", notificationIds)
+                .executeUpdate();
+    }
+}
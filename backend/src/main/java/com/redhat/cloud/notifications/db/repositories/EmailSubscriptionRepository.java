@@ -43,6 +43,7 @@ public class EmailSubscriptionRepository {
             .executeUpdate();
 
         replicateSubscribeToEventTypeLevel(orgId, username, bundleName, applicationName, subscriptionType);
+        recordChange(orgId, bundleName, applicationName);
         return true;
     }
 
@@ -60,6 +61,7 @@ public class EmailSubscriptionRepository {
             .executeUpdate();
 
         replicateUnsubscribeToEventTypeLevel(orgId, username, subscriptionType, bundleName, applicationName);
+        recordChange(orgId, bundleName, applicationName);
         return true;
     }
 
@@ -113,13 +115,15 @@ public class EmailSubscriptionRepository {
             "ON CONFLICT (org_id, user_id, event_type_id, subscription_type) DO NOTHING"; // The value is already on the database, this is OK
 
         // HQL does not support the ON CONFLICT clause so we need a native query here
-        return entityManager.createNativeQuery(query)
+        int inserted = entityManager.createNativeQuery(query)
             .setParameter("orgId", orgId)
             .setParameter("userId", username)
             .setParameter("eventTypeId", eventTypeId)
             .setParameter("subscriptionType", subscriptionType.name())
             .setParameter("subscribed", subscribed)
             .executeUpdate();
+        recordChange(orgId, eventTypeId);
+        return inserted;
     }
 
     public int unsubscribeEventType(String orgId, String userId, UUID eventTypeId, EmailSubscriptionType subscriptionType) {
@@ -135,9 +139,38 @@ public class EmailSubscriptionRepository {
     @Transactional
     public int deleteEventTypeSubscription(String orgId, String userId, UUID eventTypeId, EmailSubscriptionType subscriptionType) {
         String query = "DELETE FROM EventTypeEmailSubscription WHERE id = :Id";
-        return entityManager.createQuery(query)
+        int deleted = entityManager.createQuery(query)
             .setParameter("Id", new EventTypeEmailSubscriptionId(orgId, userId, eventTypeId, subscriptionType))
             .executeUpdate();
+        recordChange(orgId, eventTypeId);
+        return deleted;
+    }
+
+    /*
+     * The engine caches the email subscribers of each org and application. The following methods record the change of
+     * the subscriptions in the same transaction as the change itself. The engine polls the recorded changes and
+     * invalidates its cache entries accordingly.
+     */
+    private void recordChange(String orgId, String bundleName, String applicationName) {
+        String query = "INSERT INTO email_subscription_change (org_id, application_id, updated) " +
+            "SELECT :orgId, a.id, NOW() AT TIME ZONE 'UTC' FROM applications a JOIN bundles b ON a.bundle_id = b.id " +
+            "WHERE a.name = :applicationName AND b.name = :bundleName " +
+            "ON CONFLICT (org_id, application_id) DO UPDATE SET updated = EXCLUDED.updated";
+        entityManager.createNativeQuery(query)
+            .setParameter("orgId", orgId)
+            .setParameter("bundleName", bundleName)
+            .setParameter("applicationName", applicationName)
+            .executeUpdate();
+    }
+
+    private void recordChange(String orgId, UUID eventTypeId) {
+        String query = "INSERT INTO email_subscription_change (org_id, application_id, updated) " +
+            "SELECT :orgId, et.application_id, NOW() AT TIME ZONE 'UTC' FROM event_type et WHERE et.id = :eventTypeId " +
+            "ON CONFLICT (org_id, application_id) DO UPDATE SET updated = EXCLUDED.updated";
+        entityManager.createNativeQuery(query)
+            .setParameter("orgId", orgId)
+            .setParameter("eventTypeId", eventTypeId)
+            .executeUpdate();
     }
 
     public List<EventTypeEmailSubscription> getEmailSubscriptionByEventType(String orgId, String username, String bundleName, String applicationName) {
@@ -10,6 +10,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -19,9 +20,17 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import static java.time.ZoneOffset.UTC;
+
 @ApplicationScoped
 public class EventRepository {
 
+    /*
+     * Events are deleted from the database after that delay by the DB cleaning cron job. Filtering the queries on that
+     * delay allows Postgres to skip the expired partitions of the event table (partition pruning).
+     */
+    public static final long EVENT_LOG_RETENTION_DAYS = 31L;
+
     @Inject
     EntityManager entityManager;
 
@@ -31,6 +40,7 @@ public class EventRepository {
         query.setSortFields(Event.SORT_FIELDS);
         query.setDefaultSortBy("created:DESC");
         Optional<Query.Sort> sort = query.getSort();
+        startDate = withRetentionLowerBound(startDate);
         List<UUID> eventIds = getEventIds(orgId, bundleIds, appIds, eventTypeDisplayName, startDate, endDate, endpointTypes, compositeEndpointTypes, invocationResults, status, query);
         String hql;
         if (fetchNotificationHistory) {
@@ -54,6 +64,7 @@ public class EventRepository {
                       Set<NotificationStatus> status) {
         String hql = "SELECT COUNT(*) FROM Event e WHERE e.orgId = :orgId";
 
+        startDate = withRetentionLowerBound(startDate);
         hql = addHqlConditions(hql, bundleIds, appIds, eventTypeDisplayName, startDate, endDate, endpointTypes, compositeEndpointTypes, invocationResults, status);
 
         TypedQuery<Long> query = entityManager.createQuery(hql, Long.class);
@@ -62,6 +73,37 @@ public class EventRepository {
         return query.getSingleResult();
     }
 
+    /**
+     * Copies the legacy text payload of the next chunk of events which were created before the jsonb column existed,
+     * or by an engine pod from a previous version, into the jsonb column.
+     * @return the number of events updated, which is lower than {@code chunkSize} if the backfill is done
+     */
+    @Transactional
+    public int backfillPayloadJsonbChunk(int chunkSize) {
+        // The chunk is read from the partial index ix_event_missing_payload_jsonb.
+        String sql = "WITH chunk AS (" +
+                    "SELECT id, created FROM event WHERE payload_jsonb IS NULL AND payload IS NOT NULL " +
+                    "ORDER BY created, id LIMIT :chunkSize FOR UPDATE SKIP LOCKED" +
+                ") UPDATE event e SET payload_jsonb = CAST(e.payload AS jsonb) FROM chunk " +
+                "WHERE e.id = chunk.id AND e.created = chunk.created";
+        return entityManager.createNativeQuery(sql)
+                .setParameter("chunkSize", chunkSize)
+                .executeUpdate();
+    }
+
+    public static LocalDate getRetentionLowerBound() {
+        return LocalDate.now(UTC).minusDays(EVENT_LOG_RETENTION_DAYS);
+    }
+
+    private static LocalDate withRetentionLowerBound(LocalDate startDate) {
+        LocalDate lowerBound = getRetentionLowerBound();
+        if (startDate == null || startDate.isBefore(lowerBound)) {
+            return lowerBound;
+        } else {
+            return startDate;
+        }
+    }
+
     private String getOrderBy(Query.Sort sort) {
         if (!sort.getSortColumn().equals("e.created")) {
             return " " + sort.getSortQuery() + ", e.created DESC";
@@ -4,16 +4,23 @@ import com.redhat.cloud.notifications.db.Query;
 import com.redhat.cloud.notifications.models.NotificationHistory;
 import io.quarkus.logging.Log;
 import io.vertx.core.json.JsonObject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static com.redhat.cloud.notifications.db.repositories.EventRepository.getRetentionLowerBound;
+
 @ApplicationScoped
 public class NotificationRepository {
 
@@ -22,31 +29,76 @@ public class NotificationRepository {
     @Inject
     EntityManager entityManager;
 
+    /*
+     * The org ID of the history entries created before it was denormalized onto the notification_history table is
+     * backfilled by NotificationHistoryOrgIdBackfillJob. Until that is done, the org ID of the history entries has to be
+     * read from the event table. Once the backfill is done, it is never checked again.
+     */
+    private volatile boolean orgIdBackfilled;
+    private volatile Long orgIdBackfillLastCheck;
+
+    @ConfigProperty(name = "notifications.history-org-id-backfill.check-interval", defaultValue = "PT1M")
+    Duration orgIdBackfillCheckInterval;
+
     public List<NotificationHistory> getNotificationHistory(String orgId, UUID endpoint, boolean includeDetails, Query limiter) {
+        return getNotificationHistory(orgId, endpoint, includeDetails, limiter, null, null);
+    }
+
+    /**
+     * Returns the history of an endpoint. If {@code beforeCreated} and {@code beforeId} are provided, the entries
+     * are sorted from the most recent one to the oldest one and only the entries which come after the given position
+     * are returned, without any offset. The sorting and the page number of the {@code limiter} are then ignored.
+     */
+    public List<NotificationHistory> getNotificationHistory(String orgId, UUID endpoint, boolean includeDetails, Query limiter, LocalDateTime beforeCreated, UUID beforeId) {
+        boolean keyset = beforeCreated != null && beforeId != null;
+        boolean legacy = !isOrgIdBackfilled();
+
         String query = "SELECT NEW NotificationHistory(nh.id, nh.invocationTime, nh.invocationResult, nh.status, nh.endpoint, nh.created";
         if (includeDetails) {
             query += ", nh.details";
         }
-        query += ") FROM NotificationHistory nh WHERE nh.endpoint.id = :endpointId AND nh.event.orgId = :orgId";
-
-        if (limiter != null) {
+        if (legacy) {
+            query += ") FROM NotificationHistory nh WHERE nh.endpoint.id = :endpointId AND nh.event.orgId = :orgId " +
+                    "AND nh.created >= :retentionStart AND nh.event.created >= :eventRetentionStart";
+        } else {
+            query += ") FROM NotificationHistory nh WHERE nh.orgId = :orgId AND nh.endpoint.id = :endpointId AND nh.created >= :retentionStart";
+        }
+        if (keyset) {
+            query += " AND (nh.created < :beforeCreated OR (nh.created = :beforeCreated AND nh.id < :beforeId))";
+        }
+        if (limiter != null && !keyset) {
             limiter.setSortFields(NotificationHistory.SORT_FIELDS);
+        }
+        if (limiter != null && !keyset && limiter.getSort().isPresent()) {
             query = limiter.getModifiedQuery(query);
+        } else {
+            // This order matches the ix_notification_history_org_id_endpoint_id_created index and the keyset pagination.
+            query += " ORDER BY nh.created DESC, nh.id DESC";
         }
 
         TypedQuery<NotificationHistory> historyQuery = entityManager.createQuery(query, NotificationHistory.class)
                 .setParameter("orgId", orgId)
                 .setParameter("endpointId", endpoint)
+                .setParameter("retentionStart", getRetentionLowerBound().atStartOfDay())
                 // Default limit to prevent OutOfMemoryError, it may be overridden below.
                 .setMaxResults(MAX_NOTIFICATION_HISTORY_RESULTS);
+        if (legacy) {
+            historyQuery.setParameter("eventRetentionStart", Timestamp.valueOf(getRetentionLowerBound().atStartOfDay()));
+        }
+        if (keyset) {
+            historyQuery.setParameter("beforeCreated", beforeCreated)
+                    .setParameter("beforeId", beforeId);
+        }
 
         if (limiter != null && limiter.getLimit() != null && limiter.getLimit().getLimit() > 0) {
             if (limiter.getLimit().getLimit() > MAX_NOTIFICATION_HISTORY_RESULTS) {
                 Log.debugf("Too many notification history entries requested (%d), the default max limit (%d) will be enforced",
                         limiter.getLimit().getLimit(), MAX_NOTIFICATION_HISTORY_RESULTS);
             } else {
-                historyQuery = historyQuery.setMaxResults(limiter.getLimit().getLimit())
-                        .setFirstResult(limiter.getLimit().getOffset());
+                historyQuery = historyQuery.setMaxResults(limiter.getLimit().getLimit());
+                if (!keyset) {
+                    historyQuery = historyQuery.setFirstResult(limiter.getLimit().getOffset());
+                }
             }
         }
 
@@ -55,13 +107,25 @@ public class NotificationRepository {
     }
 
     public JsonObject getNotificationDetails(String orgId, UUID endpoint, UUID historyId) {
-        String query = "SELECT details FROM NotificationHistory WHERE event.orgId = :orgId AND endpoint.id = :endpointId AND id = :historyId";
+        boolean legacy = !isOrgIdBackfilled();
+        String query;
+        if (legacy) {
+            query = "SELECT details FROM NotificationHistory WHERE event.orgId = :orgId AND endpoint.id = :endpointId AND id = :historyId " +
+                    "AND created >= :retentionStart AND event.created >= :eventRetentionStart";
+        } else {
+            query = "SELECT details FROM NotificationHistory WHERE orgId = :orgId AND endpoint.id = :endpointId AND id = :historyId " +
+                    "AND created >= :retentionStart";
+        }
         try {
-            Map<String, Object> map = entityManager.createQuery(query, Map.class)
+            TypedQuery<Map> detailsQuery = entityManager.createQuery(query, Map.class)
                     .setParameter("orgId", orgId)
                     .setParameter("endpointId", endpoint)
                     .setParameter("historyId", historyId)
-                    .getSingleResult();
+                    .setParameter("retentionStart", getRetentionLowerBound().atStartOfDay());
+            if (legacy) {
+                detailsQuery.setParameter("eventRetentionStart", Timestamp.valueOf(getRetentionLowerBound().atStartOfDay()));
+            }
+            Map<String, Object> map = detailsQuery.getSingleResult();
             if (map == null) {
                 return null;
             } else {
@@ -72,4 +136,57 @@ public class NotificationRepository {
         }
     }
 
+    /**
+     * Sets the org ID of the next chunk of history entries which don't have one yet. The history entries whose event no
+     * longer exists were never visible from the API because it always joined the event table, they are deleted.
+     * @return the number of history entries processed, which is lower than {@code chunkSize} if the backfill is done
+     */
+    @Transactional
+    public int backfillOrgIdChunk(int chunkSize) {
+        String sql = "WITH chunk AS (" +
+                    "SELECT nh.id, nh.created, e.org_id FROM notification_history nh " +
+                    "LEFT JOIN event e ON e.id = nh.event_id " +
+                    "WHERE nh.org_id IS NULL ORDER BY nh.created, nh.id LIMIT :chunkSize FOR UPDATE OF nh SKIP LOCKED" +
+                "), updated AS (" +
+                    "UPDATE notification_history nh SET org_id = chunk.org_id FROM chunk " +
+                    "WHERE nh.id = chunk.id AND nh.created = chunk.created AND chunk.org_id IS NOT NULL RETURNING 1" +
+                "), deleted AS (" +
+                    "DELETE FROM notification_history nh USING chunk " +
+                    "WHERE nh.id = chunk.id AND nh.created = chunk.created AND chunk.org_id IS NULL RETURNING 1" +
+                ") SELECT (SELECT COUNT(*) FROM updated) + (SELECT COUNT(*) FROM deleted)";
+        Number processed = (Number) entityManager.createNativeQuery(sql)
+                .setParameter("chunkSize", chunkSize)
+                .getSingleResult();
+        return processed.intValue();
+    }
+
+    /**
+     * Copies the legacy text details of the next chunk of history entries which were created before the jsonb column
+     * existed, or by an engine pod from a previous version, into the jsonb column.
+     * @return the number of history entries updated, which is lower than {@code chunkSize} if the backfill is done
+     */
+    @Transactional
+    public int backfillDetailsJsonbChunk(int chunkSize) {
+        // The chunk is read from the partial index ix_notification_history_missing_details_jsonb.
+        String sql = "WITH chunk AS (" +
+                    "SELECT id, created FROM notification_history WHERE details_jsonb IS NULL AND details IS NOT NULL " +
+                    "ORDER BY created, id LIMIT :chunkSize FOR UPDATE SKIP LOCKED" +
+                ") UPDATE notification_history nh SET details_jsonb = CAST(nh.details AS jsonb) FROM chunk " +
+                "WHERE nh.id = chunk.id AND nh.created = chunk.created";
+        return entityManager.createNativeQuery(sql)
+                .setParameter("chunkSize", chunkSize)
+                .executeUpdate();
+    }
+
+    boolean isOrgIdBackfilled() {
+        if (!orgIdBackfilled && (orgIdBackfillLastCheck == null || System.nanoTime() - orgIdBackfillLastCheck >= orgIdBackfillCheckInterval.toNanos())) {
+            // This query only reads the partial index ix_notification_history_missing_org_id, which is empty once the backfill is done.
+            String sql = "SELECT EXISTS (SELECT 1 FROM notification_history WHERE org_id IS NULL)";
+            Boolean missingOrgId = (Boolean) entityManager.createNativeQuery(sql).getSingleResult();
+            orgIdBackfilled = !missingOrgId;
+            orgIdBackfillLastCheck = System.nanoTime();
+        }
+        return orgIdBackfilled;
+    }
+
 }
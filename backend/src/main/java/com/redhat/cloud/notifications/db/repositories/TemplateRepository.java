@@ -7,6 +7,8 @@ import com.redhat.cloud.notifications.models.EmailSubscriptionType;
 import com.redhat.cloud.notifications.models.EventType;
 import com.redhat.cloud.notifications.models.InstantEmailTemplate;
 import com.redhat.cloud.notifications.models.Template;
+import io.quarkus.cache.CacheInvalidateAll;
+import io.quarkus.cache.CacheResult;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -17,13 +19,17 @@ import javax.transaction.Transactional;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static com.redhat.cloud.notifications.models.EmailSubscriptionType.DAILY;
 import static com.redhat.cloud.notifications.models.EmailSubscriptionType.INSTANT;
 
 @ApplicationScoped
 public class TemplateRepository {
 
+    public static final String EMAIL_TEMPLATE_SUPPORT_CACHE_NAME = "email-template-support";
+
     private static final String SUBJECT_NOT_FOUND = "Subject template not found";
     private static final String BODY_NOT_FOUND = "Body template not found";
 
@@ -62,6 +68,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public boolean deleteTemplate(UUID id) {
         Template template = entityManager.find(Template.class, id);
         if (template == null) {
@@ -85,6 +92,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public InstantEmailTemplate createInstantEmailTemplate(InstantEmailTemplate template) {
         Template subjectTemplate = findTemplate(template.getSubjectTemplateId(), SUBJECT_NOT_FOUND);
         Template bodyTemplate = findTemplate(template.getBodyTemplateId(), BODY_NOT_FOUND);
@@ -164,6 +172,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public boolean updateInstantEmailTemplate(UUID id, InstantEmailTemplate template) {
         String hql = "UPDATE InstantEmailTemplate SET eventType = :eventType, subjectTemplate = :subjectTemplate, " +
                 "bodyTemplate = :bodyTemplate WHERE id = :id";
@@ -187,6 +196,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public boolean deleteInstantEmailTemplate(UUID id) {
         String hql = "DELETE FROM InstantEmailTemplate WHERE id = :id";
         int rowCount = entityManager.createQuery(hql)
@@ -196,6 +206,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public AggregationEmailTemplate createAggregationEmailTemplate(AggregationEmailTemplate template) {
         Template subjectTemplate = findTemplate(template.getSubjectTemplateId(), SUBJECT_NOT_FOUND);
         Template bodyTemplate = findTemplate(template.getBodyTemplateId(), BODY_NOT_FOUND);
@@ -260,6 +271,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public boolean updateAggregationEmailTemplate(UUID id, AggregationEmailTemplate template) {
         String hql = "UPDATE AggregationEmailTemplate SET application = :app, subjectTemplate = :subjectTemplate, " +
                 "subscriptionType = :subscriptionType, bodyTemplate = :bodyTemplate WHERE id = :id";
@@ -284,6 +296,7 @@ public class TemplateRepository {
     }
 
     @Transactional
+    @CacheInvalidateAll(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
     public boolean deleteAggregationEmailTemplate(UUID id) {
         String hql = "DELETE FROM AggregationEmailTemplate WHERE id = :id";
         int rowCount = entityManager.createQuery(hql)
@@ -338,6 +351,47 @@ public class TemplateRepository {
         }
     }
 
+    /**
+     * Same as {@link #isEmailSubscriptionSupported(String, String, EmailSubscriptionType)}, but the templates lookup is
+     * answered by the cached {@link EmailTemplateSupport} instead of a query. This is meant for the endpoints which check
+     * the support of every application of every bundle.
+     */
+    public boolean isEmailSubscriptionSupported(UUID applicationId, EmailSubscriptionType subscriptionType) {
+        switch (subscriptionType) {
+            case INSTANT:
+                return featureFlipper.isUseDefaultTemplate() || getEmailTemplateSupport().instantApplicationIds().contains(applicationId);
+            case DAILY:
+                return getEmailTemplateSupport().dailyApplicationIds().contains(applicationId);
+            case DRAWER:
+                return featureFlipper.isDrawerEnabled();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Loads the IDs of the applications which have at least one instant or daily email template. The result is shared
+     * by all requests and invalidated by the email templates changes made through this repository. The changes made
+     * from another replica are only visible once the cache entry expires.
+     */
+    @CacheResult(cacheName = EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
+    public EmailTemplateSupport getEmailTemplateSupport() {
+        String instantHql = "SELECT DISTINCT eventType.application.id FROM InstantEmailTemplate WHERE eventType IS NOT NULL";
+        List<UUID> instantApplicationIds = entityManager.createQuery(instantHql, UUID.class)
+                .getResultList();
+
+        String dailyHql = "SELECT DISTINCT application.id FROM AggregationEmailTemplate " +
+                "WHERE application IS NOT NULL AND subscriptionType = :subscriptionType";
+        List<UUID> dailyApplicationIds = entityManager.createQuery(dailyHql, UUID.class)
+                .setParameter("subscriptionType", DAILY)
+                .getResultList();
+
+        return new EmailTemplateSupport(Set.copyOf(instantApplicationIds), Set.copyOf(dailyApplicationIds));
+    }
+
+    public record EmailTemplateSupport(Set<UUID> instantApplicationIds, Set<UUID> dailyApplicationIds) {
+    }
+
     private boolean isEmailAggregationSupported(String bundleName, String appName, List<EmailSubscriptionType> subscriptionTypes) {
         String hql = "SELECT COUNT(*) FROM AggregationEmailTemplate WHERE application.bundle.name = :bundleName " +
             "AND application.name = :appName AND subscriptionType IN (:subscriptionTypes)";
@@ -0,0 +1,146 @@
+package com.redhat.cloud.notifications.models;
+
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static com.fasterxml.jackson.databind.PropertyNamingStrategies.SnakeCaseStrategy;
+
+/**
+ * Pending update of the denormalized display names stored in the event table after a bundle, an application or an
+ * event type was renamed. The row is deleted once all the related events have been updated.
+ */
+@Entity
+@Table(name = "display_name_backfill")
+@JsonNaming(SnakeCaseStrategy.class)
+public class DisplayNameBackfill {
+
+    public enum TargetType {
+        BUNDLE("bundle_display_name"),
+        APPLICATION("application_display_name"),
+        EVENT_TYPE("event_type_display_name");
+
+        private final String eventColumn;
+
+        TargetType(String eventColumn) {
+            this.eventColumn = eventColumn;
+        }
+
+        public String getEventColumn() {
+            return eventColumn;
+        }
+    }
+
+    @Id
+    private UUID id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private TargetType targetType;
+
+    @NotNull
+    private UUID targetId;
+
+    @NotNull
+    private String displayName;
+
+    private UUID lastEventTypeId;
+
+    private LocalDateTime lastEventCreated;
+
+    private UUID lastEventId;
+
+    private long updatedEvents;
+
+    @NotNull
+    private LocalDateTime created;
+
+    private LocalDateTime updated;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public TargetType getTargetType() {
+        return targetType;
+    }
+
+    public void setTargetType(TargetType targetType) {
+        this.targetType = targetType;
+    }
+
+    public UUID getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(UUID targetId) {
+        this.targetId = targetId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public UUID getLastEventTypeId() {
+        return lastEventTypeId;
+    }
+
+    public void setLastEventTypeId(UUID lastEventTypeId) {
+        this.lastEventTypeId = lastEventTypeId;
+    }
+
+    public LocalDateTime getLastEventCreated() {
+        return lastEventCreated;
+    }
+
+    public void setLastEventCreated(LocalDateTime lastEventCreated) {
+        this.lastEventCreated = lastEventCreated;
+    }
+
+    public UUID getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(UUID lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public long getUpdatedEvents() {
+        return updatedEvents;
+    }
+
+    public void setUpdatedEvents(long updatedEvents) {
+        this.updatedEvents = updatedEvents;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+
+    public LocalDateTime getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(LocalDateTime updated) {
+        this.updated = updated;
+    }
+}
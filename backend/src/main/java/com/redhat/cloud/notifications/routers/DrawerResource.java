@@ -0,0 +1,156 @@
+package com.redhat.cloud.notifications.routers;
+
+import com.redhat.cloud.notifications.auth.principal.rhid.RhIdPrincipal;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository.PendingDisplayNames;
+import com.redhat.cloud.notifications.db.repositories.DrawerNotificationRepository;
+import com.redhat.cloud.notifications.models.DrawerNotification;
+import com.redhat.cloud.notifications.routers.models.DrawerEntry;
+import com.redhat.cloud.notifications.routers.models.Meta;
+import com.redhat.cloud.notifications.routers.models.Page;
+import com.redhat.cloud.notifications.routers.models.UpdateDrawerReadStatusRequest;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.jboss.resteasy.reactive.RestQuery;
+
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriInfo;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.redhat.cloud.notifications.Constants.API_NOTIFICATIONS_V_1_0;
+import static com.redhat.cloud.notifications.Constants.API_NOTIFICATIONS_V_2_0;
+import static com.redhat.cloud.notifications.routers.SecurityContextUtil.getOrgId;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+public class DrawerResource {
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    @Inject
+    DrawerNotificationRepository drawerNotificationRepository;
+
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Path(API_NOTIFICATIONS_V_1_0 + "/notifications/drawer")
+    public static class V1 extends DrawerResource {
+
+    }
+
+    @Path(API_NOTIFICATIONS_V_2_0 + "/notifications/drawer")
+    public static class V2 extends DrawerResource {
+
+    }
+
+    @GET
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Retrieve the drawer entries of the current user.", description =
+            "The entries are sorted from the most recent to the oldest one. The next page can be retrieved with the `next` link which contains an opaque `cursor`. The `count` field of the response metadata is the number of unread entries of the user."
+    )
+    public Page<DrawerEntry> getDrawerEntries(@Context SecurityContext securityContext, @Context UriInfo uriInfo,
+                                              @RestQuery Boolean readStatus, @RestQuery String cursor,
+                                              @RestQuery @DefaultValue("20") @Min(1) @Max(200) int limit) {
+        checkDrawerEnabled();
+        String orgId = getOrgId(securityContext);
+        String userId = getUserId(securityContext);
+
+        LocalDateTime afterCreated = null;
+        UUID afterId = null;
+        if (cursor != null) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\" + CURSOR_SEPARATOR, 2);
+                afterCreated = LocalDateTime.parse(position[0]);
+                afterId = UUID.fromString(position[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor: [" + cursor + "]", e);
+            }
+        }
+
+        // One extra entry is fetched to find out whether there is a next page.
+        List<DrawerNotification> drawerNotifications = drawerNotificationRepository.getFeed(orgId, userId, readStatus, afterCreated, afterId, limit + 1);
+        boolean hasNextPage = drawerNotifications.size() > limit;
+        if (hasNextPage) {
+            drawerNotifications = drawerNotifications.subList(0, limit);
+        }
+
+        PendingDisplayNames pendingDisplayNames = displayNameBackfillRepository.getPendingDisplayNames();
+        List<DrawerEntry> entries = drawerNotifications.stream().map(drawerNotification -> {
+            DrawerEntry entry = new DrawerEntry();
+            entry.setId(drawerNotification.getId());
+            entry.setEventId(drawerNotification.getEvent().getId());
+            entry.setRead(drawerNotification.isRead());
+            entry.setCreated(drawerNotification.getCreated());
+            entry.setBundle(pendingDisplayNames.getBundleDisplayName(drawerNotification.getEvent()));
+            entry.setApplication(pendingDisplayNames.getApplicationDisplayName(drawerNotification.getEvent()));
+            entry.setEventType(pendingDisplayNames.getEventTypeDisplayName(drawerNotification.getEvent()));
+            return entry;
+        }).collect(Collectors.toList());
+
+        String readStatusParam = readStatus == null ? "" : "&readStatus=" + readStatus;
+        Map<String, String> links = new HashMap<>();
+        links.put("first", String.format("%s?limit=%d%s", uriInfo.getPath(), limit, readStatusParam));
+        if (hasNextPage) {
+            DrawerNotification last = drawerNotifications.get(drawerNotifications.size() - 1);
+            String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getCreated() + CURSOR_SEPARATOR + last.getId()).getBytes(StandardCharsets.UTF_8));
+            links.put("next", String.format("%s?limit=%d%s&cursor=%s", uriInfo.getPath(), limit, readStatusParam, nextCursor));
+        }
+
+        Meta meta = new Meta();
+        meta.setCount(drawerNotificationRepository.getUnreadCount(orgId, userId));
+
+        Page<DrawerEntry> page = new Page<>();
+        page.setData(entries);
+        page.setMeta(meta);
+        page.setLinks(links);
+        return page;
+    }
+
+    @PUT
+    @Path("/read")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Update the read status of several drawer entries of the current user.", description =
+            "Returns the number of entries whose read status was actually changed."
+    )
+    public Integer updateReadStatus(@Context SecurityContext securityContext, @NotNull @Valid UpdateDrawerReadStatusRequest request) {
+        checkDrawerEnabled();
+        String orgId = getOrgId(securityContext);
+        String userId = getUserId(securityContext);
+        return drawerNotificationRepository.updateReadStatus(orgId, userId, request.getNotificationIds(), request.getReadStatus());
+    }
+
+    private void checkDrawerEnabled() {
+        if (!featureFlipper.isDrawerEnabled()) {
+            throw new NotFoundException();
+        }
+    }
+
+    private static String getUserId(SecurityContext securityContext) {
+        return ((RhIdPrincipal) securityContext.getUserPrincipal()).getName();
+    }
+}
@@ -60,6 +60,8 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -433,15 +435,40 @@ public class EndpointResource {
                     name = "includeDetail",
                     description = "Include the detail in the reply",
                     schema = @Schema(type = SchemaType.BOOLEAN)
+            ),
+        @Parameter(
+                    name = "beforeCreated",
+                    in = ParameterIn.QUERY,
+                    description = "Keyset pagination: the `created` field of the last entry of the previous page. It has to be used with `beforeId`. " +
+                            "The entries are then sorted from the most recent one to the oldest one and `pageNumber`, `offset` and `sort_by` are ignored.",
+                    schema = @Schema(type = SchemaType.STRING)
+            ),
+        @Parameter(
+                    name = "beforeId",
+                    in = ParameterIn.QUERY,
+                    description = "Keyset pagination: the `id` field of the last entry of the previous page. It has to be used with `beforeCreated`.",
+                    schema = @Schema(type = SchemaType.STRING, format = "uuid")
             )
     })
 
     @RolesAllowed(ConsoleIdentityProvider.RBAC_READ_INTEGRATIONS_ENDPOINTS)
-    public List<NotificationHistory> getEndpointHistory(@Context SecurityContext sec, @PathParam("id") UUID id, @QueryParam("includeDetail") Boolean includeDetail, @BeanParam @Valid Query query) {
+    public List<NotificationHistory> getEndpointHistory(@Context SecurityContext sec, @PathParam("id") UUID id, @QueryParam("includeDetail") Boolean includeDetail,
+                                                        @QueryParam("beforeCreated") String beforeCreated, @QueryParam("beforeId") UUID beforeId, @BeanParam @Valid Query query) {
         // TODO We need globally limitations (Paging support and limits etc)
         String orgId = getOrgId(sec);
         boolean doDetail = includeDetail != null && includeDetail;
-        return notificationRepository.getNotificationHistory(orgId, id, doDetail, query);
+        if ((beforeCreated == null) != (beforeId == null)) {
+            throw new BadRequestException("The beforeCreated and beforeId query parameters have to be used together");
+        }
+        LocalDateTime before = null;
+        if (beforeCreated != null) {
+            try {
+                before = LocalDateTime.parse(beforeCreated);
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid beforeCreated: [" + beforeCreated + "]", e);
+            }
+        }
+        return notificationRepository.getNotificationHistory(orgId, id, doDetail, query, before, beforeId);
     }
 
     @GET
@@ -1,6 +1,8 @@
 package com.redhat.cloud.notifications.routers;
 
 import com.redhat.cloud.notifications.db.Query;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository.PendingDisplayNames;
 import com.redhat.cloud.notifications.db.repositories.EventRepository;
 import com.redhat.cloud.notifications.models.CompositeEndpointType;
 import com.redhat.cloud.notifications.models.EndpointType;
@@ -48,6 +50,9 @@ public class EventResource {
     @Inject
     EventRepository eventRepository;
 
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
 
     @Path(API_NOTIFICATIONS_V_1_0 + "/notifications/events")
     public static class V1 extends EventResource {
@@ -96,6 +101,7 @@ public class EventResource {
 
         String orgId = getOrgId(securityContext);
         List<Event> events = eventRepository.getEvents(orgId, bundleIds, appIds, eventTypeDisplayName, startDate, endDate, basicTypes, compositeTypes, invocationResults, includeActions, notificationStatusSet, query);
+        PendingDisplayNames pendingDisplayNames = displayNameBackfillRepository.getPendingDisplayNames();
         List<EventLogEntry> eventLogEntries = events.stream().map(event -> {
             List<EventLogEntryAction> actions;
             if (!includeActions) {
@@ -119,9 +125,9 @@ public class EventResource {
             EventLogEntry entry = new EventLogEntry();
             entry.setId(event.getId());
             entry.setCreated(event.getCreated());
-            entry.setBundle(event.getBundleDisplayName());
-            entry.setApplication(event.getApplicationDisplayName());
-            entry.setEventType(event.getEventTypeDisplayName());
+            entry.setBundle(pendingDisplayNames.getBundleDisplayName(event));
+            entry.setApplication(pendingDisplayNames.getApplicationDisplayName(event));
+            entry.setEventType(pendingDisplayNames.getEventTypeDisplayName(event));
             entry.setActions(actions);
             if (includePayload) {
                 entry.setPayload(event.getPayload());
@@ -44,6 +44,8 @@ import javax.ws.rs.core.SecurityContext;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static com.redhat.cloud.notifications.models.EmailSubscriptionType.DRAWER;
@@ -223,7 +225,7 @@ public class UserConfigResource {
                     if (featureFlipper.isInstantEmailsEnabled() || emailSubscriptionType != INSTANT) {
                         // TODO NOTIF-450 How do we deal with a failure here? What kind of response should be sent to the UI when the engine is down?
                         boolean supported = emailSubscriptionType != DRAWER
-                            && templateRepository.isEmailSubscriptionSupported(bundle.getName(), application.getName(), emailSubscriptionType);
+                            && templateRepository.isEmailSubscriptionSupported(application.getId(), emailSubscriptionType);
                         if (supported) {
                             applicationSettingsValue.notifications.put(emailSubscriptionType, false);
                         }
@@ -406,7 +408,7 @@ public class UserConfigResource {
             for (EmailSubscriptionType emailSubscriptionType : EmailSubscriptionType.values()) {
                 if (featureFlipper.isInstantEmailsEnabled() || emailSubscriptionType != INSTANT) {
                     // TODO NOTIF-450 How do we deal with a failure here? What kind of response should be sent to the UI when the engine is down?
-                    boolean supported = templateRepository.isEmailSubscriptionSupported(bundle.getName(), application.getName(), emailSubscriptionType);
+                    boolean supported = templateRepository.isEmailSubscriptionSupported(application.getId(), emailSubscriptionType);
                     if (supported) {
                         eventTypeSettingsValue.emailSubscriptionTypes.put(emailSubscriptionType, emailSubscriptionType.isOptOut());
                     }
@@ -446,12 +448,10 @@ public class UserConfigResource {
     private SettingsValuesByEventType getSettingsValueForUserByEventType(List<EventTypeEmailSubscription> emailSubscriptions, String orgId) {
         SettingsValuesByEventType settingsValues = new SettingsValuesByEventType();
 
-        for (Bundle bundle : bundleRepository.getBundles()) {
-            List<String> applicationsWithForcedEmails = applicationRepository.getApplicationsWithForcedEmail(bundle.getId(), orgId)
-                    .stream().map(Application::getName).collect(Collectors.toList());
-            for (Application application : bundle.getApplications()) {
-                addApplicationStructureDetails(settingsValues, application, applicationsWithForcedEmails.contains(application.getName()));
-            }
+        // The whole schema is built from a constant number of queries, no matter how many bundles and applications exist.
+        Set<UUID> applicationsWithForcedEmails = applicationRepository.getApplicationIdsWithForcedEmail(orgId);
+        for (Application application : applicationRepository.getApplicationsWithEventTypes()) {
+            addApplicationStructureDetails(settingsValues, application, applicationsWithForcedEmails.contains(application.getId()));
         }
 
         patchWithUserPreferencesIfExists(settingsValues, emailSubscriptions);
@@ -6,6 +6,7 @@ import com.redhat.cloud.notifications.db.repositories.AggregationOrgConfigReposi
 import com.redhat.cloud.notifications.db.repositories.ApplicationRepository;
 import com.redhat.cloud.notifications.db.repositories.BehaviorGroupRepository;
 import com.redhat.cloud.notifications.db.repositories.BundleRepository;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository;
 import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
 import com.redhat.cloud.notifications.db.repositories.InternalRoleAccessRepository;
 import com.redhat.cloud.notifications.db.repositories.StatusRepository;
@@ -15,6 +16,7 @@ import com.redhat.cloud.notifications.models.BehaviorGroup;
 import com.redhat.cloud.notifications.models.BehaviorGroupAction;
 import com.redhat.cloud.notifications.models.Bundle;
 import com.redhat.cloud.notifications.models.CurrentStatus;
+import com.redhat.cloud.notifications.models.DisplayNameBackfill;
 import com.redhat.cloud.notifications.models.Endpoint;
 import com.redhat.cloud.notifications.models.Environment;
 import com.redhat.cloud.notifications.models.EventType;
@@ -117,6 +119,9 @@ public class InternalResource {
     @Inject
     AggregationOrgConfigRepository aggregationOrgConfigRepository;
 
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
     // This endpoint is used during the IQE tests to determine which version of the code is tested.
     @GET
     @Path("/version")
@@ -170,6 +175,15 @@ public class InternalResource {
         return bundleRepository.createBundle(bundle);
     }
 
+    @GET
+    @Path("/display-name-backfills")
+    @Produces(APPLICATION_JSON)
+    @RolesAllowed(ConsoleIdentityProvider.RBAC_INTERNAL_USER)
+    public List<DisplayNameBackfill> getDisplayNameBackfills() {
+        // The completed backfills are deleted, only the pending ones and their progress are returned.
+        return displayNameBackfillRepository.getPendingBackfills();
+    }
+
     @GET
     @Path("/bundles")
     @Produces(APPLICATION_JSON)
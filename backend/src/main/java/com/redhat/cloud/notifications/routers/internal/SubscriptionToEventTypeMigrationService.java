@@ -15,6 +15,8 @@ import static com.redhat.cloud.notifications.auth.ConsoleIdentityProvider.RBAC_I
 @Path(API_INTERNAL)
 public class SubscriptionToEventTypeMigrationService {
 
+    private static final String EVENT_TYPE_SUBSCRIPTIONS = "SELECT es.org_id, et.application_id FROM email_subscriptions es JOIN event_type et ON es.event_type_id = et.id";
+
     @Inject
     EntityManager entityManager;
 
@@ -28,6 +30,10 @@ public class SubscriptionToEventTypeMigrationService {
 
     @Transactional
     void migrateData() {
+        // The orgs and applications which lose their event type subscriptions have to be recorded before the deletion.
+        int recordedChanges = recordChanges(EVENT_TYPE_SUBSCRIPTIONS);
+        Log.infof("%d subscription change(s) recorded before the deletion", recordedChanges);
+
         String query = "DELETE FROM EventTypeEmailSubscription";
 
         int affectedRows = entityManager.createQuery(query).executeUpdate();
@@ -38,5 +44,25 @@ public class SubscriptionToEventTypeMigrationService {
 
         affectedRows = entityManager.createNativeQuery(query).executeUpdate();
         Log.infof("%d record(s) inserted", affectedRows);
+
+        /*
+         * The changes recorded before the deletion are recorded again with the time of this statement, along with the
+         * orgs and applications of the inserted subscriptions. Otherwise, the engine could read them before the end
+         * of a long migration and skip them once this transaction is committed.
+         */
+        recordedChanges = recordChanges(EVENT_TYPE_SUBSCRIPTIONS + " UNION " +
+            "SELECT org_id, application_id FROM email_subscription_change WHERE updated >= NOW() AT TIME ZONE 'UTC'");
+        Log.infof("%d subscription change(s) recorded after the insertion", recordedChanges);
+    }
+
+    /*
+     * The engine caches the email subscribers of each org and application and invalidates them when a change is
+     * recorded in the email_subscription_change table, see EmailSubscriptionRepository.
+     */
+    private int recordChanges(String orgsAndApplications) {
+        String query = "INSERT INTO email_subscription_change (org_id, application_id, updated) " +
+            "SELECT DISTINCT c.org_id, c.application_id, clock_timestamp() AT TIME ZONE 'UTC' FROM (" + orgsAndApplications + ") c " +
+            "ON CONFLICT (org_id, application_id) DO UPDATE SET updated = EXCLUDED.updated";
+        return entityManager.createNativeQuery(query).executeUpdate();
     }
 }
@@ -0,0 +1,39 @@
+package com.redhat.cloud.notifications.routers.models;
+
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.fasterxml.jackson.databind.PropertyNamingStrategies.SnakeCaseStrategy;
+
+@JsonNaming(SnakeCaseStrategy.class)
+public class UpdateDrawerReadStatusRequest {
+
+    @NotNull
+    @NotEmpty
+    @Size(max = 1000)
+    private Set<UUID> notificationIds;
+
+    @NotNull
+    private Boolean readStatus;
+
+    public Set<UUID> getNotificationIds() {
+        return notificationIds;
+    }
+
+    public void setNotificationIds(Set<UUID> notificationIds) {
+        this.notificationIds = notificationIds;
+    }
+
+    public Boolean getReadStatus() {
+        return readStatus;
+    }
+
+    public void setReadStatus(Boolean readStatus) {
+        this.readStatus = readStatus;
+    }
+}
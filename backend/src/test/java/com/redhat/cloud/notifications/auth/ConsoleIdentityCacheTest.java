@@ -0,0 +1,83 @@
+package com.redhat.cloud.notifications.auth;
+
+import com.redhat.cloud.notifications.TestHelpers;
+import com.redhat.cloud.notifications.auth.ConsoleIdentityCache.CachedIdentity;
+import com.redhat.cloud.notifications.auth.principal.rhid.RhIdentity;
+import com.redhat.cloud.notifications.auth.rbac.RbacRaw;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redhat.cloud.notifications.auth.ConsoleIdentityCache.CACHE_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+public class ConsoleIdentityCacheTest {
+
+    @Inject
+    ConsoleIdentityCache consoleIdentityCache;
+
+    @CacheName(CACHE_NAME)
+    Cache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache.invalidateAll().await().indefinitely();
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() {
+        String identityHeader = TestHelpers.encodeRHIdentityInfo("account-id", "org-id", "johndoe");
+        AtomicInteger rbacCalls = new AtomicInteger();
+        RbacRaw rbacRaw = new RbacRaw();
+
+        // The RBAC response is delayed so that all lookups happen while the first one is still pending.
+        Uni<CachedIdentity> first = consoleIdentityCache.get(identityHeader, identity -> {
+            rbacCalls.incrementAndGet();
+            return Uni.createFrom().item(rbacRaw).onItem().delayIt().by(Duration.ofMillis(200L));
+        });
+        Uni<CachedIdentity> second = consoleIdentityCache.get(identityHeader, identity -> {
+            rbacCalls.incrementAndGet();
+            return Uni.createFrom().item(new RbacRaw());
+        });
+
+        CachedIdentity[] results = Uni.combine().all().unis(first, second).asTuple()
+                .map(tuple -> new CachedIdentity[] {tuple.getItem1(), tuple.getItem2()})
+                .await().indefinitely();
+
+        assertEquals(1, rbacCalls.get());
+        assertSame(rbacRaw, results[0].getRbacRaw());
+        assertSame(rbacRaw, results[1].getRbacRaw());
+        assertTrue(results[0].getIdentity() instanceof RhIdentity);
+        assertEquals("johndoe", results[0].getIdentity().getName());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        String identityHeader = TestHelpers.encodeRHIdentityInfo("account-id", "org-id", "janedoe");
+        AtomicInteger rbacCalls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> consoleIdentityCache.get(identityHeader, identity -> {
+            rbacCalls.incrementAndGet();
+            return Uni.createFrom().failure(new IllegalStateException());
+        }).await().indefinitely());
+
+        CachedIdentity cachedIdentity = consoleIdentityCache.get(identityHeader, identity -> {
+            rbacCalls.incrementAndGet();
+            return Uni.createFrom().item(new RbacRaw());
+        }).await().indefinitely();
+
+        assertEquals(2, rbacCalls.get());
+        assertEquals("janedoe", cachedIdentity.getIdentity().getName());
+    }
+}
@@ -2,11 +2,14 @@ package com.redhat.cloud.notifications.db;
 
 import com.redhat.cloud.notifications.db.repositories.ApplicationRepository;
 import com.redhat.cloud.notifications.db.repositories.BundleRepository;
+import com.redhat.cloud.notifications.db.repositories.TemplateRepository;
 import com.redhat.cloud.notifications.models.AggregationEmailTemplate;
 import com.redhat.cloud.notifications.models.Application;
 import com.redhat.cloud.notifications.models.BehaviorGroup;
 import com.redhat.cloud.notifications.models.BehaviorGroupAction;
 import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.DisplayNameBackfill;
+import com.redhat.cloud.notifications.models.DrawerNotification;
 import com.redhat.cloud.notifications.models.EmailSubscription;
 import com.redhat.cloud.notifications.models.Endpoint;
 import com.redhat.cloud.notifications.models.Event;
@@ -17,6 +20,8 @@ import com.redhat.cloud.notifications.models.NotificationHistory;
 import com.redhat.cloud.notifications.models.Status;
 import com.redhat.cloud.notifications.models.Template;
 import com.redhat.cloud.notifications.models.WebhookProperties;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 
@@ -33,6 +38,7 @@ public class DbCleaner {
     private static final List<Class<?>> ENTITIES = List.of(
             EmailSubscription.class,
             NotificationHistory.class,
+            DrawerNotification.class,
             Event.class,
             BehaviorGroupAction.class,
             WebhookProperties.class,
@@ -44,7 +50,8 @@ public class DbCleaner {
             Bundle.class,
             Template.class,
             InstantEmailTemplate.class,
-            AggregationEmailTemplate.class
+            AggregationEmailTemplate.class,
+            DisplayNameBackfill.class
     );
     private static final String DEFAULT_BUNDLE_NAME = "rhel";
     private static final String DEFAULT_BUNDLE_DISPLAY_NAME = "Red Hat Enterprise Linux";
@@ -63,6 +70,9 @@ public class DbCleaner {
     @Inject
     ApplicationRepository applicationRepository;
 
+    @CacheName(TemplateRepository.EMAIL_TEMPLATE_SUPPORT_CACHE_NAME)
+    Cache emailTemplateSupportCache;
+
     /**
      * Deletes all records from all database tables (except for flyway_schema_history) and restores the default records.
      * This method should be called from a method annotated with <b>both</b> {@link BeforeEach} and {@link AfterEach} in
@@ -73,6 +83,8 @@ public class DbCleaner {
         for (Class<?> entity : ENTITIES) {
             entityManager.createQuery("DELETE FROM " + entity.getSimpleName()).executeUpdate();
         }
+        // This table is maintained by database triggers and has no entity.
+        entityManager.createNativeQuery("DELETE FROM drawer_unread_counter").executeUpdate();
 
         Bundle bundle = new Bundle(DEFAULT_BUNDLE_NAME, DEFAULT_BUNDLE_DISPLAY_NAME);
         bundleRepository.createBundle(bundle);
@@ -93,5 +105,8 @@ public class DbCleaner {
         entityManager.createQuery("UPDATE CurrentStatus SET status = :status")
                 .setParameter("status", Status.UP)
                 .executeUpdate();
+
+        // The email templates were deleted without going through TemplateRepository.
+        emailTemplateSupportCache.invalidateAll().await().indefinitely();
     }
 }
@@ -529,4 +529,15 @@ public class ResourceHelpers {
 
         return createdEndpoints;
     }
+
+    public void deleteEmailSubscriptionChanges() {
+        entityManager.createNativeQuery("DELETE FROM email_subscription_change").executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<UUID> getEmailSubscriptionChangeApplicationIds(String orgId) {
+        return entityManager.createNativeQuery("SELECT application_id FROM email_subscription_change WHERE org_id = :orgId")
+            .setParameter("orgId", orgId)
+            .getResultList();
+    }
 }
@@ -15,6 +15,8 @@ import com.redhat.cloud.notifications.models.EventType;
 import com.redhat.cloud.notifications.models.EventTypeBehavior;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -24,7 +26,10 @@ import javax.transaction.Transactional;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -47,6 +52,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @QuarkusTestResource(TestLifecycleManager.class)
 public class BehaviorGroupRepositoryTest extends DbIsolatedTest {
 
+    private static final Duration MAX_BULK_UPDATE_LOCK_HOLD_TIME = Duration.ofSeconds(1L);
+
     private final String NOT_USED = "not-used";
 
     @Inject
@@ -61,6 +68,9 @@ public class BehaviorGroupRepositoryTest extends DbIsolatedTest {
     @Inject
     FeatureFlipper featureFlipper;
 
+    @Inject
+    SessionFactory sessionFactory;
+
     @Test
     void shouldThrowExceptionWhenCreatingWithExistingDisplayNameAndSameOrgId() {
         try {
@@ -429,6 +439,62 @@ public class BehaviorGroupRepositoryTest extends DbIsolatedTest {
         );
     }
 
+    @Test
+    void testBulkLinkUpdatesStatementsCountAndLockHoldTime() {
+        Bundle bundle = resourceHelpers.createBundle();
+        Application application = resourceHelpers.createApplication(bundle.getId());
+        List<UUID> eventTypeIds = IntStream.range(0, 200)
+                .mapToObj(i -> resourceHelpers.createEventType(application.getId(), "event-type-" + i, NOT_USED, NOT_USED).getId())
+                .collect(Collectors.toList());
+        List<UUID> endpointIds = IntStream.range(0, 50)
+                .mapToObj(i -> resourceHelpers.createEndpoint(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, WEBHOOK).getId())
+                .collect(Collectors.toList());
+        BehaviorGroup smallGroup = resourceHelpers.createBehaviorGroup(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, "small", bundle.getId());
+        BehaviorGroup largeGroup = resourceHelpers.createBehaviorGroup(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, "large", bundle.getId());
+
+        // The number of statements of each update must not depend on the number of links.
+        long smallStatements = countStatements(() -> behaviorGroupRepository.updateBehaviorEventTypes(DEFAULT_ORG_ID, smallGroup.getId(), Set.of(eventTypeIds.get(0))));
+        long largeStatements = countStatements(() -> behaviorGroupRepository.updateBehaviorEventTypes(DEFAULT_ORG_ID, largeGroup.getId(), Set.copyOf(eventTypeIds)));
+        assertEquals(smallStatements, largeStatements);
+        assertEquals(eventTypeIds.size(), resourceHelpers.findEventTypesByBehaviorGroupId(largeGroup.getId()).size());
+
+        smallStatements = countStatements(() -> behaviorGroupRepository.updateBehaviorGroupActions(DEFAULT_ORG_ID, smallGroup.getId(), endpointIds.subList(0, 1)));
+        largeStatements = countStatements(() -> behaviorGroupRepository.updateBehaviorGroupActions(DEFAULT_ORG_ID, largeGroup.getId(), endpointIds));
+        assertEquals(smallStatements, largeStatements);
+
+        EventType eventType1 = resourceHelpers.createEventType(application.getId(), "unlinked-event-type-1", NOT_USED, NOT_USED);
+        EventType eventType2 = resourceHelpers.createEventType(application.getId(), "unlinked-event-type-2", NOT_USED, NOT_USED);
+        smallStatements = countStatements(() -> behaviorGroupRepository.updateEventTypeBehaviors(DEFAULT_ORG_ID, eventType1.getId(), Set.of(smallGroup.getId())));
+        largeStatements = countStatements(() -> behaviorGroupRepository.updateEventTypeBehaviors(DEFAULT_ORG_ID, eventType2.getId(), Set.of(smallGroup.getId(), largeGroup.getId())));
+        assertEquals(smallStatements, largeStatements);
+
+        /*
+         * The links are locked from the beginning of the update until the commit, so the duration of the whole update
+         * is an upper bound of the lock hold time. The actions are reversed to update all positions, and the event type
+         * links are replaced by half of them to delete the other half.
+         */
+        List<UUID> reversedEndpointIds = new ArrayList<>(endpointIds);
+        Collections.reverse(reversedEndpointIds);
+        Duration actionsLockHoldTime = measure(() -> updateAndCheckBehaviorGroupActions(DEFAULT_ORG_ID, bundle.getId(), largeGroup.getId(), reversedEndpointIds.toArray(UUID[]::new)));
+        Duration eventTypesLockHoldTime = measure(() -> behaviorGroupRepository.updateBehaviorEventTypes(DEFAULT_ORG_ID, largeGroup.getId(), Set.copyOf(eventTypeIds.subList(0, 100))));
+        assertTrue(actionsLockHoldTime.compareTo(MAX_BULK_UPDATE_LOCK_HOLD_TIME) < 0, "Actions lock held for " + actionsLockHoldTime);
+        assertTrue(eventTypesLockHoldTime.compareTo(MAX_BULK_UPDATE_LOCK_HOLD_TIME) < 0, "Event types lock held for " + eventTypesLockHoldTime);
+        assertEquals(100, resourceHelpers.findEventTypesByBehaviorGroupId(largeGroup.getId()).size());
+    }
+
+    private long countStatements(Runnable update) {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        update.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Duration measure(Runnable update) {
+        long start = System.nanoTime();
+        update.run();
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
     /**
      * Tests that a bad request exception is raised when attempting to create more behavior groups than the allowed
      * maximum number.
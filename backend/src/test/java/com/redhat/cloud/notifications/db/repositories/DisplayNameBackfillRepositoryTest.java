@@ -0,0 +1,125 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.db.DbIsolatedTest;
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.db.repositories.DisplayNameBackfillRepository.PendingDisplayNames;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.DisplayNameBackfill;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ACCOUNT_ID;
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static com.redhat.cloud.notifications.models.DisplayNameBackfill.TargetType.APPLICATION;
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class DisplayNameBackfillRepositoryTest extends DbIsolatedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now(UTC);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    ApplicationRepository applicationRepository;
+
+    @Inject
+    DisplayNameBackfillRepository displayNameBackfillRepository;
+
+    @Test
+    void testApplicationRenameBackfill() {
+        Bundle bundle = resourceHelpers.createBundle("backfill-bundle", "Backfill bundle");
+        Application app = resourceHelpers.createApplication(bundle.getId(), "backfill-app", "Old name");
+        EventType eventType1 = resourceHelpers.createEventType(app.getId(), "event-type-1", "Event type 1", "Event type 1");
+        EventType eventType2 = resourceHelpers.createEventType(app.getId(), "event-type-2", "Event type 2", "Event type 2");
+        for (int i = 0; i < 3; i++) {
+            createEvent(bundle, app, eventType1, NOW.minusDays(i));
+        }
+        for (int i = 0; i < 2; i++) {
+            createEvent(bundle, app, eventType2, NOW.minusHours(i));
+        }
+
+        // Renaming without changing the display name does not schedule any backfill.
+        app.setName("backfill-app-renamed");
+        assertEquals(1, applicationRepository.updateApplication(app.getId(), app));
+        assertTrue(displayNameBackfillRepository.getPendingBackfills().isEmpty());
+
+        app.setDisplayName("New name");
+        assertEquals(1, applicationRepository.updateApplication(app.getId(), app));
+
+        // The rename is committed right away but the events are not updated yet.
+        assertEquals(0L, countEvents(app.getId(), "New name"));
+        List<DisplayNameBackfill> backfills = displayNameBackfillRepository.getPendingBackfills();
+        assertEquals(1, backfills.size());
+        assertEquals(APPLICATION, backfills.get(0).getTargetType());
+        assertEquals(app.getId(), backfills.get(0).getTargetId());
+
+        // Meanwhile, the read paths resolve the new display name.
+        Event event = entityManager.createQuery("FROM Event WHERE applicationId = :appId", Event.class)
+                .setParameter("appId", app.getId())
+                .setMaxResults(1)
+                .getSingleResult();
+        PendingDisplayNames pendingDisplayNames = displayNameBackfillRepository.getPendingDisplayNames();
+        assertEquals("New name", pendingDisplayNames.getApplicationDisplayName(event));
+        assertEquals("Backfill bundle", pendingDisplayNames.getBundleDisplayName(event));
+
+        // The events are updated in chunks of 2 events.
+        int chunks = 0;
+        Optional<DisplayNameBackfill> backfill;
+        do {
+            backfill = displayNameBackfillRepository.processNextChunk(2);
+            if (backfill.isPresent()) {
+                chunks++;
+            }
+        } while (backfill.isPresent() && chunks < 10);
+
+        // Each event type needs two chunks: 3 events = 2 + 1, and 2 events = 2 + an empty chunk which detects the end.
+        assertEquals(4, chunks);
+        assertEquals(5L, countEvents(app.getId(), "New name"));
+        assertTrue(displayNameBackfillRepository.getPendingBackfills().isEmpty());
+    }
+
+    @Transactional
+    void createEvent(Bundle bundle, Application app, EventType eventType, LocalDateTime created) {
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setAccountId(DEFAULT_ACCOUNT_ID);
+        event.setOrgId(DEFAULT_ORG_ID);
+        event.setBundleId(bundle.getId());
+        event.setBundleDisplayName(bundle.getDisplayName());
+        event.setApplicationId(app.getId());
+        event.setApplicationDisplayName(app.getDisplayName());
+        event.setEventType(eventType);
+        event.setEventTypeDisplayName(eventType.getDisplayName());
+        event.setCreated(created);
+        event.setPayload("{}");
+        entityManager.persist(event);
+    }
+
+    private long countEvents(UUID appId, String applicationDisplayName) {
+        return entityManager.createQuery("SELECT COUNT(*) FROM Event WHERE applicationId = :appId AND applicationDisplayName = :displayName", Long.class)
+                .setParameter("appId", appId)
+                .setParameter("displayName", applicationDisplayName)
+                .getSingleResult();
+    }
+}
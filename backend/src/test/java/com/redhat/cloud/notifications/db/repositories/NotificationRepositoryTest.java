@@ -0,0 +1,200 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.db.DbIsolatedTest;
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.Endpoint;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.models.NotificationHistory;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ACCOUNT_ID;
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static com.redhat.cloud.notifications.models.EndpointType.WEBHOOK;
+import static com.redhat.cloud.notifications.models.NotificationStatus.SUCCESS;
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class NotificationRepositoryTest extends DbIsolatedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now(UTC);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    NotificationRepository notificationRepository;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Test
+    void testKeysetPagination() {
+        Event event = createEvent();
+        Endpoint endpoint = resourceHelpers.createEndpoint(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, WEBHOOK);
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(createHistory(event, endpoint, NOW.minusMinutes(i)).getId());
+        }
+
+        List<UUID> actual = new ArrayList<>();
+        List<NotificationHistory> page = notificationRepository.getNotificationHistory(DEFAULT_ORG_ID, endpoint.getId(), false, buildQuery(2), null, null);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 2);
+            actual.addAll(page.stream().map(NotificationHistory::getId).collect(Collectors.toList()));
+            NotificationHistory last = page.get(page.size() - 1);
+            page = notificationRepository.getNotificationHistory(DEFAULT_ORG_ID, endpoint.getId(), false, buildQuery(2), last.getCreated(), last.getId());
+        }
+        assertEquals(expected, actual);
+
+        // The history of an endpoint is not visible from another org.
+        assertTrue(notificationRepository.getNotificationHistory("other-org-id", endpoint.getId(), false, buildQuery(2), null, null).isEmpty());
+    }
+
+    private static com.redhat.cloud.notifications.db.Query buildQuery(int limit) {
+        com.redhat.cloud.notifications.db.Query query = spy(new com.redhat.cloud.notifications.db.Query());
+        doReturn(new com.redhat.cloud.notifications.db.Query.Limit(limit, 0)).when(query).getLimit();
+        return query;
+    }
+
+    @Test
+    void testOrgIdBackfill() {
+        Event event = createEvent();
+        Endpoint endpoint = resourceHelpers.createEndpoint(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, WEBHOOK);
+        NotificationHistory history1 = createHistory(event, endpoint, NOW);
+        NotificationHistory history2 = createHistory(event, endpoint, NOW.minusMinutes(1L));
+        NotificationHistory orphan = createHistory(event, endpoint, NOW.minusMinutes(2L));
+        // Simulates history entries created before the org ID was denormalized, one of them without any event.
+        clearOrgId(history1.getId(), null);
+        clearOrgId(history2.getId(), null);
+        clearOrgId(orphan.getId(), UUID.randomUUID());
+
+        assertEquals(2, notificationRepository.backfillOrgIdChunk(2));
+        assertEquals(1, notificationRepository.backfillOrgIdChunk(2));
+        assertEquals(0, notificationRepository.backfillOrgIdChunk(2));
+        assertTrue(notificationRepository.isOrgIdBackfilled());
+
+        assertEquals(DEFAULT_ORG_ID, getOrgId(history1.getId()));
+        assertEquals(DEFAULT_ORG_ID, getOrgId(history2.getId()));
+        assertNull(entityManager.find(NotificationHistory.class, orphan.getId()));
+    }
+
+    @Test
+    void testJsonbBackfill() {
+        Event event = createEvent();
+        Endpoint endpoint = resourceHelpers.createEndpoint(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, WEBHOOK);
+        NotificationHistory history1 = createHistory(event, endpoint, NOW);
+        NotificationHistory history2 = createHistory(event, endpoint, NOW.minusMinutes(1L));
+        NotificationHistory withoutDetails = createHistory(event, endpoint, NOW.minusMinutes(2L));
+        // Simulates rows created before the jsonb columns existed.
+        moveToLegacyColumns(event.getId(), List.of(history1.getId(), history2.getId()));
+
+        assertEquals(1, eventRepository.backfillPayloadJsonbChunk(2));
+        assertEquals(0, eventRepository.backfillPayloadJsonbChunk(2));
+        assertEquals(2, notificationRepository.backfillDetailsJsonbChunk(2));
+        assertEquals(0, notificationRepository.backfillDetailsJsonbChunk(2));
+
+        assertEquals("{\"legacy\": true}", getJsonbColumn("SELECT CAST(payload_jsonb AS TEXT) FROM event WHERE id = :id", event.getId()));
+        assertEquals("{\"legacy\": true}", getJsonbColumn("SELECT CAST(details_jsonb AS TEXT) FROM notification_history WHERE id = :id", history1.getId()));
+        assertEquals("{\"legacy\": true}", getJsonbColumn("SELECT CAST(details_jsonb AS TEXT) FROM notification_history WHERE id = :id", history2.getId()));
+        assertNull(getJsonbColumn("SELECT CAST(details_jsonb AS TEXT) FROM notification_history WHERE id = :id", withoutDetails.getId()));
+    }
+
+    @Transactional
+    Event createEvent() {
+        Bundle bundle = resourceHelpers.createBundle("history-bundle", "History bundle");
+        Application app = resourceHelpers.createApplication(bundle.getId(), "history-app", "History app");
+        EventType eventType = resourceHelpers.createEventType(app.getId(), "history-event-type", "History event type", "History event type");
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setAccountId(DEFAULT_ACCOUNT_ID);
+        event.setOrgId(DEFAULT_ORG_ID);
+        event.setBundleId(bundle.getId());
+        event.setBundleDisplayName(bundle.getDisplayName());
+        event.setApplicationId(app.getId());
+        event.setApplicationDisplayName(app.getDisplayName());
+        event.setEventType(eventType);
+        event.setEventTypeDisplayName(eventType.getDisplayName());
+        event.setCreated(NOW.minusDays(1L));
+        event.setPayload("{}");
+        entityManager.persist(event);
+        return event;
+    }
+
+    @Transactional
+    NotificationHistory createHistory(Event event, Endpoint endpoint, LocalDateTime created) {
+        NotificationHistory history = new NotificationHistory();
+        history.setId(UUID.randomUUID());
+        history.setInvocationTime(1L);
+        history.setStatus(SUCCESS);
+        history.setEvent(event);
+        history.setEndpoint(endpoint);
+        history.setEndpointType(endpoint.getType());
+        history.setEndpointSubType(endpoint.getSubType());
+        history.setCreated(created);
+        history.prePersist();
+        entityManager.persist(history);
+        return history;
+    }
+
+    @Transactional
+    void clearOrgId(UUID historyId, UUID eventId) {
+        String sql = eventId == null
+                ? "UPDATE notification_history SET org_id = NULL WHERE id = :id"
+                : "UPDATE notification_history SET org_id = NULL, event_id = :eventId WHERE id = :id";
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("id", historyId);
+        if (eventId != null) {
+            query.setParameter("eventId", eventId);
+        }
+        query.executeUpdate();
+    }
+
+    @Transactional
+    void moveToLegacyColumns(UUID eventId, List<UUID> historyIds) {
+        entityManager.createNativeQuery("UPDATE event SET payload = :legacy, payload_jsonb = NULL WHERE id = :id")
+                .setParameter("legacy", "{\"legacy\":true}")
+                .setParameter("id", eventId)
+                .executeUpdate();
+        entityManager.createNativeQuery("UPDATE notification_history SET details = :legacy, details_jsonb = NULL WHERE id IN (:ids)")
+                .setParameter("legacy", "{\"legacy\":true}")
+                .setParameter("ids", historyIds)
+                .executeUpdate();
+    }
+
+    private String getJsonbColumn(String sql, UUID id) {
+        return (String) entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+    private String getOrgId(UUID historyId) {
+        return (String) entityManager.createNativeQuery("SELECT org_id FROM notification_history WHERE id = :id")
+                .setParameter("id", historyId)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,213 @@
+package com.redhat.cloud.notifications.routers;
+
+import com.redhat.cloud.notifications.MockServerConfig;
+import com.redhat.cloud.notifications.TestHelpers;
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.DbIsolatedTest;
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.DrawerNotification;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.routers.models.DrawerEntry;
+import com.redhat.cloud.notifications.routers.models.Page;
+import com.redhat.cloud.notifications.routers.models.UpdateDrawerReadStatusRequest;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.http.Header;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.redhat.cloud.notifications.Constants.API_NOTIFICATIONS_V_1_0;
+import static com.redhat.cloud.notifications.MockServerConfig.RbacAccess.FULL_ACCESS;
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ACCOUNT_ID;
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class DrawerResourceTest extends DbIsolatedTest {
+
+    private static final String PATH = API_NOTIFICATIONS_V_1_0 + "/notifications/drawer";
+    private static final String USERNAME = "user";
+    private static final LocalDateTime NOW = LocalDateTime.now(UTC);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @BeforeEach
+    void beforeEach() {
+        featureFlipper.setDrawerEnabled(true);
+    }
+
+    @AfterEach
+    void afterEach() {
+        featureFlipper.setDrawerEnabled(false);
+    }
+
+    @Test
+    void testDrawerDisabled() {
+        featureFlipper.setDrawerEnabled(false);
+        Header identityHeader = mockRbac(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, USERNAME);
+        given()
+                .header(identityHeader)
+                .when().get(PATH)
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void testFeedPaginationAndReadStatus() {
+        Header identityHeader = mockRbac(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, USERNAME);
+        Header otherIdentityHeader = mockRbac(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, "other-user");
+
+        Bundle bundle = resourceHelpers.createBundle("drawer-bundle", "Drawer bundle");
+        Application app = resourceHelpers.createApplication(bundle.getId(), "drawer-app", "Drawer application");
+        EventType eventType = resourceHelpers.createEventType(app.getId(), "drawer-event-type", "Drawer event type", "Drawer event type");
+
+        List<DrawerNotification> drawerNotifications = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Event event = createEvent(bundle, app, eventType, NOW.minusHours(i));
+            drawerNotifications.add(createDrawerNotification(event, USERNAME, NOW.minusHours(i)));
+        }
+
+        Page<DrawerEntry> firstPage = getDrawerPage(identityHeader, PATH + "?limit=2");
+        assertEquals(5L, firstPage.getMeta().getCount());
+        assertEquals(List.of(drawerNotifications.get(0).getId(), drawerNotifications.get(1).getId()), getIds(firstPage));
+        assertEquals("Drawer bundle", firstPage.getData().get(0).getBundle());
+        assertEquals("Drawer application", firstPage.getData().get(0).getApplication());
+        assertEquals("Drawer event type", firstPage.getData().get(0).getEventType());
+        assertFalse(firstPage.getData().get(0).isRead());
+
+        Page<DrawerEntry> secondPage = getDrawerPage(identityHeader, firstPage.getLinks().get("next"));
+        assertEquals(List.of(drawerNotifications.get(2).getId(), drawerNotifications.get(3).getId()), getIds(secondPage));
+
+        Page<DrawerEntry> lastPage = getDrawerPage(identityHeader, secondPage.getLinks().get("next"));
+        assertEquals(List.of(drawerNotifications.get(4).getId()), getIds(lastPage));
+        assertNull(lastPage.getLinks().get("next"));
+
+        // The drawer of another user is empty.
+        Page<DrawerEntry> otherPage = getDrawerPage(otherIdentityHeader, PATH);
+        assertEquals(0L, otherPage.getMeta().getCount());
+        assertTrue(otherPage.getData().isEmpty());
+
+        UpdateDrawerReadStatusRequest request = new UpdateDrawerReadStatusRequest();
+        request.setNotificationIds(Set.of(drawerNotifications.get(0).getId(), drawerNotifications.get(1).getId()));
+        request.setReadStatus(true);
+        assertEquals(2, updateReadStatus(identityHeader, request));
+        // Entries which already have the requested status are not updated again.
+        assertEquals(0, updateReadStatus(identityHeader, request));
+        // Other users can't change the read status of these entries.
+        assertEquals(0, updateReadStatus(otherIdentityHeader, request));
+
+        Page<DrawerEntry> unreadPage = getDrawerPage(identityHeader, PATH + "?readStatus=false");
+        assertEquals(3L, unreadPage.getMeta().getCount());
+        assertEquals(List.of(drawerNotifications.get(2).getId(), drawerNotifications.get(3).getId(), drawerNotifications.get(4).getId()), getIds(unreadPage));
+
+        Page<DrawerEntry> readPage = getDrawerPage(identityHeader, PATH + "?readStatus=true");
+        assertEquals(List.of(drawerNotifications.get(0).getId(), drawerNotifications.get(1).getId()), getIds(readPage));
+        assertTrue(readPage.getData().get(0).isRead());
+
+        request.setReadStatus(false);
+        assertEquals(2, updateReadStatus(identityHeader, request));
+        assertEquals(5L, getDrawerPage(identityHeader, PATH).getMeta().getCount());
+    }
+
+    @Test
+    void testInvalidCursor() {
+        Header identityHeader = mockRbac(DEFAULT_ACCOUNT_ID, DEFAULT_ORG_ID, USERNAME);
+        given()
+                .header(identityHeader)
+                .when().get(PATH + "?cursor=not-a-cursor")
+                .then()
+                .statusCode(400);
+    }
+
+    @Transactional
+    Event createEvent(Bundle bundle, Application app, EventType eventType, LocalDateTime created) {
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setAccountId(DEFAULT_ACCOUNT_ID);
+        event.setOrgId(DEFAULT_ORG_ID);
+        event.setBundleId(bundle.getId());
+        event.setBundleDisplayName(bundle.getDisplayName());
+        event.setApplicationId(app.getId());
+        event.setApplicationDisplayName(app.getDisplayName());
+        event.setEventType(eventType);
+        event.setEventTypeDisplayName(eventType.getDisplayName());
+        event.setCreated(created);
+        event.setPayload("{}");
+        entityManager.persist(event);
+        return event;
+    }
+
+    @Transactional
+    DrawerNotification createDrawerNotification(Event event, String userId, LocalDateTime created) {
+        DrawerNotification drawerNotification = new DrawerNotification();
+        drawerNotification.setOrgId(DEFAULT_ORG_ID);
+        drawerNotification.setUserId(userId);
+        drawerNotification.setEvent(event);
+        drawerNotification.setEventId(event.getId());
+        drawerNotification.setCreated(created);
+        entityManager.persist(drawerNotification);
+        return drawerNotification;
+    }
+
+    private static Page<DrawerEntry> getDrawerPage(Header identityHeader, String path) {
+        return given()
+                .header(identityHeader)
+                .when().get(path)
+                .then()
+                .statusCode(200)
+                .contentType(JSON)
+                .extract().as(new TypeRef<>() { });
+    }
+
+    private static int updateReadStatus(Header identityHeader, UpdateDrawerReadStatusRequest request) {
+        return given()
+                .header(identityHeader)
+                .contentType(JSON)
+                .body(request)
+                .when().put(PATH + "/read")
+                .then()
+                .statusCode(200)
+                .extract().as(Integer.class);
+    }
+
+    private static List<UUID> getIds(Page<DrawerEntry> page) {
+        return page.getData().stream().map(DrawerEntry::getId).collect(Collectors.toList());
+    }
+
+    private static Header mockRbac(String accountId, String orgId, String username) {
+        String identityHeaderValue = TestHelpers.encodeRHIdentityInfo(accountId, orgId, username);
+        MockServerConfig.addMockRbacAccess(identityHeaderValue, FULL_ACCESS);
+        return TestHelpers.createRHIdentityHeader(identityHeaderValue);
+    }
+}
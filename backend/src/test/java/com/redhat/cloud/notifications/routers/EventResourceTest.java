@@ -68,7 +68,8 @@ public class EventResourceTest extends DbIsolatedTest {
     private static final String OTHER_ACCOUNT_ID = "other-account-id";
     private static final String OTHER_ORG_ID = "other-org-id";
     private static final LocalDateTime NOW = LocalDateTime.now(UTC);
-    private static final String PAYLOAD = "payload";
+    // Written as PostgreSQL formats the jsonb values, so that it is read back unchanged.
+    private static final String PAYLOAD = "{\"payload\": \"event\"}";
     private static final String PATH = API_NOTIFICATIONS_V_1_0 + "/notifications/events";
 
     @Inject
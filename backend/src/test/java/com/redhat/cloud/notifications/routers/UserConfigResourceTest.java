@@ -12,6 +12,7 @@ import com.redhat.cloud.notifications.db.ResourceHelpers;
 import com.redhat.cloud.notifications.db.repositories.ApplicationRepository;
 import com.redhat.cloud.notifications.db.repositories.EmailSubscriptionRepository;
 import com.redhat.cloud.notifications.db.repositories.EventTypeRepository;
+import com.redhat.cloud.notifications.db.repositories.TemplateRepository;
 import com.redhat.cloud.notifications.models.AggregationEmailTemplate;
 import com.redhat.cloud.notifications.models.Application;
 import com.redhat.cloud.notifications.models.EmailSubscription;
@@ -36,6 +37,8 @@ import io.restassured.http.Header;
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,6 +48,7 @@ import javax.persistence.PersistenceException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.redhat.cloud.notifications.CrudTestHelpers.createAggregationEmailTemplate;
@@ -64,7 +68,6 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -102,6 +105,12 @@ public class UserConfigResourceTest extends DbIsolatedTest {
     @Inject
     EventTypeRepository eventTypeRepository;
 
+    @Inject
+    TemplateRepository templateRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
 
     private Field rhelPolicyForm(SettingsValueJsonForm jsonForm) {
         for (Field section : jsonForm.fields.get(0).sections) {
@@ -386,6 +395,57 @@ public class UserConfigResourceTest extends DbIsolatedTest {
                 .contentType(TEXT);
     }
 
+    @Test
+    void testSettingsSchemaStatementsCountDoesNotGrowWithApplications() {
+        featureFlipper.setUseEventTypeForSubscriptionEnabled(true);
+        String identityHeaderValue = TestHelpers.encodeRHIdentityInfo("empty", "empty", "user");
+        Header identityHeader = TestHelpers.createRHIdentityHeader(identityHeaderValue);
+        MockServerConfig.addMockRbacAccess(identityHeaderValue, MockServerConfig.RbacAccess.FULL_ACCESS);
+        String path = "/user-config/notification-event-type-preference";
+
+        createApplicationWithTemplates(resourceHelpers.getBundleId("rhel"), "first-app");
+        long byEventTypeStatements = countStatements(() -> getPreferencesByEventType(path, identityHeader));
+        long byBundleStatements = countStatements(() -> getPreferencesByBundle(identityHeader, "rhel"));
+
+        for (int i = 0; i < 3; i++) {
+            UUID bundleId = resourceHelpers.createBundle("other-bundle-" + i, "Other bundle " + i).getId();
+            createApplicationWithTemplates(bundleId, "other-app-" + i);
+            createApplicationWithTemplates(bundleId, "another-app-" + i);
+            createApplicationWithTemplates(resourceHelpers.getBundleId("rhel"), "rhel-app-" + i);
+        }
+
+        assertEquals(byEventTypeStatements, countStatements(() -> getPreferencesByEventType(path, identityHeader)));
+        assertEquals(byBundleStatements, countStatements(() -> getPreferencesByBundle(identityHeader, "rhel")));
+
+        // The new applications have to be part of the schema, otherwise the statements count would be meaningless.
+        SettingsValueByEventTypeJsonForm settingsValuesByEventType = getPreferencesByEventType(path, identityHeader);
+        assertEquals(4, settingsValuesByEventType.bundles.size());
+        assertEquals(4, settingsValuesByEventType.bundles.get("rhel").applications.size());
+    }
+
+    /*
+     * The first call fills the caches (RBAC, email templates support) which are shared by all requests. Only the
+     * statements of the second call are counted.
+     */
+    private long countStatements(Runnable request) {
+        request.run();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        request.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createApplicationWithTemplates(UUID bundleId, String applicationName) {
+        Application app = resourceHelpers.createApplication(bundleId, applicationName, applicationName);
+        EventType eventType = resourceHelpers.createEventType(app.getId(), "event-type", "Event type", "description");
+        Template subjectTemplate = resourceHelpers.createTemplate("subject-" + applicationName, "description", "template-data");
+        Template bodyTemplate = resourceHelpers.createTemplate("body-" + applicationName, "description", "template-data");
+        templateRepository.createInstantEmailTemplate(CrudTestHelpers.buildInstantEmailTemplate(
+                eventType.getId().toString(), subjectTemplate.getId().toString(), bodyTemplate.getId().toString()));
+        templateRepository.createAggregationEmailTemplate(CrudTestHelpers.buildAggregationEmailTemplate(
+                app.getId().toString(), subjectTemplate.getId().toString(), bodyTemplate.getId().toString()));
+    }
+
     @Test
     void testMirroringUpdateToEmailSubscriptionByEventType() {
         String accountId = "empty";
@@ -484,9 +544,8 @@ public class UserConfigResourceTest extends DbIsolatedTest {
         assertNotNull(rhelPolicy, "RHEL policies not found");
         assertNull(rhelPolicy.eventTypes.get(0).fields.get(0).infoMessage);
 
-        Application applicationPolicies = new Application();
-        applicationPolicies.setName("policies");
-        when(applicationRepository.getApplicationsWithForcedEmail(any(), anyString())).thenReturn(List.of(applicationPolicies));
+        Application applicationPolicies = applicationRepository.getApplication(bundle, application);
+        when(applicationRepository.getApplicationIdsWithForcedEmail(anyString())).thenReturn(Set.of(applicationPolicies.getId()));
 
         settingsValuesByEventType = given()
             .header(identityHeader)
@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import javax.inject.Inject;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import static com.redhat.cloud.notifications.Constants.API_INTERNAL;
 import static com.redhat.cloud.notifications.models.EmailSubscriptionType.INSTANT;
@@ -73,6 +74,14 @@ public class SubscriptionToEventTypeMigrationServiceTest extends DbIsolatedTest
         eventTypeEmailSubscriptionList = emailSubscriptionRepository.getEmailSubscriptionsPerEventTypeForUser(orgId, username2);
         assertEquals(0, eventTypeEmailSubscriptionList.size());
 
+        // This org only has an event type subscription, which is deleted by the migration.
+        String otherOrgId = "other-org";
+        EventType eventType = eventTypeSet.iterator().next();
+        emailSubscriptionRepository.subscribeEventType(otherOrgId, username, eventType.getId(), INSTANT);
+
+        // The changes recorded by the subscriptions above must not hide the ones recorded by the migration.
+        resourceHelpers.deleteEmailSubscriptionChanges();
+
         // migrate from application to event type subscription level
         given()
             .basePath(API_INTERNAL)
@@ -89,5 +98,13 @@ public class SubscriptionToEventTypeMigrationServiceTest extends DbIsolatedTest
 
         eventTypeEmailSubscriptionList = emailSubscriptionRepository.getEmailSubscriptionsPerEventTypeForUser(orgId, username);
         assertEquals(2, eventTypeEmailSubscriptionList.size());
+
+        eventTypeEmailSubscriptionList = emailSubscriptionRepository.getEmailSubscriptionsPerEventTypeForUser(otherOrgId, username);
+        assertEquals(0, eventTypeEmailSubscriptionList.size());
+
+        // The engine is notified of the changes of both orgs so that it invalidates its cached subscribers.
+        UUID applicationId = eventType.getApplicationId();
+        assertEquals(List.of(applicationId), resourceHelpers.getEmailSubscriptionChangeApplicationIds(orgId));
+        assertEquals(List.of(applicationId), resourceHelpers.getEmailSubscriptionChangeApplicationIds(otherOrgId));
     }
 }
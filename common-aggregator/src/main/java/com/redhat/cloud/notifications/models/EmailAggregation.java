@@ -3,6 +3,7 @@ package com.redhat.cloud.notifications.models;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.redhat.cloud.notifications.db.converters.JsonObjectConverter;
 import io.vertx.core.json.JsonObject;
+import org.hibernate.annotations.ColumnTransformer;
 
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -44,8 +45,23 @@ public class EmailAggregation extends CreationTimestamped {
 
     @NotNull
     @Convert(converter = JsonObjectConverter.class)
+    // The column is still a text column until all engine pods write jsonb, PostgreSQL converts the jsonb value back to text.
+    @ColumnTransformer(write = "CAST(? AS jsonb)")
     private JsonObject payload;
 
+    @Size(max = 255)
+    private String eventType;
+
+    /*
+     * Identifies the recipients settings of the action which produced this aggregation. The aggregations which share
+     * an event type and a fingerprint are sent to the same users.
+     */
+    @Size(max = 64)
+    private String recipientsFingerprint;
+
+    // True when at least one recipient of the action ignores the user preferences.
+    private boolean forcedEmail;
+
     public Integer getId() {
         return id;
     }
@@ -86,6 +102,30 @@ public class EmailAggregation extends CreationTimestamped {
         this.payload = payload;
     }
 
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getRecipientsFingerprint() {
+        return recipientsFingerprint;
+    }
+
+    public void setRecipientsFingerprint(String recipientsFingerprint) {
+        this.recipientsFingerprint = recipientsFingerprint;
+    }
+
+    public boolean isForcedEmail() {
+        return forcedEmail;
+    }
+
+    public void setForcedEmail(boolean forcedEmail) {
+        this.forcedEmail = forcedEmail;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -48,8 +48,8 @@ public class FeatureFlipper {
     @ConfigProperty(name = "reinject.enabled", defaultValue = "false")
     boolean enableReInject;
 
-    @ConfigProperty(name = "notifications.kafka-consumed-total-checker.enabled", defaultValue = "false")
-    boolean kafkaConsumedTotalCheckerEnabled;
+    @ConfigProperty(name = "notifications.kafka-lag-checker.enabled", defaultValue = "false")
+    boolean kafkaLagCheckerEnabled;
 
     @ConfigProperty(name = "notifications.use-default-template", defaultValue = "false")
     boolean useDefaultTemplate;
@@ -138,12 +138,27 @@ public class FeatureFlipper {
     @ConfigProperty(name = "notifications.add.default.recipient.on.single.email.enabled", defaultValue = "true")
     boolean addDefaultRecipientOnSingleEmail;
 
+    @ConfigProperty(name = "notifications.email-subscriber-index.enabled", defaultValue = "false")
+    boolean emailSubscriberIndexEnabled;
+
+    @ConfigProperty(name = "notifications.instant-email-batching.enabled", defaultValue = "false")
+    boolean instantEmailBatchingEnabled;
+
+    @ConfigProperty(name = "notifications.ingress-fairness.enabled", defaultValue = "false")
+    boolean ingressFairnessEnabled;
+
+    @ConfigProperty(name = "notifications.parallel-fan-out.enabled", defaultValue = "false")
+    boolean parallelFanOutEnabled;
+
+    @ConfigProperty(name = "notifications.delivery-retry.enabled", defaultValue = "false")
+    boolean delayedDeliveryRetriesEnabled;
+
     void logFeaturesStatusAtStartup(@Observes StartupEvent event) {
         Log.infof("=== %s startup status ===", FeatureFlipper.class.getSimpleName());
         Log.infof("The behavior groups unique name constraint is %s", enforceBehaviorGroupNameUnicity ? "enabled" : "disabled");
         Log.infof("The integrations unique name constraint is %s", enforceIntegrationNameUnicity ? "enabled" : "disabled");
         Log.infof("The actions reinjection in case of Camel integration error is %s", enableReInject ? "enabled" : "disabled");
-        Log.infof("The Kafka outage detector is %s", kafkaConsumedTotalCheckerEnabled ? "enabled" : "disabled");
+        Log.infof("The Kafka lag liveness check is %s", kafkaLagCheckerEnabled ? "enabled" : "disabled");
         Log.infof("The use of default templates is %s", useDefaultTemplate ? "enabled" : "disabled");
         Log.infof("The deactivation of webhook endpoints on failure is %s", disableWebhookEndpointsOnFailure ? "enabled" : "disabled");
         Log.infof("The sources back end as the secrets manager is %s", sourcesSecretsBackend ? "enabled" : "disabled");
@@ -173,6 +188,11 @@ public class FeatureFlipper {
         Log.infof("The integration with the export service is %s", exportServiceIntegrationEnabled ? "enabled" : "disabled");
         Log.infof("Drawer feature is %s", drawerEnabled ? "enabled" : "disabled");
         Log.infof("The add of default recipient on single email is %s", addDefaultRecipientOnSingleEmail ? "enabled" : "disabled");
+        Log.infof("The in-memory email subscriber index is %s", emailSubscriberIndexEnabled ? "enabled" : "disabled");
+        Log.infof("The batching of instant emails is %s", instantEmailBatchingEnabled ? "enabled" : "disabled");
+        Log.infof("The per-org fair scheduling of the ingress events is %s", ingressFairnessEnabled ? "enabled" : "disabled");
+        Log.infof("The parallel processing of the endpoint types is %s", parallelFanOutEnabled ? "enabled" : "disabled");
+        Log.infof("The delayed retries of the webhook and email deliveries are %s", delayedDeliveryRetriesEnabled ? "enabled" : "disabled");
     }
 
     public boolean isEnforceBehaviorGroupNameUnicity() {
@@ -197,13 +217,13 @@ public class FeatureFlipper {
         return enableReInject;
     }
 
-    public boolean isKafkaConsumedTotalCheckerEnabled() {
-        return kafkaConsumedTotalCheckerEnabled;
+    public boolean isKafkaLagCheckerEnabled() {
+        return kafkaLagCheckerEnabled;
     }
 
-    public void setKafkaConsumedTotalCheckerEnabled(boolean kafkaConsumedTotalCheckerEnabled) {
+    public void setKafkaLagCheckerEnabled(boolean kafkaLagCheckerEnabled) {
         // It's ok to override this config value at runtime.
-        this.kafkaConsumedTotalCheckerEnabled = kafkaConsumedTotalCheckerEnabled;
+        this.kafkaLagCheckerEnabled = kafkaLagCheckerEnabled;
     }
 
     public boolean isUseDefaultTemplate() {
@@ -468,6 +488,51 @@ public class FeatureFlipper {
         this.addDefaultRecipientOnSingleEmail = addDefaultRecipientOnSingleEmail;
     }
 
+    public boolean isEmailSubscriberIndexEnabled() {
+        return emailSubscriberIndexEnabled;
+    }
+
+    public void setEmailSubscriberIndexEnabled(boolean emailSubscriberIndexEnabled) {
+        checkTestLaunchMode();
+        this.emailSubscriberIndexEnabled = emailSubscriberIndexEnabled;
+    }
+
+    public boolean isInstantEmailBatchingEnabled() {
+        return instantEmailBatchingEnabled;
+    }
+
+    public void setInstantEmailBatchingEnabled(boolean instantEmailBatchingEnabled) {
+        checkTestLaunchMode();
+        this.instantEmailBatchingEnabled = instantEmailBatchingEnabled;
+    }
+
+    public boolean isIngressFairnessEnabled() {
+        return ingressFairnessEnabled;
+    }
+
+    public void setIngressFairnessEnabled(boolean ingressFairnessEnabled) {
+        checkTestLaunchMode();
+        this.ingressFairnessEnabled = ingressFairnessEnabled;
+    }
+
+    public boolean isParallelFanOutEnabled() {
+        return parallelFanOutEnabled;
+    }
+
+    public void setParallelFanOutEnabled(boolean parallelFanOutEnabled) {
+        checkTestLaunchMode();
+        this.parallelFanOutEnabled = parallelFanOutEnabled;
+    }
+
+    public boolean isDelayedDeliveryRetriesEnabled() {
+        return delayedDeliveryRetriesEnabled;
+    }
+
+    public void setDelayedDeliveryRetriesEnabled(boolean delayedDeliveryRetriesEnabled) {
+        checkTestLaunchMode();
+        this.delayedDeliveryRetriesEnabled = delayedDeliveryRetriesEnabled;
+    }
+
     /**
      * This method throws an {@link IllegalStateException} if it is invoked with a launch mode different from
      * {@link io.quarkus.runtime.LaunchMode#TEST TEST}. It should be added to methods that allow overriding a
@@ -12,6 +12,7 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 import static com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY;
@@ -44,6 +45,9 @@ public class DrawerNotification extends CreationTimestamped {
     @JoinColumn(name = "event_id")
     private Event event;
 
+    // The partition key of the event, which is stored with the entry so that the event can be joined within its partition.
+    private LocalDateTime eventCreated;
+
     @NotNull
     private boolean read;
 
@@ -82,6 +86,14 @@ public class DrawerNotification extends CreationTimestamped {
         this.event = event;
     }
 
+    public LocalDateTime getEventCreated() {
+        return eventCreated;
+    }
+
+    public void setEventCreated(LocalDateTime eventCreated) {
+        this.eventCreated = eventCreated;
+    }
+
     public boolean isRead() {
         return read;
     }
@@ -98,4 +110,11 @@ public class DrawerNotification extends CreationTimestamped {
         this.eventId = eventId;
     }
 
+    @Override
+    protected void additionalPrePersist() {
+        if (eventCreated == null && event != null) {
+            eventCreated = event.getCreated();
+        }
+    }
+
 }
@@ -1,7 +1,9 @@
 package com.redhat.cloud.notifications.models;
 
 import com.redhat.cloud.notifications.events.EventWrapper;
+import org.hibernate.annotations.ColumnTransformer;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
@@ -19,6 +21,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static java.time.ZoneOffset.UTC;
 import static javax.persistence.CascadeType.REMOVE;
@@ -70,11 +74,18 @@ public class Event {
     @OneToMany(mappedBy = "event", cascade = REMOVE)
     Set<NotificationHistory> historyEntries;
 
+    // The payload of the events created before V1.86.0 is only stored in the legacy text column until JsonbBackfillJob copies it.
+    @Column(name = "payload_jsonb")
+    @ColumnTransformer(read = "COALESCE(payload_jsonb, CAST(payload AS jsonb))", write = "CAST(? AS jsonb)")
     private String payload;
 
     @Transient
     private EventWrapper<?, ?> eventWrapper;
 
+    // Completed once the deliveries which were deferred while the event was processed are over.
+    @Transient
+    private CompletableFuture<Void> deferredDeliveries = CompletableFuture.completedFuture(null);
+
     public Event() { }
 
     public Event(EventType eventType, String payload, EventWrapper<?, ?> eventWrapper) {
@@ -226,6 +237,18 @@ public class Event {
         this.eventWrapper = eventWrapper;
     }
 
+    /**
+     * Returns a stage completed once all the deliveries added with {@link #addDeferredDelivery} are over. The ingress
+     * message of the event must not be acknowledged before.
+     */
+    public synchronized CompletionStage<Void> getDeferredDeliveries() {
+        return deferredDeliveries;
+    }
+
+    public synchronized void addDeferredDelivery(CompletionStage<Void> deferredDelivery) {
+        deferredDeliveries = CompletableFuture.allOf(deferredDeliveries, deferredDelivery.toCompletableFuture());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -3,7 +3,9 @@ package com.redhat.cloud.notifications.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.redhat.cloud.notifications.db.converters.NotificationHistoryDetailsConverter;
+import org.hibernate.annotations.ColumnTransformer;
 
+import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
@@ -15,6 +17,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Objects;
@@ -56,6 +59,14 @@ public class NotificationHistory extends CreationTimestamped {
     @JsonIgnore
     private Event event;
 
+    /*
+     * This is a duplicate of the Event#orgId field. It allows reading the history of an endpoint without joining the
+     * event table.
+     */
+    @Size(max = 50)
+    @JsonIgnore
+    private String orgId;
+
     @Transient
     private UUID endpointId;
 
@@ -73,6 +84,9 @@ public class NotificationHistory extends CreationTimestamped {
     @JsonIgnore
     private final CompositeEndpointType compositeEndpointType = new CompositeEndpointType();
 
+    // The details of the entries created before V1.86.0 are only stored in the legacy text column until JsonbBackfillJob copies them.
+    @Column(name = "details_jsonb")
+    @ColumnTransformer(read = "COALESCE(details_jsonb, CAST(details AS jsonb))", write = "CAST(? AS jsonb)")
     @Convert(converter = NotificationHistoryDetailsConverter.class)
     private Map<String, Object> details;
 
@@ -130,6 +144,14 @@ public class NotificationHistory extends CreationTimestamped {
         this.event = event;
     }
 
+    public String getOrgId() {
+        return orgId;
+    }
+
+    public void setOrgId(String orgId) {
+        this.orgId = orgId;
+    }
+
     public UUID getEndpointId() {
         if (endpointId == null && endpoint != null) {
             endpointId = endpoint.getId();
@@ -173,6 +195,13 @@ public class NotificationHistory extends CreationTimestamped {
         this.details = details;
     }
 
+    @Override
+    protected void additionalPrePersist() {
+        if (orgId == null && event != null) {
+            orgId = event.getOrgId();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
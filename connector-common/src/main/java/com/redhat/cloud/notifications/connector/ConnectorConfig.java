@@ -4,6 +4,7 @@ import io.quarkus.runtime.configuration.ProfileManager;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
+import java.util.Optional;
 
 import static io.quarkus.runtime.LaunchMode.TEST;
 
@@ -13,27 +14,51 @@ public class ConnectorConfig {
     @ConfigProperty(name = "notifications.connector.endpoint-cache-max-size", defaultValue = "100")
     int endpointCacheMaxSize;
 
+    @ConfigProperty(name = "notifications.connector.kafka.incoming.concurrency", defaultValue = "1")
+    int incomingKafkaConcurrency;
+
     @ConfigProperty(name = "notifications.connector.kafka.incoming.group-id")
     String incomingKafkaGroupId;
 
+    @ConfigProperty(name = "notifications.connector.kafka.incoming.lanes", defaultValue = "4")
+    int incomingKafkaLanes;
+
+    @ConfigProperty(name = "notifications.connector.kafka.incoming.max-pending-records", defaultValue = "400")
+    int incomingKafkaMaxPendingRecords;
+
     @ConfigProperty(name = "notifications.connector.kafka.incoming.topic")
     String incomingKafkaTopic;
 
+    @ConfigProperty(name = "notifications.connector.kafka.incoming.dedicated-topic")
+    Optional<String> incomingKafkaDedicatedTopic;
+
+    @ConfigProperty(name = "notifications.connector.kafka.incoming.topic-mode", defaultValue = "SHARED")
+    IncomingTopicMode incomingKafkaTopicMode;
+
     @ConfigProperty(name = "notifications.connector.kafka.outgoing.topic")
     String outgoingKafkaTopic;
 
     @ConfigProperty(name = "notifications.connector.name")
     String connectorName;
 
+    @ConfigProperty(name = "notifications.connector.redelivery.backoff-multiplier", defaultValue = "2")
+    double redeliveryBackOffMultiplier;
+
     @ConfigProperty(name = "notifications.connector.redelivery.counter-name")
     String redeliveryCounterName;
 
     @ConfigProperty(name = "notifications.connector.redelivery.delay", defaultValue = "1000")
     long redeliveryDelay;
 
+    @ConfigProperty(name = "notifications.connector.redelivery.jitter-factor", defaultValue = "0.15")
+    double redeliveryJitterFactor;
+
     @ConfigProperty(name = "notifications.connector.redelivery.max-attempts", defaultValue = "2")
     int redeliveryMaxAttempts;
 
+    @ConfigProperty(name = "notifications.connector.redelivery.max-delay", defaultValue = "10000")
+    long redeliveryMaxDelay;
+
     public int getEndpointCacheMaxSize() {
         return endpointCacheMaxSize;
     }
@@ -43,6 +68,15 @@ public class ConnectorConfig {
         this.endpointCacheMaxSize = endpointCacheMaxSize;
     }
 
+    public int getIncomingKafkaConcurrency() {
+        return incomingKafkaConcurrency;
+    }
+
+    public void setIncomingKafkaConcurrency(int incomingKafkaConcurrency) {
+        checkTestLaunchMode();
+        this.incomingKafkaConcurrency = incomingKafkaConcurrency;
+    }
+
     public String getIncomingKafkaGroupId() {
         return incomingKafkaGroupId;
     }
@@ -52,6 +86,24 @@ public class ConnectorConfig {
         this.incomingKafkaGroupId = incomingKafkaGroupId;
     }
 
+    public int getIncomingKafkaLanes() {
+        return incomingKafkaLanes;
+    }
+
+    public void setIncomingKafkaLanes(int incomingKafkaLanes) {
+        checkTestLaunchMode();
+        this.incomingKafkaLanes = incomingKafkaLanes;
+    }
+
+    public int getIncomingKafkaMaxPendingRecords() {
+        return incomingKafkaMaxPendingRecords;
+    }
+
+    public void setIncomingKafkaMaxPendingRecords(int incomingKafkaMaxPendingRecords) {
+        checkTestLaunchMode();
+        this.incomingKafkaMaxPendingRecords = incomingKafkaMaxPendingRecords;
+    }
+
     public String getIncomingKafkaTopic() {
         return incomingKafkaTopic;
     }
@@ -61,6 +113,41 @@ public class ConnectorConfig {
         this.incomingKafkaTopic = incomingKafkaTopic;
     }
 
+    public Optional<String> getIncomingKafkaDedicatedTopic() {
+        return incomingKafkaDedicatedTopic;
+    }
+
+    public void setIncomingKafkaDedicatedTopic(Optional<String> incomingKafkaDedicatedTopic) {
+        checkTestLaunchMode();
+        this.incomingKafkaDedicatedTopic = incomingKafkaDedicatedTopic;
+    }
+
+    public IncomingTopicMode getIncomingKafkaTopicMode() {
+        return incomingKafkaTopicMode;
+    }
+
+    public void setIncomingKafkaTopicMode(IncomingTopicMode incomingKafkaTopicMode) {
+        checkTestLaunchMode();
+        this.incomingKafkaTopicMode = incomingKafkaTopicMode;
+    }
+
+    /**
+     * Returns the comma-separated list of the topics consumed by the connector, depending on the incoming topic mode.
+     * @throws IllegalStateException if the mode requires a dedicated topic and none is configured
+     */
+    public String getIncomingKafkaTopics() {
+        if (incomingKafkaTopicMode == IncomingTopicMode.SHARED) {
+            return incomingKafkaTopic;
+        }
+        String dedicatedTopic = incomingKafkaDedicatedTopic.orElseThrow(() -> new IllegalStateException(
+                "The notifications.connector.kafka.incoming.dedicated-topic property is required with the " + incomingKafkaTopicMode + " incoming topic mode"));
+        if (incomingKafkaTopicMode == IncomingTopicMode.BOTH) {
+            return incomingKafkaTopic + "," + dedicatedTopic;
+        } else {
+            return dedicatedTopic;
+        }
+    }
+
     public String getOutgoingKafkaTopic() {
         return outgoingKafkaTopic;
     }
@@ -79,6 +166,15 @@ public class ConnectorConfig {
         this.connectorName = connectorName;
     }
 
+    public double getRedeliveryBackOffMultiplier() {
+        return redeliveryBackOffMultiplier;
+    }
+
+    public void setRedeliveryBackOffMultiplier(double redeliveryBackOffMultiplier) {
+        checkTestLaunchMode();
+        this.redeliveryBackOffMultiplier = redeliveryBackOffMultiplier;
+    }
+
     public String getRedeliveryCounterName() {
         return redeliveryCounterName;
     }
@@ -97,6 +193,15 @@ public class ConnectorConfig {
         this.redeliveryDelay = redeliveryDelay;
     }
 
+    public double getRedeliveryJitterFactor() {
+        return redeliveryJitterFactor;
+    }
+
+    public void setRedeliveryJitterFactor(double redeliveryJitterFactor) {
+        checkTestLaunchMode();
+        this.redeliveryJitterFactor = redeliveryJitterFactor;
+    }
+
     public int getRedeliveryMaxAttempts() {
         return redeliveryMaxAttempts;
     }
@@ -106,6 +211,15 @@ public class ConnectorConfig {
         this.redeliveryMaxAttempts = redeliveryMaxAttempts;
     }
 
+    public long getRedeliveryMaxDelay() {
+        return redeliveryMaxDelay;
+    }
+
+    public void setRedeliveryMaxDelay(long redeliveryMaxDelay) {
+        checkTestLaunchMode();
+        this.redeliveryMaxDelay = redeliveryMaxDelay;
+    }
+
     /**
      * This method throws an {@link IllegalStateException} if it is invoked with a launch mode different from
      * {@link io.quarkus.runtime.LaunchMode#TEST TEST}. It should be added to methods that allow overriding a
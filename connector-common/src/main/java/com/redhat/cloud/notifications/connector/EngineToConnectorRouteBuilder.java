@@ -1,16 +1,23 @@
 package com.redhat.cloud.notifications.connector;
 
 import org.apache.camel.builder.endpoint.EndpointRouteBuilder;
+import org.apache.camel.builder.endpoint.dsl.SedaEndpointBuilderFactory;
+import org.apache.camel.component.kafka.KafkaComponent;
 
 import javax.inject.Inject;
 
+import static com.redhat.cloud.notifications.connector.ExchangeProperty.LANE;
 import static org.apache.camel.LoggingLevel.DEBUG;
 
 public abstract class EngineToConnectorRouteBuilder extends EndpointRouteBuilder {
 
     public static final String ENGINE_TO_CONNECTOR = "engine-to-connector";
+    public static final String ENGINE_TO_CONNECTOR_KAFKA = ENGINE_TO_CONNECTOR + "-kafka";
+    public static final String ENGINE_TO_CONNECTOR_LANE = ENGINE_TO_CONNECTOR + "-lane-";
     public static final String CAMEL_HTTP_HEADERS_PATTERN = "CamelHttp*";
 
+    private static final String ENGINE_TO_CONNECTOR_LANES = ENGINE_TO_CONNECTOR + "-lanes";
+
     @Inject
     ConnectorConfig connectorConfig;
 
@@ -20,6 +27,15 @@ public abstract class EngineToConnectorRouteBuilder extends EndpointRouteBuilder
     @Inject
     IncomingCloudEventProcessor incomingCloudEventProcessor;
 
+    @Inject
+    IncomingKafkaClientFactory incomingKafkaClientFactory;
+
+    @Inject
+    IncomingLaneSelector incomingLaneSelector;
+
+    @Inject
+    IncomingOffsetTracker incomingOffsetTracker;
+
     @Inject
     RedeliveryCounterProcessor redeliveryCounterProcessor;
 
@@ -32,11 +48,22 @@ public abstract class EngineToConnectorRouteBuilder extends EndpointRouteBuilder
     @Override
     public void configure() {
 
+        /*
+         * The redelivery delay grows exponentially with each attempt and is randomized with the jitter factor to prevent
+         * retries from many messages hitting the remote service at the same time. The delay is scheduled asynchronously
+         * by Camel. While a redelivery is pending, only the lane of the record waits: the Kafka consumer keeps polling.
+         */
         onException(Throwable.class)
                 .onWhen(redeliveryPredicate::matches)
                 .handled(true)
                 .maximumRedeliveries(connectorConfig.getRedeliveryMaxAttempts())
                 .redeliveryDelay(connectorConfig.getRedeliveryDelay())
+                .useExponentialBackOff()
+                .backOffMultiplier(connectorConfig.getRedeliveryBackOffMultiplier())
+                .maximumRedeliveryDelay(connectorConfig.getRedeliveryMaxDelay())
+                .useCollisionAvoidance()
+                .collisionAvoidanceFactor(connectorConfig.getRedeliveryJitterFactor())
+                .asyncDelayedRedelivery()
                 .retryAttemptedLogLevel(DEBUG)
                 .onRedelivery(redeliveryCounterProcessor)
                 .process(exceptionProcessor);
@@ -46,10 +73,52 @@ public abstract class EngineToConnectorRouteBuilder extends EndpointRouteBuilder
                 .handled(true)
                 .process(exceptionProcessor);
 
-        from(kafka(connectorConfig.getIncomingKafkaTopic()).groupId(connectorConfig.getIncomingKafkaGroupId()))
-                .routeId(ENGINE_TO_CONNECTOR)
+        /*
+         * Each Kafka consumer is assigned its own partitions from the incoming topic. The concurrency should not exceed
+         * the number of partitions of the topic, extra consumers would remain idle. With a dedicated topic, the
+         * connector no longer fetches and deserializes the records of the other connectors. The filter below is still
+         * required while the shared topic is consumed.
+         *
+         * The consumers hand each record off to a lane and move on to the next record without waiting for the
+         * notification to be delivered. The records sharing a Kafka key, or a partition if they have no key, are always
+         * handed off to the same lane, which processes them one after another in the order they were consumed: the
+         * order of the records is preserved per key, including while a record is waiting for a redelivery attempt.
+         *
+         * The offsets are not auto-committed. A record is complete once it was filtered out or once its lane processing
+         * is over, and the offset committed for a partition never goes past its first record that is not complete yet.
+         * The records still queued in a lane or waiting for a redelivery are therefore consumed again after a crash or
+         * a rebalance: the records are delivered at least once. The partitions are paused while the number of records
+         * that are not complete reaches the max-pending-records limit, the consumers keep polling meanwhile.
+         */
+        getCamelContext().getComponent("kafka", KafkaComponent.class).setKafkaClientFactory(incomingKafkaClientFactory);
+
+        from(kafka(connectorConfig.getIncomingKafkaTopics())
+                .groupId(connectorConfig.getIncomingKafkaGroupId())
+                .consumersCount(connectorConfig.getIncomingKafkaConcurrency())
+                .autoCommitEnable(false))
+                .routeId(ENGINE_TO_CONNECTOR_KAFKA)
+                // The records which are not handed off to a lane are complete as soon as this route is over.
+                .onCompletion()
+                    .onWhen(exchangeProperty(LANE).isNull())
+                    .process(incomingOffsetTracker::complete)
+                .end()
+                .process(incomingOffsetTracker::record)
                 .to(log(getClass().getName()).level("DEBUG").showHeaders(true).showBody(true))
                 .filter(incomingCloudEventFilter)
+                .process(incomingLaneSelector)
+                .toD(lane("${exchangeProperty." + LANE + "}"));
+
+        for (int i = 0; i < connectorConfig.getIncomingKafkaLanes(); i++) {
+            from(lane(String.valueOf(i)))
+                    .routeId(ENGINE_TO_CONNECTOR_LANE + i)
+                    .onCompletion()
+                        .process(incomingOffsetTracker::complete)
+                    .end()
+                    .to(direct(ENGINE_TO_CONNECTOR_LANES));
+        }
+
+        from(direct(ENGINE_TO_CONNECTOR_LANES))
+                .routeId(ENGINE_TO_CONNECTOR)
                 .process(incomingCloudEventProcessor)
                 .to(log(getClass().getName()).level("DEBUG").showProperties(true))
                 .to(direct(ENGINE_TO_CONNECTOR));
@@ -58,4 +127,12 @@ public abstract class EngineToConnectorRouteBuilder extends EndpointRouteBuilder
     }
 
     public abstract void configureRoute();
+
+    /*
+     * A SEDA endpoint has a single consumer by default, so its records are processed in the order they were queued. The
+     * queue is not bounded because the number of queued records is already limited by pausing the partitions.
+     */
+    private SedaEndpointBuilderFactory.SedaEndpointBuilder lane(String lane) {
+        return seda(ENGINE_TO_CONNECTOR_LANE + lane).size(Integer.MAX_VALUE);
+    }
 }
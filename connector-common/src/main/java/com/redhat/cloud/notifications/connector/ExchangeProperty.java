@@ -3,6 +3,8 @@ package com.redhat.cloud.notifications.connector;
 public class ExchangeProperty {
 
     public static final String ID = "id";
+    public static final String INCOMING_RECORD = "incomingRecord";
+    public static final String LANE = "lane";
     public static final String ORG_ID = "orgId";
     public static final String OUTCOME = "outcome";
     public static final String RETURN_SOURCE = "source";
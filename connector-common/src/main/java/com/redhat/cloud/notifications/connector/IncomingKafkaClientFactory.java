@@ -0,0 +1,199 @@
+package com.redhat.cloud.notifications.connector;
+
+import io.quarkus.logging.Log;
+import org.apache.camel.component.kafka.DefaultKafkaClientFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/*
+ * Creates the Kafka clients of the connector. The consumers are wrapped so that:
+ * - the offsets they commit never go past the records that are still being processed, whatever the component which
+ *   requested the commit,
+ * - the offsets that can be committed are committed before each poll, including while no records are consumed,
+ * - their partitions are paused while too many records are being processed and resumed once the lanes caught up.
+ * Pausing the partitions instead of blocking the consumer thread keeps the consumer polling, so it does not exceed
+ * max.poll.interval.ms and it is not evicted from the consumer group. The Kafka consumers are not thread-safe: all of
+ * these actions are run from the thread of the consumer, when that thread calls one of the consumer methods.
+ */
+@ApplicationScoped
+public class IncomingKafkaClientFactory extends DefaultKafkaClientFactory {
+
+    @Inject
+    IncomingOffsetTracker incomingOffsetTracker;
+
+    @Override
+    public Consumer getConsumer(Properties kafkaProps) {
+        return wrap(super.getConsumer(kafkaProps));
+    }
+
+    @SuppressWarnings("unchecked")
+    <K, V> Consumer<K, V> wrap(Consumer<K, V> consumer) {
+        return (Consumer<K, V>) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[] { Consumer.class }, new TrackedConsumer(consumer));
+    }
+
+    private class TrackedConsumer implements InvocationHandler {
+
+        private final Consumer<?, ?> delegate;
+        private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+        private final Set<TopicPartition> pausedPartitions = new HashSet<>();
+
+        TrackedConsumer(Consumer<?, ?> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "poll" -> {
+                    commitCompletedRecords();
+                    pauseOrResume();
+                }
+                case "commitSync" -> {
+                    if (args == null) {
+                        delegate.commitSync(getCommittableOffsets());
+                        return null;
+                    } else if (args[0] instanceof Duration timeout) {
+                        delegate.commitSync(getCommittableOffsets(), timeout);
+                        return null;
+                    } else {
+                        args[0] = limit((Map<TopicPartition, OffsetAndMetadata>) args[0]);
+                    }
+                }
+                case "commitAsync" -> {
+                    if (args == null) {
+                        delegate.commitAsync(getCommittableOffsets(), null);
+                        return null;
+                    } else if (args.length == 1) {
+                        delegate.commitAsync(getCommittableOffsets(), (OffsetCommitCallback) args[0]);
+                        return null;
+                    } else {
+                        args[0] = limit((Map<TopicPartition, OffsetAndMetadata>) args[0]);
+                    }
+                }
+                case "subscribe" -> {
+                    if (args.length == 2) {
+                        args[1] = new TrackedRebalanceListener((ConsumerRebalanceListener) args[1]);
+                    }
+                }
+                default -> {
+                    // The other methods are simply delegated.
+                }
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void commitCompletedRecords() {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : getCommittableOffsets().entrySet()) {
+                if (!Long.valueOf(entry.getValue().offset()).equals(committedOffsets.get(entry.getKey()))) {
+                    offsets.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (!offsets.isEmpty()) {
+                delegate.commitAsync(offsets, (committed, e) -> {
+                    if (e != null) {
+                        // The offsets will be committed again before the next poll.
+                        Log.warnf(e, "Could not commit the offsets %s", committed);
+                        committed.keySet().forEach(committedOffsets::remove);
+                    }
+                });
+                offsets.forEach((topicPartition, offset) -> committedOffsets.put(topicPartition, offset.offset()));
+            }
+        }
+
+        private void pauseOrResume() {
+            if (incomingOffsetTracker.isSaturated()) {
+                Set<TopicPartition> assignment = delegate.assignment();
+                if (!pausedPartitions.containsAll(assignment)) {
+                    Log.debugf("Too many records are being processed, pausing the partitions %s", assignment);
+                    delegate.pause(assignment);
+                    pausedPartitions.addAll(assignment);
+                }
+            } else if (!pausedPartitions.isEmpty()) {
+                pausedPartitions.retainAll(delegate.assignment());
+                Log.debugf("Resuming the partitions %s", pausedPartitions);
+                delegate.resume(pausedPartitions);
+                pausedPartitions.clear();
+            }
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> getCommittableOffsets() {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition topicPartition : delegate.assignment()) {
+                Long offset = incomingOffsetTracker.getCommittableOffset(topicPartition);
+                if (offset != null) {
+                    offsets.put(topicPartition, new OffsetAndMetadata(offset));
+                }
+            }
+            return offsets;
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> limit(Map<TopicPartition, OffsetAndMetadata> requestedOffsets) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            requestedOffsets.forEach((topicPartition, requestedOffset) -> {
+                Long offset = incomingOffsetTracker.getCommittableOffset(topicPartition);
+                if (offset != null && offset < requestedOffset.offset()) {
+                    offsets.put(topicPartition, new OffsetAndMetadata(offset, requestedOffset.metadata()));
+                } else {
+                    offsets.put(topicPartition, requestedOffset);
+                }
+            });
+            offsets.forEach((topicPartition, offset) -> committedOffsets.put(topicPartition, offset.offset()));
+            return offsets;
+        }
+
+        /*
+         * The listener of the consumer commits the offsets of the revoked partitions, which requires their records to
+         * be tracked. The records are forgotten after that, and again when the partitions are assigned, because they may
+         * have been processed by another consumer in the meantime.
+         */
+        private class TrackedRebalanceListener implements ConsumerRebalanceListener {
+
+            private final ConsumerRebalanceListener delegateListener;
+
+            TrackedRebalanceListener(ConsumerRebalanceListener delegateListener) {
+                this.delegateListener = delegateListener;
+            }
+
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                delegateListener.onPartitionsRevoked(partitions);
+                forget(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                forget(partitions);
+                delegateListener.onPartitionsAssigned(partitions);
+            }
+
+            private void forget(Collection<TopicPartition> partitions) {
+                incomingOffsetTracker.forget(partitions);
+                partitions.forEach(committedOffsets::remove);
+                pausedPartitions.removeAll(partitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.redhat.cloud.notifications.connector;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.kafka.KafkaConstants;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Objects;
+
+import static com.redhat.cloud.notifications.connector.ExchangeProperty.LANE;
+
+/*
+ * Selects the lane of an incoming record from its Kafka key, or from its partition if it has no key. The records
+ * sharing a key or a partition are always processed by the same lane.
+ */
+@ApplicationScoped
+public class IncomingLaneSelector implements Processor {
+
+    @Inject
+    ConnectorConfig connectorConfig;
+
+    @Override
+    public void process(Exchange exchange) {
+        Object key = exchange.getIn().getHeader(KafkaConstants.KEY);
+        if (key == null) {
+            key = exchange.getIn().getHeader(KafkaConstants.PARTITION);
+        }
+        exchange.setProperty(LANE, getLane(key, connectorConfig.getIncomingKafkaLanes()));
+    }
+
+    static int getLane(Object key, int lanes) {
+        return Math.floorMod(Objects.hashCode(key), lanes);
+    }
+}
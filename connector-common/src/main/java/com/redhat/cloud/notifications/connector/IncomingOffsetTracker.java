@@ -0,0 +1,135 @@
+package com.redhat.cloud.notifications.connector;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.kafka.common.TopicPartition;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redhat.cloud.notifications.connector.ExchangeProperty.INCOMING_RECORD;
+
+/*
+ * Tracks the incoming records from the moment they are consumed until their processing is over, whether they were
+ * filtered out or handed off to a lane. The offset committed for a partition never goes past the first record of the
+ * partition that is still being processed: the records queued in a lane or waiting for a redelivery are consumed again
+ * if the connector crashes or if their partition is assigned to another consumer.
+ */
+@ApplicationScoped
+public class IncomingOffsetTracker {
+
+    @Inject
+    ConnectorConfig connectorConfig;
+
+    private final Map<TopicPartition, PartitionRecords> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingRecords = new AtomicInteger();
+
+    // This has to be called from the Kafka consumer thread, in the order the records were consumed.
+    public void record(Exchange exchange) {
+        String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
+        Integer partition = exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = exchange.getIn().getHeader(KafkaConstants.OFFSET, Long.class);
+        if (topic != null && partition != null && offset != null) {
+            exchange.setProperty(INCOMING_RECORD, record(new TopicPartition(topic, partition), offset));
+        }
+    }
+
+    public void complete(Exchange exchange) {
+        IncomingRecord record = exchange.getProperty(INCOMING_RECORD, IncomingRecord.class);
+        if (record != null) {
+            complete(record);
+        }
+    }
+
+    IncomingRecord record(TopicPartition topicPartition, long offset) {
+        PartitionRecords records = partitions.get(topicPartition);
+        if (records == null || offset <= records.getLastOffset()) {
+            // The consumer went back to an older offset, the records it will consume again are tracked from scratch.
+            records = new PartitionRecords();
+            partitions.put(topicPartition, records);
+        }
+        pendingRecords.incrementAndGet();
+        return records.add(offset);
+    }
+
+    void complete(IncomingRecord record) {
+        if (record.partitionRecords.complete(record)) {
+            pendingRecords.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the offset that can be committed for the given partition, which is the offset of the first record of the
+     * partition that is still being processed, or the offset that follows the last consumed record.
+     * @return the committable offset, or {@code null} if no record of the partition was consumed since its assignment
+     */
+    public Long getCommittableOffset(TopicPartition topicPartition) {
+        PartitionRecords records = partitions.get(topicPartition);
+        return records == null ? null : records.getCommittableOffset();
+    }
+
+    /*
+     * The records of the partitions are no longer tracked once the partitions are revoked. The records still being
+     * processed are still counted as pending until their processing is over.
+     */
+    public void forget(Collection<TopicPartition> topicPartitions) {
+        for (TopicPartition topicPartition : topicPartitions) {
+            partitions.remove(topicPartition);
+        }
+    }
+
+    public boolean isSaturated() {
+        return pendingRecords.get() >= connectorConfig.getIncomingKafkaMaxPendingRecords();
+    }
+
+    static class IncomingRecord {
+
+        private final PartitionRecords partitionRecords;
+        private final long offset;
+        private boolean done;
+
+        IncomingRecord(PartitionRecords partitionRecords, long offset) {
+            this.partitionRecords = partitionRecords;
+            this.offset = offset;
+        }
+    }
+
+    private static class PartitionRecords {
+
+        // The records of the partition, in the order they were consumed, starting with the first one not processed yet.
+        private final Deque<IncomingRecord> records = new ArrayDeque<>();
+        private long lastOffset = -1L;
+
+        synchronized IncomingRecord add(long offset) {
+            IncomingRecord record = new IncomingRecord(this, offset);
+            records.addLast(record);
+            lastOffset = offset;
+            return record;
+        }
+
+        synchronized boolean complete(IncomingRecord record) {
+            if (record.done) {
+                return false;
+            }
+            record.done = true;
+            while (!records.isEmpty() && records.peekFirst().done) {
+                records.removeFirst();
+            }
+            return true;
+        }
+
+        synchronized long getLastOffset() {
+            return lastOffset;
+        }
+
+        synchronized long getCommittableOffset() {
+            return records.isEmpty() ? lastOffset + 1 : records.peekFirst().offset;
+        }
+    }
+}
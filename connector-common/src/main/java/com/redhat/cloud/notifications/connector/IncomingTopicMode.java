@@ -0,0 +1,18 @@
+package com.redhat.cloud.notifications.connector;
+
+/**
+ * Defines which topics are consumed by a connector. Moving a connector to its dedicated topic is done in three steps:
+ * <ol>
+ *     <li>the connector is deployed with {@link #BOTH}</li>
+ *     <li>the engine starts sending the messages of the connector to the dedicated topic</li>
+ *     <li>once the connector has consumed all of its messages from the shared topic, it is switched to {@link #DEDICATED}</li>
+ * </ol>
+ */
+public enum IncomingTopicMode {
+    /** Only the topic shared by all connectors is consumed. */
+    SHARED,
+    /** Both the shared topic and the dedicated topic of the connector are consumed. */
+    BOTH,
+    /** Only the dedicated topic of the connector is consumed. */
+    DEDICATED
+}
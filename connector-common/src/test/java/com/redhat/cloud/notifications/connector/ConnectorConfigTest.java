@@ -0,0 +1,39 @@
+package com.redhat.cloud.notifications.connector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static com.redhat.cloud.notifications.connector.IncomingTopicMode.BOTH;
+import static com.redhat.cloud.notifications.connector.IncomingTopicMode.DEDICATED;
+import static com.redhat.cloud.notifications.connector.IncomingTopicMode.SHARED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConnectorConfigTest {
+
+    private static final String SHARED_TOPIC = "platform.notifications.tocamel";
+    private static final String DEDICATED_TOPIC = "platform.notifications.tocamel.foo";
+
+    @Test
+    void testIncomingKafkaTopics() {
+        assertEquals(SHARED_TOPIC, buildConfig(SHARED, Optional.of(DEDICATED_TOPIC)).getIncomingKafkaTopics());
+        assertEquals(SHARED_TOPIC + "," + DEDICATED_TOPIC, buildConfig(BOTH, Optional.of(DEDICATED_TOPIC)).getIncomingKafkaTopics());
+        assertEquals(DEDICATED_TOPIC, buildConfig(DEDICATED, Optional.of(DEDICATED_TOPIC)).getIncomingKafkaTopics());
+    }
+
+    @Test
+    void testMissingDedicatedTopic() {
+        assertEquals(SHARED_TOPIC, buildConfig(SHARED, Optional.empty()).getIncomingKafkaTopics());
+        assertThrows(IllegalStateException.class, () -> buildConfig(BOTH, Optional.empty()).getIncomingKafkaTopics());
+        assertThrows(IllegalStateException.class, () -> buildConfig(DEDICATED, Optional.empty()).getIncomingKafkaTopics());
+    }
+
+    private static ConnectorConfig buildConfig(IncomingTopicMode mode, Optional<String> dedicatedTopic) {
+        ConnectorConfig connectorConfig = new ConnectorConfig();
+        connectorConfig.incomingKafkaTopic = SHARED_TOPIC;
+        connectorConfig.incomingKafkaDedicatedTopic = dedicatedTopic;
+        connectorConfig.incomingKafkaTopicMode = mode;
+        return connectorConfig;
+    }
+}
@@ -5,6 +5,7 @@ import com.redhat.cloud.notifications.MockServerLifecycleManager;
 import io.vertx.core.json.JsonObject;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.AdviceWithRouteBuilder;
+import org.apache.camel.component.kafka.KafkaConstants;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.quarkus.test.CamelQuarkusTestSupport;
 import org.junit.jupiter.api.AfterEach;
@@ -14,13 +15,19 @@ import org.mockserver.model.HttpResponse;
 
 import javax.inject.Inject;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.redhat.cloud.notifications.MockServerLifecycleManager.getClient;
 import static com.redhat.cloud.notifications.MockServerLifecycleManager.getMockServerUrl;
 import static com.redhat.cloud.notifications.connector.ConnectorToEngineRouteBuilder.CONNECTOR_TO_ENGINE;
 import static com.redhat.cloud.notifications.connector.ConnectorToEngineRouteBuilder.SUCCESS;
 import static com.redhat.cloud.notifications.connector.EngineToConnectorRouteBuilder.ENGINE_TO_CONNECTOR;
+import static com.redhat.cloud.notifications.connector.EngineToConnectorRouteBuilder.ENGINE_TO_CONNECTOR_KAFKA;
 import static com.redhat.cloud.notifications.connector.IncomingCloudEventFilter.X_RH_NOTIFICATIONS_CONNECTOR_HEADER;
 import static com.redhat.cloud.notifications.connector.IncomingCloudEventProcessor.CLOUD_EVENT_DATA;
 import static com.redhat.cloud.notifications.connector.IncomingCloudEventProcessor.CLOUD_EVENT_ID;
@@ -30,6 +37,7 @@ import static com.redhat.cloud.notifications.connector.OutgoingCloudEventBuilder
 import static org.apache.camel.builder.AdviceWith.adviceWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockserver.model.HttpError.error;
 import static org.mockserver.model.HttpRequest.request;
@@ -39,6 +47,7 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
 
     private static final String KAFKA_SOURCE_MOCK = "direct:kafka-source-mock";
     private static final String REMOTE_SERVER_PATH = "/some/path";
+    private static final String OTHER_REMOTE_SERVER_PATH = "/some/other/path";
 
     @Inject
     ConnectorConfig connectorConfig;
@@ -151,6 +160,69 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
         micrometerAssertionHelper.assertCounterIncrement(connectorConfig.getRedeliveryCounterName(), 2);
     }
 
+    @Test
+    void testRedeliveryBackOff() throws Exception {
+
+        mockKafkaSourceEndpoint(); // This is the entry point of the connector.
+        String remoteServerPath = mockRemoteServerNetworkFailure();
+        MockEndpoint kafkaSinkMockEndpoint = mockKafkaSinkEndpoint(); // This is where the return message to the engine is sent.
+
+        JsonObject notification = buildNotification(remoteServerPath);
+
+        long start = System.currentTimeMillis();
+        sendMessageToKafkaSource(notification);
+        kafkaSinkMockEndpoint.assertIsSatisfied();
+        long duration = System.currentTimeMillis() - start;
+
+        // Each redelivery delay is at least the previous one multiplied by the back-off multiplier, minus the jitter.
+        double expectedMinDuration = 0;
+        double delay = connectorConfig.getRedeliveryDelay();
+        for (int i = 0; i < connectorConfig.getRedeliveryMaxAttempts(); i++) {
+            expectedMinDuration += Math.min(delay, connectorConfig.getRedeliveryMaxDelay()) * (1 - connectorConfig.getRedeliveryJitterFactor());
+            delay *= connectorConfig.getRedeliveryBackOffMultiplier();
+        }
+        assertTrue(duration >= expectedMinDuration, "Redeliveries lasted " + duration + " ms, expected at least " + expectedMinDuration + " ms");
+    }
+
+    /*
+     * The records sharing a Kafka key are processed one after another in the order they were consumed, including while
+     * one of them waits for its redeliveries. Meanwhile, the Kafka consumer is not blocked and the records of another
+     * key, handed off to another lane, are processed without waiting for these redeliveries.
+     */
+    @Test
+    void testRecordsOrderIsPreservedPerKey() throws Exception {
+
+        mockKafkaSourceEndpoint(); // This is the entry point of the connector.
+        String failingRemoteServerPath = mockRemoteServerNetworkFailure(REMOTE_SERVER_PATH);
+        String otherRemoteServerPath = mockRemoteServer500(OTHER_REMOTE_SERVER_PATH);
+        MockEndpoint kafkaSinkMockEndpoint = mockKafkaSinkEndpoint(); // This is where the return message to the engine is sent.
+        kafkaSinkMockEndpoint.expectedMessageCount(3);
+        kafkaSinkMockEndpoint.setResultWaitTime(30000L);
+
+        String redeliveredKey = "redelivered-key";
+        int lanes = connectorConfig.getIncomingKafkaLanes();
+        String otherKey = IntStream.range(0, 100)
+                .mapToObj(i -> "other-key-" + i)
+                .filter(key -> IncomingLaneSelector.getLane(key, lanes) != IncomingLaneSelector.getLane(redeliveredKey, lanes))
+                .findFirst()
+                .orElseThrow();
+
+        long start = System.currentTimeMillis();
+        String firstRedeliveredId = sendMessageToKafkaSource(buildNotification(failingRemoteServerPath), redeliveredKey);
+        String secondRedeliveredId = sendMessageToKafkaSource(buildNotification(failingRemoteServerPath), redeliveredKey);
+        String otherId = sendMessageToKafkaSource(buildNotification(otherRemoteServerPath), otherKey);
+        long handOffDuration = System.currentTimeMillis() - start;
+        assertTrue(handOffDuration < connectorConfig.getRedeliveryDelay(), "The records were handed off in " + handOffDuration + " ms");
+
+        kafkaSinkMockEndpoint.assertIsSatisfied();
+
+        List<String> returnedIds = kafkaSinkMockEndpoint.getReceivedExchanges().stream()
+                .map(exchange -> new JsonObject(exchange.getIn().getBody(String.class)).getString("id"))
+                .collect(Collectors.toList());
+        assertEquals(List.of(otherId, firstRedeliveredId, secondRedeliveredId), returnedIds);
+        micrometerAssertionHelper.assertCounterIncrement(connectorConfig.getRedeliveryCounterName(), 2 * connectorConfig.getRedeliveryMaxAttempts());
+    }
+
     private void saveRoutesMetrics(String... routeIds) {
         for (String routeId : routeIds) {
             micrometerAssertionHelper.saveCounterValueFilteredByTagsBeforeTest("CamelExchangesFailuresHandled", "routeId", routeId);
@@ -166,7 +238,7 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
     }
 
     private void mockKafkaSourceEndpoint() throws Exception {
-        adviceWith(ENGINE_TO_CONNECTOR, context(), new AdviceWithRouteBuilder() {
+        adviceWith(ENGINE_TO_CONNECTOR_KAFKA, context(), new AdviceWithRouteBuilder() {
             @Override
             public void configure() {
                 replaceFromWith(KAFKA_SOURCE_MOCK);
@@ -185,17 +257,25 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
     }
 
     private String mockRemoteServer500() {
+        return mockRemoteServer500(REMOTE_SERVER_PATH);
+    }
+
+    private String mockRemoteServer500(String path) {
         getClient()
-                .when(request().withMethod("POST").withPath(REMOTE_SERVER_PATH))
+                .when(request().withMethod("POST").withPath(path))
                 .respond(new HttpResponse().withStatusCode(500).withBody("My custom internal error"));
-        return getMockServerUrl() + REMOTE_SERVER_PATH;
+        return getMockServerUrl() + path;
     }
 
     private String mockRemoteServerNetworkFailure() {
+        return mockRemoteServerNetworkFailure(REMOTE_SERVER_PATH);
+    }
+
+    private String mockRemoteServerNetworkFailure(String path) {
         getClient()
-                .when(request().withMethod("POST").withPath(REMOTE_SERVER_PATH))
+                .when(request().withMethod("POST").withPath(path))
                 .error(error().withDropConnection(true));
-        return getMockServerUrl() + REMOTE_SERVER_PATH;
+        return getMockServerUrl() + path;
     }
 
     private MockEndpoint mockKafkaSinkEndpoint() throws Exception {
@@ -213,6 +293,10 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
     }
 
     private String sendMessageToKafkaSource(JsonObject notification) {
+        return sendMessageToKafkaSource(notification, null);
+    }
+
+    private String sendMessageToKafkaSource(JsonObject notification, String kafkaKey) {
 
         String cloudEventId = UUID.randomUUID().toString();
 
@@ -222,7 +306,12 @@ public abstract class ConnectorRoutesTest extends CamelQuarkusTestSupport {
         // The 'data' field is sent as a String from SmallRye Reactive Messaging.
         cloudEvent.put(CLOUD_EVENT_DATA, JsonObject.mapFrom(notification).encode());
 
-        template.sendBodyAndHeader(KAFKA_SOURCE_MOCK, cloudEvent.encode(), X_RH_NOTIFICATIONS_CONNECTOR_HEADER, connectorConfig.getConnectorName());
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(X_RH_NOTIFICATIONS_CONNECTOR_HEADER, connectorConfig.getConnectorName());
+        if (kafkaKey != null) {
+            headers.put(KafkaConstants.KEY, kafkaKey);
+        }
+        template.sendBodyAndHeaders(KAFKA_SOURCE_MOCK, cloudEvent.encode(), headers);
 
         return cloudEventId;
     }
@@ -0,0 +1,152 @@
+package com.redhat.cloud.notifications.connector;
+
+import com.redhat.cloud.notifications.connector.IncomingOffsetTracker.IncomingRecord;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncomingKafkaClientFactoryTest {
+
+    private static final TopicPartition TOPIC_PARTITION = new TopicPartition("platform.notifications.tocamel", 0);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(10L);
+
+    /*
+     * The consumer is closed while the second record is still queued in its lane. The offset committed when the
+     * consumer is closed stops at that record, so the consumer which takes over the partition consumes it again.
+     */
+    @Test
+    void testQueuedRecordsAreConsumedAgainAfterACrash() {
+        IncomingOffsetTracker tracker = buildTracker(100);
+        MockConsumer<String, String> kafkaConsumer = buildKafkaConsumer();
+        Consumer<String, String> consumer = buildFactory(tracker).wrap(kafkaConsumer);
+
+        assertEquals(List.of(0L, 1L, 2L), poll(consumer));
+        IncomingRecord filteredOut = tracker.record(TOPIC_PARTITION, 0L);
+        tracker.complete(filteredOut);
+        tracker.record(TOPIC_PARTITION, 1L); // This record is still queued in its lane.
+        IncomingRecord delivered = tracker.record(TOPIC_PARTITION, 2L);
+        tracker.complete(delivered);
+
+        // When the route is stopped, Camel commits the offset that follows the last record handed off to a lane.
+        consumer.commitSync(Map.of(TOPIC_PARTITION, new OffsetAndMetadata(3L)));
+        assertEquals(1L, kafkaConsumer.committed(Set.of(TOPIC_PARTITION)).get(TOPIC_PARTITION).offset());
+        consumer.close();
+
+        // The connector crashed, the next consumer of the partition starts from the committed offset.
+        IncomingOffsetTracker restartedTracker = buildTracker(100);
+        MockConsumer<String, String> restartedKafkaConsumer = buildKafkaConsumer();
+        restartedKafkaConsumer.seek(TOPIC_PARTITION, 1L);
+        Consumer<String, String> restartedConsumer = buildFactory(restartedTracker).wrap(restartedKafkaConsumer);
+
+        assertEquals(List.of(1L, 2L), poll(restartedConsumer));
+    }
+
+    @Test
+    void testCompletedRecordsAreCommittedBeforeEachPoll() {
+        IncomingOffsetTracker tracker = buildTracker(100);
+        MockConsumer<String, String> kafkaConsumer = buildKafkaConsumer();
+        Consumer<String, String> consumer = buildFactory(tracker).wrap(kafkaConsumer);
+
+        poll(consumer);
+        IncomingRecord first = tracker.record(TOPIC_PARTITION, 0L);
+        IncomingRecord second = tracker.record(TOPIC_PARTITION, 1L);
+        IncomingRecord third = tracker.record(TOPIC_PARTITION, 2L);
+
+        // The records of a partition are not always completed in the order they were consumed.
+        tracker.complete(second);
+        poll(consumer);
+        assertEquals(0L, kafkaConsumer.committed(Set.of(TOPIC_PARTITION)).get(TOPIC_PARTITION).offset());
+
+        tracker.complete(first);
+        poll(consumer);
+        assertEquals(2L, kafkaConsumer.committed(Set.of(TOPIC_PARTITION)).get(TOPIC_PARTITION).offset());
+
+        tracker.complete(third);
+        poll(consumer);
+        assertEquals(3L, kafkaConsumer.committed(Set.of(TOPIC_PARTITION)).get(TOPIC_PARTITION).offset());
+    }
+
+    @Test
+    void testPartitionsArePausedWhileTooManyRecordsArePending() {
+        IncomingOffsetTracker tracker = buildTracker(2);
+        MockConsumer<String, String> kafkaConsumer = buildKafkaConsumer();
+        Consumer<String, String> consumer = buildFactory(tracker).wrap(kafkaConsumer);
+
+        poll(consumer);
+        IncomingRecord first = tracker.record(TOPIC_PARTITION, 0L);
+        tracker.record(TOPIC_PARTITION, 1L);
+        tracker.record(TOPIC_PARTITION, 2L);
+
+        poll(consumer);
+        assertEquals(Set.of(TOPIC_PARTITION), kafkaConsumer.paused());
+
+        // Completing a record twice does not count twice.
+        tracker.complete(first);
+        tracker.complete(first);
+        poll(consumer);
+        assertEquals(Set.of(TOPIC_PARTITION), kafkaConsumer.paused());
+    }
+
+    @Test
+    void testPartitionsAreResumedOnceTheLanesCaughtUp() {
+        IncomingOffsetTracker tracker = buildTracker(2);
+        MockConsumer<String, String> kafkaConsumer = buildKafkaConsumer();
+        Consumer<String, String> consumer = buildFactory(tracker).wrap(kafkaConsumer);
+
+        poll(consumer);
+        IncomingRecord first = tracker.record(TOPIC_PARTITION, 0L);
+        IncomingRecord second = tracker.record(TOPIC_PARTITION, 1L);
+        poll(consumer);
+        assertEquals(Set.of(TOPIC_PARTITION), kafkaConsumer.paused());
+
+        tracker.complete(first);
+        tracker.complete(second);
+        poll(consumer);
+        assertTrue(kafkaConsumer.paused().isEmpty());
+    }
+
+    private static IncomingOffsetTracker buildTracker(int maxPendingRecords) {
+        ConnectorConfig connectorConfig = new ConnectorConfig();
+        connectorConfig.incomingKafkaMaxPendingRecords = maxPendingRecords;
+        IncomingOffsetTracker tracker = new IncomingOffsetTracker();
+        tracker.connectorConfig = connectorConfig;
+        return tracker;
+    }
+
+    private static IncomingKafkaClientFactory buildFactory(IncomingOffsetTracker tracker) {
+        IncomingKafkaClientFactory factory = new IncomingKafkaClientFactory();
+        factory.incomingOffsetTracker = tracker;
+        return factory;
+    }
+
+    private static MockConsumer<String, String> buildKafkaConsumer() {
+        MockConsumer<String, String> kafkaConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        kafkaConsumer.assign(List.of(TOPIC_PARTITION));
+        kafkaConsumer.updateBeginningOffsets(Map.of(TOPIC_PARTITION, 0L));
+        for (long offset = 0L; offset < 3L; offset++) {
+            kafkaConsumer.addRecord(new ConsumerRecord<>(TOPIC_PARTITION.topic(), TOPIC_PARTITION.partition(), offset, "key", "value-" + offset));
+        }
+        return kafkaConsumer;
+    }
+
+    private static List<Long> poll(Consumer<String, String> consumer) {
+        List<Long> offsets = new ArrayList<>();
+        for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+            offsets.add(record.offset());
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,7 @@
+-- This is step 1 of the migration of the 'event' and 'notification_history' tables to declarative range partitioning.
+
+-- The primary key of a partitioned table has to include the partition key. The existing tables will be attached as
+-- legacy partitions of the new partitioned tables, so they need a unique index on (id, created) which will be promoted
+-- to a primary key later. The indexes are built concurrently to avoid blocking the engine inserts.
+CREATE UNIQUE INDEX CONCURRENTLY ix_event_id_created ON event (id, created);
+CREATE UNIQUE INDEX CONCURRENTLY ix_notification_history_id_created ON notification_history (id, created);
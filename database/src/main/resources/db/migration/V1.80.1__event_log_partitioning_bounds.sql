@@ -0,0 +1,28 @@
+-- This is step 2 of the migration of the 'event' and 'notification_history' tables to declarative range partitioning.
+
+-- The existing tables will be attached as legacy partitions covering every row created before the following bound.
+-- Daily partitions will be created starting from that bound. The bound is kept here until the legacy partition is
+-- dropped by the retention procedures.
+CREATE TABLE partition_legacy_bound (
+    table_name TEXT NOT NULL,
+    upper_bound TIMESTAMP NOT NULL,
+    CONSTRAINT pk_partition_legacy_bound PRIMARY KEY (table_name)
+);
+
+INSERT INTO partition_legacy_bound (table_name, upper_bound)
+VALUES
+    ('event', date_trunc('day', NOW() AT TIME ZONE 'UTC') + INTERVAL '2 days'),
+    ('notification_history', date_trunc('day', NOW() AT TIME ZONE 'UTC') + INTERVAL '2 days');
+
+-- Attaching a partition requires Postgres to check that all of its rows match the partition bounds. That check is
+-- skipped if the table already has a valid CHECK constraint that implies the bounds. The constraints are created as
+-- NOT VALID here and validated in the next migration, which only requires a lock that does not block writes.
+DO $$
+DECLARE
+    bound TIMESTAMP;
+BEGIN
+    SELECT upper_bound INTO bound FROM partition_legacy_bound WHERE table_name = 'event';
+    EXECUTE format('ALTER TABLE event ADD CONSTRAINT ck_event_legacy_created CHECK (created < %L) NOT VALID', bound);
+    SELECT upper_bound INTO bound FROM partition_legacy_bound WHERE table_name = 'notification_history';
+    EXECUTE format('ALTER TABLE notification_history ADD CONSTRAINT ck_notification_history_legacy_created CHECK (created < %L) NOT VALID', bound);
+END $$;
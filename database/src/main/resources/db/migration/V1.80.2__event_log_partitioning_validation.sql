@@ -0,0 +1,5 @@
+-- This is step 3 of the migration of the 'event' and 'notification_history' tables to declarative range partitioning.
+
+-- VALIDATE CONSTRAINT scans the tables while holding a SHARE UPDATE EXCLUSIVE lock, the engine can keep inserting rows.
+ALTER TABLE event VALIDATE CONSTRAINT ck_event_legacy_created;
+ALTER TABLE notification_history VALIDATE CONSTRAINT ck_notification_history_legacy_created;
@@ -0,0 +1,200 @@
+-- This is step 4 of the migration of the 'event', 'notification_history' and 'kafka_message' tables to declarative
+-- range partitioning on their 'created' column. Expired data is then removed by dropping whole partitions instead of
+-- deleting rows one by one, which used to generate a lot of WAL, dead tuples and table bloat.
+
+-- Creates the daily partitions of a partitioned table from yesterday up to 'days_ahead' days in the future. Partitions
+-- that overlap the legacy partition of the table (see V1.80.1) are skipped. The rows that may have been stored in the
+-- default partition while a daily partition was missing are moved to the new partition before it is attached.
+CREATE PROCEDURE createDailyPartitions(parent_table TEXT, days_ahead INTEGER) AS $$
+DECLARE
+    legacy_upper_bound TIMESTAMP;
+    partition_day DATE;
+    partition_name TEXT;
+BEGIN
+    SELECT upper_bound INTO legacy_upper_bound FROM partition_legacy_bound WHERE table_name = parent_table;
+    FOR i IN -1..days_ahead LOOP
+        partition_day := (NOW() AT TIME ZONE 'UTC')::DATE + i;
+        partition_name := parent_table || '_' || to_char(partition_day, 'YYYYMMDD');
+        IF (legacy_upper_bound IS NULL OR partition_day >= legacy_upper_bound) AND to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', partition_name, parent_table);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created >= %L AND created < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                parent_table || '_default', partition_day, partition_day + 1, partition_name);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                parent_table, partition_name, partition_day, partition_day + 1);
+            RAISE INFO '% Partition % created.', NOW(), partition_name;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE PLPGSQL;
+
+-- Drops the daily partitions of a partitioned table which only contain rows older than the given retention delay.
+-- The legacy partition is dropped as soon as all of its rows are expired. Until then, and in the default partition,
+-- expired rows are deleted one by one.
+CREATE PROCEDURE dropExpiredPartitions(parent_table TEXT, retention INTERVAL) AS $$
+DECLARE
+    cutoff TIMESTAMP := NOW() AT TIME ZONE 'UTC' - retention;
+    legacy_upper_bound TIMESTAMP;
+    partition_name TEXT;
+    deleted INTEGER;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent_table::REGCLASS AND c.relname ~ ('^' || parent_table || '_[0-9]{8}$')
+        ORDER BY c.relname
+    LOOP
+        -- Daily partitions are named after the day they start on.
+        IF to_date(right(partition_name, 8), 'YYYYMMDD') + 1 <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', partition_name);
+            RAISE INFO '% Partition % dropped.', NOW(), partition_name;
+        END IF;
+    END LOOP;
+
+    SELECT upper_bound INTO legacy_upper_bound FROM partition_legacy_bound WHERE table_name = parent_table;
+    IF legacy_upper_bound IS NOT NULL THEN
+        IF legacy_upper_bound <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', parent_table || '_legacy');
+            DELETE FROM partition_legacy_bound WHERE table_name = parent_table;
+            RAISE INFO '% Partition % dropped.', NOW(), parent_table || '_legacy';
+        ELSE
+            EXECUTE format('DELETE FROM %I WHERE created < %L', parent_table || '_legacy', cutoff);
+            GET DIAGNOSTICS deleted = ROW_COUNT;
+            RAISE INFO '% % entries were deleted from partition %.', NOW(), deleted, parent_table || '_legacy';
+        END IF;
+    END IF;
+
+    EXECUTE format('DELETE FROM %I WHERE created < %L', parent_table || '_default', cutoff);
+    GET DIAGNOSTICS deleted = ROW_COUNT;
+    RAISE INFO '% % entries were deleted from partition %.', NOW(), deleted, parent_table || '_default';
+END;
+$$ LANGUAGE PLPGSQL;
+
+-- A unique constraint on a partitioned table has to include the partition key, so the foreign keys that reference
+-- event (id) can no longer exist. The ON DELETE CASCADE behavior is replaced with the trigger created below.
+ALTER TABLE notification_history DROP CONSTRAINT fk_notification_history_event_id;
+ALTER TABLE drawer_notification DROP CONSTRAINT fk_drawer_notification_event_id;
+
+-- Table: event
+ALTER TABLE event DROP CONSTRAINT pk_event;
+ALTER TABLE event ADD CONSTRAINT pk_event_legacy PRIMARY KEY USING INDEX ix_event_id_created;
+ALTER INDEX ix_event_org_id RENAME TO ix_event_legacy_org_id;
+ALTER INDEX ix_event_org_id_application_id RENAME TO ix_event_legacy_org_id_application_id;
+ALTER INDEX ix_event_org_id_bundle_id_application_id_event_type_display_name RENAME TO ix_event_legacy_org_id_bundle_id_application_id_event_type_display_name;
+ALTER TABLE event RENAME TO event_legacy;
+
+CREATE TABLE event (LIKE event_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created);
+
+-- The following constraints and indexes match the ones of the legacy table, which will be reused when it is attached.
+ALTER TABLE event
+    ADD CONSTRAINT pk_event PRIMARY KEY (id, created),
+    ADD CONSTRAINT fk_event_event_type_id FOREIGN KEY (event_type_id) REFERENCES event_type (id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_event_bundle_id FOREIGN KEY (bundle_id) REFERENCES bundles (id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_event_application_id FOREIGN KEY (application_id) REFERENCES applications (id) ON DELETE CASCADE;
+
+CREATE INDEX ix_event_org_id
+    ON event (org_id, created DESC, id);
+
+CREATE INDEX ix_event_org_id_application_id
+    ON event (org_id, application_id, created DESC, id);
+
+CREATE INDEX ix_event_org_id_bundle_id_application_id_event_type_display_name
+    ON event (org_id, bundle_id, application_id, event_type_display_name, created DESC, id);
+
+-- Table: notification_history
+ALTER TABLE notification_history DROP CONSTRAINT notification_history_pkey;
+ALTER TABLE notification_history ADD CONSTRAINT pk_notification_history_legacy PRIMARY KEY USING INDEX ix_notification_history_id_created;
+ALTER INDEX ix_notification_history_event_id RENAME TO ix_notification_history_legacy_event_id;
+ALTER INDEX ix_notification_history_endpoint_id_created RENAME TO ix_notification_history_legacy_endpoint_id_created;
+ALTER TABLE notification_history RENAME TO notification_history_legacy;
+
+CREATE TABLE notification_history (LIKE notification_history_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created);
+
+ALTER TABLE notification_history
+    ADD CONSTRAINT notification_history_pkey PRIMARY KEY (id, created),
+    ADD CONSTRAINT fk_notification_history_endpoint_id FOREIGN KEY (endpoint_id) REFERENCES endpoints (id) ON DELETE SET NULL;
+
+CREATE INDEX ix_notification_history_event_id
+    ON notification_history (event_id);
+
+CREATE INDEX ix_notification_history_endpoint_id_created
+    ON notification_history (endpoint_id, created DESC);
+
+-- The legacy tables are attached without any data copy. Postgres relies on the CHECK constraints validated in V1.80.2
+-- instead of scanning the rows.
+DO $$
+DECLARE
+    bound TIMESTAMP;
+BEGIN
+    SELECT upper_bound INTO bound FROM partition_legacy_bound WHERE table_name = 'event';
+    EXECUTE format('ALTER TABLE event ATTACH PARTITION event_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+    SELECT upper_bound INTO bound FROM partition_legacy_bound WHERE table_name = 'notification_history';
+    EXECUTE format('ALTER TABLE notification_history ATTACH PARTITION notification_history_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+END $$;
+
+-- The default partitions should always remain empty. They are only there to prevent insertion failures if the DB
+-- cleaning cron job stops creating the daily partitions for some reason.
+CREATE TABLE event_default PARTITION OF event DEFAULT;
+CREATE TABLE notification_history_default PARTITION OF notification_history DEFAULT;
+
+CALL createDailyPartitions('event', 7);
+CALL createDailyPartitions('notification_history', 7);
+
+-- Replaces the ON DELETE CASCADE foreign keys that were dropped above. Dropping a partition does not fire this trigger.
+CREATE FUNCTION cascade_event_deletion() RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM notification_history WHERE event_id = OLD.id;
+    DELETE FROM drawer_notification WHERE event_id = OLD.id;
+    RETURN OLD;
+END;
+$$ LANGUAGE PLPGSQL;
+
+CREATE TRIGGER event_cascade_deletion
+    AFTER DELETE ON event
+    FOR EACH ROW EXECUTE PROCEDURE cascade_event_deletion();
+
+-- Table: kafka_message
+-- This table only contains one day of data, it is simply copied into the new partitioned table.
+-- The primary key has to include the partition key, so it no longer guarantees the uniqueness of the message IDs. The
+-- engine stores the day of the registration in the 'created' column instead of the exact timestamp to get that
+-- guarantee back within a day, see KafkaMessageDeduplicator#registerMessageId.
+ALTER TABLE kafka_message RENAME CONSTRAINT pk_kafka_message TO pk_kafka_message_old;
+ALTER TABLE kafka_message RENAME TO kafka_message_old;
+
+CREATE TABLE kafka_message (
+    id UUID NOT NULL,
+    created TIMESTAMP NOT NULL,
+    CONSTRAINT pk_kafka_message PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+CREATE TABLE kafka_message_default PARTITION OF kafka_message DEFAULT;
+
+CALL createDailyPartitions('kafka_message', 3);
+
+INSERT INTO kafka_message (id, created)
+SELECT id, created FROM kafka_message_old;
+
+DROP TABLE kafka_message_old;
+
+-- The retention procedures now drop the expired partitions and create the upcoming ones.
+CREATE OR REPLACE PROCEDURE cleanEventLog() AS $$
+BEGIN
+    RAISE INFO '% Event log purge starting. Entries older than 31 days will be deleted.', NOW();
+    CALL dropExpiredPartitions('event', INTERVAL '31 days');
+    CALL dropExpiredPartitions('notification_history', INTERVAL '31 days');
+    -- Dropping partitions does not fire the event deletion trigger.
+    DELETE FROM drawer_notification WHERE created < NOW() AT TIME ZONE 'UTC' - INTERVAL '31 days';
+    CALL createDailyPartitions('event', 7);
+    CALL createDailyPartitions('notification_history', 7);
+    RAISE INFO '% Event log purge ended.', NOW();
+END;
+$$ LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE PROCEDURE cleanKafkaMessagesIds() AS $$
+BEGIN
+    RAISE INFO '% Kafka messages purge starting. Entries older than 1 day will be deleted.', NOW();
+    CALL dropExpiredPartitions('kafka_message', INTERVAL '1 days');
+    CALL createDailyPartitions('kafka_message', 3);
+    RAISE INFO '% Kafka messages purge ended.', NOW();
+END;
+$$ LANGUAGE PLPGSQL;
@@ -0,0 +1,79 @@
+-- Keyset pagination of the drawer feed of a user, from the most recent entry to the oldest one.
+CREATE INDEX ix_drawer_notification_feed ON drawer_notification (org_id, user_id, created DESC, id DESC);
+
+-- The unread entries count of each user is maintained by the triggers below so that the drawer never has to count them.
+CREATE TABLE drawer_unread_counter (
+    org_id TEXT NOT NULL,
+    user_id TEXT NOT NULL,
+    unread_count INTEGER NOT NULL,
+    CONSTRAINT pk_drawer_unread_counter PRIMARY KEY (org_id, user_id)
+);
+
+INSERT INTO drawer_unread_counter (org_id, user_id, unread_count)
+SELECT org_id, user_id, COUNT(*)
+FROM drawer_notification
+WHERE NOT read
+GROUP BY org_id, user_id;
+
+/*
+ * The triggers are executed once per statement and work on transition tables, which means that a bulk insertion of the
+ * drawer entries of thousands of users only costs one additional statement. The counters are always updated in the same
+ * order to prevent deadlocks between concurrent statements.
+ */
+CREATE FUNCTION drawer_unread_counter_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO drawer_unread_counter (org_id, user_id, unread_count)
+    SELECT org_id, user_id, COUNT(*)
+    FROM new_rows
+    WHERE NOT read
+    GROUP BY org_id, user_id
+    ORDER BY org_id, user_id
+    ON CONFLICT (org_id, user_id) DO UPDATE SET unread_count = drawer_unread_counter.unread_count + EXCLUDED.unread_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE PLPGSQL;
+
+CREATE FUNCTION drawer_unread_counter_on_update() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO drawer_unread_counter (org_id, user_id, unread_count)
+    SELECT org_id, user_id, SUM(delta)
+    FROM (
+        SELECT org_id, user_id, CASE WHEN read THEN 0 ELSE 1 END AS delta FROM new_rows
+        UNION ALL
+        SELECT org_id, user_id, CASE WHEN read THEN 0 ELSE -1 END AS delta FROM old_rows
+    ) AS changes
+    GROUP BY org_id, user_id
+    HAVING SUM(delta) <> 0
+    ORDER BY org_id, user_id
+    ON CONFLICT (org_id, user_id) DO UPDATE SET unread_count = GREATEST(drawer_unread_counter.unread_count + EXCLUDED.unread_count, 0);
+    RETURN NULL;
+END;
+$$ LANGUAGE PLPGSQL;
+
+CREATE FUNCTION drawer_unread_counter_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE drawer_unread_counter
+    SET unread_count = GREATEST(drawer_unread_counter.unread_count - deleted.unread_count, 0)
+    FROM (
+        SELECT org_id, user_id, COUNT(*) AS unread_count
+        FROM old_rows
+        WHERE NOT read
+        GROUP BY org_id, user_id
+        ORDER BY org_id, user_id
+    ) AS deleted
+    WHERE drawer_unread_counter.org_id = deleted.org_id AND drawer_unread_counter.user_id = deleted.user_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE PLPGSQL;
+
+CREATE TRIGGER drawer_unread_counter_insert AFTER INSERT ON drawer_notification
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE PROCEDURE drawer_unread_counter_on_insert();
+
+CREATE TRIGGER drawer_unread_counter_update AFTER UPDATE ON drawer_notification
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE PROCEDURE drawer_unread_counter_on_update();
+
+CREATE TRIGGER drawer_unread_counter_delete AFTER DELETE ON drawer_notification
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE PROCEDURE drawer_unread_counter_on_delete();
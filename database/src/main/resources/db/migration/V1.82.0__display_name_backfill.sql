@@ -0,0 +1,43 @@
+-- Renaming a bundle, an application or an event type used to rewrite the denormalized display names of all the
+-- related events in the same transaction. The rename now only schedules a backfill which is executed by the backend in
+-- small chunks. A new rename of the same target resets the pending backfill of that target.
+CREATE TABLE display_name_backfill (
+    id UUID NOT NULL,
+    target_type TEXT NOT NULL,
+    target_id UUID NOT NULL,
+    display_name TEXT NOT NULL,
+    -- Keyset position of the backfill: the event type which is being processed and the last updated event.
+    last_event_type_id UUID,
+    last_event_created TIMESTAMP,
+    last_event_id UUID,
+    updated_events BIGINT NOT NULL DEFAULT 0,
+    created TIMESTAMP NOT NULL,
+    updated TIMESTAMP,
+    CONSTRAINT pk_display_name_backfill PRIMARY KEY (id),
+    CONSTRAINT uq_display_name_backfill UNIQUE (target_type, target_id)
+);
+
+-- Builds the indexes of the partitions of a partitioned index which was created with ON ONLY, then attaches them to
+-- that index. The legacy partition is skipped: it is too large to be indexed without CONCURRENTLY, which cannot be used
+-- from a procedure. Its index is built and attached by the following migrations. The daily partitions are small and
+-- the future ones get the index when they are attached to the partitioned table.
+CREATE PROCEDURE createPartitionIndexes(parent_table TEXT, parent_index TEXT, index_suffix TEXT, index_definition TEXT) AS $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent_table::REGCLASS AND c.relname <> parent_table || '_legacy'
+    LOOP
+        EXECUTE format('CREATE INDEX %I ON %I %s', 'ix_' || partition_name || '_' || index_suffix, partition_name, index_definition);
+        EXECUTE format('ALTER INDEX %I ATTACH PARTITION %I', parent_index, 'ix_' || partition_name || '_' || index_suffix);
+    END LOOP;
+END;
+$$ LANGUAGE PLPGSQL;
+
+-- Used by the backfill chunks. This index also speeds up the cascade deletion of the events of a deleted event type.
+-- It is created on the partitioned table only, it becomes valid once the index of each partition is attached to it.
+CREATE INDEX ix_event_event_type_id_created ON ONLY event (event_type_id, created, id);
+CALL createPartitionIndexes('event', 'ix_event_event_type_id_created', 'event_type_id_created', '(event_type_id, created, id)');
@@ -0,0 +1,3 @@
+-- The index of the legacy partition is built concurrently to avoid blocking the engine inserts. Flyway runs this
+-- migration outside of a transaction.
+CREATE INDEX CONCURRENTLY ix_event_legacy_event_type_id_created ON event_legacy (event_type_id, created, id);
@@ -0,0 +1,2 @@
+-- The partitioned index becomes valid once the index of its last partition is attached.
+ALTER INDEX ix_event_event_type_id_created ATTACH PARTITION ix_event_legacy_event_type_id_created;
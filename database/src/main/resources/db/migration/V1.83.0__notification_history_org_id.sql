@@ -0,0 +1,19 @@
+-- The org ID is denormalized from the event so that the history of an endpoint can be read without joining the
+-- event table. Adding a nullable column without a default value only changes the catalog, the existing rows are
+-- backfilled online by the backend in small chunks (see NotificationHistoryOrgIdBackfillJob).
+ALTER TABLE notification_history ADD COLUMN org_id TEXT;
+
+-- The indexes are created on the partitioned table only. The indexes of the legacy partition are built concurrently and
+-- attached by the following migrations, see createPartitionIndexes.
+
+-- Keyset pagination of the history of an endpoint, from the most recent entry to the oldest one.
+CREATE INDEX ix_notification_history_org_id_endpoint_id_created
+    ON ONLY notification_history (org_id, endpoint_id, created DESC, id DESC);
+CALL createPartitionIndexes('notification_history', 'ix_notification_history_org_id_endpoint_id_created',
+    'org_id_endpoint_id_created', '(org_id, endpoint_id, created DESC, id DESC)');
+
+-- Only contains the rows which have not been backfilled yet, so it becomes empty once the backfill is done.
+CREATE INDEX ix_notification_history_missing_org_id
+    ON ONLY notification_history (created, id) WHERE org_id IS NULL;
+CALL createPartitionIndexes('notification_history', 'ix_notification_history_missing_org_id',
+    'missing_org_id', '(created, id) WHERE org_id IS NULL');
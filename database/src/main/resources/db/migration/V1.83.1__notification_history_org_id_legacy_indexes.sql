@@ -0,0 +1,7 @@
+-- The indexes of the legacy partition are built concurrently to avoid blocking the engine inserts. Flyway runs this
+-- migration outside of a transaction.
+CREATE INDEX CONCURRENTLY ix_notification_history_legacy_org_id_endpoint_id_created
+    ON notification_history_legacy (org_id, endpoint_id, created DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY ix_notification_history_legacy_missing_org_id
+    ON notification_history_legacy (created, id) WHERE org_id IS NULL;
@@ -0,0 +1,6 @@
+-- The partitioned indexes become valid once the index of their last partition is attached.
+ALTER INDEX ix_notification_history_org_id_endpoint_id_created
+    ATTACH PARTITION ix_notification_history_legacy_org_id_endpoint_id_created;
+
+ALTER INDEX ix_notification_history_missing_org_id
+    ATTACH PARTITION ix_notification_history_legacy_missing_org_id;
@@ -0,0 +1,11 @@
+-- Records the last change of the email subscriptions of each org and application. The engine polls this table to
+-- invalidate the entries of its in-memory subscriber index. The table contains at most one row per org and application.
+CREATE TABLE email_subscription_change (
+    org_id TEXT NOT NULL,
+    application_id UUID NOT NULL,
+    updated TIMESTAMP NOT NULL,
+    CONSTRAINT pk_email_subscription_change PRIMARY KEY (org_id, application_id),
+    CONSTRAINT fk_email_subscription_change_application_id FOREIGN KEY (application_id) REFERENCES applications (id) ON DELETE CASCADE
+);
+
+CREATE INDEX ix_email_subscription_change_updated ON email_subscription_change (updated);
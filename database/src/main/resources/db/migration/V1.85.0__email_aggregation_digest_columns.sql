@@ -0,0 +1,9 @@
+-- The event type and a fingerprint of the recipients settings of each aggregation are stored next to the payload, so
+-- that the digest query can skip the event types nobody will receive and group the rows without reading the payloads.
+-- The rows written before this migration keep NULL values. They are never pruned and are purged after the next digest.
+ALTER TABLE email_aggregation
+    ADD COLUMN event_type TEXT,
+    ADD COLUMN recipients_fingerprint TEXT,
+    ADD COLUMN forced_email BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX ix_email_aggregation_digest ON email_aggregation (org_id, bundle, application, event_type, created);
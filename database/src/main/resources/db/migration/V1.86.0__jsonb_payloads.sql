@@ -0,0 +1,30 @@
+-- Moves the JSON payloads back to the jsonb type, which was given up in V1.9.0 for Hibernate Reactive.
+
+-- Converting the 'event' and 'notification_history' partitioned tables in place would rewrite all of their partitions
+-- while holding an exclusive lock. New jsonb columns are added instead, which only changes the catalog. The engine
+-- writes the new columns and reads the old ones as a fallback. The existing rows are backfilled online by the backend
+-- in small chunks (see JsonbBackfillJob). Once the backfill is done and no engine pod from a previous version is left,
+-- a later migration can drop the old columns and rename the new ones.
+ALTER TABLE event
+    ADD COLUMN payload_jsonb jsonb;
+
+ALTER TABLE notification_history
+    ADD COLUMN details_jsonb jsonb;
+
+-- The 'email_aggregation' table is not converted yet: the engine pods from a previous version still insert varchar
+-- payloads during a rolling deployment, which a jsonb column would reject. The entity now casts the payload to jsonb
+-- on write, which PostgreSQL stores back as text in the current column. The column type will be changed by a later
+-- migration, once all engine pods write jsonb.
+
+-- These indexes only contain the rows which have not been backfilled yet, so they become empty once the backfill is
+-- done. They are created on the partitioned tables only. The indexes of the legacy partitions are built concurrently
+-- and attached by the following migrations, see createPartitionIndexes.
+CREATE INDEX ix_event_missing_payload_jsonb
+    ON ONLY event (created, id) WHERE payload_jsonb IS NULL AND payload IS NOT NULL;
+CALL createPartitionIndexes('event', 'ix_event_missing_payload_jsonb',
+    'missing_payload_jsonb', '(created, id) WHERE payload_jsonb IS NULL AND payload IS NOT NULL');
+
+CREATE INDEX ix_notification_history_missing_details_jsonb
+    ON ONLY notification_history (created, id) WHERE details_jsonb IS NULL AND details IS NOT NULL;
+CALL createPartitionIndexes('notification_history', 'ix_notification_history_missing_details_jsonb',
+    'missing_details_jsonb', '(created, id) WHERE details_jsonb IS NULL AND details IS NOT NULL');
@@ -0,0 +1,13 @@
+-- The indexes of the legacy partitions are built concurrently to avoid blocking the engine inserts. Flyway runs this
+-- migration outside of a transaction.
+CREATE INDEX CONCURRENTLY ix_event_legacy_missing_payload_jsonb
+    ON event_legacy (created, id) WHERE payload_jsonb IS NULL AND payload IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY ix_notification_history_legacy_missing_details_jsonb
+    ON notification_history_legacy (created, id) WHERE details_jsonb IS NULL AND details IS NOT NULL;
+
+-- The digest queries group and filter the aggregations on the event type, which is read from the payload for the
+-- aggregations written before V1.85.0. The indexed expression must be kept identical to the one of
+-- EmailAggregationRepository, otherwise PostgreSQL cannot use the index.
+CREATE INDEX CONCURRENTLY ix_email_aggregation_payload_event_type
+    ON email_aggregation (org_id, bundle, application, (COALESCE(event_type, CAST(payload AS jsonb) ->> 'event_type', '')), created);
@@ -0,0 +1,6 @@
+-- The partitioned indexes become valid once the index of their last partition is attached.
+ALTER INDEX ix_event_missing_payload_jsonb
+    ATTACH PARTITION ix_event_legacy_missing_payload_jsonb;
+
+ALTER INDEX ix_notification_history_missing_details_jsonb
+    ATTACH PARTITION ix_notification_history_legacy_missing_details_jsonb;
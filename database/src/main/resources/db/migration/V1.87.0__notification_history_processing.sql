@@ -0,0 +1,7 @@
+-- Only contains the histories which are still being processed, so that the engine can find the instant emails which
+-- were never sent without reading the whole history. The indexes of the legacy partition are built concurrently and
+-- attached by the following migrations, see createPartitionIndexes.
+CREATE INDEX ix_notification_history_processing
+    ON ONLY notification_history (created) WHERE status = 'PROCESSING';
+CALL createPartitionIndexes('notification_history', 'ix_notification_history_processing',
+    'processing', '(created) WHERE status = ''PROCESSING''');
@@ -0,0 +1,4 @@
+-- The index of the legacy partition is built concurrently to avoid blocking the engine inserts. Flyway runs this
+-- migration outside of a transaction.
+CREATE INDEX CONCURRENTLY ix_notification_history_legacy_processing
+    ON notification_history_legacy (created) WHERE status = 'PROCESSING';
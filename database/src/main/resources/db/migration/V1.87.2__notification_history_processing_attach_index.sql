@@ -0,0 +1,3 @@
+-- The partitioned index becomes valid once the index of its last partition is attached.
+ALTER INDEX ix_notification_history_processing
+    ATTACH PARTITION ix_notification_history_legacy_processing;
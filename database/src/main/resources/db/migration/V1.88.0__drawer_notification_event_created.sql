@@ -0,0 +1,14 @@
+-- The event table is partitioned on its 'created' column, see V1.80.3. The drawer feed joins each entry with its event,
+-- and a join on the event ID alone has to probe the ID index of every partition. The creation date of the event is now
+-- stored with each drawer entry, so that the join also matches the partition key and only probes the event partition.
+ALTER TABLE drawer_notification ADD COLUMN event_created TIMESTAMP;
+
+UPDATE drawer_notification dn
+SET event_created = e.created
+FROM event e
+WHERE e.id = dn.event_id;
+
+-- The entries whose event was dropped with its partition can no longer be displayed.
+DELETE FROM drawer_notification WHERE event_created IS NULL;
+
+ALTER TABLE drawer_notification ALTER COLUMN event_created SET NOT NULL;
@@ -0,0 +1,20 @@
+package com.redhat.cloud.notifications.benchmarks;
+
+import com.redhat.cloud.notifications.models.Environment;
+
+/**
+ * {@link Environment} is a CDI bean configured with {@code @ConfigProperty}, so the benchmarks provide the values
+ * directly.
+ */
+public class BenchmarkEnvironment extends Environment {
+
+    @Override
+    public String name() {
+        return "benchmark";
+    }
+
+    @Override
+    public String url() {
+        return "https://console.redhat.com";
+    }
+}
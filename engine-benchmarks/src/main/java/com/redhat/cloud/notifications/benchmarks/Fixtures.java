@@ -0,0 +1,122 @@
+package com.redhat.cloud.notifications.benchmarks;
+
+import com.redhat.cloud.notifications.events.EventWrapperAction;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.models.EmailAggregation;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.transformers.BaseTransformer;
+import com.redhat.cloud.notifications.utils.ActionParser;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * Loads the payloads used by the benchmarks. The action fixtures are copies of real messages received on the ingress
+ * topic, one file per application, and are turned into email aggregations the same way the engine does it.
+ */
+public final class Fixtures {
+
+    public static final String ORG_ID = "11789772";
+    public static final String BUNDLE = "rhel";
+
+    private static final String INVENTORY_ID = "inventory_id";
+
+    private static final ActionParser ACTION_PARSER = new ActionParser();
+    private static final BaseTransformer BASE_TRANSFORMER = new BaseTransformer();
+
+    private Fixtures() {
+    }
+
+    public static String readResource(String path) {
+        try (InputStream inputStream = Fixtures.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("Resource not found: " + path);
+            }
+            return new String(inputStream.readAllBytes(), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the raw JSON actions of the given application, as they are received on the ingress topic.
+     */
+    public static List<String> actionsJson(String application) {
+        JsonArray actions = new JsonArray(readResource("fixtures/actions/" + application + ".json"));
+        List<String> result = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            result.add(actions.getJsonObject(i).encode());
+        }
+        return result;
+    }
+
+    public static List<Action> actions(String application) {
+        return actionsJson(application).stream()
+                .map(ACTION_PARSER::fromJsonString)
+                .toList();
+    }
+
+    public static Action action(String application, String eventType) {
+        return actions(application).stream()
+                .filter(action -> action.getEventType().equals(eventType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No " + application + " fixture found for event type " + eventType));
+    }
+
+    public static String cloudEventJson() {
+        return readResource("fixtures/policies-cloud-event.json");
+    }
+
+    public static Event event(Action action) {
+        Event event = new Event();
+        event.setEventWrapper(new EventWrapperAction(action));
+        event.setBundleDisplayName("Red Hat Enterprise Linux");
+        event.setApplicationDisplayName(action.getApplication());
+        event.setEventTypeDisplayName(action.getEventType());
+        return event;
+    }
+
+    /**
+     * Builds {@code count} email aggregations from the fixtures of the given application. The fixtures are used in
+     * turn and the inventory IDs are rewritten so that the aggregations are spread over {@code systems} distinct
+     * systems, which is what the aggregators see in production: a few rules or policies triggered on many systems.
+     */
+    public static List<EmailAggregation> emailAggregations(String application, int count, int systems) {
+        List<Action> actions = actions(application);
+        List<EmailAggregation> aggregations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // The encoding round trip mirrors the storage of the payload in the email_aggregation table.
+            JsonObject payload = new JsonObject(BASE_TRANSFORMER.toJsonObject(event(actions.get(i % actions.size()))).encode());
+            String inventoryId = new UUID(application.hashCode(), i % systems).toString();
+            replaceInventoryId(payload.getJsonObject(BaseTransformer.CONTEXT), inventoryId);
+            for (Object eventItem : payload.getJsonArray(BaseTransformer.EVENTS)) {
+                replaceInventoryId(((JsonObject) eventItem).getJsonObject(BaseTransformer.PAYLOAD), inventoryId);
+            }
+
+            EmailAggregation aggregation = new EmailAggregation();
+            aggregation.setOrgId(ORG_ID);
+            aggregation.setBundleName(BUNDLE);
+            aggregation.setApplicationName(application);
+            aggregation.setCreated(LocalDateTime.now(UTC));
+            aggregation.setPayload(payload);
+            aggregations.add(aggregation);
+        }
+        return aggregations;
+    }
+
+    private static void replaceInventoryId(JsonObject jsonObject, String inventoryId) {
+        if (jsonObject != null && jsonObject.containsKey(INVENTORY_ID)) {
+            jsonObject.put(INVENTORY_ID, inventoryId);
+        }
+    }
+}
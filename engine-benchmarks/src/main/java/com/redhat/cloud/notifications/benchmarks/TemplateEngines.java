@@ -0,0 +1,121 @@
+package com.redhat.cloud.notifications.benchmarks;
+
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.ingress.Context;
+import com.redhat.cloud.notifications.ingress.Payload;
+import com.redhat.cloud.notifications.templates.extensions.ActionExtension;
+import com.redhat.cloud.notifications.templates.extensions.LocalDateTimeExtension;
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.EngineBuilder;
+import io.quarkus.qute.EvalContext;
+import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.qute.TemplateLocator.TemplateLocation;
+import io.quarkus.qute.ValueResolver;
+import io.quarkus.qute.Variant;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Builds a standalone Qute {@link Engine} equivalent to the one the engine module gets from Quarkus. The
+ * {@code @TemplateExtension} methods are normally turned into value resolvers at build time, so they are registered
+ * manually here and delegate to the same extension classes. Templates are read from the engine module resources
+ * instead of the database.
+ */
+public final class TemplateEngines {
+
+    private static final String[] TEMPLATE_SUFFIXES = {".html", ".txt"};
+
+    private TemplateEngines() {
+    }
+
+    public static Engine create() {
+        EngineBuilder builder = Engine.builder()
+                .addDefaults()
+                .addValueResolver(new ReflectionValueResolver())
+                .strictRendering(true)
+                .addLocator(TemplateEngines::locate);
+
+        // ActionExtension
+        builder.addValueResolver(ValueResolver.builder()
+                .applyToBaseClass(Context.class)
+                .resolveSync(ctx -> ((Context) ctx.getBase()).getAdditionalProperties().get(ctx.getName()))
+                .build());
+        builder.addValueResolver(ValueResolver.builder()
+                .applyToBaseClass(Payload.class)
+                .resolveSync(ctx -> ((Payload) ctx.getBase()).getAdditionalProperties().get(ctx.getName()))
+                .build());
+        builder.addValueResolver(ValueResolver.builder()
+                .applyToBaseClass(Action.class)
+                .applyToName("toPrettyJson")
+                .resolveSync(ctx -> ActionExtension.toPrettyJson((Action) ctx.getBase()))
+                .build());
+
+        // LocalDateTimeExtension
+        builder.addValueResolver(dateResolver("toUtcFormat", LocalDateTimeExtension::toUtcFormat, LocalDateTimeExtension::toUtcFormat));
+        builder.addValueResolver(dateResolver("toStringFormat", LocalDateTimeExtension::toStringFormat, LocalDateTimeExtension::toStringFormat));
+        builder.addValueResolver(dateResolver("toTimeAgo", LocalDateTimeExtension::toTimeAgo, LocalDateTimeExtension::toTimeAgo));
+
+        // Built-in Quarkus collection extension used by some digest templates.
+        builder.addValueResolver(ValueResolver.builder()
+                .applyToBaseClass(List.class)
+                .applyToName("take")
+                .resolveAsync(TemplateEngines::take)
+                .build());
+
+        return builder.build();
+    }
+
+    private static ValueResolver dateResolver(String name, Function<LocalDateTime, String> fromDate, Function<String, String> fromString) {
+        return ValueResolver.builder()
+                .applyToName(name)
+                .appliesTo(ctx -> ctx.getBase() instanceof LocalDateTime || ctx.getBase() instanceof String)
+                .resolveSync(ctx -> ctx.getBase() instanceof LocalDateTime
+                        ? fromDate.apply((LocalDateTime) ctx.getBase())
+                        : fromString.apply((String) ctx.getBase()))
+                .build();
+    }
+
+    private static CompletionStage<Object> take(EvalContext ctx) {
+        List<?> list = (List<?>) ctx.getBase();
+        return ctx.evaluate(ctx.getParams().get(0))
+                .thenApply(n -> list.subList(0, ((Number) n).intValue()));
+    }
+
+    /**
+     * Reads a template from the engine module resources, where it is stored the same way as in the database.
+     */
+    public static String readTemplate(String name) {
+        return findTemplate(name)
+                .orElseThrow(() -> new IllegalArgumentException("Template not found: " + name));
+    }
+
+    private static Optional<TemplateLocation> locate(String name) {
+        return findTemplate(name).map(data -> new TemplateLocation() {
+            @Override
+            public Reader read() {
+                return new StringReader(data);
+            }
+
+            @Override
+            public Optional<Variant> getVariant() {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static Optional<String> findTemplate(String name) {
+        for (String suffix : TEMPLATE_SUFFIXES) {
+            String path = "templates/" + name + suffix;
+            if (TemplateEngines.class.getClassLoader().getResource(path) != null) {
+                return Optional.of(Fixtures.readResource(path));
+            }
+        }
+        return Optional.empty();
+    }
+}
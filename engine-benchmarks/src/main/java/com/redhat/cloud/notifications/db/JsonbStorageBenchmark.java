@@ -0,0 +1,134 @@
+package com.redhat.cloud.notifications.db;
+
+import com.redhat.cloud.notifications.benchmarks.Fixtures;
+import com.redhat.cloud.notifications.models.EmailAggregation;
+import com.redhat.cloud.notifications.transformers.BaseTransformer;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares the text and jsonb storage of the email aggregation payloads: the cost of inserting a batch of payloads and
+ * the cost of reading the payloads which match a field of the JSON document, including their parsing in Java. This is
+ * the only benchmark which needs PostgreSQL. The connection is configured with the benchmark.jdbc.url,
+ * benchmark.jdbc.user and benchmark.jdbc.password system properties. The benchmark only uses a temporary table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonbStorageBenchmark {
+
+    private static final String RARE_EVENT_TYPE = "benchmark-rare-event-type";
+
+    @Param({"text", "jsonb"})
+    public String columnType;
+
+    @Param({"1000"})
+    public int rows;
+
+    private Connection connection;
+    private List<String> payloads;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://127.0.0.1:5432/notifications"),
+                System.getProperty("benchmark.jdbc.user", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres")
+        );
+
+        // One payload out of ten matches the filter of the read benchmark.
+        payloads = new ArrayList<>(rows);
+        List<JsonObject> fixtures = Fixtures.emailAggregations("policies", rows, 50).stream()
+                .map(EmailAggregation::getPayload)
+                .toList();
+        for (int i = 0; i < fixtures.size(); i++) {
+            JsonObject payload = fixtures.get(i);
+            if (i % 10 == 0) {
+                payload.put(BaseTransformer.EVENT_TYPE, RARE_EVENT_TYPE);
+            }
+            payloads.add(payload.encode());
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE benchmark_payload (id SERIAL PRIMARY KEY, payload " + columnType + " NOT NULL)");
+            if (columnType.equals("jsonb")) {
+                statement.execute("CREATE INDEX ix_benchmark_payload_event_type ON benchmark_payload ((payload ->> 'event_type'))");
+            }
+        }
+        insertPayloads();
+        connection.commit();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE benchmark_payload");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /*
+     * The inserted payloads are rolled back so that the table size does not change between the invocations.
+     */
+    @Benchmark
+    public int insert() throws SQLException {
+        try {
+            return insertPayloads();
+        } finally {
+            connection.rollback();
+        }
+    }
+
+    @Benchmark
+    public void readAndFilter(Blackhole blackhole) throws SQLException {
+        // The cast is a no-op for the jsonb column, which lets PostgreSQL use the expression index.
+        String sql = "SELECT payload FROM benchmark_payload WHERE CAST(payload AS jsonb) ->> 'event_type' = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, RARE_EVENT_TYPE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    blackhole.consume(new JsonObject(resultSet.getString(1)));
+                }
+            }
+        }
+    }
+
+    private int insertPayloads() throws SQLException {
+        connection.setAutoCommit(false);
+        // Same cast as the column transformer of the entities.
+        String sql = "INSERT INTO benchmark_payload (payload) VALUES (CAST(? AS " + columnType + "))";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (String payload : payloads) {
+                statement.setString(1, payload);
+                statement.addBatch();
+            }
+            return statement.executeBatch().length;
+        }
+    }
+}
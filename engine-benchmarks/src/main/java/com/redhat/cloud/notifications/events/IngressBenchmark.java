@@ -0,0 +1,74 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.event.parser.ConsoleCloudEventParser;
+import com.redhat.cloud.notifications.benchmarks.Fixtures;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.NotificationsConsoleCloudEvent;
+import com.redhat.cloud.notifications.transformers.BaseTransformer;
+import com.redhat.cloud.notifications.utils.ActionParser;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Measures the work done by EventConsumer and the processors for each message received on the ingress topic: the
+ * payload deserialization and its transformation into the JSON object sent to the integrations. The Action and the
+ * CloudEvent fixtures describe the same Policies event so that both formats can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngressBenchmark {
+
+    private final ActionParser actionParser = new ActionParser();
+    private final ConsoleCloudEventParser cloudEventParser = new ConsoleCloudEventParser();
+    private final BaseTransformer baseTransformer = new BaseTransformer();
+
+    private String actionJson;
+    private String cloudEventJson;
+    private Event actionEvent;
+    private Event cloudEventEvent;
+
+    @Setup
+    public void setup() {
+        actionJson = Fixtures.actionsJson("policies").get(0);
+        cloudEventJson = Fixtures.cloudEventJson();
+        actionEvent = Fixtures.event(actionParser.fromJsonString(actionJson));
+        cloudEventEvent = new Event();
+        cloudEventEvent.setEventWrapper(new EventWrapperCloudEvent(cloudEventParser.fromJsonString(cloudEventJson, NotificationsConsoleCloudEvent.class)));
+    }
+
+    @Benchmark
+    public Action parseAction() {
+        return actionParser.fromJsonString(actionJson);
+    }
+
+    @Benchmark
+    public NotificationsConsoleCloudEvent parseCloudEvent() {
+        return cloudEventParser.fromJsonString(cloudEventJson, NotificationsConsoleCloudEvent.class);
+    }
+
+    @Benchmark
+    public JsonObject transformAction() {
+        return baseTransformer.toJsonObject(actionEvent);
+    }
+
+    @Benchmark
+    public JsonObject transformCloudEvent() {
+        return baseTransformer.toJsonObject(cloudEventEvent);
+    }
+}
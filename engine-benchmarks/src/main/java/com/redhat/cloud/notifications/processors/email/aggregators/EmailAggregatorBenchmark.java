@@ -0,0 +1,81 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import com.redhat.cloud.notifications.benchmarks.Fixtures;
+import com.redhat.cloud.notifications.models.EmailAggregation;
+import com.redhat.cloud.notifications.models.EmailAggregationKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.ZoneOffset.UTC;
+
+/*
+ * Measures the daily digest aggregation of one tenant: each aggregation record is processed by the application
+ * aggregator, then the aggregated context is extracted and passed to the digest template. Run it with the JMH GC
+ * profiler (-prof gc) to compare the memory allocated per digest, reported as gc.alloc.rate.norm, between two versions
+ * of the aggregators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailAggregatorBenchmark {
+
+    @Param({"advisor", "compliance", "drift", "inventory", "patch", "policies", "resource-optimization", "vulnerability"})
+    public String application;
+
+    @Param({"100", "5000"})
+    public int aggregationsCount;
+
+    @Param({"50"})
+    public int systemsCount;
+
+    private List<EmailAggregation> aggregations;
+    private AbstractEmailPayloadAggregator filledAggregator;
+
+    @Setup
+    public void setup() {
+        aggregations = Fixtures.emailAggregations(application, aggregationsCount, systemsCount);
+        filledAggregator = aggregateAll();
+    }
+
+    @Benchmark
+    public AbstractEmailPayloadAggregator aggregate() {
+        return aggregateAll();
+    }
+
+    @Benchmark
+    public Map<String, Object> getContext() {
+        return filledAggregator.getContext();
+    }
+
+    @Benchmark
+    public Map<String, Object> aggregateAndGetContext() {
+        return aggregateAll().getContext();
+    }
+
+    private AbstractEmailPayloadAggregator aggregateAll() {
+        AbstractEmailPayloadAggregator aggregator = EmailPayloadAggregatorFactory.by(new EmailAggregationKey(Fixtures.ORG_ID, Fixtures.BUNDLE, application));
+        aggregator.setStartTime(LocalDateTime.now(UTC).minusDays(1L));
+        aggregator.setEndTimeKey(LocalDateTime.now(UTC));
+        for (EmailAggregation aggregation : aggregations) {
+            aggregator.aggregate(aggregation);
+        }
+        return aggregator;
+    }
+}
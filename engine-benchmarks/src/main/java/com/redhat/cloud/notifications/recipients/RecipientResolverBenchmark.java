@@ -0,0 +1,143 @@
+package com.redhat.cloud.notifications.recipients;
+
+import com.redhat.cloud.notifications.benchmarks.Fixtures;
+import com.redhat.cloud.notifications.recipients.rbac.RbacRecipientUsersProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Measures the filtering of the RBAC users against the recipient settings and the event type subscribers. The RBAC
+ * users are served from memory, as they would be from the RbacRecipientUsersProvider cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipientResolverBenchmark {
+
+    @Param({"100", "2000", "10000"})
+    public int usersCount;
+
+    // Percentage of the org users who subscribed to the event type.
+    @Param({"30"})
+    public int subscribersPercentage;
+
+    @Param({"50"})
+    public int requestedUsersCount;
+
+    private final RecipientResolver recipientResolver = new RecipientResolver();
+
+    private Set<String> subscribers;
+    private Set<RecipientSettings> orgRequest;
+    private Set<RecipientSettings> usersRequest;
+
+    @Setup
+    public void setup() {
+        List<User> users = new ArrayList<>(usersCount);
+        subscribers = new HashSet<>();
+        Set<String> requestedUsers = new HashSet<>();
+        for (int i = 0; i < usersCount; i++) {
+            User user = new User();
+            user.setUsername("user-" + i);
+            user.setEmail("user-" + i + "@example.com");
+            user.setActive(true);
+            user.setAdmin(i % 10 == 0);
+            users.add(user);
+            if (i % 100 < subscribersPercentage) {
+                // Usernames are matched ignoring the case.
+                subscribers.add(user.getUsername().toUpperCase());
+            }
+            if (requestedUsers.size() < requestedUsersCount && i % 2 == 0) {
+                requestedUsers.add(user.getUsername());
+            }
+        }
+
+        recipientResolver.rbacRecipientUsersProvider = new InMemoryRbacRecipientUsersProvider(users);
+        recipientResolver.meterRegistry = new SimpleMeterRegistry();
+        recipientResolver.init();
+
+        orgRequest = Set.of(new BenchmarkRecipientSettings(false, false, Set.of()));
+        usersRequest = Set.of(new BenchmarkRecipientSettings(false, false, requestedUsers));
+    }
+
+    @Benchmark
+    public Set<User> subscribersOfOrg() {
+        return recipientResolver.recipientUsers(Fixtures.ORG_ID, orgRequest, subscribers);
+    }
+
+    @Benchmark
+    public Set<User> subscribersAmongRequestedUsers() {
+        return recipientResolver.recipientUsers(Fixtures.ORG_ID, usersRequest, subscribers);
+    }
+
+    static class InMemoryRbacRecipientUsersProvider extends RbacRecipientUsersProvider {
+
+        private final List<User> users;
+
+        InMemoryRbacRecipientUsersProvider(List<User> users) {
+            this.users = users;
+        }
+
+        @Override
+        public List<User> getUsers(String orgId, boolean adminsOnly) {
+            return users;
+        }
+
+        @Override
+        public List<User> getGroupUsers(String orgId, boolean adminOnly, UUID groupId) {
+            return users;
+        }
+    }
+
+    static class BenchmarkRecipientSettings extends RecipientSettings {
+
+        private final boolean onlyAdmins;
+        private final boolean ignoreUserPreferences;
+        private final Set<String> users;
+
+        BenchmarkRecipientSettings(boolean onlyAdmins, boolean ignoreUserPreferences, Set<String> users) {
+            this.onlyAdmins = onlyAdmins;
+            this.ignoreUserPreferences = ignoreUserPreferences;
+            this.users = users;
+        }
+
+        @Override
+        public boolean isOnlyAdmins() {
+            return onlyAdmins;
+        }
+
+        @Override
+        public boolean isIgnoreUserPreferences() {
+            return ignoreUserPreferences;
+        }
+
+        @Override
+        public UUID getGroupId() {
+            return null;
+        }
+
+        @Override
+        public Set<String> getUsers() {
+            return users;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.redhat.cloud.notifications.templates;
+
+import com.redhat.cloud.notifications.benchmarks.BenchmarkEnvironment;
+import com.redhat.cloud.notifications.benchmarks.Fixtures;
+import com.redhat.cloud.notifications.benchmarks.TemplateEngines;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.ingress.Context;
+import com.redhat.cloud.notifications.models.EmailAggregation;
+import com.redhat.cloud.notifications.models.EmailAggregationKey;
+import com.redhat.cloud.notifications.processors.email.aggregators.AbstractEmailPayloadAggregator;
+import com.redhat.cloud.notifications.processors.email.aggregators.EmailPayloadAggregatorFactory;
+import io.quarkus.qute.TemplateInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.ZoneOffset.UTC;
+
+/*
+ * Measures the rendering of the email body templates through TemplateService. Instant emails compile the template
+ * for each event while the daily digest compiles it once per tenant and renders it once per group of recipients,
+ * so both costs are measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    public enum EmailTemplate {
+        ADVISOR_INSTANT("Advisor/newRecommendationInstantEmailBodyV2", "advisor", "new-recommendation"),
+        COMPLIANCE_INSTANT("Compliance/complianceBelowThresholdEmailBodyV2", "compliance", "compliance-below-threshold"),
+        DRIFT_INSTANT("Drift/newBaselineDriftInstantEmailBodyV2", "drift", "drift-baseline-detected"),
+        INVENTORY_INSTANT("Inventory/validationErrorEmailBodyV2", "inventory", "validation-error"),
+        PATCH_INSTANT("Patch/newAdvisoriesInstantEmailBodyV2", "patch", "new-advisory"),
+        POLICIES_INSTANT("Policies/instantEmailBodyV2", "policies", "policy-triggered"),
+        VULNERABILITY_INSTANT("Vulnerability/newCveCritSeverityEmailBodyV2", "vulnerability", "new-cve-severity"),
+        ADVISOR_DAILY("Advisor/dailyEmailBodyV2", "advisor", null),
+        COMPLIANCE_DAILY("Compliance/dailyEmailBodyV2", "compliance", null),
+        DRIFT_DAILY("Drift/dailyEmailBodyV2", "drift", null),
+        INVENTORY_DAILY("Inventory/dailyEmailBodyV2", "inventory", null),
+        PATCH_DAILY("Patch/dailyEmailBodyV2", "patch", null),
+        POLICIES_DAILY("Policies/dailyEmailBodyV2", "policies", null),
+        RESOURCE_OPTIMIZATION_DAILY("ResourceOptimization/dailyEmailBodyV2", "resource-optimization", null),
+        VULNERABILITY_DAILY("Vulnerability/dailyEmailBodyV2", "vulnerability", null);
+
+        final String templateName;
+        final String application;
+        // A null event type means that the template is rendered with the aggregated data of a daily digest.
+        final String eventType;
+
+        EmailTemplate(String templateName, String application, String eventType) {
+            this.templateName = templateName;
+            this.application = application;
+            this.eventType = eventType;
+        }
+    }
+
+    private static final int DIGEST_AGGREGATIONS = 1000;
+    private static final int DIGEST_SYSTEMS = 50;
+
+    @Param
+    public EmailTemplate emailTemplate;
+
+    private final TemplateService templateService = new TemplateService();
+
+    private String templateData;
+    private TemplateInstance compiledTemplate;
+    private Action action;
+
+    @Setup
+    public void setup() {
+        templateService.engine = TemplateEngines.create();
+        templateService.environment = new BenchmarkEnvironment();
+
+        templateData = TemplateEngines.readTemplate(emailTemplate.templateName);
+        compiledTemplate = templateService.compileTemplate(templateData, "body");
+        if (emailTemplate.eventType == null) {
+            action = buildDigestAction(emailTemplate.application);
+        } else {
+            action = Fixtures.action(emailTemplate.application, emailTemplate.eventType);
+        }
+
+        // Fails fast if the template cannot be rendered with the fixtures.
+        templateService.renderTemplate(action, compiledTemplate);
+    }
+
+    @Benchmark
+    public String render() {
+        return templateService.renderTemplate(action, compiledTemplate);
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return templateService.renderTemplate(action, templateService.compileTemplate(templateData, "body"));
+    }
+
+    /*
+     * Same action as the one built by EmailSubscriptionTypeProcessor for a daily digest.
+     */
+    private static Action buildDigestAction(String application) {
+        AbstractEmailPayloadAggregator aggregator = EmailPayloadAggregatorFactory.by(new EmailAggregationKey(Fixtures.ORG_ID, Fixtures.BUNDLE, application));
+        aggregator.setStartTime(LocalDateTime.now(UTC).minusDays(1L));
+        aggregator.setEndTimeKey(LocalDateTime.now(UTC));
+        for (EmailAggregation aggregation : Fixtures.emailAggregations(application, DIGEST_AGGREGATIONS, DIGEST_SYSTEMS)) {
+            aggregator.aggregate(aggregation);
+        }
+
+        Context.ContextBuilder contextBuilder = new Context.ContextBuilder();
+        aggregator.getContext().forEach(contextBuilder::withAdditionalProperty);
+
+        Action action = new Action();
+        action.setContext(contextBuilder.build());
+        action.setEvents(List.of());
+        action.setOrgId(Fixtures.ORG_ID);
+        action.setApplication(application);
+        action.setBundle(Fixtures.BUNDLE);
+        action.setEventType(null);
+        action.setTimestamp(LocalDateTime.now(UTC));
+        return action;
+    }
+}
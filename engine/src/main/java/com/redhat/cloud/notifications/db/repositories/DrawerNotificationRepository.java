@@ -2,11 +2,27 @@ package com.redhat.cloud.notifications.db.repositories;
 
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
 import com.redhat.cloud.notifications.models.DrawerNotification;
+import com.redhat.cloud.notifications.models.Event;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
 
 @ApplicationScoped
 public class DrawerNotificationRepository {
+
+    /*
+     * All drawer entries of an event are inserted with a single statement, whatever the number of recipients.
+     * Replaying the same event is harmless: the rows that already exist are skipped thanks to the unique constraint.
+     */
+    private static final String BULK_INSERT_QUERY = "INSERT INTO drawer_notification (id, org_id, user_id, event_id, event_created, created, read) " +
+            "SELECT gen_random_uuid(), ?, user_id, ?, ?, ?, FALSE FROM unnest(?::text[]) AS recipients(user_id) " +
+            "ON CONFLICT (org_id, user_id, event_id) DO NOTHING";
+
     @Inject
     StatelessSessionFactory statelessSessionFactory;
 
@@ -16,4 +32,30 @@ public class DrawerNotificationRepository {
         return drawerNotification;
     }
 
+    /**
+     * Creates one drawer entry for each of the given users.
+     * @param event the event that will be displayed in the drawer of the users
+     * @param userIds the recipients of the drawer entries
+     * @return the number of entries that were actually created
+     */
+    public int create(Event event, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return statelessSessionFactory.getCurrentSession().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(BULK_INSERT_QUERY)) {
+                Array recipients = connection.createArrayOf("text", userIds.toArray());
+                try {
+                    statement.setString(1, event.getOrgId());
+                    statement.setObject(2, event.getId());
+                    statement.setTimestamp(3, Timestamp.valueOf(event.getCreated()));
+                    statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC)));
+                    statement.setArray(5, recipients);
+                    return statement.executeUpdate();
+                } finally {
+                    recipients.free();
+                }
+            }
+        });
+    }
 }
@@ -1,25 +1,64 @@
 package com.redhat.cloud.notifications.db.repositories;
 
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.ingress.Recipient;
 import com.redhat.cloud.notifications.models.EmailAggregation;
 import com.redhat.cloud.notifications.models.EmailAggregationKey;
 import io.quarkus.logging.Log;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.hibernate.query.NativeQuery;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class EmailAggregationRepository {
 
+    public static final String EVENT_TYPE_KEY = "event_type";
+    public static final String RECIPIENTS_KEY = "recipients";
+
+    /*
+     * The aggregations written before the event type and recipients fingerprint columns existed are given a fingerprint
+     * of their own, based on their ID. They are never pruned and each of them is its own group.
+     */
+    private static final String LEGACY_FINGERPRINT_PREFIX = "legacy-";
+    // Must be kept identical to the expression of the ix_email_aggregation_payload_event_type index.
+    private static final String EVENT_TYPE_EXPRESSION = "COALESCE(event_type, CAST(payload AS jsonb) ->> 'event_type', '')";
+    private static final String FINGERPRINT_EXPRESSION = "COALESCE(recipients_fingerprint, '" + LEGACY_FINGERPRINT_PREFIX + "' || id)";
+    private static final String KEY_CONDITION = "org_id = :orgId AND bundle = :bundleName AND application = :applicationName " +
+            "AND created > :start AND created <= :end";
+
+    // Names of the event types of the application which are linked to an email endpoint that ignores the user preferences.
+    private static final String FORCED_EMAIL_EVENT_TYPES = "SELECT et.name FROM event_type et " +
+            "JOIN applications a ON a.id = et.application_id " +
+            "JOIN bundles b ON b.id = a.bundle_id " +
+            "JOIN event_type_behavior etb ON etb.event_type_id = et.id " +
+            "JOIN behavior_group bg ON bg.id = etb.behavior_group_id " +
+            "JOIN behavior_group_action bga ON bga.behavior_group_id = bg.id " +
+            "JOIN endpoints e ON e.id = bga.endpoint_id " +
+            "JOIN email_properties ep ON ep.id = e.id " +
+            "WHERE a.name = :applicationName AND b.name = :bundleName AND (bg.org_id = :orgId OR bg.org_id IS NULL) " +
+            "AND e.enabled IS TRUE AND ep.ignore_preferences IS TRUE";
+
     @Inject
     StatelessSessionFactory statelessSessionFactory;
 
     public boolean addEmailAggregation(EmailAggregation aggregation) {
         aggregation.prePersist(); // This method must be called manually while using a StatelessSession.
         try {
+            fillDigestColumns(aggregation);
             statelessSessionFactory.getCurrentSession().insert(aggregation);
             return true;
         } catch (Exception e) {
@@ -41,6 +80,69 @@ public class EmailAggregationRepository {
                 .getResultList();
     }
 
+    /**
+     * Returns the groups of aggregations matching the given key, one group for each combination of event type and
+     * recipients fingerprint. The recipients settings of a group are read from a single aggregation payload.
+     * @param subscribedEventTypes the event types which have at least one subscriber, or {@code null} if the
+     *                             aggregations of all event types are needed. The aggregations of the other event
+     *                             types are skipped unless they are sent regardless of the user preferences.
+     */
+    public List<EmailAggregationGroup> getEmailAggregationGroups(EmailAggregationKey key, LocalDateTime start, LocalDateTime end, Set<String> subscribedEventTypes) {
+        String query = "SELECT g.event_type, g.recipients_fingerprint, CAST(CAST(ea.payload AS jsonb) -> 'recipients' AS TEXT) FROM (" +
+                    "SELECT " + EVENT_TYPE_EXPRESSION + " AS event_type, " + FINGERPRINT_EXPRESSION + " AS recipients_fingerprint, MIN(id) AS sample_id " +
+                    "FROM email_aggregation WHERE " + KEY_CONDITION;
+        if (subscribedEventTypes != null) {
+            query += " AND (recipients_fingerprint IS NULL OR forced_email IS TRUE OR event_type = ANY(CAST(:eventTypes AS text[])) " +
+                    "OR event_type IN (" + FORCED_EMAIL_EVENT_TYPES + "))";
+        }
+        query += " GROUP BY 1, 2) g JOIN email_aggregation ea ON ea.id = g.sample_id";
+
+        NativeQuery<?> nativeQuery = statelessSessionFactory.getCurrentSession().createNativeQuery(query);
+        setKeyParameters(nativeQuery, key, start, end);
+        if (subscribedEventTypes != null) {
+            nativeQuery.setParameter("eventTypes", toSqlArray(subscribedEventTypes));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) nativeQuery.getResultList();
+        return rows.stream()
+                .map(row -> new EmailAggregationGroup((String) row[0], (String) row[1], row[2] == null ? new JsonArray() : new JsonArray((String) row[2])))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the aggregations matching the given key which belong to one of the given groups. The aggregations are
+     * ordered by group, in the order of the given list, so that all the aggregations of a group are read before the
+     * next group, then by creation date.
+     */
+    public List<EmailAggregation> getEmailAggregation(EmailAggregationKey key, LocalDateTime start, LocalDateTime end, List<EmailAggregationGroup> groups, int firstResultIndex, int maxResults) {
+        String query = "SELECT ea.* FROM email_aggregation ea " +
+                "JOIN unnest(CAST(:eventTypes AS text[]), CAST(:fingerprints AS text[])) WITH ORDINALITY AS g(group_event_type, group_fingerprint, group_index) " +
+                "ON (" + EVENT_TYPE_EXPRESSION + ", " + FINGERPRINT_EXPRESSION + ") = (g.group_event_type, g.group_fingerprint) " +
+                "WHERE " + KEY_CONDITION + " " +
+                "ORDER BY g.group_index, ea.created, ea.id";
+
+        NativeQuery<EmailAggregation> nativeQuery = statelessSessionFactory.getCurrentSession().createNativeQuery(query, EmailAggregation.class);
+        setKeyParameters(nativeQuery, key, start, end);
+        List<EmailAggregation> aggregations = nativeQuery
+                .setParameter("eventTypes", toSqlArray(groups.stream().map(EmailAggregationGroup::eventType).collect(Collectors.toList())))
+                .setParameter("fingerprints", toSqlArray(groups.stream().map(EmailAggregationGroup::recipientsFingerprint).collect(Collectors.toList())))
+                .setFirstResult(firstResultIndex)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        // The group of the legacy aggregations is computed the same way as in the SQL queries.
+        for (EmailAggregation aggregation : aggregations) {
+            if (aggregation.getRecipientsFingerprint() == null) {
+                aggregation.setEventType(Objects.requireNonNullElse(aggregation.getPayload().getString(EVENT_TYPE_KEY), ""));
+                aggregation.setRecipientsFingerprint(LEGACY_FINGERPRINT_PREFIX + aggregation.getId());
+            } else if (aggregation.getEventType() == null) {
+                aggregation.setEventType("");
+            }
+        }
+        return aggregations;
+    }
+
     @Transactional
     public int purgeOldAggregation(EmailAggregationKey key, LocalDateTime lastUsedTime) {
         String query = "DELETE FROM EmailAggregation WHERE orgId = :orgId AND bundleName = :bundleName AND applicationName = :applicationName AND created <= :created";
@@ -51,4 +153,52 @@ public class EmailAggregationRepository {
                 .setParameter("created", lastUsedTime)
                 .executeUpdate();
     }
+
+    private static void setKeyParameters(NativeQuery<?> query, EmailAggregationKey key, LocalDateTime start, LocalDateTime end) {
+        query.setParameter("orgId", key.getOrgId())
+                .setParameter("bundleName", key.getBundle())
+                .setParameter("applicationName", key.getApplication())
+                .setParameter("start", start)
+                .setParameter("end", end);
+    }
+
+    private static void fillDigestColumns(EmailAggregation aggregation) {
+        JsonObject payload = aggregation.getPayload();
+        if (payload == null) {
+            // The insert will fail because of the constraint violation.
+            return;
+        }
+        aggregation.setEventType(payload.getString(EVENT_TYPE_KEY));
+        // The payload may still contain POJOs if it was never serialized, encoding it makes the recipients JSON objects.
+        JsonArray recipients = payload.containsKey(RECIPIENTS_KEY) ? new JsonArray(payload.getJsonArray(RECIPIENTS_KEY).encode()) : new JsonArray();
+        aggregation.setRecipientsFingerprint(hash(recipients.encode()));
+        aggregation.setForcedEmail(recipients.stream()
+                .map(recipient -> ((JsonObject) recipient).mapTo(Recipient.class))
+                .anyMatch(recipient -> Boolean.TRUE.equals(recipient.getIgnoreUserPreferences())));
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Builds a PostgreSQL array literal. Each element is quoted so that it can contain commas, braces or spaces.
+     */
+    private static String toSqlArray(Collection<String> values) {
+        return values.stream()
+                .map(value -> "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    /**
+     * Aggregations which share an event type and recipients settings, and are therefore sent to the same users.
+     */
+    public record EmailAggregationGroup(String eventType, String recipientsFingerprint, JsonArray recipients) {
+    }
 }
@@ -0,0 +1,165 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.EmailSubscriptionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Caches the email subscribers of each org, application and subscription type. A single entry serves the instant
+ * emails of all the event types of an application as well as its digests. The entries are evicted when the size limit
+ * of the {@code email-subscriber-index} cache is reached or when they expire. They are also invalidated shortly after
+ * the backend recorded a subscription change in the {@code email_subscription_change} table.
+ */
+@ApplicationScoped
+public class EmailSubscriberIndex {
+
+    public static final String CACHE_NAME = "email-subscriber-index";
+    public static final String CACHE_HITS_COUNTER_NAME = "email-subscriber-index.hits";
+    public static final String CACHE_MISSES_COUNTER_NAME = "email-subscriber-index.misses";
+
+    @CacheName(CACHE_NAME)
+    Cache cache;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /*
+     * A subscription change is committed a little after its timestamp was computed by the DB. The changes are therefore
+     * read again during this delay, which means the related entries may be invalidated several times.
+     */
+    @ConfigProperty(name = "notifications.email-subscriber-index.change-overlap", defaultValue = "PT1M")
+    Duration changeOverlap;
+
+    private Counter hits;
+    private Counter misses;
+    // Only accessed from the scheduled refresh, which never runs concurrently.
+    private LocalDateTime changesSince;
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter(CACHE_HITS_COUNTER_NAME);
+        misses = meterRegistry.counter(CACHE_MISSES_COUNTER_NAME);
+    }
+
+    /**
+     * Returns the users who subscribed to an application. This requires a stateless session bound to the current
+     * thread.
+     */
+    public Set<String> getSubscribers(String orgId, UUID applicationId, EmailSubscriptionType subscriptionType) {
+        Key key = new Key(orgId, applicationId, subscriptionType, false);
+        return get(key, this::loadApplicationSubscribers);
+    }
+
+    /**
+     * Returns the users who subscribed to the event types of an application, grouped by event type name. This requires
+     * a stateless session bound to the current thread.
+     */
+    public Map<String, Set<String>> getSubscribersByEventType(String orgId, UUID applicationId, EmailSubscriptionType subscriptionType) {
+        Key key = new Key(orgId, applicationId, subscriptionType, true);
+        return get(key, this::loadEventTypeSubscribers);
+    }
+
+    private <V> V get(Key key, Function<Key, V> loader) {
+        // The loader is invoked from the current thread, which holds the stateless session.
+        boolean[] loaded = new boolean[1];
+        V value = cache.<Key, V>get(key, k -> {
+            loaded[0] = true;
+            return loader.apply(k);
+        }).await().indefinitely();
+        if (loaded[0]) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    private Set<String> loadApplicationSubscribers(Key key) {
+        String query = "SELECT es.id.userId FROM EmailSubscription es WHERE es.id.orgId = :orgId AND es.id.applicationId = :applicationId " +
+                "AND es.id.subscriptionType = :subscriptionType";
+        List<String> userIds = statelessSessionFactory.getCurrentSession().createQuery(query, String.class)
+                .setParameter("orgId", key.orgId())
+                .setParameter("applicationId", key.applicationId())
+                .setParameter("subscriptionType", key.subscriptionType())
+                .getResultList();
+        return Set.copyOf(userIds);
+    }
+
+    private Map<String, Set<String>> loadEventTypeSubscribers(Key key) {
+        String query = "SELECT es.eventType.name, es.id.userId FROM EventTypeEmailSubscription es WHERE es.id.orgId = :orgId " +
+                "AND es.eventType.application.id = :applicationId AND es.id.subscriptionType = :subscriptionType";
+        List<Object[]> records = statelessSessionFactory.getCurrentSession().createQuery(query, Object[].class)
+                .setParameter("orgId", key.orgId())
+                .setParameter("applicationId", key.applicationId())
+                .setParameter("subscriptionType", key.subscriptionType())
+                .getResultList();
+        return records.stream()
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(record -> (String) record[0], Collectors.mapping(record -> (String) record[1], Collectors.toUnmodifiableSet())),
+                        Map::copyOf
+                ));
+    }
+
+    @Scheduled(identity = "EmailSubscriberIndexRefresh", every = "${notifications.email-subscriber-index.refresh-period:10s}", concurrentExecution = SKIP)
+    public void refresh() {
+        if (!featureFlipper.isEmailSubscriberIndexEnabled()) {
+            return;
+        }
+        statelessSessionFactory.withSession(statelessSession -> {
+            Timestamp now = (Timestamp) statelessSession.createNativeQuery("SELECT NOW() AT TIME ZONE 'UTC'").getSingleResult();
+            if (changesSince == null) {
+                // The changes that happened before the first refresh are unknown.
+                cache.invalidateAll().await().indefinitely();
+            } else {
+                String query = "SELECT org_id, application_id FROM email_subscription_change WHERE updated > :since";
+                @SuppressWarnings("unchecked")
+                List<Object[]> changes = statelessSession.createNativeQuery(query)
+                        .setParameter("since", changesSince)
+                        .getResultList();
+                for (Object[] change : changes) {
+                    invalidate((String) change[0], (UUID) change[1]);
+                }
+                Log.debugf("Email subscriber index refreshed, %d subscription changes found", changes.size());
+            }
+            changesSince = now.toLocalDateTime().minus(changeOverlap);
+        });
+    }
+
+    private void invalidate(String orgId, UUID applicationId) {
+        for (EmailSubscriptionType subscriptionType : EmailSubscriptionType.values()) {
+            cache.invalidate(new Key(orgId, applicationId, subscriptionType, false)).await().indefinitely();
+            cache.invalidate(new Key(orgId, applicationId, subscriptionType, true)).await().indefinitely();
+        }
+    }
+
+    record Key(String orgId, UUID applicationId, EmailSubscriptionType subscriptionType, boolean eventTypeLevel) {
+    }
+}
@@ -2,13 +2,17 @@ package com.redhat.cloud.notifications.db.repositories;
 
 import com.redhat.cloud.notifications.config.FeatureFlipper;
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.Application;
 import com.redhat.cloud.notifications.models.EmailSubscriptionType;
+import com.redhat.cloud.notifications.models.EventType;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -20,7 +24,23 @@ public class EmailSubscriptionRepository {
     @Inject
     FeatureFlipper featureFlipper;
 
+    @Inject
+    EmailSubscriberIndex emailSubscriberIndex;
+
+    public List<String> getEmailSubscribersUserId(String orgId, EventType eventType, EmailSubscriptionType subscriptionType) {
+        if (featureFlipper.isEmailSubscriberIndexEnabled()) {
+            return List.copyOf(getIndexedSubscribers(orgId, eventType.getApplicationId(), eventType.getName(), subscriptionType));
+        }
+        Application application = eventType.getApplication();
+        return getEmailSubscribersUserId(orgId, application.getBundle().getName(), application.getName(), eventType.getName(), subscriptionType);
+    }
+
     public List<String> getEmailSubscribersUserId(String orgId, String bundleName, String applicationName, String eventTypeName, EmailSubscriptionType subscriptionType) {
+        if (featureFlipper.isEmailSubscriberIndexEnabled()) {
+            return findApplicationId(bundleName, applicationName)
+                    .map(applicationId -> List.copyOf(getIndexedSubscribers(orgId, applicationId, eventTypeName, subscriptionType)))
+                    .orElse(List.of());
+        }
         if (featureFlipper.isUseEventTypeForSubscriptionEnabled()) {
             return getEmailSubscribersUserIdByEventType(orgId, bundleName, applicationName, eventTypeName, subscriptionType);
         }
@@ -49,6 +69,11 @@ public class EmailSubscriptionRepository {
     }
 
     public Map<String, Set<String>> getEmailSubscribersUserIdGroupedByEventType(String orgId, String bundleName, String applicationName, EmailSubscriptionType subscriptionType) {
+        if (featureFlipper.isEmailSubscriberIndexEnabled()) {
+            return findApplicationId(bundleName, applicationName)
+                    .map(applicationId -> emailSubscriberIndex.getSubscribersByEventType(orgId, applicationId, subscriptionType))
+                    .orElse(Map.of());
+        }
         String query = "SELECT eventType.name, es.id.userId FROM EventTypeEmailSubscription es WHERE id.orgId = :orgId AND eventType.application.bundle.name = :bundleName " +
             "AND eventType.application.name = :applicationName AND id.subscriptionType = :subscriptionType";
 
@@ -73,5 +98,21 @@ public class EmailSubscriptionRepository {
         return map;
     }
 
+    private Set<String> getIndexedSubscribers(String orgId, UUID applicationId, String eventTypeName, EmailSubscriptionType subscriptionType) {
+        if (featureFlipper.isUseEventTypeForSubscriptionEnabled()) {
+            if (eventTypeName == null) {
+                return Set.of();
+            }
+            return emailSubscriberIndex.getSubscribersByEventType(orgId, applicationId, subscriptionType).getOrDefault(eventTypeName, Set.of());
+        }
+        return emailSubscriberIndex.getSubscribers(orgId, applicationId, subscriptionType);
+    }
 
+    private Optional<UUID> findApplicationId(String bundleName, String applicationName) {
+        String query = "SELECT a.id FROM Application a WHERE a.name = :applicationName AND a.bundle.name = :bundleName";
+        return statelessSessionFactory.getCurrentSession().createQuery(query, UUID.class)
+                .setParameter("bundleName", bundleName)
+                .setParameter("applicationName", applicationName)
+                .uniqueResultOptional();
+    }
 }
@@ -29,7 +29,6 @@ import static com.redhat.cloud.notifications.models.EndpointType.CAMEL;
 import static com.redhat.cloud.notifications.models.EndpointType.DRAWER;
 import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
 import static com.redhat.cloud.notifications.models.EndpointType.WEBHOOK;
-import static javax.persistence.LockModeType.PESSIMISTIC_WRITE;
 
 @ApplicationScoped
 public class EndpointRepository {
@@ -123,47 +122,38 @@ public class EndpointRepository {
     }
 
     /**
-     * Increments the server errors counter of the endpoint identified by the given ID.
+     * Adds the given number of errors to the server errors counter of the endpoint identified by the given ID, then
+     * disables the endpoint if its counter exceeds the maximum.
      * @param endpointId the endpoint ID
+     * @param errors the number of server errors to add to the counter
      * @param maxServerErrors the maximum server errors allowed from the configuration
      * @return {@code true} if the endpoint was disabled by this method, {@code false} otherwise
      */
     @Transactional
-    public boolean incrementEndpointServerErrors(UUID endpointId, int maxServerErrors) {
+    public boolean incrementEndpointServerErrors(UUID endpointId, int errors, int maxServerErrors) {
         /*
-         * This method must be an atomic operation from a DB perspective. Otherwise, we could send multiple email
-         * notifications about the same disabled endpoint in case of failures happening on concurrent threads or pods.
+         * The counter is incremented with a single atomic UPDATE, so concurrent increments from other threads or pods
+         * don't need to lock the endpoint row before reading the counter. The endpoint may have been deleted recently
+         * or disabled already from the frontend or because of a 4xx error, its counter is then left unchanged.
          */
-        Optional<Endpoint> endpoint = lockEndpoint(endpointId);
-        /*
-         * The endpoint should always be present unless it's been deleted recently from another thread or pod.
-         * It may or may not have been disabled already from the frontend or because of a 4xx error.
-         */
-        if (endpoint.isPresent() && endpoint.get().isEnabled()) {
-            if (endpoint.get().getServerErrors() + 1 > maxServerErrors) {
-                /*
-                 * The endpoint exceeded the max server errors allowed from configuration.
-                 * It is therefore disabled.
-                 */
-                String hql = "UPDATE Endpoint SET enabled = FALSE WHERE id = :id AND enabled IS TRUE";
-                int updated = statelessSessionFactory.getCurrentSession().createQuery(hql)
-                        .setParameter("id", endpointId)
-                        .executeUpdate();
-                return updated > 0;
-            } else {
-                /*
-                 * The endpoint did NOT exceed the max server errors allowed from configuration.
-                 * The errors counter is therefore incremented.
-                 */
-                String hql = "UPDATE Endpoint SET serverErrors = serverErrors + 1 WHERE id = :id";
-                statelessSessionFactory.getCurrentSession().createQuery(hql)
-                        .setParameter("id", endpointId)
-                        .executeUpdate();
-                return false;
-            }
-        } else {
+        String hql = "UPDATE Endpoint SET serverErrors = serverErrors + :errors WHERE id = :id AND enabled IS TRUE";
+        int incremented = statelessSessionFactory.getCurrentSession().createQuery(hql)
+                .setParameter("errors", errors)
+                .setParameter("id", endpointId)
+                .executeUpdate();
+        if (incremented == 0) {
             return false;
         }
+        /*
+         * Only one of the concurrent transactions can switch the endpoint from enabled to disabled, so we can't send
+         * multiple email notifications about the same disabled endpoint.
+         */
+        hql = "UPDATE Endpoint SET enabled = FALSE WHERE id = :id AND enabled IS TRUE AND serverErrors > :maxServerErrors";
+        int disabled = statelessSessionFactory.getCurrentSession().createQuery(hql)
+                .setParameter("id", endpointId)
+                .setParameter("maxServerErrors", maxServerErrors)
+                .executeUpdate();
+        return disabled > 0;
     }
 
     /**
@@ -207,23 +197,6 @@ public class EndpointRepository {
         return endpoint;
     }
 
-    private Optional<Endpoint> lockEndpoint(UUID endpointId) {
-        String hql = "FROM Endpoint WHERE id = :id";
-        try {
-            Endpoint endpoint = statelessSessionFactory.getCurrentSession().createQuery(hql, Endpoint.class)
-                    .setParameter("id", endpointId)
-                    /*
-                     * The endpoint will be locked by a "SELECT FOR UPDATE", preventing other threads or pods
-                     * from updating it until the current transaction is complete.
-                     */
-                    .setLockMode(PESSIMISTIC_WRITE)
-                    .getSingleResult();
-            return Optional.of(endpoint);
-        } catch (NoResultException e) {
-            return Optional.empty();
-        }
-    }
-
     /**
      * Resets the server errors DB counter of the endpoint identified by the given ID.
      * @param endpointId the endpoint ID
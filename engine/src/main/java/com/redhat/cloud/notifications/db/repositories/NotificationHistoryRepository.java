@@ -4,12 +4,18 @@ import com.redhat.cloud.notifications.db.StatelessSessionFactory;
 import com.redhat.cloud.notifications.db.converters.NotificationHistoryDetailsConverter;
 import com.redhat.cloud.notifications.events.ConnectorReceiver;
 import com.redhat.cloud.notifications.models.Endpoint;
+import com.redhat.cloud.notifications.models.EndpointType;
 import com.redhat.cloud.notifications.models.NotificationHistory;
+import com.redhat.cloud.notifications.models.NotificationStatus;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.NoResultException;
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @ApplicationScoped
@@ -25,8 +31,8 @@ public class NotificationHistoryRepository {
          * guarantee the endpoint will still exist in the DB at the time when the history is written. If it's gone, then
          * the subquery will return null.
          */
-        String hql = "INSERT INTO notification_history (id, invocation_time, invocation_result, status, details, event_id, endpoint_type_v2, endpoint_sub_type, created, endpoint_id) " +
-                "VALUES (:id, :invocationTime, :invocationResult, :status, :details, :eventId, :endpointType, :endpointSubType, :created, " +
+        String hql = "INSERT INTO notification_history (id, invocation_time, invocation_result, status, details_jsonb, event_id, endpoint_type_v2, endpoint_sub_type, created, org_id, endpoint_id) " +
+                "VALUES (:id, :invocationTime, :invocationResult, :status, CAST(:details AS jsonb), :eventId, :endpointType, :endpointSubType, :created, :orgId, " +
                 "(SELECT id FROM endpoints WHERE id = :endpointId))";
         history.prePersist();
         statelessSessionFactory.getCurrentSession().createNativeQuery(hql)
@@ -34,11 +40,12 @@ public class NotificationHistoryRepository {
                 .setParameter("invocationTime", history.getInvocationTime())
                 .setParameter("invocationResult", history.isInvocationResult())
                 .setParameter("status", history.getStatus().toString())
-                .setParameter("details", new NotificationHistoryDetailsConverter().convertToDatabaseColumn(history.getDetails()))
+                .setParameter("details", new NotificationHistoryDetailsConverter().convertToDatabaseColumn(history.getDetails()), StringType.INSTANCE)
                 .setParameter("eventId", history.getEvent().getId())
                 .setParameter("endpointType", history.getEndpointType().name())
                 .setParameter("endpointSubType", history.getEndpointSubType())
                 .setParameter("created", history.getCreated())
+                .setParameter("orgId", history.getOrgId())
                 .setParameter("endpointId", history.getEndpoint().getId())
                 .executeUpdate();
     }
@@ -50,19 +57,40 @@ public class NotificationHistoryRepository {
      */
     @Transactional
     public boolean updateHistoryItem(NotificationHistory notificationHistory) {
-        String hql = "UPDATE NotificationHistory " +
-                "SET details = :details, invocationResult = :result, status = :status, invocationTime = :invocationTime " +
+        // The HQL updates do not apply the column transformers, so the details have to be cast to jsonb explicitly.
+        String sql = "UPDATE notification_history " +
+                "SET details_jsonb = CAST(:details AS jsonb), invocation_result = :result, status = :status, invocation_time = :invocationTime " +
                 "WHERE id = :id";
-        int count = statelessSessionFactory.getCurrentSession().createQuery(hql)
-                .setParameter("details", notificationHistory.getDetails())
+        int count = statelessSessionFactory.getCurrentSession().createNativeQuery(sql)
+                // The types are given explicitly because the native query parameters can be null.
+                .setParameter("details", new NotificationHistoryDetailsConverter().convertToDatabaseColumn(notificationHistory.getDetails()), StringType.INSTANCE)
                 .setParameter("result", notificationHistory.isInvocationResult())
-                .setParameter("status", notificationHistory.getStatus())
+                .setParameter("status", notificationHistory.getStatus().toString())
                 .setParameter("id", notificationHistory.getId())
-                .setParameter("invocationTime", notificationHistory.getInvocationTime())
+                .setParameter("invocationTime", notificationHistory.getInvocationTime(), LongType.INSTANCE)
                 .executeUpdate();
         return count > 0;
     }
 
+    /**
+     * Fails the histories of the given endpoint type which are still PROCESSING although they were created before the
+     * given time. The given details are merged into the details of the histories.
+     * @return the number of failed histories
+     */
+    @Transactional
+    public int failStaleProcessingHistories(EndpointType endpointType, LocalDateTime createdBefore, Map<String, Object> details) {
+        // The status condition matches the partial index of the PROCESSING histories.
+        String sql = "UPDATE notification_history " +
+                "SET status = :failedStatus, invocation_result = false, details_jsonb = COALESCE(details_jsonb, CAST('{}' AS jsonb)) || CAST(:details AS jsonb) " +
+                "WHERE status = 'PROCESSING' AND endpoint_type_v2 = :endpointType AND created < :createdBefore";
+        return statelessSessionFactory.getCurrentSession().createNativeQuery(sql)
+                .setParameter("failedStatus", NotificationStatus.FAILED_INTERNAL.toString())
+                .setParameter("details", new NotificationHistoryDetailsConverter().convertToDatabaseColumn(details), StringType.INSTANCE)
+                .setParameter("endpointType", endpointType.name())
+                .setParameter("createdBefore", createdBefore)
+                .executeUpdate();
+    }
+
     public Endpoint getEndpointForHistoryId(String historyId) {
 
         String query = "SELECT e from Endpoint e, NotificationHistory h WHERE h.id = :id AND e.id = h.endpoint.id";
@@ -39,6 +39,7 @@ import java.util.UUID;
 public class ConnectorReceiver {
 
     public static final String FROMCAMEL_CHANNEL = "fromcamel";
+    public static final String FROMCAMEL_WORKER_POOL = "fromcamel-worker-pool";
     public static final String MESSAGES_ERROR_COUNTER_NAME = "camel.messages.error";
     public static final String MESSAGES_PROCESSED_COUNTER_NAME = "camel.messages.processed";
     public static final String EGRESS_CHANNEL = "egress";
@@ -71,9 +72,13 @@ public class ConnectorReceiver {
     @Inject
     FeatureFlipper featureFlipper;
 
+    /*
+     * The history updates are processed on a dedicated worker pool, one at a time with the default max concurrency of
+     * 1. They are independent from each other, so a higher value can safely process them concurrently.
+     */
     @Acknowledgment(Acknowledgment.Strategy.POST_PROCESSING)
     @Incoming(FROMCAMEL_CHANNEL)
-    @Blocking
+    @Blocking(value = FROMCAMEL_WORKER_POOL, ordered = false)
     @ActivateRequestContext
     public void processAsync(String payload) {
         try {
@@ -1,6 +1,8 @@
 package com.redhat.cloud.notifications.events;
 
 import com.redhat.cloud.notifications.DelayedThrower;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
 import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
 import com.redhat.cloud.notifications.models.Endpoint;
 import com.redhat.cloud.notifications.models.EndpointType;
@@ -9,18 +11,35 @@ import com.redhat.cloud.notifications.models.event.TestEventHelper;
 import com.redhat.cloud.notifications.processors.camel.google.chat.GoogleChatProcessor;
 import com.redhat.cloud.notifications.processors.camel.slack.SlackProcessor;
 import com.redhat.cloud.notifications.processors.camel.teams.TeamsProcessor;
+import com.redhat.cloud.notifications.processors.drawer.DrawerProcessor;
 import com.redhat.cloud.notifications.processors.email.EmailSubscriptionTypeProcessor;
 import com.redhat.cloud.notifications.processors.eventing.EventingProcessor;
 import com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -32,6 +51,26 @@ public class EndpointProcessor {
     public static final String SLACK_ENDPOINT_SUBTYPE = "slack";
     public static final String TEAMS_ENDPOINT_SUBTYPE = "teams";
     public static final String GOOGLE_CHAT_ENDPOINT_SUBTYPE = "google_chat";
+    public static final String POOL_ACTIVE_GAUGE_NAME = "processor.pool.active";
+    public static final String POOL_QUEUED_GAUGE_NAME = "processor.pool.queued";
+    public static final String POOL_SATURATED_COUNTER_NAME = "processor.pool.saturated";
+    public static final String TAG_KEY_ENDPOINT_TYPE = "endpoint_type";
+
+    private static final String POOL_PROPERTY = "notifications.parallel-fan-out.%s.%s";
+
+    // Default size of the pool of each endpoint type, overridden with notifications.parallel-fan-out.<type>.threads.
+    @ConfigProperty(name = "notifications.parallel-fan-out.threads", defaultValue = "4")
+    int poolThreads;
+
+    // Default number of events waiting for each endpoint type, overridden with notifications.parallel-fan-out.<type>.queue-size.
+    @ConfigProperty(name = "notifications.parallel-fan-out.queue-size", defaultValue = "100")
+    int poolQueueSize;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
 
     @Inject
     EndpointRepository endpointRepository;
@@ -54,16 +93,48 @@ public class EndpointProcessor {
     @Inject
     GoogleChatProcessor googleChatProcessor;
 
+    @Inject
+    DrawerProcessor drawerProcessor;
+
     @Inject
     MeterRegistry registry;
 
     private Counter processedItems;
     private Counter endpointTargeted;
+    private final Map<EndpointType, Pool> pools = new EnumMap<>(EndpointType.class);
 
     @PostConstruct
     void init() {
         processedItems = registry.counter(PROCESSED_MESSAGES_COUNTER_NAME);
         endpointTargeted = registry.counter(PROCESSED_ENDPOINTS_COUNTER_NAME);
+        Config config = ConfigProvider.getConfig();
+        for (EndpointType endpointType : EndpointType.values()) {
+            String type = endpointType.name().toLowerCase();
+            int threads = config.getOptionalValue(String.format(POOL_PROPERTY, type, "threads"), Integer.class).orElse(poolThreads);
+            int queueSize = config.getOptionalValue(String.format(POOL_PROPERTY, type, "queue-size"), Integer.class).orElse(poolQueueSize);
+            AtomicInteger threadIndex = new AtomicInteger();
+            // The threads are only started when the first tasks are submitted.
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+                Thread thread = new Thread(runnable, "endpoint-processor-" + type + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            Tags tags = Tags.of(TAG_KEY_ENDPOINT_TYPE, type);
+            Gauge.builder(POOL_ACTIVE_GAUGE_NAME, executor, ThreadPoolExecutor::getActiveCount)
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder(POOL_QUEUED_GAUGE_NAME, executor, pool -> pool.getQueue().size())
+                    .tags(tags)
+                    .register(registry);
+            pools.put(endpointType, new Pool(executor, registry.counter(POOL_SATURATED_COUNTER_NAME, tags)));
+        }
+    }
+
+    @PreDestroy
+    void preDestroy() {
+        for (Pool pool : pools.values()) {
+            pool.executor.shutdown();
+        }
     }
 
     public void process(Event event) {
@@ -85,43 +156,114 @@ public class EndpointProcessor {
         Map<EndpointType, List<Endpoint>> endpointsByType = endpoints.stream().collect(Collectors.groupingBy(Endpoint::getType));
 
         DelayedThrower.throwEventually(DELAYED_EXCEPTION_MSG, accumulator -> {
-            for (Map.Entry<EndpointType, List<Endpoint>> endpointsByTypeEntry : endpointsByType.entrySet()) {
-                try {
-                    // For each endpoint type, the list of target endpoints is sent alongside with the event to the relevant processor.
-                    switch (endpointsByTypeEntry.getKey()) {
-                        // TODO Introduce EndpointType.SLACK?
-                        case CAMEL:
-                            Map<String, List<Endpoint>> endpointsBySubType = endpointsByTypeEntry.getValue().stream().collect(Collectors.groupingBy(Endpoint::getSubType));
-                            for (Map.Entry<String, List<Endpoint>> endpointsBySubTypeEntry : endpointsBySubType.entrySet()) {
-                                try {
-                                    if (SLACK_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
-                                        slackProcessor.process(event, endpointsBySubTypeEntry.getValue());
-                                    } else if (TEAMS_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
-                                        teamsProcessor.process(event, endpointsBySubTypeEntry.getValue());
-                                    } else if (GOOGLE_CHAT_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
-                                        googleChatProcessor.process(event, endpointsBySubTypeEntry.getValue());
-                                    } else {
-                                        camelProcessor.process(event, endpointsBySubTypeEntry.getValue());
-                                    }
-                                } catch (Exception e) {
-                                    accumulator.add(e);
-                                }
-                            }
-                            break;
-                        case EMAIL_SUBSCRIPTION:
-                            emailProcessor.process(event, endpointsByTypeEntry.getValue());
-                            break;
-                        case WEBHOOK:
-                        case ANSIBLE:
-                            webhookProcessor.process(event, endpointsByTypeEntry.getValue());
-                            break;
-                        default:
-                            throw new IllegalArgumentException("Unexpected endpoint type: " + endpointsByTypeEntry.getKey());
-                    }
-                } catch (Exception e) {
-                    accumulator.add(e);
+            if (featureFlipper.isParallelFanOutEnabled() && endpointsByType.size() > 1) {
+                fanOut(event, endpointsByType, accumulator);
+            } else {
+                for (Map.Entry<EndpointType, List<Endpoint>> endpointsByTypeEntry : endpointsByType.entrySet()) {
+                    process(event, endpointsByTypeEntry.getKey(), endpointsByTypeEntry.getValue(), accumulator);
                 }
             }
         });
     }
+
+    /*
+     * Each endpoint type is processed on its own pool. This method only returns once all types have been processed and
+     * their history persisted, so the caller still acknowledges the Kafka message after the whole processing. A type
+     * whose pool is saturated is processed on the calling thread, with the caller stateless session.
+     */
+    private void fanOut(Event event, Map<EndpointType, List<Endpoint>> endpointsByType, List<Exception> accumulator) {
+        List<Future<List<Exception>>> branches = new ArrayList<>();
+        Map<EndpointType, List<Endpoint>> rejected = new EnumMap<>(EndpointType.class);
+        for (Map.Entry<EndpointType, List<Endpoint>> endpointsByTypeEntry : endpointsByType.entrySet()) {
+            EndpointType endpointType = endpointsByTypeEntry.getKey();
+            List<Endpoint> endpoints = endpointsByTypeEntry.getValue();
+            try {
+                branches.add(pools.get(endpointType).executor.submit(() -> processBranch(event, endpointType, endpoints)));
+            } catch (RejectedExecutionException e) {
+                pools.get(endpointType).saturatedCounter.increment();
+                rejected.put(endpointType, endpoints);
+            }
+        }
+        rejected.forEach((endpointType, endpoints) -> process(event, endpointType, endpoints, accumulator));
+        for (Future<List<Exception>> branch : branches) {
+            try {
+                accumulator.addAll(branch.get());
+            } catch (ExecutionException e) {
+                accumulator.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accumulator.add(e);
+                return;
+            }
+        }
+    }
+
+    /*
+     * Quarkus intercepts the self-invocations, so the request context is activated for each branch like it is for each
+     * consumed Kafka message. The Hibernate stateless sessions are bound to a thread, each branch opens its own one.
+     */
+    @ActivateRequestContext
+    List<Exception> processBranch(Event event, EndpointType endpointType, List<Endpoint> endpoints) {
+        List<Exception> accumulator = new ArrayList<>();
+        try {
+            statelessSessionFactory.withSession(statelessSession -> {
+                process(event, endpointType, endpoints, accumulator);
+            });
+        } catch (Exception e) {
+            accumulator.add(e);
+        }
+        return accumulator;
+    }
+
+    private void process(Event event, EndpointType endpointType, List<Endpoint> endpoints, List<Exception> accumulator) {
+        try {
+            // For each endpoint type, the list of target endpoints is sent alongside with the event to the relevant processor.
+            switch (endpointType) {
+                // TODO Introduce EndpointType.SLACK?
+                case CAMEL:
+                    Map<String, List<Endpoint>> endpointsBySubType = endpoints.stream().collect(Collectors.groupingBy(Endpoint::getSubType));
+                    for (Map.Entry<String, List<Endpoint>> endpointsBySubTypeEntry : endpointsBySubType.entrySet()) {
+                        try {
+                            if (SLACK_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
+                                slackProcessor.process(event, endpointsBySubTypeEntry.getValue());
+                            } else if (TEAMS_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
+                                teamsProcessor.process(event, endpointsBySubTypeEntry.getValue());
+                            } else if (GOOGLE_CHAT_ENDPOINT_SUBTYPE.equals(endpointsBySubTypeEntry.getKey())) {
+                                googleChatProcessor.process(event, endpointsBySubTypeEntry.getValue());
+                            } else {
+                                camelProcessor.process(event, endpointsBySubTypeEntry.getValue());
+                            }
+                        } catch (Exception e) {
+                            accumulator.add(e);
+                        }
+                    }
+                    break;
+                case EMAIL_SUBSCRIPTION:
+                    emailProcessor.process(event, endpoints);
+                    break;
+                case WEBHOOK:
+                case ANSIBLE:
+                    webhookProcessor.process(event, endpoints);
+                    break;
+                case DRAWER:
+                    drawerProcessor.process(event, endpoints);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected endpoint type: " + endpointType);
+            }
+        } catch (Exception e) {
+            accumulator.add(e);
+        }
+    }
+
+    private static class Pool {
+
+        final ThreadPoolExecutor executor;
+        final Counter saturatedCounter;
+
+        Pool(ThreadPoolExecutor executor, Counter saturatedCounter) {
+            this.executor = executor;
+            this.saturatedCounter = saturatedCounter;
+        }
+    }
 }
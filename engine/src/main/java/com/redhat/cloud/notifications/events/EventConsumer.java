@@ -4,6 +4,7 @@ import com.redhat.cloud.event.parser.ConsoleCloudEventParser;
 import com.redhat.cloud.event.parser.exceptions.ConsoleCloudEventParsingException;
 import com.redhat.cloud.notifications.cloudevent.transformers.CloudEventTransformer;
 import com.redhat.cloud.notifications.cloudevent.transformers.CloudEventTransformerFactory;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
 import com.redhat.cloud.notifications.db.repositories.EventRepository;
 import com.redhat.cloud.notifications.db.repositories.EventTypeRepository;
@@ -45,6 +46,7 @@ public class EventConsumer {
     public static final String PROCESSING_EXCEPTION_COUNTER_NAME = "input.processing.exception";
     public static final String DUPLICATE_COUNTER_NAME = "input.duplicate";
     public static final String CONSUMED_TIMER_NAME = "input.consumed";
+    public static final String INGRESS_WORKER_POOL = "ingress-worker-pool";
 
     static final String TAG_KEY_BUNDLE = "bundle";
     static final String TAG_KEY_APPLICATION = "application";
@@ -76,6 +78,12 @@ public class EventConsumer {
     @Inject
     CloudEventTransformerFactory cloudEventTransformerFactory;
 
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    TenantFairScheduler tenantFairScheduler;
+
     ConsoleCloudEventParser cloudEventParser = new ConsoleCloudEventParser();
 
     private Counter rejectedCounter;
@@ -91,14 +99,21 @@ public class EventConsumer {
         duplicateCounter = registry.counter(DUPLICATE_COUNTER_NAME);
     }
 
+    /*
+     * The messages are processed on a dedicated worker pool, sized with the
+     * smallrye.messaging.worker.ingress-worker-pool.max-concurrency property. With the default max concurrency of 1,
+     * they are processed one at a time and in order. A higher value processes them concurrently.
+     */
     @Incoming(INGRESS_CHANNEL)
-    @Blocking
+    @Blocking(value = INGRESS_WORKER_POOL, ordered = false)
     @ActivateRequestContext
     public CompletionStage<Void> process(Message<String> message) {
         // This timer will have dynamic tag values based on the action parsed from the received message.
         Timer.Sample consumedTimer = Timer.start(registry);
         String payload = message.getPayload();
         Map<String, String> tags = new HashMap<>();
+        // Not null if the event processing or some of its deliveries are deferred.
+        CompletionStage<Void> deferredProcessing = null;
         // The two following variables have to be final or effectively final. That why their type is String[] instead of String.
         /*
          * Step 1
@@ -125,85 +140,106 @@ public class EventConsumer {
             Log.infof("Processing received event [id=%s, %s=%s, orgId=%s, %s]",
                     eventWrapper.getId(), MESSAGE_ID_HEADER, msgId, eventWrapper.getOrgId(), eventWrapper.getKey());
 
-            statelessSessionFactory.withSession(statelessSession -> {
+            deferredProcessing = statelessSessionFactory.withSession(statelessSession -> {
                 /*
                  * Step 3
                  * It's time to check if the message ID is already known. For now, messages without an ID
                  * (messageId == null) are always considered new.
+                 * Step 4
+                 * Unless it is already known, the message ID is registered at the same time. The current message will
+                 * never be processed again, by this pod or another one, as long as its ID stays in the DB.
+                 * With the fair scheduling, the message ID is only registered once the event is dispatched: a
+                 * message which was still deferred when the engine stopped is consumed again and must not be
+                 * considered a duplicate then.
                  */
-                if (kafkaMessageDeduplicator.isDuplicate(messageId)) {
+                boolean fairScheduling = featureFlipper.isIngressFairnessEnabled();
+                boolean duplicate = fairScheduling ? kafkaMessageDeduplicator.isDuplicate(messageId) : !kafkaMessageDeduplicator.registerMessageId(messageId);
+                if (duplicate) {
                     /*
                      * The message ID is already known which means we already processed the current
                      * message and sent notifications. The message is therefore ignored.
                      */
                     duplicateCounter.increment();
-                } else {
-                    /*
-                     * Step 4
-                     * The message ID is new. Let's persist it. The current message will never be processed again as
-                     * long as its ID stays in the DB.
-                     */
-                    kafkaMessageDeduplicator.registerMessageId(messageId);
-                    /*
-                     * Step 5
-                     * We need to retrieve an EventType from the DB using the bundle/app/eventType triplet from the
-                     * parsed Action.
-                     */
-                    EventType eventType;
-                    EventWrapper<?, ?> eventWrapperToProcess = eventWrapper;
-                    try {
-                        eventType = eventTypeRepository.getEventType(eventWrapperToProcess.getKey());
-
-                        if (eventWrapperToProcess instanceof EventWrapperCloudEvent) {
-                            // We loaded a cloud event and identified the event-type it belongs to
-                            // At this point, lets check if we have a transformation available for this event
-                            // If we do, transform the event - Later this will be done on a by-integration basis
-                            Optional<CloudEventTransformer> transformer = cloudEventTransformerFactory.getTransformerIfSupported((EventWrapperCloudEvent) eventWrapperToProcess);
-                            if (transformer.isPresent()) {
-                                eventWrapperToProcess = new EventWrapperAction(
-                                        transformer.get().toAction(
-                                                (EventWrapperCloudEvent) eventWrapperToProcess,
-                                                eventType.getApplication().getBundle().getName(),
-                                                eventType.getApplication().getName(),
-                                                eventType.getName()
-                                ));
-                            }
-                        }
+                    return null;
+                }
+                /*
+                 * Step 5
+                 * We need to retrieve an EventType from the DB using the bundle/app/eventType triplet from the
+                 * parsed Action.
+                 */
+                EventType eventType;
+                EventWrapper<?, ?> eventWrapperToProcess = eventWrapper;
+                try {
+                    eventType = eventTypeRepository.getEventType(eventWrapperToProcess.getKey());
 
-                        tags.computeIfAbsent(TAG_KEY_BUNDLE, key -> eventType.getApplication().getBundle().getName());
-                        tags.computeIfAbsent(TAG_KEY_APPLICATION, key -> eventType.getApplication().getName());
-                    } catch (NoResultException | IllegalArgumentException e) {
-                        /*
-                         * A NoResultException was thrown because no EventType was found. The message is therefore
-                         * considered rejected.
-                         */
-                        rejectedCounter.increment();
-                        throw new NoResultException(String.format(EVENT_TYPE_NOT_FOUND_MSG, eventWrapperToProcess.getKey()));
+                    if (eventWrapperToProcess instanceof EventWrapperCloudEvent) {
+                        // We loaded a cloud event and identified the event-type it belongs to
+                        // At this point, lets check if we have a transformation available for this event
+                        // If we do, transform the event - Later this will be done on a by-integration basis
+                        Optional<CloudEventTransformer> transformer = cloudEventTransformerFactory.getTransformerIfSupported((EventWrapperCloudEvent) eventWrapperToProcess);
+                        if (transformer.isPresent()) {
+                            eventWrapperToProcess = new EventWrapperAction(
+                                    transformer.get().toAction(
+                                            (EventWrapperCloudEvent) eventWrapperToProcess,
+                                            eventType.getApplication().getBundle().getName(),
+                                            eventType.getApplication().getName(),
+                                            eventType.getName()
+                            ));
+                        }
                     }
+
+                    tags.computeIfAbsent(TAG_KEY_BUNDLE, key -> eventType.getApplication().getBundle().getName());
+                    tags.computeIfAbsent(TAG_KEY_APPLICATION, key -> eventType.getApplication().getName());
+                } catch (NoResultException | IllegalArgumentException e) {
                     /*
-                     * Step 6
-                     * The EventType was found. It's time to create an Event from the current message and persist it.
+                     * A NoResultException was thrown because no EventType was found. The message is therefore
+                     * considered rejected.
                      */
-                    Event event = new Event(eventType, payload, eventWrapperToProcess);
-                    if (event.getId() == null) {
-                        // NOTIF-499 If there is no ID provided whatsoever we create one.
-                        event.setId(Objects.requireNonNullElseGet(messageId, UUID::randomUUID));
-                    }
-                    eventRepository.create(event);
+                    rejectedCounter.increment();
+                    throw new NoResultException(String.format(EVENT_TYPE_NOT_FOUND_MSG, eventWrapperToProcess.getKey()));
+                }
+                /*
+                 * Step 6
+                 * The EventType was found. It's time to create an Event from the current message.
+                 */
+                Event event = new Event(eventType, payload, eventWrapperToProcess);
+                if (event.getId() == null) {
+                    // NOTIF-499 If there is no ID provided whatsoever we create one.
+                    event.setId(Objects.requireNonNullElseGet(messageId, UUID::randomUUID));
+                }
+                if (fairScheduling) {
                     /*
                      * Step 7
-                     * The Event and the Action it contains are processed by all relevant endpoint processors.
+                     * With the fair scheduling, the event is persisted and processed once the other orgs had their
+                     * turn. The message is acknowledged after that.
                      */
-                    try {
-                        endpointProcessor.process(event);
-                    } catch (Exception e) {
-                        /*
-                         * The Event processing failed.
-                         */
-                        processingErrorCounter.increment();
-                        throw e;
-                    }
+                    return tenantFairScheduler.submit(event, deferredEvent -> {
+                        if (kafkaMessageDeduplicator.registerMessageId(messageId)) {
+                            eventRepository.create(deferredEvent);
+                            endpointProcessor.process(deferredEvent);
+                        } else {
+                            // A copy of the message was dispatched while this one was deferred.
+                            duplicateCounter.increment();
+                        }
+                    });
                 }
+                /*
+                 * Step 7
+                 * The Event is persisted, then the Event and the Action it contains are processed by all relevant
+                 * endpoint processors.
+                 */
+                eventRepository.create(event);
+                try {
+                    endpointProcessor.process(event);
+                } catch (Exception e) {
+                    /*
+                     * The Event processing failed.
+                     */
+                    processingErrorCounter.increment();
+                    throw e;
+                }
+                // Some deliveries such as the batched instant emails are still pending, the message is acknowledged after them.
+                return event.getDeferredDeliveries();
             });
         } catch (Exception e) {
             /*
@@ -220,6 +256,9 @@ public class EventConsumer {
                     TAG_KEY_EVENT_TYPE_FQN, tags.getOrDefault(TAG_KEY_EVENT_TYPE_FQN, "")
             ));
         }
+        if (deferredProcessing != null) {
+            return deferredProcessing.thenCompose(ignored -> message.ack());
+        }
         return message.ack();
     }
 
@@ -2,7 +2,6 @@ package com.redhat.cloud.notifications.events;
 
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
 import com.redhat.cloud.notifications.models.EventTypeKey;
-import com.redhat.cloud.notifications.models.KafkaMessage;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
@@ -14,11 +13,14 @@ import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.NoResultException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.Optional;
 import java.util.UUID;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
 
 @ApplicationScoped
 public class KafkaMessageDeduplicator {
@@ -29,6 +31,11 @@ public class KafkaMessageDeduplicator {
     public static final String MESSAGE_ID_MISSING_COUNTER_NAME = "kafka-message-id.missing";
 
     private static final String ACCEPTED_UUID_VERSION = "4";
+    /*
+     * Kafka messages IDs are deleted after one day by the DB cleaning cron job. They are registered with the day of
+     * their registration as 'created', so the IDs registered yesterday or today have to be checked.
+     */
+    private static final long RETENTION_DAYS = 1L;
 
     @Inject
     StatelessSessionFactory statelessSessionFactory;
@@ -110,10 +117,12 @@ public class KafkaMessageDeduplicator {
              */
             return false;
         } else {
-            String hql = "SELECT TRUE FROM KafkaMessage WHERE id = :messageId";
+            // The 'created' condition allows Postgres to skip the expired partitions of the kafka_message table.
+            String hql = "SELECT TRUE FROM KafkaMessage WHERE id = :messageId AND created >= :retentionStart";
             try {
                 return statelessSessionFactory.getCurrentSession().createQuery(hql, Boolean.class)
                         .setParameter("messageId", messageId)
+                        .setParameter("retentionStart", retentionStart())
                         .getSingleResult();
             } catch (NoResultException e) {
                 return false;
@@ -121,11 +130,34 @@ public class KafkaMessageDeduplicator {
         }
     }
 
-    public void registerMessageId(UUID messageId) {
-        if (messageId != null) {
-            KafkaMessage kafkaMessage = new KafkaMessage(messageId);
-            kafkaMessage.prePersist(); // This method must be called manually while using a StatelessSession.
-            statelessSessionFactory.getCurrentSession().insert(kafkaMessage);
+    /**
+     * Registers the given message ID unless it was already registered by this pod or by another one. The primary key
+     * of the partitioned kafka_message table contains the 'created' column, so the message IDs are registered with the
+     * day of their registration and the insertion is skipped if the primary key already exists. This guarantees the
+     * uniqueness of the message IDs across pods, except when two pods register the same ID concurrently around
+     * midnight UTC: each of them may then insert it into a different daily partition.
+     *
+     * @param messageId the message ID, which may be null
+     * @return false if the message ID was already registered, true otherwise
+     */
+    public boolean registerMessageId(UUID messageId) {
+        if (messageId == null) {
+            // See isDuplicate.
+            return true;
         }
+        String sql = "INSERT INTO kafka_message (id, created) " +
+                "SELECT :messageId, :today WHERE NOT EXISTS " +
+                "(SELECT 1 FROM kafka_message WHERE id = :messageId AND created >= :retentionStart) " +
+                "ON CONFLICT DO NOTHING";
+        int inserted = statelessSessionFactory.getCurrentSession().createNativeQuery(sql)
+                .setParameter("messageId", messageId)
+                .setParameter("today", LocalDate.now(UTC).atStartOfDay())
+                .setParameter("retentionStart", retentionStart())
+                .executeUpdate();
+        return inserted == 1;
+    }
+
+    private static LocalDateTime retentionStart() {
+        return LocalDate.now(UTC).minusDays(RETENTION_DAYS).atStartOfDay();
     }
 }
@@ -0,0 +1,429 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static com.redhat.cloud.notifications.events.EventConsumer.PROCESSING_ERROR_COUNTER_NAME;
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Sits between the ingress consumer and the endpoint processors so that an org which emits a flood of events cannot
+ * delay the notifications of the other orgs. The consumed events are queued per org, then the orgs which have pending
+ * events are served in a weighted round-robin: each org can dispatch up to {@code weight} events before the next org
+ * gets its turn. Each org is also rate limited with a token bucket and each of its bundles can be limited with another
+ * one. An event which is out of tokens is deferred in the queue of its org, it is never dropped.
+ * <p>
+ * The ingress message of a deferred event is only acknowledged once the event has been processed, so a crash or a
+ * shutdown loses nothing: the message is consumed again. The unacknowledged messages also apply the back-pressure on
+ * the ingress consumer, which stops polling when too many messages are in flight. An event is never deferred for more
+ * than {@code max-deferral}, which has to stay below the max age of the unprocessed Kafka records.
+ * <p>
+ * The limits of an org or a bundle are overridden with the {@code notifications.ingress-fairness.org.<org-id>.<setting>}
+ * and {@code notifications.ingress-fairness.bundle.<bundle>.<setting>} properties. The per-org metrics are only
+ * registered once an org has been throttled, which keeps their cardinality down to the noisy orgs. The orgs which have
+ * been idle long enough to refill their token buckets are evicted along with their metrics.
+ */
+@ApplicationScoped
+public class TenantFairScheduler {
+
+    public static final String BACKLOG_GAUGE_NAME = "ingress.fairness.backlog";
+    public static final String ORG_BACKLOG_GAUGE_NAME = "ingress.fairness.org.backlog";
+    public static final String THROTTLED_COUNTER_NAME = "ingress.fairness.throttled";
+    static final String TAG_KEY_ORG_ID = "org_id";
+
+    private static final String ORG_PROPERTY = "notifications.ingress-fairness.org.%s.%s";
+    private static final String BUNDLE_PROPERTY = "notifications.ingress-fairness.bundle.%s.%s";
+
+    // Events per second allowed for each org. A non-positive value disables the rate limiting.
+    @ConfigProperty(name = "notifications.ingress-fairness.org-rate", defaultValue = "50")
+    double orgRate;
+
+    @ConfigProperty(name = "notifications.ingress-fairness.org-burst", defaultValue = "200")
+    int orgBurst;
+
+    // Number of consecutive events an org can dispatch during its turn.
+    @ConfigProperty(name = "notifications.ingress-fairness.org-weight", defaultValue = "1")
+    int orgWeight;
+
+    @ConfigProperty(name = "notifications.ingress-fairness.workers", defaultValue = "4")
+    int workersCount;
+
+    // Events deferred for longer than that are dispatched regardless of the rate limits.
+    @ConfigProperty(name = "notifications.ingress-fairness.max-deferral", defaultValue = "30S")
+    Duration maxDeferral;
+
+    @ConfigProperty(name = "notifications.ingress-fairness.drain-timeout", defaultValue = "30S")
+    Duration drainTimeout;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+
+    // Guarded by lock.
+    private final Map<String, OrgQueue> orgQueues = new HashMap<>();
+    private final Map<String, Optional<Quota>> bundleQuotas = new HashMap<>();
+    private final Deque<OrgQueue> activeOrgs = new ArrayDeque<>();
+    private int backlog;
+    private int inFlight;
+    private boolean draining;
+    private Thread dispatcher;
+    private ExecutorService workers;
+
+    private Semaphore idleWorkers;
+    private AtomicInteger backlogGauge;
+    private Counter processingErrorCounter;
+
+    @PostConstruct
+    void init() {
+        idleWorkers = new Semaphore(workersCount);
+        backlogGauge = registry.gauge(BACKLOG_GAUGE_NAME, new AtomicInteger());
+        processingErrorCounter = registry.counter(PROCESSING_ERROR_COUNTER_NAME);
+    }
+
+    /**
+     * Queues an event for the given task, which is run from another thread with its own stateless session. The returned
+     * stage is completed once the task has been run and the deliveries it deferred are over, the ingress message of the
+     * event must not be acknowledged before.
+     */
+    public CompletionStage<Void> submit(Event event, Consumer<Event> task) {
+        String bundle = getBundleName(event.getEventType());
+        QueuedEvent queued;
+        lock.lock();
+        try {
+            startDispatcher();
+            long now = System.nanoTime();
+            OrgQueue org = orgQueues.computeIfAbsent(event.getOrgId(), orgId -> newOrgQueue(orgId, now));
+            if (org.events.isEmpty()) {
+                activeOrgs.addLast(org);
+            }
+            queued = new QueuedEvent(event, task, org.getBundleBucket(bundle, now), now);
+            org.events.addLast(queued);
+            org.backlog.incrementAndGet();
+            backlogGauge.set(++backlog);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        return queued.completion;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // The next event is only picked once a worker is available, so that it is picked with the latest tokens.
+                idleWorkers.acquire();
+                QueuedEvent queued = nextEvent();
+                workers.execute(() -> {
+                    try {
+                        process(queued.event, queued.task);
+                    } finally {
+                        completed();
+                        // The worker is released right away, the deliveries deferred by the task only delay the ack.
+                        queued.event.getDeferredDeliveries().whenComplete((ignored, e) -> queued.completion.complete(null));
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private QueuedEvent nextEvent() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long wait = Long.MAX_VALUE;
+                for (int i = activeOrgs.size(); i > 0; i--) {
+                    OrgQueue org = activeOrgs.peekFirst();
+                    QueuedEvent head = org.events.peekFirst();
+                    long delay = draining || now - head.queuedAt >= maxDeferral.toNanos() ? 0L
+                            : Math.max(org.bucket.nanosUntilAvailable(now), head.bundleBucket == null ? 0L : head.bundleBucket.nanosUntilAvailable(now));
+                    if (delay == 0L) {
+                        org.bucket.take();
+                        if (head.bundleBucket != null) {
+                            head.bundleBucket.take();
+                        }
+                        org.events.pollFirst();
+                        org.backlog.decrementAndGet();
+                        if (org.events.isEmpty()) {
+                            activeOrgs.pollFirst();
+                            org.credits = org.weight;
+                        } else if (--org.credits == 0) {
+                            activeOrgs.addLast(activeOrgs.pollFirst());
+                            org.credits = org.weight;
+                        }
+                        backlogGauge.set(--backlog);
+                        inFlight++;
+                        return head;
+                    }
+                    if (!head.throttled) {
+                        head.throttled = true;
+                        org.throttled();
+                    }
+                    // The org is out of tokens, it loses its turn.
+                    activeOrgs.addLast(activeOrgs.pollFirst());
+                    org.credits = org.weight;
+                    wait = Math.min(wait, delay);
+                }
+                if (wait == Long.MAX_VALUE) {
+                    workAvailable.await();
+                } else {
+                    workAvailable.awaitNanos(wait);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Quarkus intercepts the self-invocations, so the request context is activated for each event like it is for each
+     * consumed Kafka message.
+     */
+    @ActivateRequestContext
+    void process(Event event, Consumer<Event> task) {
+        try {
+            statelessSessionFactory.withSession(statelessSession -> {
+                task.accept(event);
+            });
+        } catch (Exception e) {
+            processingErrorCounter.increment();
+            Log.errorf(e, "Could not process a deferred event [id=%s, orgId=%s]", event.getId(), event.getOrgId());
+        }
+    }
+
+    private void completed() {
+        idleWorkers.release();
+        lock.lock();
+        try {
+            inFlight--;
+            if (backlog == 0 && inFlight == 0) {
+                idle.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * The deferred events are dispatched without rate limiting on shutdown, for up to the drain timeout. The messages of
+     * the events which are still deferred after that are not acknowledged, they will be consumed again.
+     */
+    void drain(@Observes ShutdownEvent event) {
+        lock.lock();
+        try {
+            if (dispatcher == null) {
+                return;
+            }
+            draining = true;
+            workAvailable.signal();
+            long remaining = drainTimeout.toNanos();
+            while ((backlog > 0 || inFlight > 0) && remaining > 0L) {
+                remaining = idle.awaitNanos(remaining);
+            }
+            if (backlog > 0) {
+                Log.warnf("%d deferred events were not processed before the shutdown, they will be consumed again", backlog);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.interrupt();
+        workers.shutdown();
+    }
+
+    /*
+     * An idle org is only evicted once its token buckets are full again. Otherwise, an org could get a new burst by
+     * pausing its flood for a moment.
+     */
+    @Scheduled(every = "${notifications.ingress-fairness.eviction-period:1m}", concurrentExecution = SKIP)
+    void evictIdleOrgs() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Iterator<OrgQueue> iterator = orgQueues.values().iterator();
+            while (iterator.hasNext()) {
+                OrgQueue org = iterator.next();
+                if (org.events.isEmpty() && org.isRefilled(now)) {
+                    iterator.remove();
+                    org.removeMeters();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getBacklog() {
+        lock.lock();
+        try {
+            return backlog;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must be called while holding the lock.
+    private void startDispatcher() {
+        if (dispatcher == null) {
+            AtomicInteger workerIndex = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(workersCount, runnable -> {
+                Thread thread = new Thread(runnable, "ingress-fairness-worker-" + workerIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            dispatcher = new Thread(this::dispatch, "ingress-fairness-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    private OrgQueue newOrgQueue(String orgId, long now) {
+        Config config = ConfigProvider.getConfig();
+        double rate = config.getOptionalValue(String.format(ORG_PROPERTY, orgId, "rate"), Double.class).orElse(orgRate);
+        int burst = config.getOptionalValue(String.format(ORG_PROPERTY, orgId, "burst"), Integer.class).orElse(orgBurst);
+        int weight = config.getOptionalValue(String.format(ORG_PROPERTY, orgId, "weight"), Integer.class).orElse(orgWeight);
+        return new OrgQueue(orgId, new TokenBucket(rate, burst, now), Math.max(1, weight));
+    }
+
+    private Optional<Quota> getBundleQuota(String bundle) {
+        return bundleQuotas.computeIfAbsent(bundle, ignored -> {
+            Config config = ConfigProvider.getConfig();
+            return config.getOptionalValue(String.format(BUNDLE_PROPERTY, bundle, "rate"), Double.class)
+                    .map(rate -> new Quota(rate, config.getOptionalValue(String.format(BUNDLE_PROPERTY, bundle, "burst"), Integer.class).orElse(orgBurst)));
+        });
+    }
+
+    private static String getBundleName(EventType eventType) {
+        if (eventType == null || eventType.getApplication() == null || eventType.getApplication().getBundle() == null) {
+            return null;
+        }
+        return eventType.getApplication().getBundle().getName();
+    }
+
+    private record Quota(double rate, int burst) {
+    }
+
+    private static class QueuedEvent {
+
+        final Event event;
+        final Consumer<Event> task;
+        final TokenBucket bundleBucket;
+        final long queuedAt;
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        boolean throttled;
+
+        QueuedEvent(Event event, Consumer<Event> task, TokenBucket bundleBucket, long queuedAt) {
+            this.event = event;
+            this.task = task;
+            this.bundleBucket = bundleBucket;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private class OrgQueue {
+
+        final String orgId;
+        final TokenBucket bucket;
+        final int weight;
+        final Deque<QueuedEvent> events = new ArrayDeque<>();
+        final Map<String, TokenBucket> bundleBuckets = new HashMap<>();
+        final AtomicInteger backlog = new AtomicInteger();
+        int credits;
+        Counter throttledCounter;
+        Gauge backlogGauge;
+
+        OrgQueue(String orgId, TokenBucket bucket, int weight) {
+            this.orgId = orgId;
+            this.bucket = bucket;
+            this.weight = weight;
+            this.credits = weight;
+        }
+
+        TokenBucket getBundleBucket(String bundle, long now) {
+            if (bundle == null) {
+                return null;
+            }
+            TokenBucket bundleBucket = bundleBuckets.get(bundle);
+            if (bundleBucket == null) {
+                Optional<Quota> quota = getBundleQuota(bundle);
+                if (quota.isPresent()) {
+                    bundleBucket = new TokenBucket(quota.get().rate(), quota.get().burst(), now);
+                    bundleBuckets.put(bundle, bundleBucket);
+                }
+            }
+            return bundleBucket;
+        }
+
+        void throttled() {
+            if (throttledCounter == null) {
+                Tags tags = Tags.of(TAG_KEY_ORG_ID, orgId);
+                throttledCounter = registry.counter(THROTTLED_COUNTER_NAME, tags);
+                backlogGauge = Gauge.builder(ORG_BACKLOG_GAUGE_NAME, backlog, AtomicInteger::get)
+                        .tags(tags)
+                        .register(registry);
+            }
+            throttledCounter.increment();
+        }
+
+        boolean isRefilled(long now) {
+            if (!bucket.isFull(now)) {
+                return false;
+            }
+            for (TokenBucket bundleBucket : bundleBuckets.values()) {
+                if (!bundleBucket.isFull(now)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void removeMeters() {
+            if (throttledCounter != null) {
+                registry.remove(throttledCounter);
+                registry.remove(backlogGauge);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.redhat.cloud.notifications.events;
+
+/**
+ * Rate limiter which lets {@code ratePerSecond} events through on average, with bursts of up to {@code burst} events.
+ * A non-positive rate means the bucket never runs out of tokens. This class is not thread-safe.
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000D;
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Returns how long to wait before a token is available, or zero if one is available now.
+     */
+    long nanosUntilAvailable(long now) {
+        if (tokensPerNano <= 0) {
+            return 0L;
+        }
+        refill(now);
+        if (tokens >= 1D) {
+            return 0L;
+        }
+        return (long) Math.ceil((1D - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Takes a token. This must only be called when {@link #nanosUntilAvailable(long)} returned zero.
+     */
+    void take() {
+        if (tokensPerNano > 0) {
+            tokens -= 1D;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the bucket has refilled all its tokens, which makes it equivalent to a new bucket.
+     */
+    boolean isFull(long now) {
+        if (tokensPerNano <= 0) {
+            return true;
+        }
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
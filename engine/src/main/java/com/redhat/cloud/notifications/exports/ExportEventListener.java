@@ -12,7 +12,7 @@ import com.redhat.cloud.notifications.exports.transformers.UnsupportedFormatExce
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
-import io.smallrye.common.annotation.Blocking;
+import io.smallrye.reactive.messaging.annotations.Blocking;
 import org.apache.http.HttpStatus;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
@@ -32,6 +32,7 @@ public class ExportEventListener {
     public static final String APPLICATION_NAME = "urn:redhat:application:notifications";
     public static final String CE_EXPORT_REQUEST_TYPE = "com.redhat.console.export-service.request";
     public static final String EXPORT_CHANNEL = "exportrequests";
+    public static final String EXPORT_WORKER_POOL = "export-worker-pool";
     public static final String EXPORT_SERVICE_URN = "urn:redhat:source:console:app:export-service";
     public static final String RESOURCE_TYPE_EVENTS = "urn:redhat:application:notifications:export:events";
 
@@ -68,7 +69,7 @@ public class ExportEventListener {
      * service.
      * @param payload the incoming payload from the channel.
      */
-    @Blocking
+    @Blocking(value = EXPORT_WORKER_POOL, ordered = false)
     @Incoming(EXPORT_CHANNEL)
     public void eventListener(final String payload) {
         try {
@@ -0,0 +1,128 @@
+package com.redhat.cloud.notifications.health;
+
+import io.smallrye.reactive.messaging.kafka.KafkaClientService;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumer;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Reads the offsets of the consumer groups from the Kafka brokers with an admin client which shares the {@code kafka.*}
+ * configuration of the SmallRye Reactive Messaging connector. The offsets of the partitions assigned to this pod are
+ * read with the consumers of the connector.
+ */
+@ApplicationScoped
+public class AdminKafkaOffsetsSource implements KafkaOffsetsSource {
+
+    private static final String KAFKA_CONFIG_PREFIX = "kafka.";
+    private static final String CLIENT_ID = "notifications-engine-lag-checker";
+
+    @ConfigProperty(name = "notifications.kafka-lag-checker.timeout", defaultValue = "10S")
+    Duration timeout;
+
+    @Inject
+    KafkaClientService kafkaClientService;
+
+    private Admin admin;
+
+    @Override
+    public synchronized Map<TopicPartition, PartitionOffsets> getOffsets(String groupId, Collection<String> topics) {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committedOffsets = getAdmin().listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata()
+                    .get(timeout.toMillis(), MILLISECONDS);
+
+            Map<TopicPartition, OffsetSpec> latestOffsetSpecs = new HashMap<>();
+            Map<String, TopicDescription> topicDescriptions = getAdmin().describeTopics(topics)
+                    .allTopicNames()
+                    .get(timeout.toMillis(), MILLISECONDS);
+            for (TopicDescription topicDescription : topicDescriptions.values()) {
+                for (TopicPartitionInfo partition : topicDescription.partitions()) {
+                    latestOffsetSpecs.put(new TopicPartition(topicDescription.name(), partition.partition()), OffsetSpec.latest());
+                }
+            }
+
+            Map<TopicPartition, ListOffsetsResultInfo> endOffsets = getAdmin().listOffsets(latestOffsetSpecs)
+                    .all()
+                    .get(timeout.toMillis(), MILLISECONDS);
+
+            Map<TopicPartition, PartitionOffsets> offsets = new HashMap<>();
+            endOffsets.forEach((partition, endOffset) -> {
+                OffsetAndMetadata committedOffset = committedOffsets.get(partition);
+                offsets.put(partition, new PartitionOffsets(committedOffset == null ? null : committedOffset.offset(), endOffset.offset()));
+            });
+            return offsets;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the Kafka offsets", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not fetch the Kafka offsets of the consumer group " + groupId, e);
+        }
+    }
+
+    @Override
+    public Map<TopicPartition, PartitionOffsets> getAssignedOffsets(String channel) {
+        KafkaConsumer<Object, Object> consumer = kafkaClientService.getConsumer(channel);
+        if (consumer == null) {
+            return Map.of();
+        }
+        // The Kafka consumer is not thread-safe, it can only be used from its polling thread.
+        return consumer.runOnPollingThread(client -> {
+            Set<TopicPartition> assignment = client.assignment();
+            Map<TopicPartition, OffsetAndMetadata> committedOffsets = client.committed(assignment, timeout);
+            Map<TopicPartition, Long> endOffsets = client.endOffsets(assignment, timeout);
+            Map<TopicPartition, PartitionOffsets> offsets = new HashMap<>();
+            endOffsets.forEach((partition, endOffset) -> {
+                OffsetAndMetadata committedOffset = committedOffsets.get(partition);
+                offsets.put(partition, new PartitionOffsets(committedOffset == null ? null : committedOffset.offset(), endOffset));
+            });
+            return offsets;
+        }).await().atMost(timeout);
+    }
+
+    private Admin getAdmin() {
+        if (admin == null) {
+            Config config = ConfigProvider.getConfig();
+            Map<String, Object> adminConfig = new HashMap<>();
+            for (String propertyName : config.getPropertyNames()) {
+                if (propertyName.startsWith(KAFKA_CONFIG_PREFIX)) {
+                    String key = propertyName.substring(KAFKA_CONFIG_PREFIX.length());
+                    if (AdminClientConfig.configNames().contains(key)) {
+                        config.getOptionalValue(propertyName, String.class).ifPresent(value -> adminConfig.put(key, value));
+                    }
+                }
+            }
+            adminConfig.put(AdminClientConfig.CLIENT_ID_CONFIG, CLIENT_ID);
+            admin = Admin.create(adminConfig);
+        }
+        return admin;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (admin != null) {
+            admin.close(timeout);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.redhat.cloud.notifications.health;
+
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.health.KafkaOffsetsSource.PartitionOffsets;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the lag of the Kafka consumer groups of the engine incoming channels, which is the difference between the end
+ * offsets of the topic partitions and the offsets committed by the consumer group. For each channel, the lag and the
+ * estimated time needed to consume it at the current pace are exported as gauges which can be targeted by an external
+ * autoscaler.
+ * <p>
+ * The liveness of the pod only depends on the partitions assigned to its own consumers: a channel is considered stalled
+ * when these partitions had lag during two consecutive checks and their committed offsets did not move in between,
+ * while the assignment did not change. A quiet topic has no lag, so it never makes the liveness check fail, and a
+ * consumer stalled in another pod does not restart this one.
+ */
+@ApplicationScoped
+public class KafkaLagChecker {
+
+    public static final String LAG_GAUGE_NAME = "kafka.consumer.lag";
+    public static final String TIME_TO_DRAIN_GAUGE_NAME = "kafka.consumer.time-to-drain";
+    public static final String TAG_KEY_CHANNEL = "channel";
+
+    @ConfigProperty(name = "notifications.kafka-lag-checker.channels", defaultValue = "ingress,aggregation,fromcamel,exportrequests")
+    List<String> channelNames;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    KafkaOffsetsSource kafkaOffsetsSource;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, ChannelLag> channels = new LinkedHashMap<>();
+
+    @PostConstruct
+    void postConstruct() {
+        Config config = ConfigProvider.getConfig();
+        for (String channelName : channelNames) {
+            String prefix = "mp.messaging.incoming." + channelName + ".";
+            boolean enabled = config.getOptionalValue(prefix + "enabled", Boolean.class).orElse(true);
+            String topic = config.getOptionalValue(prefix + "topic", String.class).orElse(null);
+            String groupId = config.getOptionalValue(prefix + "group.id", String.class).orElse(null);
+            if (!enabled || topic == null || groupId == null) {
+                Log.debugf("Kafka lag of the '%s' channel is not tracked because the channel is disabled or not configured", channelName);
+                continue;
+            }
+            ChannelLag channel = new ChannelLag(channelName, topic, groupId);
+            Gauge.builder(LAG_GAUGE_NAME, channel, ChannelLag::getLag)
+                    .tag(TAG_KEY_CHANNEL, channelName)
+                    .baseUnit("records")
+                    .register(meterRegistry);
+            Gauge.builder(TIME_TO_DRAIN_GAUGE_NAME, channel, ChannelLag::getTimeToDrain)
+                    .tag(TAG_KEY_CHANNEL, channelName)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            channels.put(channelName, channel);
+        }
+    }
+
+    @Scheduled(every = "${notifications.kafka-lag-checker.period:1m}", delayed = "${notifications.kafka-lag-checker.initial-delay:1m}")
+    public void periodicCheck() {
+        if (featureFlipper.isKafkaLagCheckerEnabled()) {
+            check(System.nanoTime());
+        }
+    }
+
+    synchronized void check(long now) {
+        // The channels of the engine usually share the same consumer group, so the offsets are fetched once per group.
+        Map<String, List<ChannelLag>> channelsByGroup = channels.values().stream()
+                .collect(Collectors.groupingBy(channel -> channel.groupId, LinkedHashMap::new, Collectors.toList()));
+        channelsByGroup.forEach((groupId, groupChannels) -> {
+            Map<TopicPartition, PartitionOffsets> offsets;
+            try {
+                offsets = kafkaOffsetsSource.getOffsets(groupId, groupChannels.stream().map(channel -> channel.topic).collect(Collectors.toSet()));
+            } catch (RuntimeException e) {
+                // The brokers being unreachable is not a reason to restart the engine, the previous state is kept.
+                Log.warnf(e, "Kafka lag check failed for the consumer group '%s'", groupId);
+                return;
+            }
+            for (ChannelLag channel : groupChannels) {
+                channel.update(offsets, now);
+                try {
+                    channel.updateAssigned(kafkaOffsetsSource.getAssignedOffsets(channel.name));
+                } catch (RuntimeException e) {
+                    Log.warnf(e, "Kafka lag check of the assigned partitions failed for channel '%s'", channel.name);
+                    continue;
+                }
+                if (channel.stalled) {
+                    Log.debugf("Kafka lag check failed for channel '%s': %d records behind on the assigned partitions and no progress", channel.name, channel.assignedLag);
+                }
+            }
+        });
+    }
+
+    public boolean isDown() {
+        return featureFlipper.isKafkaLagCheckerEnabled() && !getStalledChannels().isEmpty();
+    }
+
+    public synchronized List<String> getStalledChannels() {
+        List<String> stalledChannels = new ArrayList<>();
+        for (ChannelLag channel : channels.values()) {
+            if (channel.stalled) {
+                stalledChannels.add(channel.name);
+            }
+        }
+        return stalledChannels;
+    }
+
+    public synchronized Map<String, Long> getLags() {
+        Map<String, Long> lags = new HashMap<>();
+        for (ChannelLag channel : channels.values()) {
+            lags.put(channel.name, channel.lag);
+        }
+        return lags;
+    }
+
+    private static class ChannelLag {
+
+        private final String name;
+        private final String topic;
+        private final String groupId;
+
+        private volatile long lag;
+        private volatile double timeToDrain;
+        // Negative until the first successful check.
+        private long previousCommitted = -1L;
+        private long previousCheck;
+
+        // The following fields only cover the partitions assigned to the consumer of this pod.
+        private boolean stalled;
+        private long assignedLag;
+        private long assignedCommitted;
+        private Set<TopicPartition> assignment = Set.of();
+
+        ChannelLag(String name, String topic, String groupId) {
+            this.name = name;
+            this.topic = topic;
+            this.groupId = groupId;
+        }
+
+        void update(Map<TopicPartition, PartitionOffsets> offsets, long now) {
+            long committed = 0L;
+            long currentLag = 0L;
+            for (Map.Entry<TopicPartition, PartitionOffsets> entry : offsets.entrySet()) {
+                PartitionOffsets partitionOffsets = entry.getValue();
+                // The partitions the group never committed on are ignored: the consumer position is unknown.
+                if (entry.getKey().topic().equals(topic) && partitionOffsets.committed() != null) {
+                    committed += partitionOffsets.committed();
+                    currentLag += Math.max(0L, partitionOffsets.end() - partitionOffsets.committed());
+                }
+            }
+
+            if (previousCommitted >= 0L) {
+                long progress = committed - previousCommitted;
+                double elapsedSeconds = (now - previousCheck) / 1_000_000_000D;
+                if (currentLag == 0L) {
+                    timeToDrain = 0D;
+                } else if (progress > 0L && elapsedSeconds > 0D) {
+                    timeToDrain = currentLag / (progress / elapsedSeconds);
+                } else {
+                    timeToDrain = Double.POSITIVE_INFINITY;
+                }
+            }
+            lag = currentLag;
+            previousCommitted = committed;
+            previousCheck = now;
+        }
+
+        void updateAssigned(Map<TopicPartition, PartitionOffsets> offsets) {
+            long committed = 0L;
+            long currentLag = 0L;
+            for (PartitionOffsets partitionOffsets : offsets.values()) {
+                if (partitionOffsets.committed() != null) {
+                    committed += partitionOffsets.committed();
+                    currentLag += Math.max(0L, partitionOffsets.end() - partitionOffsets.committed());
+                }
+            }
+            // The committed offsets of different partitions cannot be compared after a rebalance.
+            boolean sameAssignment = assignment.equals(offsets.keySet());
+            stalled = sameAssignment && assignedLag > 0L && currentLag > 0L && committed <= assignedCommitted;
+            assignedLag = currentLag;
+            assignedCommitted = committed;
+            assignment = Set.copyOf(offsets.keySet());
+        }
+
+        double getLag() {
+            return lag;
+        }
+
+        double getTimeToDrain() {
+            return timeToDrain;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.redhat.cloud.notifications.health;
+
+import io.smallrye.config.ConfigSourceInterceptor;
+import io.smallrye.config.ConfigSourceInterceptorContext;
+import io.smallrye.config.ConfigValue;
+import io.smallrye.config.Priorities;
+
+import javax.annotation.Priority;
+
+/**
+ * The {@link KafkaLagChecker} replaced the Kafka records consumed total checker. Its former
+ * {@code notifications.kafka-consumed-total-checker.*} properties are still read as deprecated aliases of the
+ * {@code notifications.kafka-lag-checker.*} properties, so that a deployment which only sets the former ones keeps its
+ * configuration. An empty value is treated as missing because the deployment template always declares both
+ * environment variables.
+ */
+@Priority(Priorities.APPLICATION)
+public class KafkaLagCheckerConfigAliases implements ConfigSourceInterceptor {
+
+    public static final String PREFIX = "notifications.kafka-lag-checker.";
+    public static final String DEPRECATED_PREFIX = "notifications.kafka-consumed-total-checker.";
+
+    @Override
+    public ConfigValue getValue(ConfigSourceInterceptorContext context, String name) {
+        ConfigValue value = context.proceed(name);
+        if (!isSet(value) && name.startsWith(PREFIX)) {
+            ConfigValue deprecatedValue = context.proceed(DEPRECATED_PREFIX + name.substring(PREFIX.length()));
+            if (isSet(deprecatedValue)) {
+                return deprecatedValue.withName(name);
+            }
+        }
+        return value;
+    }
+
+    private static boolean isSet(ConfigValue value) {
+        return value != null && value.getValue() != null && !value.getValue().isBlank();
+    }
+}
@@ -0,0 +1,34 @@
+package com.redhat.cloud.notifications.health;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Provides the committed and end offsets used by {@link KafkaLagChecker}.
+ */
+public interface KafkaOffsetsSource {
+
+    /**
+     * Returns the offsets of all partitions of the given topics.
+     * @param groupId the consumer group whose committed offsets are returned
+     * @param topics the topics consumed by the group
+     * @return the offsets of each partition
+     */
+    Map<TopicPartition, PartitionOffsets> getOffsets(String groupId, Collection<String> topics);
+
+    /**
+     * Returns the offsets of the partitions currently assigned to the consumer of the given channel in this pod.
+     * @param channel the incoming channel
+     * @return the offsets of each assigned partition, empty if the channel has no Kafka consumer in this pod
+     */
+    Map<TopicPartition, PartitionOffsets> getAssignedOffsets(String channel);
+
+    /**
+     * @param committed the offset committed by the consumer group, or {@code null} if the group never committed on this partition
+     * @param end the offset of the next record that will be written to the partition
+     */
+    record PartitionOffsets(Long committed, long end) {
+    }
+}
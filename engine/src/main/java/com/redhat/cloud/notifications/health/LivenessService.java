@@ -13,13 +13,13 @@ import javax.inject.Inject;
 public class LivenessService implements HealthCheck {
 
     @Inject
-    KafkaConsumedTotalChecker kafkaConsumedTotalChecker;
+    KafkaLagChecker kafkaLagChecker;
 
     @Override
     public HealthCheckResponse call() {
         HealthCheckResponseBuilder response = HealthCheckResponse.named("Notifications liveness check");
-        if (kafkaConsumedTotalChecker.isDown()) {
-            return response.down().withData("kafka-consumed-total", "DOWN").build();
+        if (kafkaLagChecker.isDown()) {
+            return response.down().withData("kafka-stalled-channels", String.join(",", kafkaLagChecker.getStalledChannels())).build();
         } else {
             return response.up().build();
         }
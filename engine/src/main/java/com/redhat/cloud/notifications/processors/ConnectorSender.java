@@ -1,6 +1,7 @@
 package com.redhat.cloud.notifications.processors;
 
 import io.opentelemetry.context.Context;
+import io.quarkus.logging.Log;
 import io.smallrye.reactive.messaging.TracingMetadata;
 import io.smallrye.reactive.messaging.ce.CloudEventMetadata;
 import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadata;
@@ -8,12 +9,20 @@ import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
 import io.vertx.core.json.JsonObject;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
 import org.eclipse.microprofile.reactive.messaging.Message;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -25,19 +34,44 @@ public class ConnectorSender {
     // TODO notification should end with a s but eventing-integrations does not expect it...
     public static final String CLOUD_EVENT_TYPE_PREFIX = "com.redhat.console.notification.toCamel.";
     public static final String X_RH_NOTIFICATIONS_CONNECTOR_HEADER = "x-rh-notifications-connector";
+    public static final String DEDICATED_TOPIC_PROPERTY = "mp.messaging.tocamel-%s.topic";
 
     @Inject
     @Channel(TOCAMEL_CHANNEL)
     Emitter<String> emitter;
 
+    /*
+     * The messages of these connectors are sent to a dedicated topic instead of the shared tocamel topic, so that each
+     * connector only fetches its own records. The topic of a connector is configured with the
+     * mp.messaging.tocamel-<connector>.topic property, which is translated by Clowder like any other topic.
+     */
+    @ConfigProperty(name = "notifications.connector.dedicated-topics")
+    Optional<Set<String>> dedicatedTopicConnectors;
+
+    private final Map<String, String> dedicatedTopics = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        Config config = ConfigProvider.getConfig();
+        for (String connector : dedicatedTopicConnectors.orElse(Set.of())) {
+            String topic = config.getValue(String.format(DEDICATED_TOPIC_PROPERTY, connector), String.class);
+            dedicatedTopics.put(connector, topic);
+            Log.infof("The messages of the %s connector will be sent to the %s topic", connector, topic);
+        }
+    }
+
     public void send(JsonObject payload, UUID historyId, String endpointSubType) {
         Message<String> message = buildMessage(payload, historyId, endpointSubType);
         emitter.send(message);
     }
 
-    private static Message<String> buildMessage(JsonObject payload, UUID historyId, String endpointSubType) {
+    public Optional<String> getDedicatedTopic(String connector) {
+        return Optional.ofNullable(dedicatedTopics.get(connector));
+    }
+
+    private Message<String> buildMessage(JsonObject payload, UUID historyId, String endpointSubType) {
 
-        OutgoingKafkaRecordMetadata<String> kafkaMetadata = buildOutgoingKafkaRecordMetadata(endpointSubType);
+        OutgoingKafkaRecordMetadata<String> kafkaMetadata = buildOutgoingKafkaRecordMetadata(endpointSubType, dedicatedTopics.get(endpointSubType));
 
         String cloudEventId = historyId.toString();
         String cloudEventType = CLOUD_EVENT_TYPE_PREFIX + endpointSubType;
@@ -51,10 +85,13 @@ public class ConnectorSender {
                 .addMetadata(tracingMetadata);
     }
 
-    private static OutgoingKafkaRecordMetadata<String> buildOutgoingKafkaRecordMetadata(String connectorHeader) {
+    private static OutgoingKafkaRecordMetadata<String> buildOutgoingKafkaRecordMetadata(String connectorHeader, String topic) {
+        // The header is still needed by the connectors while they consume the shared topic.
         Headers headers = new RecordHeaders()
                 .add(X_RH_NOTIFICATIONS_CONNECTOR_HEADER, connectorHeader.getBytes(UTF_8));
+        // A null topic means that the message is sent to the topic of the tocamel channel.
         return OutgoingKafkaRecordMetadata.<String>builder()
+                .withTopic(topic)
                 .withHeaders(headers)
                 .build();
     }
@@ -1,5 +1,6 @@
 package com.redhat.cloud.notifications.processors.camel;
 
+import com.redhat.cloud.notifications.processors.ConnectorSender;
 import com.redhat.cloud.notifications.processors.camel.slack.SlackRouteBuilder;
 import org.apache.camel.builder.endpoint.EndpointRouteBuilder;
 import org.apache.camel.http.base.HttpOperationFailedException;
@@ -33,6 +34,9 @@ public abstract class CamelRouteBuilder extends EndpointRouteBuilder {
     @Inject
     RetryCounterProcessor retryCounterProcessor;
 
+    @Inject
+    ConnectorSender connectorSender;
+
     protected static final String CAMEL_HTTP_HEADERS_PATTERN = "CamelHttp*";
 
     private static final String COMMON_ERROR_MSG = "Message sending failed on ${routeId}: [orgId=${exchangeProperty." + ORG_ID + "}, " +
@@ -51,6 +55,16 @@ public abstract class CamelRouteBuilder extends EndpointRouteBuilder {
 
     private static final String IS_INTEGRATION_WITH_CHANNEL_EXPRESSION =    "${routeId} in '" + SlackRouteBuilder.SLACK_ROUTE + "'";
 
+    /*
+     * When the messages of a connector are sent to a dedicated topic, the shared topic is still consumed because it may
+     * contain messages which were sent before the dedicated topic was enabled.
+     */
+    protected String getIncomingTopics(String connector) {
+        return connectorSender.getDedicatedTopic(connector)
+            .map(dedicatedTopic -> toCamelTopic + "," + dedicatedTopic)
+            .orElse(toCamelTopic);
+    }
+
     protected void configureCommonExceptionHandler() {
 
         /*
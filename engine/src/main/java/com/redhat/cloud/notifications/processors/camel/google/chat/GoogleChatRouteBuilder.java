@@ -35,7 +35,7 @@ public class GoogleChatRouteBuilder extends CamelRouteBuilder {
 
         configureCommonExceptionHandler();
 
-        from(kafka(toCamelTopic).groupId(KAFKA_GROUP_ID))
+        from(kafka(getIncomingTopics(GOOGLE_CHAT_ENDPOINT_SUBTYPE)).groupId(KAFKA_GROUP_ID))
                 .routeId(GOOGLE_CHAT_ROUTE)
                 .filter(new IncomingCloudEventFilter(GOOGLE_CHAT_ENDPOINT_SUBTYPE))
                 .log(INFO, "Received ${body}")
@@ -29,7 +29,7 @@ public class SlackRouteBuilder extends CamelRouteBuilder {
 
         configureCommonExceptionHandler();
 
-        from(kafka(toCamelTopic).groupId(KAFKA_GROUP_ID))
+        from(kafka(getIncomingTopics(SLACK_ENDPOINT_SUBTYPE)).groupId(KAFKA_GROUP_ID))
                 .routeId(SLACK_ROUTE)
                 .filter(new IncomingCloudEventFilter(SLACK_ENDPOINT_SUBTYPE))
                 .log(INFO, "Received ${body}")
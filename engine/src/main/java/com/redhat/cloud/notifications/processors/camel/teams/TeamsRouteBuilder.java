@@ -33,7 +33,7 @@ public class TeamsRouteBuilder extends CamelRouteBuilder {
 
         configureCommonExceptionHandler();
 
-        from(kafka(toCamelTopic).groupId(KAFKA_GROUP_ID))
+        from(kafka(getIncomingTopics(TEAMS_ENDPOINT_SUBTYPE)).groupId(KAFKA_GROUP_ID))
                 .routeId(TEAMS_ROUTE)
                 .filter(new IncomingCloudEventFilter(TEAMS_ENDPOINT_SUBTYPE))
                 .log(INFO, "Received ${body}")
@@ -0,0 +1,99 @@
+package com.redhat.cloud.notifications.processors.drawer;
+
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.repositories.DrawerNotificationRepository;
+import com.redhat.cloud.notifications.db.repositories.EmailSubscriptionRepository;
+import com.redhat.cloud.notifications.models.EmailSubscriptionType;
+import com.redhat.cloud.notifications.models.Endpoint;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.models.NotificationHistory;
+import com.redhat.cloud.notifications.processors.EndpointTypeProcessor;
+import com.redhat.cloud.notifications.recipients.RecipientResolver;
+import com.redhat.cloud.notifications.recipients.RecipientSettings;
+import com.redhat.cloud.notifications.recipients.User;
+import com.redhat.cloud.notifications.recipients.request.ActionRecipientSettings;
+import com.redhat.cloud.notifications.recipients.request.EndpointRecipientSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.redhat.cloud.notifications.models.NotificationHistory.getHistoryStub;
+import static com.redhat.cloud.notifications.models.NotificationStatus.SUCCESS;
+
+@ApplicationScoped
+public class DrawerProcessor extends EndpointTypeProcessor {
+
+    public static final String DRAWER_ENTRIES_CREATED_COUNTER_NAME = "processor.drawer.entries-created";
+    public static final String DRAWER_ENTRIES_COUNT_DETAIL = "entries_count";
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    EmailSubscriptionRepository emailSubscriptionRepository;
+
+    @Inject
+    RecipientResolver recipientResolver;
+
+    @Inject
+    DrawerNotificationRepository drawerNotificationRepository;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter createdEntries;
+
+    @PostConstruct
+    void postConstruct() {
+        createdEntries = registry.counter(DRAWER_ENTRIES_CREATED_COUNTER_NAME);
+    }
+
+    @Override
+    public void process(Event event, List<Endpoint> endpoints) {
+        if (!featureFlipper.isDrawerEnabled() || endpoints == null || endpoints.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        EventType eventType = event.getEventType();
+
+        Set<RecipientSettings> requests = Stream.concat(
+                endpoints.stream().map(EndpointRecipientSettings::new),
+                ActionRecipientSettings.fromEventWrapper(event.getEventWrapper()).stream()
+        ).collect(Collectors.toSet());
+
+        // The drawer subscription is an opt-out subscription: the returned users are the ones who unsubscribed.
+        Set<String> unsubscribers = Set.copyOf(emailSubscriptionRepository
+                .getEmailSubscribersUserId(event.getOrgId(), eventType, EmailSubscriptionType.DRAWER));
+
+        // The recipients are resolved once for all the target endpoints, then all drawer entries are inserted at once.
+        Set<String> userIds = recipientResolver.recipientUsers(event.getOrgId(), requests, unsubscribers, false)
+                .stream()
+                .map(User::getUsername)
+                .collect(Collectors.toSet());
+        int entriesCount = drawerNotificationRepository.create(event, userIds);
+        createdEntries.increment(entriesCount);
+        Log.debugf("%d drawer entries created for event %s", entriesCount, event.getId());
+
+        // The drawer endpoint is a system endpoint which exists at most once per org.
+        NotificationHistory history = getHistoryStub(endpoints.get(0), event, System.currentTimeMillis() - startTime, UUID.randomUUID());
+        history.setStatus(SUCCESS);
+        Map<String, Object> details = new HashMap<>();
+        details.put(DRAWER_ENTRIES_COUNT_DETAIL, entriesCount);
+        history.setDetails(details);
+        persistNotificationHistory(history);
+    }
+}
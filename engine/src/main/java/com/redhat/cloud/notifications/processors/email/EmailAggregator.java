@@ -2,6 +2,7 @@ package com.redhat.cloud.notifications.processors.email;
 
 import com.redhat.cloud.notifications.config.FeatureFlipper;
 import com.redhat.cloud.notifications.db.repositories.EmailAggregationRepository;
+import com.redhat.cloud.notifications.db.repositories.EmailAggregationRepository.EmailAggregationGroup;
 import com.redhat.cloud.notifications.db.repositories.EmailSubscriptionRepository;
 import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
 import com.redhat.cloud.notifications.ingress.Recipient;
@@ -18,15 +19,23 @@ import com.redhat.cloud.notifications.recipients.request.EndpointRecipientSettin
 import io.quarkus.logging.Log;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -48,9 +57,11 @@ public class EmailAggregator {
     @Inject
     FeatureFlipper featureFlipper;
 
-    // This is manually used from the JSON payload instead of converting it to an Action and using getEventType()
-    private static final String EVENT_TYPE_KEY = "event_type";
-    private static final String RECIPIENTS_KEY = "recipients";
+    /*
+     * Maximum number of entries of each bounded collection of the aggregation contexts of an application, e.g.
+     * notifications.aggregation.max-entries.rhel.policies=50. The aggregators defaults are used when it is not set.
+     */
+    private static final String MAX_ENTRIES_PROPERTY = "notifications.aggregation.max-entries.%s.%s";
 
     @ConfigProperty(name = "notifications.get.aggregation.max.page.size", defaultValue = "10000")
     int aggregationMaxPageSize;
@@ -77,101 +88,174 @@ public class EmailAggregator {
     }
 
     public Map<User, Map<String, Object>> getAggregated(EmailAggregationKey aggregationKey, EmailSubscriptionType emailSubscriptionType, LocalDateTime start, LocalDateTime end) {
+        Map<User, Map<String, Object>> aggregated = new HashMap<>();
+        aggregate(aggregationKey, emailSubscriptionType, start, end, (users, context) -> {
+            users.forEach(user -> aggregated.put(user, context));
+        });
+        return aggregated;
+    }
+
+    /**
+     * Aggregates the emails of the given key and hands each digest over to {@code consumer}.
+     * The users who receive the same aggregations get the same digest, so a digest is built for each distinct set of
+     * aggregation groups rather than for each user. The rows of each group are read only once and shared by all the
+     * digests which contain them. The rows are read group after group, and each digest is handed over as soon as the
+     * last of its groups was read, while the rows of the next groups are still being read. Each digest is bounded by
+     * the maximum number of entries of the application.
+     */
+    public void aggregate(EmailAggregationKey aggregationKey, EmailSubscriptionType emailSubscriptionType, LocalDateTime start, LocalDateTime end, BiConsumer<Set<User>, Map<String, Object>> consumer) {
 
-        Map<User, AbstractEmailPayloadAggregator> aggregated = new HashMap<>();
         Set<String> subscribers = null;
         Map<String, Set<String>> subscribersByEventType = null;
+        // The aggregations of the event types which are not in this set are skipped unless they ignore the user preferences.
+        Set<String> subscribedEventTypes;
 
         if (featureFlipper.isUseEventTypeForSubscriptionEnabled()) {
             subscribersByEventType = getEmailSubscribersGroupedByEventType(aggregationKey, emailSubscriptionType);
+            subscribedEventTypes = subscribersByEventType.entrySet().stream()
+                    .filter(entry -> !entry.getValue().isEmpty())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
         } else {
             subscribers = getEmailSubscribers(aggregationKey, emailSubscriptionType);
+            subscribedEventTypes = subscribers.isEmpty() ? Set.of() : null;
         }
 
-        int offset = 0;
-        int totalAggregatedElements = 0;
+        Optional<Integer> maxEntries = ConfigProvider.getConfig()
+                .getOptionalValue(String.format(MAX_ENTRIES_PROPERTY, aggregationKey.getBundle(), aggregationKey.getApplication()), Integer.class);
 
-        List<EmailAggregation> aggregations;
-        do {
-            // First, we retrieve paginated aggregations that match the given key.
-            aggregations = emailAggregationRepository.getEmailAggregation(aggregationKey, start, end, offset, aggregationMaxPageSize);
-            offset += aggregationMaxPageSize;
-
-            // For each aggregation...
-            for (EmailAggregation aggregation : aggregations) {
-                // We need its event type to determine the target endpoints.
-                String eventType = getEventType(aggregation);
-                // Let's retrieve these targets.
-                Set<Endpoint> endpoints = Set.copyOf(endpointRepository
-                    .getTargetEmailSubscriptionEndpoints(aggregationKey.getOrgId(), aggregationKey.getBundle(), aggregationKey.getApplication(), eventType));
-
-                // Now we want to determine who will actually receive the aggregation email.
-                // All users who subscribed to the current application and subscription type combination are recipients candidates.
-                /*
-                 * The actual recipients list may differ from the candidates depending on the endpoint properties and the action settings.
-                 * The target endpoints properties will determine whether or not each candidate will actually receive an email.
-                 */
-                Set<User> users = recipientResolver.recipientUsers(
-                    aggregationKey.getOrgId(),
-                    Stream.concat(
-                        endpoints
-                            .stream()
-                            .map(EndpointRecipientSettings::new),
-                        getActionRecipient(aggregation).stream()
-                    ).collect(Collectors.toSet()),
-                    getSubscribers(eventType, subscribers, subscribersByEventType)
-                );
-
-                /*
-                 * We now have the final recipients list.
-                 * Let's populate the Map that will be returned by the method.
-                 */
-                users.forEach(user -> {
-                    // It's aggregation time!
-                    fillUsers(aggregationKey, user, aggregated, aggregation);
-                });
+        /*
+         * The aggregations are grouped by event type and recipients settings on the DB side. All aggregations of a group
+         * are sent to the same users, so the recipients are resolved once per group and the groups without any recipient
+         * are never read.
+         */
+        Map<String, Set<Endpoint>> endpointsByEventType = new HashMap<>();
+        Map<User, List<EmailAggregationGroup>> groupsByUser = new HashMap<>();
+        for (EmailAggregationGroup group : emailAggregationRepository.getEmailAggregationGroups(aggregationKey, start, end, subscribedEventTypes)) {
+            // Let's retrieve the target endpoints of the event type.
+            Set<Endpoint> endpoints = endpointsByEventType.computeIfAbsent(group.eventType(), eventType -> Set.copyOf(endpointRepository
+                    .getTargetEmailSubscriptionEndpoints(aggregationKey.getOrgId(), aggregationKey.getBundle(), aggregationKey.getApplication(), eventType)));
+
+            // Now we want to determine who will actually receive the aggregation email.
+            // All users who subscribed to the current application and subscription type combination are recipients candidates.
+            /*
+             * The actual recipients list may differ from the candidates depending on the endpoint properties and the action settings.
+             * The target endpoints properties will determine whether or not each candidate will actually receive an email.
+             */
+            Set<User> users = recipientResolver.recipientUsers(
+                aggregationKey.getOrgId(),
+                Stream.concat(
+                    endpoints
+                        .stream()
+                        .map(EndpointRecipientSettings::new),
+                    getActionRecipient(group.recipients()).stream()
+                ).collect(Collectors.toSet()),
+                getSubscribers(group.eventType(), subscribers, subscribersByEventType)
+            );
+
+            for (User user : users) {
+                groupsByUser.computeIfAbsent(user, ignored -> new ArrayList<>()).add(group);
             }
-            totalAggregatedElements += aggregations.size();
-        } while (aggregationMaxPageSize == aggregations.size());
-        Log.infof("%d elements were aggregated for key %s", totalAggregatedElements, aggregationKey);
-
-        return aggregated
-                .entrySet()
-                .stream()
-                .peek(entry -> {
-                    // TODO These fields could be passed to EmailPayloadAggregatorFactory.by since we know them from the beginning.
-                    entry.getValue().setStartTime(start);
-                    entry.getValue().setEndTimeKey(end);
-                })
-                .collect(
-                        Collectors.toMap(
-                            Map.Entry::getKey,
-                            entry -> entry.getValue().getContext()
-                        )
-                );
-    }
+        }
 
-    private void fillUsers(EmailAggregationKey aggregationKey, User user, Map<User, AbstractEmailPayloadAggregator> aggregated, EmailAggregation emailAggregation) {
-        AbstractEmailPayloadAggregator aggregator = aggregated.computeIfAbsent(user, ignored -> EmailPayloadAggregatorFactory.by(aggregationKey));
-        aggregator.aggregate(emailAggregation);
-    }
+        // The users are partitioned by the groups they receive. Each partition gets its own digest.
+        Map<List<EmailAggregationGroup>, Set<User>> usersByGroups = new LinkedHashMap<>();
+        groupsByUser.forEach((user, groups) -> usersByGroups.computeIfAbsent(groups, ignored -> new HashSet<>()).add(user));
+        groupsByUser.clear();
+
+        /*
+         * The partitions often share some groups, e.g. the aggregations sent to all users of the org. The rows of all
+         * groups are read once and each row is dispatched to the aggregators of the partitions which receive its group.
+         */
+        Map<AbstractEmailPayloadAggregator, Set<User>> recipientsByAggregator = new LinkedHashMap<>();
+        Map<AbstractEmailPayloadAggregator, Integer> unreadGroupsByAggregator = new HashMap<>();
+        Map<List<String>, List<AbstractEmailPayloadAggregator>> aggregatorsByGroup = new HashMap<>();
+        Set<EmailAggregationGroup> groups = new LinkedHashSet<>();
+        for (Map.Entry<List<EmailAggregationGroup>, Set<User>> recipients : usersByGroups.entrySet()) {
+            AbstractEmailPayloadAggregator aggregator = EmailPayloadAggregatorFactory.by(aggregationKey);
+            if (aggregator == null) {
+                Log.warnf("No email payload aggregator found for key %s", aggregationKey);
+                return;
+            }
+            maxEntries.ifPresent(aggregator::setMaxEntries);
+            // TODO These fields could be passed to EmailPayloadAggregatorFactory.by since we know them from the beginning.
+            aggregator.setStartTime(start);
+            aggregator.setEndTimeKey(end);
+            recipientsByAggregator.put(aggregator, recipients.getValue());
+            unreadGroupsByAggregator.put(aggregator, recipients.getKey().size());
+            for (EmailAggregationGroup group : recipients.getKey()) {
+                aggregatorsByGroup.computeIfAbsent(groupKey(group), ignored -> new ArrayList<>()).add(aggregator);
+                groups.add(group);
+            }
+        }
+        usersByGroups.clear();
+
+        /*
+         * The groups shared by the most partitions are read first. The groups read last are then the ones of a few
+         * partitions, which complete their digests one after the other instead of all of them at the end.
+         */
+        List<EmailAggregationGroup> orderedGroups = new ArrayList<>(groups);
+        orderedGroups.sort(Comparator.comparingInt((EmailAggregationGroup group) -> aggregatorsByGroup.get(groupKey(group)).size()).reversed());
+
+        int totalAggregatedElements = 0;
+        int digestsCount = recipientsByAggregator.size();
+        if (!orderedGroups.isEmpty()) {
+            int offset = 0;
+            List<String> currentGroup = null;
+            List<EmailAggregation> aggregations;
+            do {
+                // The aggregations are retrieved group after group, in their creation order within each group.
+                aggregations = emailAggregationRepository.getEmailAggregation(aggregationKey, start, end, orderedGroups, offset, aggregationMaxPageSize);
+                offset += aggregationMaxPageSize;
+                // It's aggregation time!
+                for (EmailAggregation aggregation : aggregations) {
+                    List<String> group = List.of(aggregation.getEventType(), aggregation.getRecipientsFingerprint());
+                    if (!group.equals(currentGroup)) {
+                        // All the rows of the previous group were read.
+                        groupRead(currentGroup, aggregatorsByGroup, unreadGroupsByAggregator, recipientsByAggregator, consumer);
+                        currentGroup = group;
+                    }
+                    for (AbstractEmailPayloadAggregator aggregator : aggregatorsByGroup.getOrDefault(group, List.of())) {
+                        aggregator.aggregate(aggregation);
+                    }
+                }
+                totalAggregatedElements += aggregations.size();
+            } while (aggregationMaxPageSize == aggregations.size());
+            groupRead(currentGroup, aggregatorsByGroup, unreadGroupsByAggregator, recipientsByAggregator, consumer);
+        }
 
-    private String getEventType(EmailAggregation aggregation) {
-        return aggregation.getPayload().getString(EVENT_TYPE_KEY);
+        // The digests which still have unread groups, e.g. groups whose rows were purged in the meantime, are handed over last.
+        recipientsByAggregator.forEach((aggregator, users) -> consumer.accept(users, aggregator.getContext()));
+        Log.infof("%d elements were aggregated into %d digests for key %s", totalAggregatedElements, digestsCount, aggregationKey);
     }
 
-    private List<ActionRecipientSettings> getActionRecipient(EmailAggregation emailAggregation) {
-        if (emailAggregation.getPayload().containsKey(RECIPIENTS_KEY)) {
-            JsonArray recipients = emailAggregation.getPayload().getJsonArray(RECIPIENTS_KEY);
-            if (recipients.size() > 0) {
-                return recipients.stream().map(r -> {
-                    JsonObject recipient = (JsonObject) r;
-                    return recipient.mapTo(Recipient.class);
-                }).map(r -> new ActionRecipientSettings(r.getOnlyAdmins(), r.getIgnoreUserPreferences(), r.getUsers())).collect(Collectors.toList());
+    /*
+     * Hands over the digests whose last group was just read. They are removed from the pending digests, so that they
+     * can be garbage collected once sent.
+     */
+    private static void groupRead(List<String> group, Map<List<String>, List<AbstractEmailPayloadAggregator>> aggregatorsByGroup,
+            Map<AbstractEmailPayloadAggregator, Integer> unreadGroupsByAggregator, Map<AbstractEmailPayloadAggregator, Set<User>> recipientsByAggregator,
+            BiConsumer<Set<User>, Map<String, Object>> consumer) {
+        if (group == null) {
+            return;
+        }
+        for (AbstractEmailPayloadAggregator aggregator : aggregatorsByGroup.getOrDefault(group, List.of())) {
+            if (unreadGroupsByAggregator.merge(aggregator, -1, Integer::sum) == 0) {
+                unreadGroupsByAggregator.remove(aggregator);
+                consumer.accept(recipientsByAggregator.remove(aggregator), aggregator.getContext());
             }
-
         }
-        return List.of();
+    }
+
+    private static List<String> groupKey(EmailAggregationGroup group) {
+        return List.of(group.eventType(), group.recipientsFingerprint());
+    }
+
+    private List<ActionRecipientSettings> getActionRecipient(JsonArray recipients) {
+        return recipients.stream().map(r -> {
+            JsonObject recipient = (JsonObject) r;
+            return recipient.mapTo(Recipient.class);
+        }).map(r -> new ActionRecipientSettings(r.getOnlyAdmins(), r.getIgnoreUserPreferences(), r.getUsers())).collect(Collectors.toList());
     }
 
 }
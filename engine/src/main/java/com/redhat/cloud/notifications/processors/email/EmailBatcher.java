@@ -0,0 +1,224 @@
+package com.redhat.cloud.notifications.processors.email;
+
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.db.repositories.NotificationHistoryRepository;
+import com.redhat.cloud.notifications.models.Endpoint;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+import static java.time.ZoneOffset.UTC;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Coalesces the instant emails sent to the same recipients of an org, so that each group is sent to BOP with a single
+ * call. A group is sent as soon as it contains {@code max-size} emails, or once its first email has waited for the
+ * {@code linger} duration. The groups are checked every {@code flush-period}, which therefore needs to be shorter than
+ * the linger duration.
+ * <p>
+ * The groups are sent from a dedicated pool, so the BOP calls and their retries block neither the scheduler nor the
+ * ingress consumer. The history of each event is persisted in the PROCESSING status before its email is added to a
+ * group, and updated with the outcome of the BOP call once the group is sent. The ingress message of the event is only
+ * acknowledged after that. The pending groups are sent when the engine stops. If it is killed before that, the
+ * messages are consumed again, but the messages whose ID was already registered are dropped as duplicates. The
+ * PROCESSING histories which are older than {@code stale-history-max-age} are therefore failed periodically, so that
+ * the emails which were never sent show up as failures in the event log.
+ */
+@ApplicationScoped
+public class EmailBatcher {
+
+    public static final String BATCH_SIZE_SUMMARY_NAME = "processor.email.batch-size";
+    static final String STALE_HISTORY_ERROR = "The email was not sent before the engine stopped";
+
+    @ConfigProperty(name = "notifications.instant-email-batching.linger", defaultValue = "2S")
+    Duration linger;
+
+    @ConfigProperty(name = "notifications.instant-email-batching.max-size", defaultValue = "50")
+    int maxSize;
+
+    @ConfigProperty(name = "notifications.instant-email-batching.senders", defaultValue = "2")
+    int sendersCount;
+
+    @ConfigProperty(name = "notifications.instant-email-batching.drain-timeout", defaultValue = "30S")
+    Duration drainTimeout;
+
+    // Has to be greater than the linger duration plus the delays of the delivery retries, which keep the histories PROCESSING.
+    @ConfigProperty(name = "notifications.instant-email-batching.stale-history-max-age", defaultValue = "1H")
+    Duration staleHistoryMaxAge;
+
+    @Inject
+    EmailSender emailSender;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    NotificationHistoryRepository notificationHistoryRepository;
+
+    @Inject
+    MeterRegistry registry;
+
+    private DistributionSummary batchSize;
+    private ExecutorService senders;
+
+    // Guarded by itself.
+    private final Map<BatchKey, Batch> batches = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() {
+        batchSize = registry.summary(BATCH_SIZE_SUMMARY_NAME);
+        AtomicInteger senderIndex = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendersCount, runnable -> {
+            Thread thread = new Thread(runnable, "email-batch-sender-" + senderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds an email to the group of its org and recipients. If the group is full, it is sent right away.
+     * @param historyId the ID of the PROCESSING history of the event of the email
+     * @return a stage completed once the group of the email has been sent and the histories of its events updated
+     */
+    public CompletionStage<Void> add(String orgId, UUID historyId, Endpoint endpoint, Email email) {
+        BatchKey key = new BatchKey(orgId, email.getRecipients(), email.getBccList());
+        Batch batch;
+        boolean full;
+        synchronized (batches) {
+            batch = batches.computeIfAbsent(key, k -> new Batch(endpoint, System.currentTimeMillis()));
+            batch.historyIds.add(historyId);
+            batch.emails.addEmail(email);
+            full = batch.historyIds.size() >= maxSize;
+            if (full) {
+                batches.remove(key);
+            }
+        }
+        if (full) {
+            send(batch);
+        }
+        return batch.sent;
+    }
+
+    @Scheduled(identity = "InstantEmailBatchFlush", every = "${notifications.instant-email-batching.flush-period:1s}", concurrentExecution = SKIP)
+    void flushExpiredBatches() {
+        long expirationTime = System.currentTimeMillis() - linger.toMillis();
+        flush(batch -> batch.createdAt <= expirationTime);
+    }
+
+    /*
+     * The messages of the events whose group is still being sent when the drain timeout is over are not acknowledged,
+     * they will be consumed again.
+     */
+    void flushAllBatches(@Observes ShutdownEvent event) {
+        flush(batch -> true);
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(drainTimeout.toMillis(), MILLISECONDS)) {
+                Log.warn("Some email batches were not sent before the shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(identity = "InstantEmailStaleHistorySweep", every = "${notifications.instant-email-batching.stale-history-sweep-period:5m}", concurrentExecution = SKIP)
+    void failStaleHistories() {
+        LocalDateTime createdBefore = LocalDateTime.now(UTC).minus(staleHistoryMaxAge);
+        int count = statelessSessionFactory.withSession(statelessSession -> {
+            return notificationHistoryRepository.failStaleProcessingHistories(EMAIL_SUBSCRIPTION, createdBefore, Map.of("error_message", STALE_HISTORY_ERROR));
+        });
+        if (count > 0) {
+            Log.warnf("%d instant email histories were still PROCESSING after %s, they were failed", count, staleHistoryMaxAge);
+        }
+    }
+
+    private void flush(Predicate<Batch> filter) {
+        List<Batch> expiredBatches = new ArrayList<>();
+        synchronized (batches) {
+            Iterator<Batch> iterator = batches.values().iterator();
+            while (iterator.hasNext()) {
+                Batch batch = iterator.next();
+                if (filter.test(batch)) {
+                    iterator.remove();
+                    expiredBatches.add(batch);
+                }
+            }
+        }
+        for (Batch batch : expiredBatches) {
+            send(batch);
+        }
+    }
+
+    private void send(Batch batch) {
+        batchSize.record(batch.historyIds.size());
+        try {
+            senders.execute(() -> {
+                try {
+                    statelessSessionFactory.withSession(statelessSession -> {
+                        emailSender.sendBatch(batch.historyIds, batch.endpoint, batch.emails);
+                    });
+                } catch (Exception e) {
+                    Log.errorf(e, "Email batch sending failed for %d events", batch.historyIds.size());
+                } finally {
+                    batch.sent.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The engine is stopping, the histories of the batch will be failed once they are stale.
+            Log.errorf("Email batch dropped during the shutdown for %d events", batch.historyIds.size());
+        }
+    }
+
+    int getPendingBatchesCount() {
+        synchronized (batches) {
+            return batches.size();
+        }
+    }
+
+    /*
+     * The sender of the emails is the same for all the orgs: it is identified by the BOP client ID. The org ID is part
+     * of the key because the history of the events is recorded with the email endpoint of their org.
+     */
+    record BatchKey(String orgId, Set<String> recipients, Set<String> bccList) {
+    }
+
+    private static class Batch {
+
+        final Endpoint endpoint;
+        final long createdAt;
+        final List<UUID> historyIds = new ArrayList<>();
+        final Emails emails = new Emails();
+        final CompletableFuture<Void> sent = new CompletableFuture<>();
+
+        Batch(Endpoint endpoint, long createdAt) {
+            this.endpoint = endpoint;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -29,7 +29,9 @@ import javax.inject.Inject;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -66,6 +68,9 @@ public class EmailSender {
     @Inject
     WebhookTypeProcessor webhookSender;
 
+    @Inject
+    EmailBatcher emailBatcher;
+
     @Inject
     EndpointRepository endpointRepository;
 
@@ -119,13 +124,24 @@ public class EmailSender {
             // TODO If the call fails - we should probably rollback Kafka topic (if BOP is down for example)
             //      also add metrics for these failures
 
-            webhookSender.doHttpRequest(
-                event, endpoint,
-                bopRequest,
-                getPayload(users, event.getEventWrapper(), subject, body),
-                "POST",
-                bopUrl,
-                persistHistory);
+            // Only the instant emails are batched, the digests are sent with one call per aggregation.
+            if (persistHistory && featureFlipper.isInstantEmailBatchingEnabled()) {
+                Email email = renderEmail(users, event.getEventWrapper(), subject, body);
+                // The history is persisted before the email is batched and completed once the batch is sent.
+                UUID historyId = webhookSender.persistDeferredHistory(event, endpoint);
+                // The ingress message of the event is acknowledged once the batch is sent.
+                event.addDeferredDelivery(emailBatcher.add(event.getOrgId(), historyId, endpoint, email));
+            } else {
+                Emails emails = new Emails();
+                emails.addEmail(renderEmail(users, event.getEventWrapper(), subject, body));
+                webhookSender.doHttpRequest(
+                    event, endpoint,
+                    bopRequest,
+                    JsonObject.mapFrom(emails),
+                    "POST",
+                    bopUrl,
+                    persistHistory);
+            }
         } catch (Exception e) {
             Log.error("Email sending failed", e);
         } finally {
@@ -175,7 +191,15 @@ public class EmailSender {
         }
     }
 
-    private JsonObject getPayload(Set<User> users, EventWrapper<?, ?> eventWrapper, TemplateInstance subject, TemplateInstance body) {
+    /**
+     * Sends the emails of several events to BOP with a single call. The deferred history of each event is updated
+     * with the outcome of the call.
+     */
+    void sendBatch(List<UUID> historyIds, Endpoint endpoint, Emails emails) {
+        webhookSender.doDeferredBatchHttpRequest(historyIds, endpoint, buildBOPHttpRequest(), JsonObject.mapFrom(emails), "POST", bopUrl);
+    }
+
+    private Email renderEmail(Set<User> users, EventWrapper<?, ?> eventWrapper, TemplateInstance subject, TemplateInstance body) {
 
         String renderedSubject;
         String renderedBody;
@@ -189,13 +213,11 @@ public class EmailSender {
             );
             throw e;
         }
-        Emails emails = new Emails();
-        emails.addEmail(buildEmail(
+        return buildEmail(
             users,
             renderedSubject,
             renderedBody
-        ));
-        return JsonObject.mapFrom(emails);
+        );
     }
 
     @Deprecated(forRemoval = true)
@@ -222,7 +244,7 @@ public class EmailSender {
         return JsonObject.mapFrom(emails);
     }
 
-    protected HttpRequest<Buffer> buildBOPHttpRequest() {
+    public HttpRequest<Buffer> buildBOPHttpRequest() {
         return bopWebClient
                 .postAbs(bopUrl)
                 .putHeader(BOP_APITOKEN_HEADER, bopApiToken)
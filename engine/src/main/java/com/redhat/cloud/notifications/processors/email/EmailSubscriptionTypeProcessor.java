@@ -30,6 +30,7 @@ import com.redhat.cloud.notifications.transformers.BaseTransformer;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
+import io.quarkus.qute.Template;
 import io.quarkus.qute.TemplateInstance;
 import io.quarkus.runtime.configuration.ProfileManager;
 import io.smallrye.reactive.messaging.annotations.Blocking;
@@ -39,17 +40,25 @@ import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.control.ActivateRequestContext;
 import javax.inject.Inject;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,10 +68,13 @@ import static io.quarkus.runtime.LaunchMode.NORMAL;
 public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
 
     public static final String AGGREGATION_CHANNEL = "aggregation";
+    public static final String AGGREGATION_WORKER_POOL = "aggregation-worker-pool";
     public static final String AGGREGATION_COMMAND_REJECTED_COUNTER_NAME = "aggregation.command.rejected";
     public static final String AGGREGATION_COMMAND_PROCESSED_COUNTER_NAME = "aggregation.command.processed";
     public static final String AGGREGATION_COMMAND_ERROR_COUNTER_NAME = "aggregation.command.error";
 
+    private static final int AGGREGATION_KEY_LOCK_STRIPES = 64;
+
     private static final List<EmailSubscriptionType> NON_INSTANT_SUBSCRIPTION_TYPES = Arrays.stream(EmailSubscriptionType.values())
             .filter(emailSubscriptionType -> emailSubscriptionType != EmailSubscriptionType.INSTANT)
             .collect(Collectors.toList());
@@ -110,11 +122,38 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
     @ConfigProperty(name = "notifications.single.email.test.user")
     String singleEmailTestUser;
 
+    @ConfigProperty(name = "notifications.aggregation.digest-senders", defaultValue = "4")
+    int digestSendersCount;
+
+    // Maximum number of aggregated digests waiting to be sent before the aggregation is blocked.
+    @ConfigProperty(name = "notifications.aggregation.max-pending-digests", defaultValue = "16")
+    int maxPendingDigests;
+
+    private ExecutorService digestSenders;
+    private Semaphore pendingDigests;
+    // Semaphores rather than locks, because a key is released from the digest sender which sends its last digest.
+    private final Semaphore[] aggregationKeyLocks = new Semaphore[AGGREGATION_KEY_LOCK_STRIPES];
+
     @PostConstruct
     void postConstruct() {
         rejectedAggregationCommandCount = registry.counter(AGGREGATION_COMMAND_REJECTED_COUNTER_NAME);
         processedAggregationCommandCount = registry.counter(AGGREGATION_COMMAND_PROCESSED_COUNTER_NAME);
         failedAggregationCommandCount = registry.counter(AGGREGATION_COMMAND_ERROR_COUNTER_NAME);
+        AtomicInteger digestSenderIndex = new AtomicInteger();
+        digestSenders = Executors.newFixedThreadPool(digestSendersCount, runnable -> {
+            Thread thread = new Thread(runnable, "digest-sender-" + digestSenderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingDigests = new Semaphore(maxPendingDigests);
+        for (int i = 0; i < aggregationKeyLocks.length; i++) {
+            aggregationKeyLocks[i] = new Semaphore(1);
+        }
+    }
+
+    @PreDestroy
+    void preDestroy() {
+        digestSenders.shutdown();
     }
 
     @Override
@@ -143,10 +182,6 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
 
     private void sendEmail(Event event, Set<Endpoint> endpoints) {
         EmailSubscriptionType emailSubscriptionType = EmailSubscriptionType.INSTANT;
-        EventType eventType = event.getEventType();
-        String bundleName = eventType.getApplication().getBundle().getName();
-        String applicationName = eventType.getApplication().getName();
-        String eventTypeName = eventType.getName();
 
         final TemplateInstance subject;
         final TemplateInstance body;
@@ -168,7 +203,7 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
         ).collect(Collectors.toSet());
 
         Set<String> subscribers = Set.copyOf(emailSubscriptionRepository
-                .getEmailSubscribersUserId(event.getOrgId(), bundleName, applicationName, eventTypeName, emailSubscriptionType));
+                .getEmailSubscribersUserId(event.getOrgId(), event.getEventType(), emailSubscriptionType));
 
         Set<User> userList = recipientResolver.recipientUsers(event.getOrgId(), requests, subscribers);
         if (isSendSingleEmailForMultipleRecipientsEnabled(userList)) {
@@ -180,9 +215,13 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
         }
     }
 
+    /*
+     * The aggregation commands are processed on a dedicated worker pool, one at a time with the default max concurrency
+     * of 1. With a higher value, only the commands of different aggregation keys are processed concurrently.
+     */
     @Incoming(AGGREGATION_CHANNEL)
     @Acknowledgment(Acknowledgment.Strategy.PRE_PROCESSING)
-    @Blocking
+    @Blocking(value = AGGREGATION_WORKER_POOL, ordered = false)
     @ActivateRequestContext
     public void consumeEmailAggregations(String aggregationCommandJson) {
         AggregationCommand aggregationCommand;
@@ -197,9 +236,17 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
         Log.infof("Processing received aggregation command: %s", aggregationCommand);
         processedAggregationCommandCount.increment();
 
+        /*
+         * Two commands of the same key would otherwise aggregate the same rows and send the same digests twice, or
+         * one of them could purge the rows the other one is still aggregating. The key is held until its digests are
+         * sent and its aggregations are purged, but the worker thread is released as soon as the aggregation is done.
+         */
+        Semaphore aggregationKeyLock = aggregationKeyLocks[Math.floorMod(aggregationCommand.getAggregationKey().hashCode(), aggregationKeyLocks.length)];
+        aggregationKeyLock.acquireUninterruptibly();
+        CompletableFuture<Void> processed;
         try {
-            statelessSessionFactory.withSession(statelessSession -> {
-                processAggregateEmailsByAggregationKey(
+            processed = statelessSessionFactory.withSession(statelessSession -> {
+                return processAggregateEmailsByAggregationKey(
                         aggregationCommand.getAggregationKey(),
                         aggregationCommand.getStart(),
                         aggregationCommand.getEnd(),
@@ -210,83 +257,130 @@ public class EmailSubscriptionTypeProcessor extends EndpointTypeProcessor {
         } catch (Exception e) {
             Log.warn("Error while processing aggregation", e);
             failedAggregationCommandCount.increment();
+            aggregationKeyLock.release();
+            return;
         }
+        processed.whenComplete((ignored, e) -> {
+            if (e != null) {
+                Log.warn("Error while processing aggregation", e);
+                failedAggregationCommandCount.increment();
+            }
+            aggregationKeyLock.release();
+        });
     }
 
-    private void processAggregateEmailsByAggregationKey(EmailAggregationKey aggregationKey, LocalDateTime startTime, LocalDateTime endTime, EmailSubscriptionType emailSubscriptionType, boolean delete) {
-        TemplateInstance subject = null;
-        TemplateInstance body = null;
+    /*
+     * Returns a future which is completed once all digests of the key were sent and its aggregations were purged.
+     */
+    private CompletableFuture<Void> processAggregateEmailsByAggregationKey(EmailAggregationKey aggregationKey, LocalDateTime startTime, LocalDateTime endTime, EmailSubscriptionType emailSubscriptionType, boolean delete) {
+        Template subject = null;
+        Template body = null;
 
         Optional<AggregationEmailTemplate> aggregationEmailTemplate = templateRepository
                 .findAggregationEmailTemplate(aggregationKey.getBundle(), aggregationKey.getApplication(), emailSubscriptionType);
         if (aggregationEmailTemplate.isPresent()) {
             String subjectData = aggregationEmailTemplate.get().getSubjectTemplate().getData();
-            subject = templateService.compileTemplate(subjectData, "subject");
+            subject = templateService.parseTemplate(subjectData, "subject");
             String bodyData = aggregationEmailTemplate.get().getBodyTemplate().getData();
-            body = templateService.compileTemplate(bodyData, "body");
+            body = templateService.parseTemplate(bodyData, "body");
         }
 
+        List<CompletableFuture<Void>> sentDigests = new ArrayList<>();
         if (subject != null && body != null) {
-            Map<User, Map<String, Object>> aggregationsByUsers = emailAggregator.getAggregated(aggregationKey, emailSubscriptionType, startTime, endTime);
-
-            if (isSendSingleEmailForMultipleRecipientsEnabled(aggregationsByUsers.keySet())) {
-                Map<Map<String, Object>, Set<User>> aggregationsEmailContext = aggregationsByUsers.keySet().stream()
-                    .collect(Collectors.groupingBy(aggregationsByUsers::get, Collectors.toSet()));
-
-                for (Map.Entry<Map<String, Object>, Set<User>> aggregation : aggregationsEmailContext.entrySet()) {
-
-                    Context.ContextBuilder contextBuilder = new Context.ContextBuilder();
-                    aggregation.getKey().forEach(contextBuilder::withAdditionalProperty);
-
-                    Action action = new Action();
-                    action.setContext(contextBuilder.build());
-                    action.setEvents(List.of());
-                    action.setOrgId(aggregationKey.getOrgId());
-                    action.setApplication(aggregationKey.getApplication());
-                    action.setBundle(aggregationKey.getBundle());
-
-                    // We don't have an event type as this aggregates over multiple event types
-                    action.setEventType(null);
-                    action.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
-
-                    Event event = new Event();
-                    event.setId(UUID.randomUUID());
-                    event.setEventWrapper(new EventWrapperAction(action));
-
-                    emailSender.sendEmail(aggregation.getValue(), event, subject, body, false);
-                }
-            } else {
-                for (Map.Entry<User, Map<String, Object>> aggregation : aggregationsByUsers.entrySet()) {
-
-                    Context.ContextBuilder contextBuilder = new Context.ContextBuilder();
-                    aggregation.getValue().forEach(contextBuilder::withAdditionalProperty);
-
-                    Action action = new Action();
-                    action.setContext(contextBuilder.build());
-                    action.setEvents(List.of());
-                    action.setOrgId(aggregationKey.getOrgId());
-                    action.setApplication(aggregationKey.getApplication());
-                    action.setBundle(aggregationKey.getBundle());
-
-                    // We don't have an event type as this aggregates over multiple event types
-                    action.setEventType(null);
-                    action.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
-
-                    Event event = new Event();
-                    event.setId(UUID.randomUUID());
-                    event.setEventWrapper(new EventWrapperAction(action));
-
-                    emailSender.sendEmail(aggregation.getKey(), event, subject, body, false);
-                }
+            Template digestSubject = subject;
+            Template digestBody = body;
+            /*
+             * Each digest is sent from the digest senders as soon as it is aggregated, while the next one is being
+             * aggregated. The aggregation is blocked while too many digests are waiting to be sent.
+             */
+            try {
+                emailAggregator.aggregate(aggregationKey, emailSubscriptionType, startTime, endTime, (users, context) -> {
+                    pendingDigests.acquireUninterruptibly();
+                    try {
+                        sentDigests.add(CompletableFuture.runAsync(() -> {
+                            try {
+                                sendDigest(aggregationKey, users, context, digestSubject, digestBody);
+                            } finally {
+                                pendingDigests.release();
+                            }
+                        }, digestSenders));
+                    } catch (RejectedExecutionException e) {
+                        pendingDigests.release();
+                        throw e;
+                    }
+                });
+            } catch (RuntimeException e) {
+                // The digests which were already submitted are still sent, but the aggregations are not purged.
+                return CompletableFuture.allOf(sentDigests.toArray(CompletableFuture[]::new))
+                        .handle((ignored, sendingFailure) -> {
+                            throw e;
+                        });
             }
+        }
 
+        // The aggregations must not be purged before all digests are sent.
+        CompletableFuture<Void> allDigestsSent = CompletableFuture.allOf(sentDigests.toArray(CompletableFuture[]::new));
+        if (!delete) {
+            return allDigestsSent;
         }
+        // The purge always runs on a digest sender, the aggregation worker still holds its stateless session here.
+        return allDigestsSent.thenRunAsync(() -> purgeAggregations(aggregationKey, endTime), digestSenders);
+    }
 
-        if (delete) {
+    /*
+     * Quarkus intercepts the self-invocations, so the request context is activated for each purge run from the digest
+     * senders threads.
+     */
+    @ActivateRequestContext
+    void purgeAggregations(EmailAggregationKey aggregationKey, LocalDateTime endTime) {
+        statelessSessionFactory.withSession(statelessSession -> {
             emailAggregationRepository.purgeOldAggregation(aggregationKey, endTime);
+        });
+    }
+
+    /*
+     * Quarkus intercepts the self-invocations, so the request context is activated for each digest sent from the
+     * digest senders threads.
+     */
+    @ActivateRequestContext
+    void sendDigest(EmailAggregationKey aggregationKey, Set<User> users, Map<String, Object> context, Template subject, Template body) {
+        try {
+            statelessSessionFactory.withSession(statelessSession -> {
+                // The template instances are not thread-safe, each digest renders its own ones.
+                if (isSendSingleEmailForMultipleRecipientsEnabled(users)) {
+                    emailSender.sendEmail(users, buildAggregatedEvent(aggregationKey, context), subject.instance(), body.instance(), false);
+                } else {
+                    for (User user : users) {
+                        emailSender.sendEmail(user, buildAggregatedEvent(aggregationKey, context), subject.instance(), body.instance(), false);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Log.errorf(e, "Digest sending failed for key %s", aggregationKey);
         }
     }
 
+    private static Event buildAggregatedEvent(EmailAggregationKey aggregationKey, Map<String, Object> context) {
+        Context.ContextBuilder contextBuilder = new Context.ContextBuilder();
+        context.forEach(contextBuilder::withAdditionalProperty);
+
+        Action action = new Action();
+        action.setContext(contextBuilder.build());
+        action.setEvents(List.of());
+        action.setOrgId(aggregationKey.getOrgId());
+        action.setApplication(aggregationKey.getApplication());
+        action.setBundle(aggregationKey.getBundle());
+
+        // We don't have an event type as this aggregates over multiple event types
+        action.setEventType(null);
+        action.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
+
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setEventWrapper(new EventWrapperAction(action));
+        return event;
+    }
+
     private boolean isSendSingleEmailForMultipleRecipientsEnabled(Set<User> users) {
         if (ProfileManager.getLaunchMode() == NORMAL && featureFlipper.isSendSingleEmailForMultipleRecipientsEnabled()) {
             Set<String> strUsers = users.stream().map(User::getUsername).collect(Collectors.toSet());
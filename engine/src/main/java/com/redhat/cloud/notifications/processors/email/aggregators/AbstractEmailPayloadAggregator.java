@@ -1,25 +1,47 @@
 package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
+/**
+ * Aggregates the events of a tenant into the context of a digest email. The aggregators accumulate the events into
+ * typed structures and only expose them as read-only maps and lists when {@link #getContext()} is called. Qute renders
+ * these views directly, so the context is never converted to JSON.
+ */
 public abstract class AbstractEmailPayloadAggregator {
 
     private static final String START_TIME_KEY = "start_time";
     private static final String END_TIME_KEY = "end_time";
 
+    /*
+     * The number of entries which were left out of a bounded collection is stored next to that collection, under the
+     * same key with this suffix. The key is only present when at least one entry was left out.
+     */
+    public static final String OVERFLOW_SUFFIX = "_overflow";
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private String orgId;
     private int processedAggregations;
-
-    JsonObject context = new JsonObject();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
 
     abstract void processEmailAggregation(EmailAggregation aggregation);
 
+    /**
+     * Adds the read-only views of the aggregated data to the given context.
+     */
+    abstract void fillContext(Map<String, Object> context);
+
     public void aggregate(EmailAggregation aggregation) {
         if (orgId == null) {
             orgId = aggregation.getOrgId();
@@ -31,15 +53,86 @@ public abstract class AbstractEmailPayloadAggregator {
         ++processedAggregations;
     }
 
+    /**
+     * Returns the context of the digest email. The returned map can be modified but the aggregated data it contains
+     * is read-only.
+     */
     public Map<String, Object> getContext() {
-        Map<String, Object> payload = this.context.mapTo(Map.class);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        fillContext(payload);
         payload.put(START_TIME_KEY, this.startTime);
         payload.put(END_TIME_KEY, this.endTime);
         return payload;
     }
 
-    void copyStringField(JsonObject to, JsonObject from, final String field) {
-        to.put(field, from.getString(field));
+    /**
+     * Creates a list which keeps at most {@link #getMaxEntries()} entries, the first ones according to the given order.
+     */
+    <T> BoundedList<T> newBoundedList(Comparator<? super T> order) {
+        return new BoundedList<>(this::getMaxEntries, order);
+    }
+
+    /**
+     * Creates a list which keeps at most {@link #getMaxEntries()} entries with distinct identities, the first ones
+     * according to the given order.
+     */
+    <T> BoundedList<T> newBoundedList(Comparator<? super T> order, Function<? super T, String> identity) {
+        return new BoundedList<>(this::getMaxEntries, order, identity);
+    }
+
+    /**
+     * Puts the read-only view of a bounded list under {@code key} in {@code target}, along with the number of entries
+     * which were left out of it if there are any.
+     */
+    static <T> void putBounded(Map<String, Object> target, String key, BoundedList<T> entries, Function<? super T, Object> entryView) {
+        target.put(key, entries.view(entryView));
+        if (entries.getOverflow() > 0) {
+            target.put(key + OVERFLOW_SUFFIX, entries.getOverflow());
+        }
+    }
+
+    /**
+     * Puts the read-only view of a bounded list with identities under {@code key} in {@code target}, as a map of the
+     * views of its entries by identity, along with the number of entries which were left out of it if there are any.
+     */
+    static <T> void putBoundedById(Map<String, Object> target, String key, BoundedList<T> entries, Function<? super T, Object> entryView) {
+        target.put(key, entries.viewById(entryView));
+        if (entries.getOverflow() > 0) {
+            target.put(key + OVERFLOW_SUFFIX, entries.getOverflow());
+        }
+    }
+
+    /**
+     * Orders strings in the natural order, with the {@code null} ones last.
+     */
+    static <T> Comparator<T> orderedBy(Function<? super T, String> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    static Map<String, Object> readOnly(Map<String, Object> map) {
+        return Collections.unmodifiableMap(map);
+    }
+
+    static <T> List<T> readOnly(List<T> list) {
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns a read-only view of a value taken as is from an event. The nested JSON objects and arrays are exposed as
+     * maps and lists because Qute cannot resolve the properties of the Vert.x JSON types.
+     */
+    static Object jsonView(Object value) {
+        if (value instanceof JsonObject object) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> field : object) {
+                view.put(field.getKey(), jsonView(field.getValue()));
+            }
+            return readOnly(view);
+        } else if (value instanceof JsonArray array) {
+            return readOnly(array.stream().map(AbstractEmailPayloadAggregator::jsonView).toList());
+        } else {
+            return value;
+        }
     }
 
     public void setStartTime(LocalDateTime startTime) {
@@ -50,6 +143,24 @@ public abstract class AbstractEmailPayloadAggregator {
         this.endTime = endTime;
     }
 
+    /**
+     * Sets the maximum number of entries of each bounded collection of the aggregation context. This has to be called
+     * before the first aggregation.
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The maximum number of entries must not be negative");
+        }
+        if (processedAggregations > 0) {
+            throw new IllegalStateException("The maximum number of entries cannot be changed once the aggregation started");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
     String getOrgId() {
         return orgId;
     }
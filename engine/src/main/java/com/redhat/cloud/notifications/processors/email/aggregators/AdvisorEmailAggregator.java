@@ -5,7 +5,7 @@ import io.vertx.core.json.JsonObject;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -122,24 +122,24 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
     // https://issues.redhat.com/browse/RHCLOUD-23848 for more information.
     public static final int MAXIMUM_NUMBER_RETURNED_EVENTS = 5;
 
-    // Advisor final payload helpers
-    private Map<String, Map<String, Object>> newRecommendations = new LinkedHashMap<>();
-    private Map<String, Map<String, Object>> resolvedRecommendations = new LinkedHashMap<>();
-    private Map<String, Map<String, Object>> deactivatedRecommendations = new LinkedHashMap<>();
-
-    // The updatable JSON object that is set in the context.
-    private final JsonObject advisorJson;
+    /*
+     * The highest risk recommendations are listed first. Rules with the same risk are listed by ID so that the result
+     * does not depend on the order of the events.
+     */
+    private static final Comparator<Recommendation> RECOMMENDATION_ORDER = Comparator.comparingInt(Recommendation::totalRisk).reversed()
+            .thenComparing(orderedBy(Recommendation::ruleId));
 
-    private final AtomicInteger incidentCounter = new AtomicInteger(0);
+    // Advisor final payload helpers
+    private final BoundedList<Recommendation> newRecommendations = newBoundedList(RECOMMENDATION_ORDER, Recommendation::ruleId);
+    private final BoundedList<Recommendation> resolvedRecommendations = newBoundedList(RECOMMENDATION_ORDER, Recommendation::ruleId);
+    private final BoundedList<Recommendation> deactivatedRecommendations = newBoundedList(RECOMMENDATION_ORDER, Recommendation::ruleId);
 
-    private final AtomicInteger recommendationCounter = new AtomicInteger(0);
+    // The rules with an incident, including the ones which were left out of the recommendations, by event type.
+    private final DistinctCounter<Void> incidentRules = new DistinctCounter<>();
 
     public AdvisorEmailAggregator() {
-        this.advisorJson = new JsonObject();
-        this.advisorJson.put(TOTAL_INCIDENT, incidentCounter);
-        this.advisorJson.put(TOTAL_RECOMMENDATION, recommendationCounter);
-
-        context.put(ADVISOR_KEY, this.advisorJson);
+        // Only the highest risk recommendations are included in the digest.
+        setMaxEntries(MAXIMUM_NUMBER_RETURNED_EVENTS);
     }
 
     @Override
@@ -161,75 +161,16 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
         notifPayload.getJsonArray(EVENTS_KEY).stream().forEach(eventObject -> {
             JsonObject event = (JsonObject) eventObject;
             JsonObject payload = event.getJsonObject(PAYLOAD_KEY);
-            String ruleId = payload.getString(RULE_ID);
-            String ruleDescription = payload.getString(RULE_DESCRIPTION);
-            String ruleRisk = payload.getString(TOTAL_RISK);
-            String ruleIncident = payload.getString(HAS_INCIDENT);
-            String ruleURL = payload.getString(RULE_URL);
-            Map<String, Object> ruleData;
 
             switch (eventType) {
                 case NEW_RECOMMENDATION:
-                    ruleData = newRecommendations.computeIfAbsent(
-                        ruleId, key -> {
-                            countRecommendationsAndIncidents(ruleIncident);
-                            return new HashMap<>(Map.of(
-                            RULE_DESCRIPTION, ruleDescription,
-                            HAS_INCIDENT, ruleIncident,
-                            TOTAL_RISK, ruleRisk,
-                            RULE_URL, ruleURL,
-                            CONTENT_SYSTEM_COUNT, 0
-                            ));
-                        }
-                    );
-                    ruleData.put(
-                        CONTENT_SYSTEM_COUNT, (Integer) ruleData.get(CONTENT_SYSTEM_COUNT) + 1
-                    );
-
-                    // Sort the map and then update it in the JSON object.
-                    this.newRecommendations = this.sortAndLimitMapByRisk(this.newRecommendations);
-                    this.advisorJson.put(NEW_RECOMMENDATIONS, newRecommendations);
-
+                    this.addRecommendation(this.newRecommendations, eventType, payload, true);
                     break;
                 case RESOLVED_RECOMMENDATION:
-                    ruleData = resolvedRecommendations.computeIfAbsent(
-                        ruleId, key -> {
-                            countRecommendationsAndIncidents(ruleIncident);
-                            return new HashMap<>(Map.of(
-                            RULE_DESCRIPTION, ruleDescription,
-                            HAS_INCIDENT, ruleIncident,
-                            TOTAL_RISK, ruleRisk,
-                            RULE_URL, ruleURL,
-                            CONTENT_SYSTEM_COUNT, 0
-                        ));
-                        }
-                    );
-                    ruleData.put(
-                        CONTENT_SYSTEM_COUNT, (Integer) ruleData.get(CONTENT_SYSTEM_COUNT) + 1
-                    );
-
-                    // Sort the map and then update it in the JSON object.
-                    this.resolvedRecommendations = this.sortAndLimitMapByRisk(this.resolvedRecommendations);
-                    this.advisorJson.put(RESOLVED_RECOMMENDATIONS, this.resolvedRecommendations);
-
+                    this.addRecommendation(this.resolvedRecommendations, eventType, payload, true);
                     break;
                 case DEACTIVATED_RECOMMENDATION:
-                    deactivatedRecommendations.computeIfAbsent(
-                        ruleId, key -> {
-                            countRecommendationsAndIncidents(ruleIncident);
-                            return new HashMap<>(Map.of(
-                            RULE_DESCRIPTION, ruleDescription,
-                            HAS_INCIDENT, ruleIncident,
-                            TOTAL_RISK, ruleRisk,
-                            RULE_URL, ruleURL
-                        ));
-                        }
-                    );
-
-                    // Sort the map and then update it in the JSON object.
-                    this.deactivatedRecommendations = this.sortAndLimitMapByRisk(this.deactivatedRecommendations);
-                    this.advisorJson.put(DEACTIVATED_RECOMMENDATIONS, this.deactivatedRecommendations);
-
+                    this.addRecommendation(this.deactivatedRecommendations, eventType, payload, false);
                     break;
                 default:
                     break;
@@ -237,17 +178,71 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
         });
     }
 
-    private void countRecommendationsAndIncidents(String ruleIncident) {
-        recommendationCounter.incrementAndGet();
+    /**
+     * Adds a rule to the given recommendations unless it was already left out
+     * of them. Since the recommendations are ordered by the immutable risk and
+     * ID of the rules, a rule which was left out can never be part of the
+     * highest risk recommendations again.
+     * @param recommendations the current recommendations.
+     * @param eventType the type of the received event.
+     * @param payload the payload of the received event.
+     * @param countSystems whether the affected systems should be counted.
+     */
+    private void addRecommendation(BoundedList<Recommendation> recommendations, String eventType, JsonObject payload, boolean countSystems) {
+        String ruleId = payload.getString(RULE_ID);
+        String ruleIncident = payload.getString(HAS_INCIDENT);
         if (Boolean.valueOf(ruleIncident)) {
-            incidentCounter.incrementAndGet();
+            incidentRules.add(eventType + "/" + ruleId);
+        }
+
+        Recommendation recommendation = recommendations.get(ruleId);
+        if (recommendation == null) {
+            recommendation = new Recommendation(
+                    ruleId,
+                    payload.getString(RULE_DESCRIPTION),
+                    ruleIncident,
+                    payload.getString(TOTAL_RISK),
+                    payload.getString(RULE_URL),
+                    countSystems ? new AtomicInteger() : null
+            );
+            if (!recommendations.add(recommendation)) {
+                // The rule was left out of the recommendations, only its ID is counted.
+                return;
+            }
+        }
+        if (countSystems) {
+            recommendation.systems().incrementAndGet();
+        }
+    }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> advisor = new LinkedHashMap<>();
+        advisor.put(TOTAL_INCIDENT, incidentRules.count());
+        advisor.put(TOTAL_RECOMMENDATION, newRecommendations.getCount() + resolvedRecommendations.getCount() + deactivatedRecommendations.getCount());
+        putRecommendations(advisor, NEW_RECOMMENDATIONS, newRecommendations);
+        putRecommendations(advisor, RESOLVED_RECOMMENDATIONS, resolvedRecommendations);
+        putRecommendations(advisor, DEACTIVATED_RECOMMENDATIONS, deactivatedRecommendations);
+        context.put(ADVISOR_KEY, readOnly(advisor));
+    }
+
+    /**
+     * Puts the given recommendations in the advisor context, along with the
+     * number of rules which were left out of them if there are any. Nothing is
+     * put if no rule of that kind was received.
+     */
+    private static void putRecommendations(Map<String, Object> advisor, String key, BoundedList<Recommendation> recommendations) {
+        if (recommendations.getCount() > 0) {
+            putBoundedById(advisor, key, recommendations, Recommendation::view);
         }
     }
 
     /**
      * Sorts the provided map by the "total_risk" element and limits it to the
-     * maximum number of allowed elements specified in
-     * {@link AdvisorEmailAggregator#MAXIMUM_NUMBER_RETURNED_EVENTS}.
+     * maximum number of entries of the aggregator, which is
+     * {@link AdvisorEmailAggregator#MAXIMUM_NUMBER_RETURNED_EVENTS} unless the
+     * limit was configured for Advisor. Rules with the same risk are sorted by
+     * ID so that the result does not depend on the order of the events.
      * @param unsortedMap the map to be sorted and limited.
      * @return a new map instance that
      */
@@ -261,7 +256,12 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
             // The order is reversed because we want the list to be in
             // descending order, since we want the elements sorted from the
             // highest risk to the lowest one.
-            return o2TotalRisk.compareTo(o1TotalRisk);
+            final int riskComparison = o2TotalRisk.compareTo(o1TotalRisk);
+            if (riskComparison != 0) {
+                return riskComparison;
+            }
+
+            return o1.getKey().compareTo(o2.getKey());
         });
 
         // Create the resulting map we are about to return. Make it a linked
@@ -269,13 +269,13 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
         // capacity to a MAX + 1 and a load factor of "1.0" so that the
         // hashmap doesn't get rearranged when it is close to be fully loaded.
         final LinkedHashMap<String, Map<String, Object>> resultMap = new LinkedHashMap<>(
-            MAXIMUM_NUMBER_RETURNED_EVENTS + 1,
+            this.getMaxEntries() + 1,
             1.0F
         );
 
         // Populate the new map.
         for (final Map.Entry<String, Map<String, Object>> entry : sortedEntries) {
-            if (resultMap.size() > MAXIMUM_NUMBER_RETURNED_EVENTS - 1) {
+            if (resultMap.size() > this.getMaxEntries() - 1) {
                 break;
             }
 
@@ -286,4 +286,23 @@ public class AdvisorEmailAggregator extends AbstractEmailPayloadAggregator {
 
         return resultMap;
     }
+
+    private record Recommendation(String ruleId, String description, String hasIncident, String risk, String url, AtomicInteger systems) {
+
+        int totalRisk() {
+            return Integer.parseInt(risk);
+        }
+
+        Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put(RULE_DESCRIPTION, description);
+            view.put(HAS_INCIDENT, hasIncident);
+            view.put(TOTAL_RISK, risk);
+            view.put(RULE_URL, url);
+            if (systems != null) {
+                view.put(CONTENT_SYSTEM_COUNT, systems.get());
+            }
+            return readOnly(view);
+        }
+    }
 }
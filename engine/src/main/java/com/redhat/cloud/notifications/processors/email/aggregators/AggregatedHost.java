@@ -0,0 +1,40 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.redhat.cloud.notifications.processors.email.aggregators.AbstractEmailPayloadAggregator.jsonView;
+import static com.redhat.cloud.notifications.processors.email.aggregators.AbstractEmailPayloadAggregator.orderedBy;
+import static com.redhat.cloud.notifications.processors.email.aggregators.AbstractEmailPayloadAggregator.readOnly;
+
+/**
+ * A host listed in the context of a digest email.
+ */
+record AggregatedHost(String displayName, String inventoryId, Object tags) {
+
+    private static final String DISPLAY_NAME = "display_name";
+    private static final String INVENTORY_ID = "inventory_id";
+    private static final String TAGS = "tags";
+
+    // The hosts are listed by display name, then by inventory ID.
+    static final Comparator<AggregatedHost> ORDER = orderedBy(AggregatedHost::displayName)
+            .thenComparing(orderedBy(AggregatedHost::inventoryId));
+
+    /**
+     * Reads the host from the context of an event.
+     */
+    static AggregatedHost from(JsonObject context) {
+        return new AggregatedHost(context.getString(DISPLAY_NAME), context.getString(INVENTORY_ID), jsonView(context.getJsonArray(TAGS)));
+    }
+
+    Map<String, Object> view() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put(DISPLAY_NAME, displayName);
+        view.put(INVENTORY_ID, inventoryId);
+        view.put(TAGS, tags);
+        return readOnly(view);
+    }
+}
@@ -2,6 +2,8 @@ package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
 
+import java.util.Map;
+
 public class AnsibleEmailAggregator extends AbstractEmailPayloadAggregator {
 
     public AnsibleEmailAggregator() {
@@ -13,4 +15,8 @@ public class AnsibleEmailAggregator extends AbstractEmailPayloadAggregator {
         throw new RuntimeException("Not implemented yet");
     }
 
+    @Override
+    void fillContext(Map<String, Object> context) {
+    }
+
 }
@@ -0,0 +1,125 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps the first entries according to an order, up to a maximum size, and counts the entries which were left out.
+ * An entry is only left out or evicted when the list contains as many entries that come before it, so the kept entries
+ * do not depend on the order in which they were added, and an entry which was left out could never be kept later.
+ * <p>
+ * When the entries have an identity, the entries which were left out are counted once per identity, with a
+ * {@link DistinctCounter}, and the kept entries can be retrieved by identity.
+ */
+class BoundedList<T> {
+
+    // The maximum size is read when entries are added because it can be set after the aggregator was created.
+    private final IntSupplier maxSize;
+    private final Comparator<? super T> order;
+    private final Function<? super T, String> identity;
+    // The kept entries, the last one according to the order at the head of the queue so that it can be evicted.
+    private final PriorityQueue<T> entries;
+    private final Map<String, T> entriesById = new HashMap<>();
+    private final DistinctCounter<Void> ids = new DistinctCounter<>();
+    private int added;
+
+    BoundedList(IntSupplier maxSize, Comparator<? super T> order) {
+        this(maxSize, order, null);
+    }
+
+    BoundedList(IntSupplier maxSize, Comparator<? super T> order, Function<? super T, String> identity) {
+        this.maxSize = maxSize;
+        this.order = order;
+        this.identity = identity;
+        this.entries = new PriorityQueue<>(order.reversed());
+    }
+
+    /**
+     * Adds an entry unless the list already contains the entry with the same identity, or as many entries that come
+     * before it. The entry which comes last is evicted if the list is full.
+     * @return {@code true} if the entry was added
+     */
+    boolean add(T entry) {
+        String id = null;
+        if (identity == null) {
+            added++;
+        } else {
+            id = identity.apply(entry);
+            if (entriesById.containsKey(id)) {
+                return false;
+            }
+            ids.add(id);
+        }
+        if (entries.size() >= maxSize.getAsInt()) {
+            if (entries.isEmpty() || order.compare(entry, entries.peek()) >= 0) {
+                return false;
+            }
+            T evicted = entries.poll();
+            if (identity != null) {
+                entriesById.remove(identity.apply(evicted));
+            }
+        }
+        entries.add(entry);
+        if (identity != null) {
+            entriesById.put(id, entry);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the kept entry with the given identity, or {@code null} if there is none.
+     */
+    T get(String id) {
+        return entriesById.get(id);
+    }
+
+    /**
+     * Returns the number of entries which were added, or the number of distinct identities if the entries have one.
+     */
+    int getCount() {
+        return identity == null ? added : ids.count();
+    }
+
+    int getOverflow() {
+        return Math.max(0, getCount() - entries.size());
+    }
+
+    /**
+     * Returns the kept entries, in order.
+     */
+    List<T> getEntries() {
+        List<T> sortedEntries = new ArrayList<>(entries);
+        sortedEntries.sort(order);
+        return sortedEntries;
+    }
+
+    /**
+     * Returns a read-only list of the views of the entries, in order.
+     */
+    List<Object> view(Function<? super T, Object> entryView) {
+        List<Object> views = new ArrayList<>(entries.size());
+        for (T entry : getEntries()) {
+            views.add(entryView.apply(entry));
+        }
+        return Collections.unmodifiableList(views);
+    }
+
+    /**
+     * Returns a read-only map of the views of the entries by identity, in order.
+     */
+    Map<String, Object> viewById(Function<? super T, Object> entryView) {
+        Map<String, Object> views = new LinkedHashMap<>();
+        for (T entry : getEntries()) {
+            views.put(identity.apply(entry), entryView.apply(entry));
+        }
+        return Collections.unmodifiableMap(views);
+    }
+}
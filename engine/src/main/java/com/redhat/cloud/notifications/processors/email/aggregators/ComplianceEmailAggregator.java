@@ -1,11 +1,13 @@
 package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ComplianceEmailAggregator extends AbstractEmailPayloadAggregator {
 
@@ -18,18 +20,26 @@ public class ComplianceEmailAggregator extends AbstractEmailPayloadAggregator {
     // private static final List<String> EVENT_TYPES = Arrays.asList(REPORT_UPLOAD_FAILED, SYSTEM_NON_COMPLIANT, SYSTEM_NOT_REPORTING);
 
     private static final String COMPLIANCE_KEY = "compliance";
-    private static final String CONTEXT_KEY = "context";
     private static final String EVENTS_KEY = "events";
     private static final String PAYLOAD_KEY = "payload";
+    private static final String HOST_NAME = "host_name";
+    private static final String POLICY_ID = "policy_id";
 
-    public ComplianceEmailAggregator() {
-        JsonObject compliance = new JsonObject();
+    /*
+     * The payloads are listed by host name, then by policy ID. The encoded payloads break the remaining ties, so that
+     * the kept payloads do not depend on the order of the events.
+     */
+    private static final Comparator<JsonObject> PAYLOAD_ORDER = AbstractEmailPayloadAggregator.<JsonObject>orderedBy(payload -> payload.getString(HOST_NAME))
+            .thenComparing(orderedBy(payload -> payload.getString(POLICY_ID)))
+            .thenComparing(orderedBy(JsonObject::encode));
 
-        compliance.put(REPORT_UPLOAD_FAILED, new JsonArray());
-        compliance.put(SYSTEM_NON_COMPLIANT, new JsonArray());
-        // compliance.put(SYSTEM_NOT_REPORTING, new JsonArray());
+    // The payloads of the events, by event type.
+    private final Map<String, BoundedList<JsonObject>> payloads = new LinkedHashMap<>();
 
-        context.put(COMPLIANCE_KEY, compliance);
+    public ComplianceEmailAggregator() {
+        for (String eventType : EVENT_TYPES) {
+            payloads.put(eventType, newBoundedList(PAYLOAD_ORDER));
+        }
     }
 
     @Override
@@ -37,19 +47,24 @@ public class ComplianceEmailAggregator extends AbstractEmailPayloadAggregator {
         JsonObject notificationJson = notification.getPayload();
         String eventType = notificationJson.getString(EVENT_TYPE);
 
-        JsonObject compliance = this.context.getJsonObject(COMPLIANCE_KEY);
-
         // Ignore events that are not declared among the supported event types
         if (!EVENT_TYPES.contains(eventType)) {
             return;
         }
 
+        BoundedList<JsonObject> eventTypePayloads = payloads.get(eventType);
         notificationJson.getJsonArray(EVENTS_KEY).stream().forEach(eventObject -> {
             JsonObject event = (JsonObject) eventObject;
-            JsonObject payload = event.getJsonObject(PAYLOAD_KEY);
-
-            JsonArray collection = compliance.getJsonArray(eventType);
-            collection.add(payload);
+            eventTypePayloads.add(event.getJsonObject(PAYLOAD_KEY));
         });
     }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> compliance = new LinkedHashMap<>();
+        for (Map.Entry<String, BoundedList<JsonObject>> eventTypePayloads : payloads.entrySet()) {
+            putBounded(compliance, eventTypePayloads.getKey(), eventTypePayloads.getValue(), AbstractEmailPayloadAggregator::jsonView);
+        }
+        context.put(COMPLIANCE_KEY, readOnly(compliance));
+    }
 }
@@ -0,0 +1,122 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the distinct keys added to it, like the size of a set of these keys would, but with a bounded memory. The
+ * counter keeps the hashes of the keys, up to {@link #MAX_HASHES} of them, so the count is exact until more distinct
+ * keys are added. Beyond that, only the smallest hashes are kept and the count is estimated from the largest of them
+ * (k minimum values estimator), with a relative standard error of about 3%.
+ * <p>
+ * A value can be kept with each key, the last value put with a key replaces the previous one. Since the hashes are
+ * uniformly distributed, the kept keys are a uniform sample of the distinct keys and the number of keys by value can
+ * be estimated from that sample as well.
+ */
+class DistinctCounter<V> {
+
+    static final int MAX_HASHES = 1024;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The smallest hashes of the keys, in ascending order, and the values of their keys.
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private Object[] values;
+    private int size;
+    // Whether more distinct keys than MAX_HASHES were added.
+    private boolean saturated;
+
+    void add(String key) {
+        insert(key);
+    }
+
+    void put(String key, V value) {
+        int index = insert(key);
+        if (index >= 0) {
+            if (values == null && value != null) {
+                values = new Object[hashes.length];
+            }
+            if (values != null) {
+                values[index] = value;
+            }
+        }
+    }
+
+    /*
+     * Inserts the hash of the key unless it is already kept, and returns its index, or -1 if the hash is not kept
+     * because it is greater than all the kept ones.
+     */
+    private int insert(String key) {
+        long hash = hash(key);
+        int index = Arrays.binarySearch(hashes, 0, size, hash);
+        if (index >= 0) {
+            return index;
+        }
+        int insertionIndex = -index - 1;
+        if (size == MAX_HASHES) {
+            saturated = true;
+            if (insertionIndex == size) {
+                return -1;
+            }
+            // The greatest hash is dropped to make room for the new one.
+            size--;
+        } else if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, Math.min(hashes.length * 2, MAX_HASHES));
+            if (values != null) {
+                values = Arrays.copyOf(values, hashes.length);
+            }
+        }
+        System.arraycopy(hashes, insertionIndex, hashes, insertionIndex + 1, size - insertionIndex);
+        hashes[insertionIndex] = hash;
+        if (values != null) {
+            System.arraycopy(values, insertionIndex, values, insertionIndex + 1, size - insertionIndex);
+            values[insertionIndex] = null;
+        }
+        size++;
+        return insertionIndex;
+    }
+
+    int count() {
+        if (!saturated) {
+            return size;
+        }
+        // The hashes are uniformly distributed over [0, 2^63), so the greatest kept hash shrinks as the count grows.
+        double estimate = (size - 1) * 0x1p63 / hashes[size - 1];
+        return (int) Math.max(size + 1, Math.min(Math.round(estimate), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the number of keys by value, in the order of the first appearance of the values among the kept keys.
+     * The numbers are exact unless the count is an estimate, in which case they are scaled from the kept keys.
+     */
+    @SuppressWarnings("unchecked")
+    Map<V, Integer> countByValue() {
+        Map<V, Integer> sampleCounts = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            sampleCounts.merge(values == null ? null : (V) values[i], 1, Integer::sum);
+        }
+        if (!saturated) {
+            return sampleCounts;
+        }
+        double scale = (double) count() / size;
+        Map<V, Integer> counts = new LinkedHashMap<>();
+        sampleCounts.forEach((value, sampleCount) -> counts.put(value, (int) Math.round(sampleCount * scale)));
+        return counts;
+    }
+
+    /*
+     * 64-bit FNV-1a hash of the key, followed by the finalizer of MurmurHash3 which spreads it uniformly. The sign bit
+     * is cleared so that the hashes can be compared as signed longs.
+     */
+    static long hash(String key) {
+        String value = String.valueOf(key);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (hash ^ (hash >>> 33)) >>> 1;
+    }
+}
@@ -1,17 +1,20 @@
 package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class InventoryEmailAggregator extends AbstractEmailPayloadAggregator {
 
     private static final String EVENT_TYPE = "event_type";
     private static final String VALIDATION_ERROR = "validation-error";
     private static final String ERRORS = "errors";
+    private static final String ERROR_COUNT = "error_count";
 
     private static final List<String> EVENT_TYPES = Arrays.asList(VALIDATION_ERROR);
 
@@ -22,17 +25,20 @@ public class InventoryEmailAggregator extends AbstractEmailPayloadAggregator {
     private static final String MESSAGE_KEY = "message";
     private static final String DISPLAY_NAME_KEY = "display_name";
 
-    public InventoryEmailAggregator() {
-        JsonObject inventory = new JsonObject();
+    public static final int MAXIMUM_NUMBER_LISTED_ERRORS = 10;
+
+    // The errors are listed by host display name, then by message.
+    private static final Comparator<Error> ERROR_ORDER = orderedBy(Error::displayName).thenComparing(orderedBy(Error::message));
 
-        inventory.put(ERRORS, new JsonArray());
+    private final BoundedList<Error> errors = newBoundedList(ERROR_ORDER);
 
-        context.put(INVENTORY_KEY, inventory);
+    public InventoryEmailAggregator() {
+        // The digest lists the first errors only.
+        setMaxEntries(MAXIMUM_NUMBER_LISTED_ERRORS);
     }
 
     @Override
     void processEmailAggregation(EmailAggregation notification) {
-        JsonObject inventory = context.getJsonObject(INVENTORY_KEY);
         JsonObject notificationJson = notification.getPayload();
         String eventType = notificationJson.getString(EVENT_TYPE);
 
@@ -44,15 +50,26 @@ public class InventoryEmailAggregator extends AbstractEmailPayloadAggregator {
             JsonObject event = (JsonObject) eventObject;
             JsonObject payload = event.getJsonObject(PAYLOAD_KEY);
             JsonObject receivedErrorObject = payload.getJsonObject(ERROR_KEY);
-            String errorMessage = receivedErrorObject.getString(MESSAGE_KEY);
-            String displayName = payload.getString(DISPLAY_NAME_KEY);
 
-            JsonObject error = new JsonObject();
+            errors.add(new Error(receivedErrorObject.getString(MESSAGE_KEY), payload.getString(DISPLAY_NAME_KEY)));
+        });
+    }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> inventory = new LinkedHashMap<>();
+        putBounded(inventory, ERRORS, errors, Error::view);
+        inventory.put(ERROR_COUNT, errors.getCount());
+        context.put(INVENTORY_KEY, readOnly(inventory));
+    }
 
-            error.put("message", errorMessage);
-            error.put("display_name", displayName);
+    private record Error(String message, String displayName) {
 
-            inventory.getJsonArray(ERRORS).add(error);
-        });
+        Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put(MESSAGE_KEY, message);
+            view.put(DISPLAY_NAME_KEY, displayName);
+            return readOnly(view);
+        }
     }
 }
@@ -1,24 +1,21 @@
 package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
 
 public class PatchEmailPayloadAggregator extends AbstractEmailPayloadAggregator {
 
     // Notification common
-    private static final String CONTEXT_KEY = "context";
     private static final String EVENT_TYPE_KEY = "event_type";
     private static final String EVENTS_KEY = "events";
     private static final String PAYLOAD_KEY = "payload";
 
-    // Patch context
-    private static final String INVENTORY_ID = "inventory_id";
-
     // Patch event payload
     private static final String ADVISORY_NAME = "advisory_name";
     private static final String ADVISORY_TYPE = "advisory_type";
@@ -26,7 +23,9 @@ public class PatchEmailPayloadAggregator extends AbstractEmailPayloadAggregator
 
     // Patch aggregator
     private static final String PATCH_KEY = "patch";
-    private static final String ADVISORIES_KEY = "advisories";
+    private static final String NAME = "name";
+    // The overflow counts can't be stored in the patch object because the templates iterate over its keys.
+    private static final String PATCH_OVERFLOW_KEY = PATCH_KEY + OVERFLOW_SUFFIX;
 
     private static final String NEW_ADVISORIES_EVENT = "new-advisory";
     private static final List<String> EVENT_TYPES = Arrays.asList(NEW_ADVISORIES_EVENT);
@@ -39,23 +38,23 @@ public class PatchEmailPayloadAggregator extends AbstractEmailPayloadAggregator
     private static final List<String> ADVISORY_TYPES = Arrays.asList(ENHANCEMENT_TYPE, BUGFIX_TYPE, SECURITY_TYPE, UNSPECIFIED_TYPE);
 
     private static final String TOTAL_ADVISORIES = "total_advisories";
-    private final AtomicInteger totalAdvisories = new AtomicInteger(0);
+    private int totalAdvisories;
 
-    public PatchEmailPayloadAggregator() {
-        JsonObject patch = new JsonObject();
+    // The advisories of each type are listed by name, then by synopsis.
+    private static final Comparator<Advisory> ADVISORY_ORDER = orderedBy(Advisory::name).thenComparing(orderedBy(Advisory::synopsis));
 
-        patch.put(SECURITY_TYPE, new JsonArray());
-        patch.put(BUGFIX_TYPE, new JsonArray());
-        patch.put(ENHANCEMENT_TYPE, new JsonArray());
-        patch.put(OTHER_TYPE, new JsonArray());
+    // The advisories by type, in the order of the digest sections.
+    private final Map<String, BoundedList<Advisory>> advisories = new LinkedHashMap<>();
 
-        context.put(PATCH_KEY, patch);
-        context.put(TOTAL_ADVISORIES, totalAdvisories);
+    public PatchEmailPayloadAggregator() {
+        advisories.put(SECURITY_TYPE, newBoundedList(ADVISORY_ORDER));
+        advisories.put(BUGFIX_TYPE, newBoundedList(ADVISORY_ORDER));
+        advisories.put(ENHANCEMENT_TYPE, newBoundedList(ADVISORY_ORDER));
+        advisories.put(OTHER_TYPE, newBoundedList(ADVISORY_ORDER));
     }
 
     @Override
     void processEmailAggregation(EmailAggregation notification) {
-        JsonObject patch = context.getJsonObject(PATCH_KEY);
         JsonObject notificationPayload = notification.getPayload();
         String eventType = notificationPayload.getString(EVENT_TYPE_KEY);
 
@@ -63,8 +62,6 @@ public class PatchEmailPayloadAggregator extends AbstractEmailPayloadAggregator
             return;
         }
 
-        JsonObject payloadContext = notificationPayload.getJsonObject(CONTEXT_KEY);
-
         // Put and group advisories
         notificationPayload.getJsonArray(EVENTS_KEY).stream().forEach(eventObject -> {
             JsonObject event = (JsonObject) eventObject;
@@ -76,16 +73,39 @@ public class PatchEmailPayloadAggregator extends AbstractEmailPayloadAggregator
                 return;
             }
 
-            String advisoryName = payload.getString(ADVISORY_NAME);
-
             // Group unspecified advisories under other type
             if (advisoryType.equals(UNSPECIFIED_TYPE)) {
-                advisoryType = OTHER_TYPE.toString();
+                advisoryType = OTHER_TYPE;
             }
 
-            String synopsis = payload.getString(SYNOPSIS);
-            patch.getJsonArray(advisoryType).add(new JsonObject().put("name", advisoryName).put("synopsis", synopsis));
-            totalAdvisories.incrementAndGet();
+            advisories.get(advisoryType).add(new Advisory(payload.getString(ADVISORY_NAME), payload.getString(SYNOPSIS)));
+            totalAdvisories++;
         });
     }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> patch = new LinkedHashMap<>();
+        Map<String, Object> patchOverflow = new LinkedHashMap<>();
+        for (Map.Entry<String, BoundedList<Advisory>> typeAdvisories : advisories.entrySet()) {
+            BoundedList<Advisory> entries = typeAdvisories.getValue();
+            patch.put(typeAdvisories.getKey(), entries.view(Advisory::view));
+            if (entries.getOverflow() > 0) {
+                patchOverflow.put(typeAdvisories.getKey(), entries.getOverflow());
+            }
+        }
+        context.put(PATCH_KEY, readOnly(patch));
+        context.put(PATCH_OVERFLOW_KEY, readOnly(patchOverflow));
+        context.put(TOTAL_ADVISORIES, totalAdvisories);
+    }
+
+    private record Advisory(String name, String synopsis) {
+
+        Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put(NAME, name);
+            view.put(SYNOPSIS, synopsis);
+            return readOnly(view);
+        }
+    }
 }
@@ -1,19 +1,18 @@
 package com.redhat.cloud.notifications.processors.email.aggregators;
 
 import com.redhat.cloud.notifications.models.EmailAggregation;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 class PoliciesEmailPayloadAggregator extends AbstractEmailPayloadAggregator {
 
     private static final String POLICIES_KEY = "policies";
     private static final String HOST_KEY = "hosts";
     private static final String UNIQUE_SYSTEM_COUNT = "unique_system_count";
+    private static final String POLICY_COUNT = "policy_count";
     private static final String CONTEXT_KEY = "context";
     private static final String EVENTS_KEY = "events";
     private static final String PAYLOAD_KEY = "payload";
@@ -24,60 +23,69 @@ class PoliciesEmailPayloadAggregator extends AbstractEmailPayloadAggregator {
     private static final String POLICY_DESCRIPTION = "policy_description";
     private static final String POLICY_CONDITION = "policy_condition";
 
-    // Host
-    private static final String DISPLAY_NAME = "display_name";
-    private static final String INVENTORY_ID = "inventory_id";
-    private static final String TAGS = "tags";
+    // The policies are listed by name, then by ID.
+    private static final Comparator<Policy> POLICY_ORDER = orderedBy(Policy::name).thenComparing(orderedBy(Policy::id));
 
-    private final Set<String> uniqueHosts = new HashSet<>();
-    private final Map<String, HashSet<String>> uniqueHostPerPolicy = new HashMap<>();
-
-    PoliciesEmailPayloadAggregator() {
-        context.put(POLICIES_KEY, new JsonObject());
-    }
+    private final DistinctCounter<Void> uniqueHosts = new DistinctCounter<>();
+    private final BoundedList<Policy> policies = newBoundedList(POLICY_ORDER, Policy::id);
 
     void processEmailAggregation(EmailAggregation notification) {
         JsonObject notificationJson = notification.getPayload();
-
-        JsonObject policies = context.getJsonObject(POLICIES_KEY);
         JsonObject context = notificationJson.getJsonObject(CONTEXT_KEY);
 
-        JsonObject host = new JsonObject();
-        this.copyStringField(host, context, DISPLAY_NAME);
-        this.copyStringField(host, context, INVENTORY_ID);
-        host.put(TAGS, context.getJsonArray(TAGS));
+        AggregatedHost host = AggregatedHost.from(context);
 
         notificationJson.getJsonArray(EVENTS_KEY).stream().forEach(eventObject -> {
             JsonObject event = (JsonObject) eventObject;
             JsonObject payload = event.getJsonObject(PAYLOAD_KEY);
             String policyId = payload.getString(POLICY_ID);
 
-            if (!policies.containsKey(policyId)) {
-                JsonObject newPolicy = new JsonObject();
-                this.copyStringField(newPolicy, payload, POLICY_NAME);
-                this.copyStringField(newPolicy, payload, POLICY_ID);
-                this.copyStringField(newPolicy, payload, POLICY_DESCRIPTION);
-                this.copyStringField(newPolicy, payload, POLICY_CONDITION);
-
-                newPolicy.put(HOST_KEY, new JsonArray());
-
-                policies.put(policyId, newPolicy);
-                uniqueHostPerPolicy.put(policyId, new HashSet<>());
+            Policy policy = policies.get(policyId);
+            if (policy == null) {
+                policy = new Policy(
+                        payload.getString(POLICY_NAME),
+                        payload.getString(POLICY_ID),
+                        payload.getString(POLICY_DESCRIPTION),
+                        payload.getString(POLICY_CONDITION),
+                        newBoundedList(AggregatedHost.ORDER, AggregatedHost::inventoryId)
+                );
+                if (!policies.add(policy)) {
+                    // The policy was left out of the digest, only its ID is counted.
+                    return;
+                }
             }
 
-            JsonObject policy = policies.getJsonObject(policyId);
-            String insightsId = host.getString(INVENTORY_ID);
-            policy.getJsonArray(HOST_KEY).add(host);
-            uniqueHostPerPolicy.get(policyId).add(insightsId);
-            policy.put(UNIQUE_SYSTEM_COUNT, this.uniqueHostPerPolicy.get(policyId).size());
+            // Each host is listed once per policy.
+            policy.hosts().add(host);
         });
 
-        String insightsId = host.getString(INVENTORY_ID);
-        uniqueHosts.add(insightsId);
-        this.context.put(UNIQUE_SYSTEM_COUNT, this.uniqueHosts.size());
+        uniqueHosts.add(host.inventoryId());
+    }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        putBoundedById(context, POLICIES_KEY, policies, Policy::view);
+        context.put(POLICY_COUNT, policies.getCount());
+        if (getProcessedAggregations() > 0) {
+            context.put(UNIQUE_SYSTEM_COUNT, uniqueHosts.count());
+        }
     }
 
     Integer getUniqueHostCount() {
-        return this.uniqueHosts.size();
+        return this.uniqueHosts.count();
+    }
+
+    private record Policy(String name, String id, String description, String condition, BoundedList<AggregatedHost> hosts) {
+
+        Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put(POLICY_NAME, name);
+            view.put(POLICY_ID, id);
+            view.put(POLICY_DESCRIPTION, description);
+            view.put(POLICY_CONDITION, condition);
+            putBounded(view, HOST_KEY, hosts, AggregatedHost::view);
+            view.put(UNIQUE_SYSTEM_COUNT, hosts.getCount());
+            return readOnly(view);
+        }
     }
 }
@@ -5,12 +5,10 @@ import io.quarkus.logging.Log;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import static java.util.stream.Collectors.counting;
-import static java.util.stream.Collectors.groupingBy;
-
 public class ResourceOptimizationPayloadAggregator extends AbstractEmailPayloadAggregator {
 
     public static final String AGGREGATED_DATA = "aggregated_data";
@@ -20,10 +18,17 @@ public class ResourceOptimizationPayloadAggregator extends AbstractEmailPayloadA
     public static final String STATE = "state";
     public static final String SYSTEM_COUNT = "system_count";
 
-    private final Map</* inventory_id */ String, /* current_state */ String> currentStates = new HashMap<>();
+    // The states are listed by name.
+    private static final Comparator<State> STATE_ORDER = orderedBy(State::name);
+
+    /*
+     * The current state of each system, by inventory ID. Beyond a thousand systems, only the states of a uniform
+     * sample of the systems are kept and the numbers of systems by state are estimated from that sample.
+     */
+    private final DistinctCounter<String> currentStates = new DistinctCounter<>();
+    private Integer systemsWithSuggestions;
 
     ResourceOptimizationPayloadAggregator() {
-        context.put(AGGREGATED_DATA, new JsonObject());
     }
 
     /*
@@ -37,15 +42,12 @@ public class ResourceOptimizationPayloadAggregator extends AbstractEmailPayloadA
      * method, the final aggregated data is used in the daily email template.
      */
     void processEmailAggregation(EmailAggregation aggregation) {
-        JsonObject aggregatedData = context.getJsonObject(AGGREGATED_DATA);
-
         /*
          * The aggregated data used in the daily digest will always contain the latest
          * systems_with_suggestions value because email aggregations are processed in
          * ascending chronological order.
          */
-        int systemsWithSuggestions = aggregation.getPayload().getJsonObject("context").getInteger(SYSTEMS_WITH_SUGGESTIONS);
-        aggregatedData.put(SYSTEMS_WITH_SUGGESTIONS, systemsWithSuggestions);
+        systemsWithSuggestions = aggregation.getPayload().getJsonObject("context").getInteger(SYSTEMS_WITH_SUGGESTIONS);
 
         JsonArray events = aggregation.getPayload().getJsonArray("events");
         /*
@@ -65,26 +67,34 @@ public class ResourceOptimizationPayloadAggregator extends AbstractEmailPayloadA
              */
             currentStates.put(inventoryId, payload.getString("current_state"));
         }
+    }
 
-        aggregatedData.put(SYSTEMS_TRIGGERED, currentStates.keySet().size());
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> aggregatedData = new LinkedHashMap<>();
+        if (getProcessedAggregations() > 0) {
+            aggregatedData.put(SYSTEMS_WITH_SUGGESTIONS, systemsWithSuggestions);
+            aggregatedData.put(SYSTEMS_TRIGGERED, currentStates.count());
 
-        /*
-         * This transforms the currentStates map into another map where each state becomes a key
-         * and the associated value is the number of systems that currently are in that state.
-         */
-        Map<String, Long> stateSystemCounts = currentStates.entrySet().stream()
-                .collect(groupingBy(Map.Entry::getValue, counting()));
+            /*
+             * Each state is listed with the number of systems that currently are in that state.
+             * The states are counted once, when the context is built, and sorted by name so that
+             * the digest does not depend on the iteration order of the systems.
+             */
+            BoundedList<State> states = newBoundedList(STATE_ORDER);
+            currentStates.countByValue().forEach((state, systemCount) -> states.add(new State(state, systemCount)));
+            putBounded(aggregatedData, STATES, states, State::view);
+        }
+        context.put(AGGREGATED_DATA, readOnly(aggregatedData));
+    }
 
-        /*
-         * The states array is rebuilt on each invocation of this method.
-         */
-        JsonArray states = new JsonArray();
-        for (Map.Entry<String, Long> stateSystemCount : stateSystemCounts.entrySet()) {
-            JsonObject state = new JsonObject();
-            state.put(STATE, stateSystemCount.getKey());
-            state.put(SYSTEM_COUNT, stateSystemCount.getValue());
-            states.add(state);
+    private record State(String name, int systemCount) {
+
+        Map<String, Object> view() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put(STATE, name);
+            view.put(SYSTEM_COUNT, systemCount);
+            return readOnly(view);
         }
-        aggregatedData.put(STATES, states);
     }
 }
@@ -4,8 +4,13 @@ import com.redhat.cloud.notifications.models.EmailAggregation;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class VulnerabilityEmailPayloadAggregator extends AbstractEmailPayloadAggregator {
 
@@ -20,6 +25,7 @@ public class VulnerabilityEmailPayloadAggregator extends AbstractEmailPayloadAgg
     // Vulnerability aggregator
     private static final String VULNERABILITY_KEY = "vulnerability";
     private static final String REPORTED_CVES = "reported_cves";
+    private static final String REPORTED_CVE_COUNT = "reported_cve_count";
 
     // Vulnerability event types
     private static final String CVSS_EVENT = "new-cve-cvss";
@@ -29,19 +35,20 @@ public class VulnerabilityEmailPayloadAggregator extends AbstractEmailPayloadAgg
     private static final Set<String> EVENT_TYPES = new HashSet<>(
             Arrays.asList(CVSS_EVENT, SEVERITY_EVENT, RULE_EVENT, EXPLOITS_EVENT));
 
-    // Vulnerability final payload helpers
-    private final Set<String> uniqueCves = new HashSet<>();
-
-    public VulnerabilityEmailPayloadAggregator() {
-        JsonObject vulnerability = new JsonObject();
+    /*
+     * The CVEs are listed from the most recent to the oldest one, according to the year and the sequence number of
+     * their ID. The IDs which do not follow the CVE-YYYY-NNNN format come last, in their natural order.
+     */
+    private static final Pattern CVE_ID_PATTERN = Pattern.compile("CVE-(\\d{4})-(\\d{4,12})");
+    private static final Comparator<String> CVE_ORDER = Comparator.comparing(VulnerabilityEmailPayloadAggregator::cveSortKey, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(orderedBy(cve -> cve));
 
-        context.put(VULNERABILITY_KEY, vulnerability);
-    }
+    // Vulnerability final payload helpers
+    private final BoundedList<String> reportedCves = newBoundedList(CVE_ORDER, cve -> cve);
 
     @Override
     void processEmailAggregation(EmailAggregation notification) {
         JsonObject notifPayload = notification.getPayload();
-        JsonObject vulnerability = context.getJsonObject(VULNERABILITY_KEY);
         String eventType = notifPayload.getString(EVENT_TYPE_KEY);
 
         if (!EVENT_TYPES.contains(eventType)) {
@@ -52,9 +59,25 @@ public class VulnerabilityEmailPayloadAggregator extends AbstractEmailPayloadAgg
             JsonObject event = (JsonObject) eventObject;
             JsonObject payload = event.getJsonObject(PAYLOAD_KEY);
 
-            String cve = payload.getString(REPORTED_CVE);
-            uniqueCves.add(cve);
+            // Each CVE is listed once.
+            reportedCves.add(payload.getString(REPORTED_CVE));
         });
-        vulnerability.put(REPORTED_CVES, uniqueCves);
+    }
+
+    @Override
+    void fillContext(Map<String, Object> context) {
+        Map<String, Object> vulnerability = new LinkedHashMap<>();
+        putBounded(vulnerability, REPORTED_CVES, reportedCves, cve -> cve);
+        vulnerability.put(REPORTED_CVE_COUNT, reportedCves.getCount());
+        context.put(VULNERABILITY_KEY, readOnly(vulnerability));
+    }
+
+    // Returns the year and the sequence number of a CVE ID as a single number, or null if the ID does not follow the format.
+    private static Long cveSortKey(String cve) {
+        Matcher matcher = cve == null ? null : CVE_ID_PATTERN.matcher(cve);
+        if (matcher == null || !matcher.matches()) {
+            return null;
+        }
+        return Long.parseLong(matcher.group(1)) * 1_000_000_000_000L + Long.parseLong(matcher.group(2));
     }
 }
@@ -0,0 +1,60 @@
+package com.redhat.cloud.notifications.processors.webclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
+import io.vertx.mutiny.core.http.HttpConnection;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records the usage of the connection pools of the outbound web clients. Vert.x does not expose the state of its
+ * pools, so the open connections are counted from the connection events of each client and the pending requests,
+ * which include the requests waiting for a connection in the pool queue, are counted around each call.
+ */
+@ApplicationScoped
+public class WebClientMetrics {
+
+    public static final String OPEN_CONNECTIONS_GAUGE_NAME = "webclient.connections.open";
+    public static final String PENDING_REQUESTS_GAUGE_NAME = "webclient.requests.pending";
+    public static final String REJECTED_REQUESTS_COUNTER_NAME = "webclient.requests.rejected";
+    public static final String CLIENT_TAG_KEY = "client";
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicInteger> openConnections = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> pendingRequests = new ConcurrentHashMap<>();
+
+    void connectionOpened(String client, HttpConnection connection) {
+        AtomicInteger clientConnections = openConnections.computeIfAbsent(client, c -> gauge(OPEN_CONNECTIONS_GAUGE_NAME, c));
+        clientConnections.incrementAndGet();
+        connection.closeHandler(clientConnections::decrementAndGet);
+    }
+
+    /**
+     * Runs an HTTP call made with the given client and counts it as pending until it completes. The calls which are
+     * rejected because the wait queue of the connection pool is full are counted separately.
+     */
+    public <T> T track(String client, Supplier<T> call) {
+        AtomicInteger clientRequests = pendingRequests.computeIfAbsent(client, c -> gauge(PENDING_REQUESTS_GAUGE_NAME, c));
+        clientRequests.incrementAndGet();
+        try {
+            return call.get();
+        } catch (ConnectionPoolTooBusyException e) {
+            meterRegistry.counter(REJECTED_REQUESTS_COUNTER_NAME, CLIENT_TAG_KEY, client).increment();
+            throw e;
+        } finally {
+            clientRequests.decrementAndGet();
+        }
+    }
+
+    private AtomicInteger gauge(String name, String client) {
+        return meterRegistry.gauge(name, Tags.of(CLIENT_TAG_KEY, client), new AtomicInteger());
+    }
+}
@@ -1,55 +1,140 @@
 package com.redhat.cloud.notifications.processors.webclient;
 
 import io.quarkus.logging.Log;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.http.HttpClient;
 import io.vertx.mutiny.ext.web.client.WebClient;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Duration;
 import java.util.Optional;
 
+/**
+ * Produces the outbound web clients. Vert.x keeps one connection pool per destination (host and port) in each client,
+ * so the pool settings below apply to each webhook receiver separately. Each setting can be overridden for a single
+ * client with the {@code webclient.<client>.<setting>} property, where the client is {@code secured},
+ * {@code unsecured} or {@code bop}.
+ */
 @ApplicationScoped
 public class WebClientProducer {
 
+    public static final String SECURED_CLIENT = "secured";
+    public static final String UNSECURED_CLIENT = "unsecured";
+    public static final String BOP_CLIENT = "bop";
+
+    private static final String CLIENT_PROPERTY = "webclient.%s.%s";
+
     @Inject
     Vertx vertx;
 
+    @Inject
+    WebClientMetrics webClientMetrics;
+
+    // Maximum number of HTTP/1.x connections per destination.
     @ConfigProperty(name = "webclient.max_pool_size")
     Optional<Integer> maxPoolSize;
 
+    @ConfigProperty(name = "webclient.connect-timeout", defaultValue = "3S")
+    Duration connectTimeout;
+
+    // Pooled connections unused for this duration are closed. Zero disables the timeout.
+    @ConfigProperty(name = "webclient.idle-timeout", defaultValue = "60S")
+    Duration idleTimeout;
+
+    @ConfigProperty(name = "webclient.keep-alive-timeout", defaultValue = "60S")
+    Duration keepAliveTimeout;
+
+    /*
+     * Maximum number of requests waiting for a connection of a pool. When the queue is full, the requests fail
+     * immediately with a ConnectionPoolTooBusyException. A negative value means the queue is unbounded.
+     */
+    @ConfigProperty(name = "webclient.max-wait-queue-size", defaultValue = "-1")
+    int maxWaitQueueSize;
+
+    // HTTP/2 is negotiated with ALPN over TLS and with an upgrade over clear text. HTTP/1.1 is used when the server does not support it.
+    @ConfigProperty(name = "webclient.http2.enabled", defaultValue = "false")
+    boolean http2Enabled;
+
+    // Maximum number of HTTP/2 connections per destination.
+    @ConfigProperty(name = "webclient.http2.max-pool-size", defaultValue = "1")
+    int http2MaxPoolSize;
+
+    // Maximum number of concurrent streams of an HTTP/2 connection. A negative value means the server setting is used.
+    @ConfigProperty(name = "webclient.http2.multiplexing-limit", defaultValue = "-1")
+    int http2MultiplexingLimit;
+
+    @ConfigProperty(name = "webclient.pipelining.enabled", defaultValue = "false")
+    boolean pipeliningEnabled;
+
+    @ConfigProperty(name = "webclient.pipelining.limit", defaultValue = "10")
+    int pipeliningLimit;
+
     @Produces
     @Singleton
     @SslVerificationEnabled
     public WebClient securedWebClient() {
-        return WebClient.create(vertx, buildOptions(false));
+        return create(SECURED_CLIENT, false);
     }
 
     @Produces
     @Singleton
     @SslVerificationDisabled
     public WebClient unsecuredWebClient() {
-        return WebClient.create(vertx, buildOptions(true));
+        return create(UNSECURED_CLIENT, true);
     }
 
     @Produces
     @Singleton
     @BopWebClient
     public WebClient bopWebClient() {
-        return WebClient.create(vertx, buildOptions(true));
+        return create(BOP_CLIENT, true);
+    }
+
+    private WebClient create(String client, boolean trustAll) {
+        WebClientOptions options = buildOptions(client, trustAll);
+        HttpClient httpClient = vertx.createHttpClient(options);
+        httpClient.connectionHandler(connection -> webClientMetrics.connectionOpened(client, connection));
+        return WebClient.wrap(httpClient, options);
     }
 
-    private WebClientOptions buildOptions(boolean trustAll) {
+    WebClientOptions buildOptions(String client, boolean trustAll) {
+        Config config = ConfigProvider.getConfig();
         WebClientOptions options = new WebClientOptions()
                 .setTrustAll(trustAll)
-                .setConnectTimeout(3000); // TODO Should this be configurable by the system? We need a maximum in any case
-        if (maxPoolSize.isPresent()) {
-            Log.debugf("Producing a WebClient with a configured max pool size: %d", maxPoolSize.get());
-            options = options.setMaxPoolSize(maxPoolSize.get());
+                .setConnectTimeout((int) get(config, client, "connect-timeout", Duration.class, connectTimeout).toMillis())
+                .setIdleTimeout((int) get(config, client, "idle-timeout", Duration.class, idleTimeout).toSeconds())
+                .setKeepAlive(true)
+                .setKeepAliveTimeout((int) get(config, client, "keep-alive-timeout", Duration.class, keepAliveTimeout).toSeconds())
+                .setMaxWaitQueueSize(get(config, client, "max-wait-queue-size", Integer.class, maxWaitQueueSize))
+                .setPipelining(get(config, client, "pipelining.enabled", Boolean.class, pipeliningEnabled))
+                .setPipeliningLimit(get(config, client, "pipelining.limit", Integer.class, pipeliningLimit));
+
+        Optional<Integer> clientMaxPoolSize = config.getOptionalValue(String.format(CLIENT_PROPERTY, client, "max-pool-size"), Integer.class)
+                .or(() -> maxPoolSize);
+        if (clientMaxPoolSize.isPresent()) {
+            Log.debugf("Producing the %s WebClient with a configured max pool size: %d", client, clientMaxPoolSize.get());
+            options.setMaxPoolSize(clientMaxPoolSize.get());
+        }
+
+        if (get(config, client, "http2.enabled", Boolean.class, http2Enabled)) {
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(true)
+                    .setHttp2ClearTextUpgrade(true)
+                    .setHttp2MaxPoolSize(get(config, client, "http2.max-pool-size", Integer.class, http2MaxPoolSize))
+                    .setHttp2MultiplexingLimit(get(config, client, "http2.multiplexing-limit", Integer.class, http2MultiplexingLimit));
         }
         return options;
     }
+
+    private static <T> T get(Config config, String client, String setting, Class<T> type, T defaultValue) {
+        return config.getOptionalValue(String.format(CLIENT_PROPERTY, client, setting), type).orElse(defaultValue);
+    }
 }
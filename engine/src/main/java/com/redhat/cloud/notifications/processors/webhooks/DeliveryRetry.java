@@ -0,0 +1,17 @@
+package com.redhat.cloud.notifications.processors.webhooks;
+
+import com.redhat.cloud.notifications.models.EndpointType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A webhook or email delivery waiting in a delay topic for its next attempt. The histories of the events of the
+ * delivery are updated with the outcome of each attempt.
+ * @param attempt the number of the next attempt, the first delivery being the attempt 1
+ * @param dueAt the epoch milliseconds after which the next attempt can be made
+ * @param payload the encoded JSON payload of the HTTP request
+ */
+public record DeliveryRetry(UUID endpointId, EndpointType endpointType, String orgId, List<UUID> historyIds, int eventsCount, int attempt, long dueAt,
+                            String method, String url, String payload) {
+}
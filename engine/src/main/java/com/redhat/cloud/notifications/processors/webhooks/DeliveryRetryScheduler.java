@@ -0,0 +1,361 @@
+package com.redhat.cloud.notifications.processors.webhooks;
+
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
+import com.redhat.cloud.notifications.models.Endpoint;
+import com.redhat.cloud.notifications.models.EndpointType;
+import com.redhat.cloud.notifications.processors.email.EmailSender;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.ext.web.client.HttpRequest;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.NoResultException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Delays the new attempts of the failed webhook and email deliveries with Kafka, instead of retrying them in place on
+ * the consumer thread. A delivery which can be retried is published to a delay topic, then consumed again once it is
+ * due. The delay topics are tiered: the first retry goes to the first tier, the second retry to the second tier and all
+ * the following retries to the last tier. All records of a tier have the same delay, so they become due in the order
+ * they were published and each tier is consumed sequentially.
+ * <p>
+ * Once a record is due, its new attempt is made from a bounded pool shared by the tiers, so that a backlog of slow
+ * endpoints does not hold the following records of the tier. A record is only acknowledged once its delay is elapsed
+ * and the new attempts of the record and of all the previous records of the tier were made. The max age of the
+ * unprocessed records of each tier therefore has to cover the delay of the tier and the attempts made before the record
+ * acknowledgment, see {@link #requiredMaxAge}. On shutdown, the records which are not acknowledged yet will be consumed
+ * again after the restart.
+ * <p>
+ * The number of attempts of a delivery is limited per endpoint type with the
+ * {@code notifications.delivery-retry.<endpoint-type>.max-attempts} properties.
+ */
+@ApplicationScoped
+public class DeliveryRetryScheduler {
+
+    public static final String TO_DELIVERY_RETRY_CHANNEL = "todeliveryretry";
+    public static final String DELIVERY_RETRY_TIER_1_CHANNEL = "deliveryretry-1";
+    public static final String DELIVERY_RETRY_TIER_2_CHANNEL = "deliveryretry-2";
+    public static final String DELIVERY_RETRY_TIER_3_CHANNEL = "deliveryretry-3";
+    public static final String DELIVERY_RETRY_WORKER_POOL = "delivery-retry-worker-pool";
+    static final List<String> DELIVERY_RETRY_CHANNELS = List.of(DELIVERY_RETRY_TIER_1_CHANNEL, DELIVERY_RETRY_TIER_2_CHANNEL, DELIVERY_RETRY_TIER_3_CHANNEL);
+
+    private static final String MAX_ATTEMPTS_PROPERTY = "notifications.delivery-retry.%s.max-attempts";
+    private static final String TOPIC_PROPERTY = "mp.messaging.incoming.%s.topic";
+    private static final String MAX_AGE_PROPERTY = "mp.messaging.incoming.%s.throttled.unprocessed-record-max-age.ms";
+    private static final String MAX_POLL_RECORDS_PROPERTY = "mp.messaging.incoming.%s.max.poll.records";
+    // Default max age of the unprocessed records of the SmallRye Kafka throttled commit strategy.
+    private static final long DEFAULT_MAX_AGE = 60_000L;
+    // Default max.poll.records of the Kafka consumer.
+    private static final int DEFAULT_MAX_POLL_RECORDS = 500;
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    // Maximum number of attempts of a delivery, including the first one, unless it is overridden for an endpoint type.
+    @ConfigProperty(name = "notifications.delivery-retry.max-attempts", defaultValue = "4")
+    int defaultMaxAttempts;
+
+    // Delay of each tier.
+    @ConfigProperty(name = "notifications.delivery-retry.delays", defaultValue = "10S,1M,10M")
+    List<Duration> delays;
+
+    // Maximum number of new attempts made concurrently, all tiers included.
+    @ConfigProperty(name = "notifications.delivery-retry.concurrent-attempts", defaultValue = "10")
+    int concurrentAttempts;
+
+    // Longest time an attempt can take, see WebhookTypeProcessor.
+    @ConfigProperty(name = "processor.webhook.await-timeout", defaultValue = "60S")
+    Duration awaitTimeout;
+
+    @Inject
+    @Channel(TO_DELIVERY_RETRY_CHANNEL)
+    Emitter<String> emitter;
+
+    @Inject
+    EndpointRepository endpointRepository;
+
+    @Inject
+    WebhookTypeProcessor webhookTypeProcessor;
+
+    @Inject
+    EmailSender emailSender;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    private final Map<EndpointType, Integer> maxAttempts = new EnumMap<>(EndpointType.class);
+    private final List<String> topics = new ArrayList<>();
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+    // The acknowledgment of the last record of each tier, the records of a tier are acknowledged in order.
+    private final Map<String, CompletableFuture<Void>> lastAcks = new ConcurrentHashMap<>();
+    private ExecutorService publishFailures;
+    private ExecutorService attempts;
+    private Semaphore availableAttempts;
+
+    @PostConstruct
+    void init() {
+        if (delays.size() != DELIVERY_RETRY_CHANNELS.size()) {
+            throw new IllegalStateException("notifications.delivery-retry.delays must contain one delay for each of the " + DELIVERY_RETRY_CHANNELS.size() + " tiers");
+        }
+        Config config = ConfigProvider.getConfig();
+        for (EndpointType endpointType : EndpointType.values()) {
+            String property = String.format(MAX_ATTEMPTS_PROPERTY, endpointType.name().toLowerCase());
+            maxAttempts.put(endpointType, config.getOptionalValue(property, Integer.class).orElse(defaultMaxAttempts));
+        }
+        for (int i = 0; i < DELIVERY_RETRY_CHANNELS.size(); i++) {
+            String channel = DELIVERY_RETRY_CHANNELS.get(i);
+            topics.add(config.getValue(String.format(TOPIC_PROPERTY, channel), String.class));
+            long maxAge = config.getOptionalValue(String.format(MAX_AGE_PROPERTY, channel), Long.class).orElse(DEFAULT_MAX_AGE);
+            int maxPollRecords = config.getOptionalValue(String.format(MAX_POLL_RECORDS_PROPERTY, channel), Integer.class).orElse(DEFAULT_MAX_POLL_RECORDS);
+            Duration requiredMaxAge = requiredMaxAge(delays.get(i), maxPollRecords, concurrentAttempts, awaitTimeout);
+            if (maxAge > 0L && maxAge <= requiredMaxAge.toMillis()) {
+                throw new IllegalStateException(String.format(MAX_AGE_PROPERTY, channel) + " must be greater than " + requiredMaxAge.toMillis() +
+                        " ms: the delay of the tier plus the attempts of a backlog of " + maxPollRecords + " records");
+            }
+        }
+        AtomicInteger attemptIndex = new AtomicInteger();
+        attempts = Executors.newFixedThreadPool(concurrentAttempts, runnable -> {
+            Thread thread = new Thread(runnable, "delivery-retry-attempt-" + attemptIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        availableAttempts = new Semaphore(concurrentAttempts);
+        // The histories of the retries which could not be published are updated from this thread.
+        publishFailures = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-retry-publish-failures");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        shutdown.countDown();
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        publishFailures.shutdown();
+        attempts.shutdown();
+    }
+
+    /**
+     * Returns the max age that the unprocessed records of a tier must exceed. A record is received up to its delay
+     * before it is due. The attempts of the backlog received before it are then made {@code concurrentAttempts} at a
+     * time, each of them within the await timeout. Finally, the record is acknowledged within another await timeout,
+     * once its own attempt and the attempts of the previous records, which all started before it, were made.
+     */
+    static Duration requiredMaxAge(Duration delay, int backlog, int concurrentAttempts, Duration awaitTimeout) {
+        long attemptRounds = (backlog + concurrentAttempts - 1) / concurrentAttempts + 1L;
+        return delay.plus(awaitTimeout.multipliedBy(attemptRounds));
+    }
+
+    /**
+     * Returns {@code true} if a delivery to an endpoint of the given type can be attempted again after the given attempt.
+     */
+    public boolean canRetry(EndpointType endpointType, int attempt) {
+        return attempt < maxAttempts.get(endpointType);
+    }
+
+    /**
+     * Publishes a delivery which failed after the given attempt to the delay topic of its next attempt.
+     */
+    public void schedule(Endpoint endpoint, List<UUID> historyIds, int eventsCount, int attempt, String method, String url, JsonObject payload) {
+        int tier = Math.min(attempt, delays.size()) - 1;
+        long dueAt = System.currentTimeMillis() + delays.get(tier).toMillis();
+        DeliveryRetry retry = new DeliveryRetry(endpoint.getId(), endpoint.getType(), endpoint.getOrgId(), historyIds, eventsCount, attempt + 1, dueAt, method, url, payload.encode());
+        // The endpoint ID is used as the key, so that the retries of an endpoint are consumed in order.
+        OutgoingKafkaRecordMetadata<String> metadata = OutgoingKafkaRecordMetadata.<String>builder()
+                .withKey(endpoint.getId().toString())
+                .withTopic(topics.get(tier))
+                .build();
+        Message<String> message = Message.of(Json.encode(retry))
+                .addMetadata(metadata)
+                .withNack(failure -> {
+                    publishFailed(retry, failure);
+                    return CompletableFuture.completedFuture(null);
+                });
+        try {
+            emitter.send(message);
+            Log.debugf("Attempt %d of the delivery to endpoint %s scheduled in %s", attempt + 1, endpoint.getId(), delays.get(tier));
+        } catch (Exception e) {
+            publishFailed(retry, e);
+        }
+    }
+
+    /*
+     * A retry which could not be published will never be attempted, so the histories which are waiting for it are marked
+     * as failed. The nack can be received from a thread which already holds a stateless session, the histories are
+     * therefore updated from another thread.
+     */
+    private void publishFailed(DeliveryRetry retry, Throwable failure) {
+        Log.errorf(failure, "Attempt %d of the delivery to endpoint %s could not be scheduled", retry.attempt(), retry.endpointId());
+        publishFailures.execute(() -> {
+            try {
+                statelessSessionFactory.withSession(statelessSession -> {
+                    webhookTypeProcessor.abandonRetry(retry, "The delivery retry could not be scheduled: " + failure.getMessage());
+                });
+            } catch (Exception e) {
+                Log.errorf(e, "Notification histories update failed for the delivery to endpoint %s", retry.endpointId());
+            }
+        });
+    }
+
+    @Incoming(DELIVERY_RETRY_TIER_1_CHANNEL)
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking(DELIVERY_RETRY_WORKER_POOL)
+    public CompletionStage<Void> consumeTier1(Message<String> message) {
+        return retry(DELIVERY_RETRY_TIER_1_CHANNEL, message);
+    }
+
+    @Incoming(DELIVERY_RETRY_TIER_2_CHANNEL)
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking(DELIVERY_RETRY_WORKER_POOL)
+    public CompletionStage<Void> consumeTier2(Message<String> message) {
+        return retry(DELIVERY_RETRY_TIER_2_CHANNEL, message);
+    }
+
+    @Incoming(DELIVERY_RETRY_TIER_3_CHANNEL)
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking(DELIVERY_RETRY_WORKER_POOL)
+    public CompletionStage<Void> consumeTier3(Message<String> message) {
+        return retry(DELIVERY_RETRY_TIER_3_CHANNEL, message);
+    }
+
+    private CompletionStage<Void> retry(String channel, Message<String> message) {
+        DeliveryRetry retry;
+        try {
+            retry = Json.decodeValue(message.getPayload(), DeliveryRetry.class);
+        } catch (DecodeException e) {
+            Log.error("Delivery retry payload parsing failed", e);
+            return acknowledgeInOrder(channel, message, COMPLETED);
+        }
+
+        // Only the delivery retry channels wait, the records are not acknowledged before they are retried.
+        long delay = retry.dueAt() - System.currentTimeMillis();
+        if (delay > 0L && awaitShutdown(delay)) {
+            // The record is never acknowledged, so it will be consumed again after the restart.
+            Log.debugf("Attempt %d of the delivery to endpoint %s postponed because of the shutdown", retry.attempt(), retry.endpointId());
+            return new CompletableFuture<>();
+        }
+
+        // The consumer is only blocked while all the attempts of the pool are being made.
+        while (!tryAcquireAttempt()) {
+            if (awaitShutdown(0L)) {
+                return new CompletableFuture<>();
+            }
+        }
+        CompletableFuture<Void> attempted;
+        try {
+            attempted = CompletableFuture.runAsync(() -> {
+                try {
+                    attempt(retry);
+                } finally {
+                    availableAttempts.release();
+                }
+            }, attempts);
+        } catch (RejectedExecutionException e) {
+            // The application is shutting down.
+            availableAttempts.release();
+            return new CompletableFuture<>();
+        }
+        return acknowledgeInOrder(channel, message, attempted);
+    }
+
+    /*
+     * The record is acknowledged once the given attempt and the previous records of the tier were acknowledged, so
+     * that a record is never acknowledged before an attempt of the tier which could still be lost. The consumer does
+     * not wait for the acknowledgment, it moves on to the next record.
+     */
+    private CompletionStage<Void> acknowledgeInOrder(String channel, Message<String> message, CompletableFuture<Void> attempted) {
+        lastAcks.compute(channel, (ignored, previousAck) -> {
+            CompletableFuture<Void> previous = previousAck == null ? COMPLETED : previousAck;
+            return CompletableFuture.allOf(previous, attempted)
+                    .handle((result, failure) -> null)
+                    .thenCompose(result -> message.ack());
+        });
+        return COMPLETED;
+    }
+
+    private boolean tryAcquireAttempt() {
+        try {
+            return availableAttempts.tryAcquire(1L, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * Returns true if the application is shutting down, after waiting for the shutdown up to the given delay.
+     */
+    private boolean awaitShutdown(long delay) {
+        try {
+            return shutdown.await(delay, MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /*
+     * Quarkus intercepts the self-invocations, so the request context is activated for each attempt made from the
+     * attempts pool.
+     */
+    @ActivateRequestContext
+    void attempt(DeliveryRetry retry) {
+        try {
+            statelessSessionFactory.withSession(statelessSession -> {
+                Endpoint endpoint;
+                try {
+                    endpoint = endpointRepository.findByUuidAndOrgId(retry.endpointId(), retry.orgId());
+                } catch (NoResultException e) {
+                    endpoint = null;
+                }
+                if (endpoint == null || !Boolean.TRUE.equals(endpoint.isEnabled())) {
+                    webhookTypeProcessor.abandonRetry(retry, "The endpoint was deleted or disabled before the delivery could be retried");
+                } else {
+                    HttpRequest<Buffer> request = endpoint.getType() == EMAIL_SUBSCRIPTION ? emailSender.buildBOPHttpRequest() : webhookTypeProcessor.buildRequest(endpoint);
+                    webhookTypeProcessor.retry(retry, endpoint, request);
+                }
+            });
+        } catch (Exception e) {
+            Log.errorf(e, "Attempt %d of the delivery to endpoint %s failed", retry.attempt(), retry.endpointId());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.redhat.cloud.notifications.processors.webhooks;
+
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
+import com.redhat.cloud.notifications.events.IntegrationDisabledNotifier;
+import com.redhat.cloud.notifications.models.Endpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.DISABLED_WEBHOOKS_COUNTER;
+import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.ERROR_TYPE_TAG_KEY;
+import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.SERVER_TAG_VALUE;
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+/**
+ * Counts the server errors of the endpoints in memory and merges them into the DB every {@code flush-period}, with
+ * one atomic increment per endpoint. An endpoint is disabled during the flush if its DB counter exceeds the maximum
+ * server errors allowed from the configuration.
+ * <p>
+ * A successful call discards the errors counted since the previous flush. The DB counter is only reset if it may be
+ * non-zero: the endpoint had errors when it was loaded, or errors of the endpoint were counted since then.
+ */
+@ApplicationScoped
+public class EndpointErrorCounter {
+
+    @ConfigProperty(name = "processor.webhook.max-server-errors", defaultValue = "10")
+    int maxServerErrors;
+
+    @Inject
+    EndpointRepository endpointRepository;
+
+    @Inject
+    IntegrationDisabledNotifier integrationDisabledNotifier;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter disabledWebhooksServerErrorCount;
+
+    private final Map<UUID, PendingErrors> pendingErrors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        disabledWebhooksServerErrorCount = registry.counter(DISABLED_WEBHOOKS_COUNTER, ERROR_TYPE_TAG_KEY, SERVER_TAG_VALUE);
+    }
+
+    public void serverError(Endpoint endpoint) {
+        pendingErrors.merge(endpoint.getId(), new PendingErrors(endpoint, false, 1),
+                (previous, error) -> new PendingErrors(endpoint, previous.reset, previous.errors + 1));
+    }
+
+    public void success(Endpoint endpoint) {
+        pendingErrors.compute(endpoint.getId(), (endpointId, previous) -> {
+            if (previous == null && endpoint.getServerErrors() == 0) {
+                // Nothing to write, which is the case of almost all successful calls.
+                return null;
+            }
+            return new PendingErrors(endpoint, true, 0);
+        });
+    }
+
+    @Scheduled(identity = "EndpointServerErrorsFlush", every = "${processor.webhook.server-errors.flush-period:10s}", concurrentExecution = SKIP)
+    void periodicFlush() {
+        flush();
+    }
+
+    void flushOnShutdown(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    /**
+     * Writes the pending errors and resets to the DB. This method must not be called from a thread holding a
+     * stateless session.
+     */
+    public void flush() {
+        if (pendingErrors.isEmpty()) {
+            return;
+        }
+        statelessSessionFactory.withSession(statelessSession -> {
+            for (UUID endpointId : pendingErrors.keySet()) {
+                // The errors counted from now on will be written during the next flush.
+                PendingErrors pending = pendingErrors.remove(endpointId);
+                if (pending != null) {
+                    write(endpointId, pending);
+                }
+            }
+        });
+    }
+
+    private void write(UUID endpointId, PendingErrors pending) {
+        try {
+            if (pending.reset) {
+                boolean reset = endpointRepository.resetEndpointServerErrors(endpointId);
+                if (reset) {
+                    Log.tracef("The server errors counter of endpoint %s was just reset", endpointId);
+                }
+            }
+            if (pending.errors > 0) {
+                boolean disabled = endpointRepository.incrementEndpointServerErrors(endpointId, pending.errors, maxServerErrors);
+                if (disabled) {
+                    disabledWebhooksServerErrorCount.increment();
+                    Log.infof("Endpoint %s was disabled because we received too many 5xx status while calling it", endpointId);
+                    integrationDisabledNotifier.tooManyServerErrors(pending.endpoint, maxServerErrors);
+                }
+            }
+        } catch (Exception e) {
+            Log.errorf(e, "Server errors counter update failed for endpoint %s", endpointId);
+        }
+    }
+
+    public int getPendingErrors(UUID endpointId) {
+        PendingErrors pending = pendingErrors.get(endpointId);
+        return pending == null ? 0 : pending.errors;
+    }
+
+    /*
+     * The errors counted since the last flush. If reset is true, the DB counter has to be reset before the errors are
+     * added to it.
+     */
+    private record PendingErrors(Endpoint endpoint, boolean reset, int errors) {
+    }
+}
@@ -12,6 +12,7 @@ import com.redhat.cloud.notifications.models.WebhookProperties;
 import com.redhat.cloud.notifications.processors.EndpointTypeProcessor;
 import com.redhat.cloud.notifications.processors.webclient.SslVerificationDisabled;
 import com.redhat.cloud.notifications.processors.webclient.SslVerificationEnabled;
+import com.redhat.cloud.notifications.processors.webclient.WebClientMetrics;
 import com.redhat.cloud.notifications.routers.sources.SecretUtils;
 import com.redhat.cloud.notifications.transformers.BaseTransformer;
 import dev.failsafe.Failsafe;
@@ -21,6 +22,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ConnectTimeoutException;
 import io.quarkus.logging.Log;
 import io.vertx.core.VertxException;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mutiny.core.buffer.Buffer;
@@ -34,6 +36,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +45,9 @@ import java.util.UUID;
 import static com.redhat.cloud.notifications.events.EndpointProcessor.DELAYED_EXCEPTION_MSG;
 import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
 import static com.redhat.cloud.notifications.models.NotificationHistory.getHistoryStub;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientProducer.BOP_CLIENT;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientProducer.SECURED_CLIENT;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientProducer.UNSECURED_CLIENT;
 
 @ApplicationScoped
 public class WebhookTypeProcessor extends EndpointTypeProcessor {
@@ -73,9 +79,6 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
     @ConfigProperty(name = "processor.webhook.await-timeout", defaultValue = "60S")
     Duration awaitTimeout;
 
-    @ConfigProperty(name = "processor.webhook.max-server-errors", defaultValue = "10")
-    int maxServerErrors;
-
     @Inject
     @SslVerificationEnabled
     WebClient securedWebClient;
@@ -84,6 +87,9 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
     @SslVerificationDisabled
     WebClient unsecuredWebClient;
 
+    @Inject
+    WebClientMetrics webClientMetrics;
+
     @Inject
     BaseTransformer transformer;
 
@@ -96,12 +102,18 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
     @Inject
     IntegrationDisabledNotifier integrationDisabledNotifier;
 
+    @Inject
+    EndpointErrorCounter endpointErrorCounter;
+
     @Inject
     MeterRegistry registry;
 
     @Inject
     SecretUtils secretUtils;
 
+    @Inject
+    DeliveryRetryScheduler deliveryRetryScheduler;
+
     private Counter processedWebhookCount;
     private Counter failedWebhookCount;
     private Counter retriedWebhookCount;
@@ -111,7 +123,6 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
     private Counter retriedEmailCount;
     private Counter successEmailCount;
     private Counter disabledWebhooksClientErrorCount;
-    private Counter disabledWebhooksServerErrorCount;
     private RetryPolicy<Object> retryPolicy;
 
     @PostConstruct
@@ -127,7 +138,6 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
         successEmailCount = registry.counter(SUCCESSFUL_EMAIL_COUNTER);
 
         disabledWebhooksClientErrorCount = registry.counter(DISABLED_WEBHOOKS_COUNTER, ERROR_TYPE_TAG_KEY, CLIENT_TAG_VALUE);
-        disabledWebhooksServerErrorCount = registry.counter(DISABLED_WEBHOOKS_COUNTER, ERROR_TYPE_TAG_KEY, SERVER_TAG_VALUE);
         retryPolicy = RetryPolicy.builder()
                 .handleIf(this::shouldRetry)
                 .withBackoff(initialRetryBackOff, maxRetryBackOff)
@@ -156,6 +166,17 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
 
         WebhookProperties properties = endpoint.getProperties(WebhookProperties.class);
 
+        final HttpRequest<Buffer> req = buildRequest(endpoint);
+
+        final JsonObject payload = transformer.toJsonObject(event);
+
+        doHttpRequest(event, endpoint, req, payload, properties.getMethod().name(), properties.getUrl(), true);
+    }
+
+    HttpRequest<Buffer> buildRequest(Endpoint endpoint) {
+
+        WebhookProperties properties = endpoint.getProperties(WebhookProperties.class);
+
         final HttpRequest<Buffer> req = getWebClient(properties.getDisableSslVerification())
                 .requestAbs(HttpMethod.valueOf(properties.getMethod().name()), properties.getUrl());
 
@@ -174,9 +195,7 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
             req.basicAuthentication(properties.getBasicAuthentication().getUsername(), properties.getBasicAuthentication().getPassword());
         }
 
-        final JsonObject payload = transformer.toJsonObject(event);
-
-        doHttpRequest(event, endpoint, req, payload, properties.getMethod().name(), properties.getUrl(), true);
+        return req;
     }
 
     private WebClient getWebClient(boolean disableSSLVerification) {
@@ -191,143 +210,289 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
         final long startTime = System.currentTimeMillis();
         boolean isEmailEndpoint = endpoint.getType() == EMAIL_SUBSCRIPTION;
         final NotificationHistory history = buildNotificationHistory(event, endpoint, startTime);
-        incrementProcessedMetrics(isEmailEndpoint);
+        incrementProcessedMetrics(isEmailEndpoint, 1);
+        boolean retryScheduled = deliver(history, endpoint, req, payload, method, url, isEmailEndpoint, 1);
+        List<UUID> historyIds = new ArrayList<>();
+        if (persistHistory) {
+            persistNotificationHistory(history);
+            historyIds.add(history.getId());
+        }
+        // The retry is only published once the history it will update exists.
+        if (retryScheduled) {
+            deliveryRetryScheduler.schedule(endpoint, historyIds, 1, 1, method, url, payload);
+        }
+    }
+
+    /**
+     * Persists the history of an event whose delivery is deferred, in the PROCESSING status. The event is then
+     * visible in the event log even if the engine stops before the delivery is attempted. The history is completed by
+     * {@link #doDeferredBatchHttpRequest}.
+     * @return the ID of the persisted history
+     */
+    public UUID persistDeferredHistory(Event event, Endpoint endpoint) {
+        NotificationHistory history = getHistoryStub(endpoint, event, 0L, UUID.randomUUID());
+        history.setStatus(NotificationStatus.PROCESSING);
+        persistNotificationHistory(history);
+        return history.getId();
+    }
+
+    /**
+     * Sends a payload built from several events with a single HTTP call. The histories of the events were persisted
+     * with {@link #persistDeferredHistory} and each of them is updated with the outcome of the call.
+     */
+    public void doDeferredBatchHttpRequest(List<UUID> historyIds, Endpoint endpoint, HttpRequest<Buffer> req, JsonObject payload, String method, String url) {
+        final long startTime = System.currentTimeMillis();
+        boolean isEmailEndpoint = endpoint.getType() == EMAIL_SUBSCRIPTION;
+        incrementProcessedMetrics(isEmailEndpoint, historyIds.size());
+        NotificationHistory outcome = new NotificationHistory();
+        boolean retryScheduled = deliver(outcome, endpoint, req, payload, method, url, isEmailEndpoint, historyIds.size());
+        outcome.setInvocationTime(System.currentTimeMillis() - startTime);
+        updateHistories(historyIds, outcome);
+        if (retryScheduled) {
+            deliveryRetryScheduler.schedule(endpoint, historyIds, historyIds.size(), 1, method, url, payload);
+        }
+    }
+
+    /*
+     * Makes the first attempt of a delivery, or all of its attempts if the retries are not delayed, and records the
+     * outcome in the given history.
+     * Returns true if the next attempt has to be scheduled with the delivery retry tiers.
+     */
+    private boolean deliver(NotificationHistory history, Endpoint endpoint, HttpRequest<Buffer> req, JsonObject payload, String method, String url, boolean isEmailEndpoint, int eventsCount) {
+        String client = getWebClientName(endpoint, isEmailEndpoint);
+        boolean delayedRetries = featureFlipper.isDelayedDeliveryRetriesEnabled();
+        boolean retryScheduled = false;
 
         try {
-            Failsafe.with(retryPolicy).run((context) -> {
-                if (context.isRetry()) {
-                    updateRetryMetrics(isEmailEndpoint);
+            if (delayedRetries) {
+                // The call is attempted once, the retries are delayed with Kafka instead of blocking the current thread.
+                try {
+                    sendRequest(history, endpoint, req, payload, method, url, isEmailEndpoint, client);
+                } catch (Exception e) {
+                    retryScheduled = shouldRetry(e) && deliveryRetryScheduler.canRetry(endpoint.getType(), 1);
+                    throw e;
                 }
-
-                // TODO NOTIF-488 We may want to move to a non-reactive HTTP client in the future.
-                HttpResponse<Buffer> resp = req.sendJsonObject(payload).await().atMost(awaitTimeout);
-
-                boolean serverError = false;
-                boolean shouldResetEndpointServerErrors = false;
-                Map<String, Object> details = new HashMap<>();
-                if (isEmailEndpoint) {
-                    if (featureFlipper.isSendSingleEmailForMultipleRecipientsEnabled()) {
-                        try {
-                            int totalRecipients = payload.getJsonArray("emails").getJsonObject(0).getJsonArray("bccList").size();
-                            details.put("total_recipients", totalRecipients);
-                            history.setDetails(details);
-                        } catch (Exception ex) {
-                            Log.error("Could not set the total_recipients field in the history details", ex);
-                        }
+            } else {
+                Failsafe.with(retryPolicy).run((context) -> {
+                    if (context.isRetry()) {
+                        updateRetryMetrics(isEmailEndpoint);
                     }
+                    sendRequest(history, endpoint, req, payload, method, url, isEmailEndpoint, client);
+                });
+            }
+        } catch (Exception e) {
+            recordFailure(history, e, method, url);
+        }
+        if (delayedRetries) {
+            recordAttempt(history, 1, retryScheduled);
+        }
+        if (!retryScheduled) {
+            updateMetrics(history.getStatus(), isEmailEndpoint, eventsCount);
+        }
+        return retryScheduled;
+    }
+
+    /**
+     * Makes a new attempt of a delivery which was delayed by {@link DeliveryRetryScheduler}. The histories of the
+     * delivery events are updated with the outcome of the attempt.
+     */
+    void retry(DeliveryRetry retry, Endpoint endpoint, HttpRequest<Buffer> req) {
+        final long startTime = System.currentTimeMillis();
+        boolean isEmailEndpoint = endpoint.getType() == EMAIL_SUBSCRIPTION;
+        String client = getWebClientName(endpoint, isEmailEndpoint);
+        JsonObject payload = new JsonObject(retry.payload());
+        updateRetryMetrics(isEmailEndpoint);
+
+        NotificationHistory history = new NotificationHistory();
+        boolean retryScheduled = false;
+        try {
+            sendRequest(history, endpoint, req, payload, retry.method(), retry.url(), isEmailEndpoint, client);
+        } catch (Exception e) {
+            retryScheduled = shouldRetry(e) && deliveryRetryScheduler.canRetry(endpoint.getType(), retry.attempt());
+            recordFailure(history, e, retry.method(), retry.url());
+        }
+        history.setInvocationTime(System.currentTimeMillis() - startTime);
+        recordAttempt(history, retry.attempt(), retryScheduled);
+        if (!retryScheduled) {
+            updateMetrics(history.getStatus(), isEmailEndpoint, retry.eventsCount());
+        }
+        updateHistories(retry.historyIds(), history);
+        if (retryScheduled) {
+            deliveryRetryScheduler.schedule(endpoint, retry.historyIds(), retry.eventsCount(), retry.attempt(), retry.method(), retry.url(), payload);
+        }
+    }
+
+    /**
+     * Records the failure of a delivery whose endpoint can no longer be called, without making a new attempt.
+     */
+    void abandonRetry(DeliveryRetry retry, String reason) {
+        NotificationHistory history = new NotificationHistory();
+        history.setStatus(NotificationStatus.FAILED_INTERNAL);
+        history.setInvocationTime(0L);
+        Map<String, Object> details = new HashMap<>();
+        details.put("url", retry.url());
+        details.put("method", retry.method());
+        details.put("error_message", reason);
+        history.setDetails(details);
+        recordAttempt(history, retry.attempt() - 1, false);
+        updateMetrics(history.getStatus(), retry.endpointType() == EMAIL_SUBSCRIPTION, retry.eventsCount());
+        updateHistories(retry.historyIds(), history);
+    }
+
+    private void updateHistories(List<UUID> historyIds, NotificationHistory outcome) {
+        for (UUID historyId : historyIds) {
+            outcome.setId(historyId);
+            try {
+                notificationHistoryRepository.updateHistoryItem(outcome);
+            } catch (Exception e) {
+                Log.errorf(e, "Notification history update failed for %s", historyId);
+            }
+        }
+    }
+
+    /*
+     * The attempt number is recorded in the history details. A delivery waiting for its next attempt stays in the
+     * PROCESSING status until its last attempt.
+     */
+    private static void recordAttempt(NotificationHistory history, int attempt, boolean retryScheduled) {
+        Map<String, Object> details = history.getDetails() == null ? new HashMap<>() : new HashMap<>(history.getDetails());
+        details.put("attempt", attempt);
+        history.setDetails(details);
+        if (retryScheduled) {
+            history.setStatus(NotificationStatus.PROCESSING);
+        }
+    }
+
+    /*
+     * Makes a single call. A ServerErrorException is thrown if the remote server replied with a 5xx status.
+     */
+    private void sendRequest(NotificationHistory history, Endpoint endpoint, HttpRequest<Buffer> req, JsonObject payload, String method, String url, boolean isEmailEndpoint, String client) {
+        // TODO NOTIF-488 We may want to move to a non-reactive HTTP client in the future.
+        HttpResponse<Buffer> resp = webClientMetrics.track(client, () -> req.sendJsonObject(payload).await().atMost(awaitTimeout));
+
+        boolean serverError = false;
+        boolean shouldResetEndpointServerErrors = false;
+        Map<String, Object> details = new HashMap<>();
+        if (isEmailEndpoint) {
+            if (featureFlipper.isSendSingleEmailForMultipleRecipientsEnabled()) {
+                try {
+                    int totalRecipients = payload.getJsonArray("emails").getJsonObject(0).getJsonArray("bccList").size();
+                    details.put("total_recipients", totalRecipients);
+                    history.setDetails(details);
+                } catch (Exception ex) {
+                    Log.error("Could not set the total_recipients field in the history details", ex);
                 }
-                if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                    // Accepted
-                    Log.debugf("Webhook request to %s was successful: %d", url, resp.statusCode());
-                    history.setStatus(NotificationStatus.SUCCESS);
-                    shouldResetEndpointServerErrors = true;
-                } else if (resp.statusCode() >= 500) {
-                    // Temporary error, allow retry
-                    serverError = true;
-                    Log.debugf("Webhook request to %s failed: %d %s", url, resp.statusCode(), resp.statusMessage());
-                    history.setStatus(NotificationStatus.FAILED_INTERNAL);
-                    if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
-                        if (!isEmailEndpoint) {
-                            /*
-                             * The target endpoint returned a 5xx status. That kind of error happens in case of remote
-                             * server failure, which is usually something temporary. Sending another notification to
-                             * the same endpoint may work in the future, so the endpoint is only disabled if the max
-                             * number of endpoint failures allowed from the configuration is exceeded.
-                             */
-                            boolean disabled = endpointRepository.incrementEndpointServerErrors(endpoint.getId(), maxServerErrors);
-                            if (disabled) {
-                                disabledWebhooksServerErrorCount.increment();
-                                Log.infof("Endpoint %s was disabled because we received too many 5xx status while calling it", endpoint.getId());
-                                integrationDisabledNotifier.tooManyServerErrors(endpoint, maxServerErrors);
-                            }
-                        }
+            }
+        }
+        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+            // Accepted
+            Log.debugf("Webhook request to %s was successful: %d", url, resp.statusCode());
+            history.setStatus(NotificationStatus.SUCCESS);
+            shouldResetEndpointServerErrors = true;
+        } else if (resp.statusCode() >= 500) {
+            // Temporary error, allow retry
+            serverError = true;
+            Log.debugf("Webhook request to %s failed: %d %s", url, resp.statusCode(), resp.statusMessage());
+            history.setStatus(NotificationStatus.FAILED_INTERNAL);
+            if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
+                if (!isEmailEndpoint) {
+                    /*
+                     * The target endpoint returned a 5xx status. That kind of error happens in case of remote
+                     * server failure, which is usually something temporary. Sending another notification to
+                     * the same endpoint may work in the future, so the endpoint is only disabled if the max
+                     * number of endpoint failures allowed from the configuration is exceeded.
+                     */
+                    endpointErrorCounter.serverError(endpoint);
+                }
+            }
+        } else {
+            // Redirects etc should have been followed by the vertx (test this)
+            if (isEmailEndpoint) {
+                Log.warnf("Webhook request to %s failed: %d %s %s", url, resp.statusCode(), resp.statusMessage(), payload);
+            } else {
+                Log.debugf("Webhook request to %s failed: %d %s %s", url, resp.statusCode(), resp.statusMessage(), payload);
+            }
+            history.setStatus(NotificationStatus.FAILED_INTERNAL);
+            // TODO NOTIF-512 Should we disable endpoints in case of 3xx status code?
+            if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
+                if (!isEmailEndpoint && resp.statusCode() >= 400 && resp.statusCode() < 500) {
+                    /*
+                     * The target endpoint returned a 4xx status. That kind of error requires an update of the
+                     * endpoint settings (URL, secret token...). The endpoint will most likely never return a
+                     * successful status code with the current settings, so it is disabled immediately.
+                     */
+                    boolean disabled = endpointRepository.disableEndpoint(endpoint.getId());
+                    if (disabled) {
+                        disabledWebhooksClientErrorCount.increment();
+                        Log.infof("Endpoint %s was disabled because we received a 4xx status while calling it", endpoint.getId());
+                        integrationDisabledNotifier.clientError(endpoint, resp.statusCode());
                     }
                 } else {
-                    // Redirects etc should have been followed by the vertx (test this)
-                    if (isEmailEndpoint) {
-                        Log.warnf("Webhook request to %s failed: %d %s %s", url, resp.statusCode(), resp.statusMessage(), payload);
-                    } else {
-                        Log.debugf("Webhook request to %s failed: %d %s %s", url, resp.statusCode(), resp.statusMessage(), payload);
-                    }
-                    history.setStatus(NotificationStatus.FAILED_INTERNAL);
-                    // TODO NOTIF-512 Should we disable endpoints in case of 3xx status code?
-                    if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
-                        if (!isEmailEndpoint && resp.statusCode() >= 400 && resp.statusCode() < 500) {
-                            /*
-                             * The target endpoint returned a 4xx status. That kind of error requires an update of the
-                             * endpoint settings (URL, secret token...). The endpoint will most likely never return a
-                             * successful status code with the current settings, so it is disabled immediately.
-                             */
-                            boolean disabled = endpointRepository.disableEndpoint(endpoint.getId());
-                            if (disabled) {
-                                disabledWebhooksClientErrorCount.increment();
-                                Log.infof("Endpoint %s was disabled because we received a 4xx status while calling it", endpoint.getId());
-                                integrationDisabledNotifier.clientError(endpoint, resp.statusCode());
-                            }
-                        } else {
-                            /*
-                             * 3xx status codes may be considered has a failure soon, but first we need to confirm
-                             * that Vert.x is correctly following the redirections.
-                             */
-                            shouldResetEndpointServerErrors = true;
-                        }
-                    }
+                    /*
+                     * 3xx status codes may be considered has a failure soon, but first we need to confirm
+                     * that Vert.x is correctly following the redirections.
+                     */
+                    shouldResetEndpointServerErrors = true;
                 }
+            }
+        }
 
-                if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
-                    if (!isEmailEndpoint && shouldResetEndpointServerErrors) {
-                        // When a target endpoint is successfully called, its server errors counter is reset in the DB.
-                        boolean reset = endpointRepository.resetEndpointServerErrors(endpoint.getId());
-                        if (reset) {
-                            Log.tracef("The server errors counter of endpoint %s was just reset", endpoint.getId());
-                        }
-                    }
-                }
+        if (featureFlipper.isDisableWebhookEndpointsOnFailure()) {
+            if (!isEmailEndpoint && shouldResetEndpointServerErrors) {
+                // When a target endpoint is successfully called, its server errors counter is reset.
+                endpointErrorCounter.success(endpoint);
+            }
+        }
 
-                if (history.getStatus() == NotificationStatus.FAILED_INTERNAL) {
-                    details.put("url", url);
-                    details.put("method", method);
-                    details.put("code", resp.statusCode());
-                    details.put("response_body", resp.bodyAsString());
-                    history.setDetails(details);
-                }
+        if (history.getStatus() == NotificationStatus.FAILED_INTERNAL) {
+            details.put("url", url);
+            details.put("method", method);
+            details.put("code", resp.statusCode());
+            details.put("response_body", resp.bodyAsString());
+            history.setDetails(details);
+        }
 
-                if (serverError) {
-                    throw new ServerErrorException();
-                }
-            });
-        } catch (Exception e) {
-            if (!(e instanceof ServerErrorException)) {
-                history.setStatus(NotificationStatus.FAILED_INTERNAL);
+        if (serverError) {
+            throw new ServerErrorException();
+        }
+    }
 
-                Log.debugf("Failed: %s", e.getMessage());
+    private static void recordFailure(NotificationHistory history, Exception e, String method, String url) {
+        if (!(e instanceof ServerErrorException)) {
+            history.setStatus(NotificationStatus.FAILED_INTERNAL);
 
-                Map<String, Object> details = new HashMap<>();
-                details.put("url", url);
-                details.put("method", method);
-                details.put("error_message", e.getMessage()); // TODO This message isn't always the most descriptive..
-                history.setDetails(details);
-            }
-        } finally {
-            updateMetrics(history.getStatus(), isEmailEndpoint);
-            if (persistHistory) {
-                persistNotificationHistory(history);
-            }
+            Log.debugf("Failed: %s", e.getMessage());
+
+            Map<String, Object> details = new HashMap<>();
+            details.put("url", url);
+            details.put("method", method);
+            details.put("error_message", e.getMessage()); // TODO This message isn't always the most descriptive..
+            history.setDetails(details);
+        }
+    }
+
+    private static String getWebClientName(Endpoint endpoint, boolean isEmailEndpoint) {
+        if (isEmailEndpoint) {
+            return BOP_CLIENT;
+        } else if (Boolean.TRUE.equals(endpoint.getProperties(WebhookProperties.class).getDisableSslVerification())) {
+            return UNSECURED_CLIENT;
+        } else {
+            return SECURED_CLIENT;
         }
     }
 
-    private void updateMetrics(NotificationStatus status, boolean isEmailEndpoint) {
+    private void updateMetrics(NotificationStatus status, boolean isEmailEndpoint, int eventsCount) {
         if (NotificationStatus.FAILED_INTERNAL == status || NotificationStatus.FAILED_EXTERNAL == status) {
             if (isEmailEndpoint) {
-                failedEmailCount.increment();
+                failedEmailCount.increment(eventsCount);
             } else {
-                failedWebhookCount.increment();
+                failedWebhookCount.increment(eventsCount);
             }
         } else {
             if (isEmailEndpoint) {
-                successEmailCount.increment();
+                successEmailCount.increment(eventsCount);
             } else {
-                successWebhookCount.increment();
+                successWebhookCount.increment(eventsCount);
             }
         }
     }
@@ -340,11 +505,11 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
         }
     }
 
-    private void incrementProcessedMetrics(boolean isEmailEndpoint) {
+    private void incrementProcessedMetrics(boolean isEmailEndpoint, int eventsCount) {
         if (isEmailEndpoint) {
-            processedEmailCount.increment();
+            processedEmailCount.increment(eventsCount);
         } else {
-            processedWebhookCount.increment();
+            processedWebhookCount.increment(eventsCount);
         }
     }
 
@@ -359,12 +524,14 @@ public class WebhookTypeProcessor extends EndpointTypeProcessor {
      *     <li>{@link ServerErrorException} is thrown when the call was successful but the remote server replied with a 5xx HTTP status.</li>
      *     <li>{@link IOException} is thrown when the connection between us and the remote server was reset during the call.</li>
      *     <li>{@link ConnectTimeoutException} is thrown when the remote server did not respond at all to our call.</li>
+     *     <li>{@link ConnectionPoolTooBusyException} is thrown when too many calls to the same remote server were waiting for a connection.</li>
      * </ul>
      */
     private boolean shouldRetry(Throwable throwable) {
         return throwable instanceof ServerErrorException ||
                 throwable instanceof IOException ||
                 throwable instanceof ConnectTimeoutException ||
+                throwable instanceof ConnectionPoolTooBusyException ||
                 throwable instanceof VertxException && CONNECTION_CLOSED_MSG.equals(throwable.getMessage());
     }
 }
@@ -28,12 +28,28 @@ public class RecipientResolver {
     }
 
     public Set<User> recipientUsers(String orgId, Set<RecipientSettings> requests, Set<String> subscribers) {
+        return recipientUsers(orgId, requests, subscribers, true);
+    }
+
+    /**
+     * Resolves the recipients of a notification.
+     * @param orgId the org ID of the recipients
+     * @param requests the recipient settings of the endpoints and of the event
+     * @param subscribers the users who subscribed to the event type if {@code optIn} is true, or the users who
+     *                    unsubscribed from the event type otherwise
+     * @param optIn whether the users have to subscribe to the event type to receive the notification
+     * @return the recipients of the notification
+     */
+    public Set<User> recipientUsers(String orgId, Set<RecipientSettings> requests, Set<String> subscribers, boolean optIn) {
+        Set<String> lowerCaseSubscribers = optIn ? subscribers : subscribers.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
         return requests.stream()
-                .flatMap(r -> recipientUsers(orgId, r, subscribers).stream())
+                .flatMap(r -> recipientUsers(orgId, r, lowerCaseSubscribers, optIn).stream())
                 .collect(Collectors.toSet());
     }
 
-    private Set<User> recipientUsers(String orgId, RecipientSettings request, Set<String> subscribers) {
+    private Set<User> recipientUsers(String orgId, RecipientSettings request, Set<String> subscribers, boolean optIn) {
         List<User> rbacUsers;
         if (request.getGroupId() == null) {
             rbacUsers = rbacRecipientUsersProvider.getUsers(orgId, request.isOnlyAdmins());
@@ -55,9 +71,14 @@ public class RecipientResolver {
         // previous step) is returned without filtering out the users who didn't subscribe to the event type.
         if (request.isIgnoreUserPreferences()) {
             users = Set.copyOf(users);
-        } else {
+        } else if (optIn) {
             // Otherwise, the recipients from RBAC who didn't subscribe to the event type are filtered out.
             users = filterUsers(users, subscribers);
+        } else {
+            // With an opt-out subscription, the subscribers are the users who unsubscribed from the event type.
+            users = users.stream()
+                    .filter(user -> !subscribers.contains(user.getUsername().toLowerCase()))
+                    .collect(Collectors.toSet());
         }
 
         updateUsersUsedGauge(users.size());
@@ -3,6 +3,7 @@ package com.redhat.cloud.notifications.templates;
 import com.redhat.cloud.notifications.models.Environment;
 import com.redhat.cloud.notifications.recipients.User;
 import io.quarkus.qute.Engine;
+import io.quarkus.qute.Template;
 import io.quarkus.qute.TemplateInstance;
 import io.quarkus.scheduler.Scheduled;
 
@@ -29,7 +30,14 @@ public class TemplateService {
     }
 
     public TemplateInstance compileTemplate(String template, String name) {
-        return engine.parse(template, null, name).instance();
+        return parseTemplate(template, name).instance();
+    }
+
+    /**
+     * Parses a template which can be shared between threads. Each thread has to render its own instance of it.
+     */
+    public Template parseTemplate(String template, String name) {
+        return engine.parse(template, null, name);
     }
 
     @Deprecated(forRemoval = true)
@@ -10,8 +10,6 @@ import com.redhat.cloud.notifications.processors.email.aggregators.PatchEmailPay
 import org.apache.commons.lang3.StringUtils;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -115,9 +113,9 @@ public class PatchTestHelpers {
         return aggregation;
     }
 
-    public static ArrayList<LinkedHashMap<String, String>> getAdvisoriesByType(PatchEmailPayloadAggregator aggregator, String advisoryType) {
+    public static List<Map<String, String>> getAdvisoriesByType(PatchEmailPayloadAggregator aggregator, String advisoryType) {
         Map<String, Object> patch = (Map<String, Object>) ((Map<String, Object>) aggregator.getContext()).get("patch");
-        return (ArrayList<LinkedHashMap<String, String>>) patch.get(advisoryType);
+        return (List<Map<String, String>>) patch.get(advisoryType);
     }
 
 
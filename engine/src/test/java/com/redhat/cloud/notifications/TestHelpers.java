@@ -403,7 +403,7 @@ public class TestHelpers {
 
         emailActionMessage.setContext(
             new Context.ContextBuilder()
-                .withAdditionalProperty("vulnerability", Map.of("reported_cves", List.of("CVE1", "CVE2", "CVE3")))
+                .withAdditionalProperty("vulnerability", Map.of("reported_cves", List.of("CVE1", "CVE2", "CVE3"), "reported_cve_count", 3))
                 .build()
         );
 
@@ -18,6 +18,10 @@ import static com.redhat.cloud.notifications.events.EventConsumer.INGRESS_CHANNE
 import static com.redhat.cloud.notifications.exports.ExportEventListener.EXPORT_CHANNEL;
 import static com.redhat.cloud.notifications.processors.ConnectorSender.TOCAMEL_CHANNEL;
 import static com.redhat.cloud.notifications.processors.email.EmailSubscriptionTypeProcessor.AGGREGATION_CHANNEL;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.DELIVERY_RETRY_TIER_1_CHANNEL;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.DELIVERY_RETRY_TIER_2_CHANNEL;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.DELIVERY_RETRY_TIER_3_CHANNEL;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.TO_DELIVERY_RETRY_CHANNEL;
 import static com.redhat.cloud.notifications.routers.DailyDigestResource.AGGREGATION_OUT_CHANNEL;
 
 public class TestLifecycleManager implements QuarkusTestResourceLifecycleManager {
@@ -46,6 +50,8 @@ public class TestLifecycleManager implements QuarkusTestResourceLifecycleManager
         properties.putAll(InMemoryConnector.switchIncomingChannelsToInMemory(FROMCAMEL_CHANNEL));
         properties.putAll(InMemoryConnector.switchOutgoingChannelsToInMemory(EGRESS_CHANNEL));
         properties.putAll(InMemoryConnector.switchIncomingChannelsToInMemory(EXPORT_CHANNEL));
+        properties.putAll(InMemoryConnector.switchOutgoingChannelsToInMemory(TO_DELIVERY_RETRY_CHANNEL));
+        properties.putAll(InMemoryConnector.switchIncomingChannelsToInMemory(DELIVERY_RETRY_TIER_1_CHANNEL, DELIVERY_RETRY_TIER_2_CHANNEL, DELIVERY_RETRY_TIER_3_CHANNEL));
 
         properties.put("reinject.enabled", "true");
 
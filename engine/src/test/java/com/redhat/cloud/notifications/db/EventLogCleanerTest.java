@@ -15,9 +15,11 @@ import javax.transaction.Transactional;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @QuarkusTestResource(TestLifecycleManager.class)
@@ -38,6 +40,21 @@ public class EventLogCleanerTest {
         assertEquals(1L, count());
     }
 
+    @Test
+    @Transactional
+    void testUpcomingPartitionsCreation() {
+        entityManager.createNativeQuery("CALL cleanEventLog()").executeUpdate();
+        String suffix = now().toLocalDate().plusDays(7L).format(DateTimeFormatter.BASIC_ISO_DATE);
+        assertTrue(partitionExists("event_" + suffix));
+        assertTrue(partitionExists("notification_history_" + suffix));
+    }
+
+    private boolean partitionExists(String partitionName) {
+        return (Boolean) entityManager.createNativeQuery("SELECT to_regclass(:partitionName) IS NOT NULL")
+                .setParameter("partitionName", partitionName)
+                .getSingleResult();
+    }
+
     private Integer deleteAllEvents() {
         return entityManager.createQuery("DELETE FROM Event")
                 .executeUpdate();
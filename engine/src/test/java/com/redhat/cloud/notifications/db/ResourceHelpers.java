@@ -193,6 +193,15 @@ public class ResourceHelpers {
         return emailSubscription;
     }
 
+    @Transactional
+    public void recordEmailSubscriptionChange(String orgId, UUID applicationId) {
+        entityManager.createNativeQuery("INSERT INTO email_subscription_change (org_id, application_id, updated) " +
+                "VALUES (:orgId, :applicationId, NOW() AT TIME ZONE 'UTC') ON CONFLICT (org_id, application_id) DO UPDATE SET updated = EXCLUDED.updated")
+            .setParameter("orgId", orgId)
+            .setParameter("applicationId", applicationId)
+            .executeUpdate();
+    }
+
     @Transactional
     public void deleteEmailTemplatesById(UUID templateId) {
         entityManager.createQuery("DELETE FROM InstantEmailTemplate WHERE id = :id").setParameter("id", templateId).executeUpdate();
@@ -17,6 +17,7 @@ import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.Set;
 
 import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -61,6 +62,7 @@ public class DrawerNotificationRepositoryTest {
         entityManager.createQuery("DELETE FROM Application WHERE id = :uuid").setParameter("uuid", createdApplication.getId()).executeUpdate();
         entityManager.createQuery("DELETE FROM Bundle WHERE id = :uuid").setParameter("uuid", createdBundle.getId()).executeUpdate();
         entityManager.createQuery("DELETE FROM DrawerNotification").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM drawer_unread_counter").executeUpdate();
     }
 
     @Test
@@ -84,6 +86,7 @@ public class DrawerNotificationRepositoryTest {
 
             assertEquals(1, drawerNotificationUser1.size());
             assertNotNull(drawerNotificationUser1.get(0).getCreated());
+            assertEquals(createdEvent.getCreated(), drawerNotificationUser1.get(0).getEventCreated());
             assertEquals(0, drawerNotificationUser3.size());
 
             entityManager.createQuery("DELETE FROM Event WHERE id = :uuid").setParameter("uuid", createdEvent.getId()).executeUpdate();
@@ -92,6 +95,43 @@ public class DrawerNotificationRepositoryTest {
         });
     }
 
+    @Test
+    @Transactional
+    void testBulkCreate() {
+        this.statelessSessionFactory.withSession(session -> {
+            Set<String> userIds = Set.of("user-1", "user-2", "user-3");
+            assertEquals(3, drawerNotificationsRepository.create(createdEvent, userIds));
+            // Replaying the same event must not create any duplicate entries.
+            assertEquals(0, drawerNotificationsRepository.create(createdEvent, userIds));
+            assertEquals(0, drawerNotificationsRepository.create(createdEvent, Set.of()));
+
+            for (String userId : userIds) {
+                List<DrawerNotification> drawerNotifications = getDrawerNotificationsByUserId(userId);
+                assertEquals(1, drawerNotifications.size());
+                // The partition key of the event is stored with the entry.
+                assertEquals(createdEvent.getCreated(), drawerNotifications.get(0).getEventCreated());
+                assertEquals(1, getUnreadCount(userId));
+            }
+
+            entityManager.createQuery("UPDATE DrawerNotification SET read = TRUE WHERE userId = :userId")
+                .setParameter("userId", "user-1")
+                .executeUpdate();
+            assertEquals(0, getUnreadCount("user-1"));
+            assertEquals(1, getUnreadCount("user-2"));
+
+            entityManager.createQuery("DELETE FROM Event WHERE id = :uuid").setParameter("uuid", createdEvent.getId()).executeUpdate();
+            assertEquals(0, getUnreadCount("user-2"));
+        });
+    }
+
+    private int getUnreadCount(String userId) {
+        String query = "SELECT unread_count FROM drawer_unread_counter WHERE org_id = :orgId AND user_id = :userId";
+        return ((Number) entityManager.createNativeQuery(query)
+            .setParameter("orgId", DEFAULT_ORG_ID)
+            .setParameter("userId", userId)
+            .getSingleResult()).intValue();
+    }
+
     public List<DrawerNotification> getDrawerNotificationsByUserId(String userId) {
         String query = "SELECT dn FROM DrawerNotification dn WHERE dn.userId = :userId and dn.orgId = :orgId";
         return entityManager.createQuery(query, DrawerNotification.class)
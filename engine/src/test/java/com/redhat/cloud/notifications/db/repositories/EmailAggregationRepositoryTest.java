@@ -3,10 +3,13 @@ package com.redhat.cloud.notifications.db.repositories;
 import com.redhat.cloud.notifications.TestLifecycleManager;
 import com.redhat.cloud.notifications.db.ResourceHelpers;
 import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.db.repositories.EmailAggregationRepository.EmailAggregationGroup;
+import com.redhat.cloud.notifications.ingress.Recipient;
 import com.redhat.cloud.notifications.models.EmailAggregation;
 import com.redhat.cloud.notifications.models.EmailAggregationKey;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 
@@ -15,7 +18,11 @@ import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -81,6 +88,56 @@ public class EmailAggregationRepositoryTest {
         });
     }
 
+    @Test
+    void testGroupsAndPruning() {
+        LocalDateTime start = LocalDateTime.now(UTC).minusHours(1L);
+        LocalDateTime end = LocalDateTime.now(UTC).plusHours(1L);
+        EmailAggregationKey key = new EmailAggregationKey(ORG_ID, BUNDLE_NAME, APP_NAME);
+
+        Recipient recipient = new Recipient();
+        recipient.setIgnoreUserPreferences(true);
+        recipient.setUsers(List.of());
+        JsonObject forcedRecipients = new JsonObject().put("recipients", new JsonArray().add(JsonObject.mapFrom(recipient)));
+
+        statelessSessionFactory.withSession(statelessSession -> {
+            clearEmailAggregations();
+            resourceHelpers.addEmailAggregation(ORG_ID, BUNDLE_NAME, APP_NAME, new JsonObject().put("event_type", "subscribed"));
+            resourceHelpers.addEmailAggregation(ORG_ID, BUNDLE_NAME, APP_NAME, new JsonObject().put("event_type", "subscribed"));
+            resourceHelpers.addEmailAggregation(ORG_ID, BUNDLE_NAME, APP_NAME, new JsonObject().put("event_type", "subscribed").mergeIn(forcedRecipients));
+            resourceHelpers.addEmailAggregation(ORG_ID, BUNDLE_NAME, APP_NAME, new JsonObject().put("event_type", "unsubscribed"));
+            resourceHelpers.addEmailAggregation(ORG_ID, BUNDLE_NAME, APP_NAME, new JsonObject().put("event_type", "unsubscribed").mergeIn(forcedRecipients));
+
+            // All event types, grouped by event type and recipients settings.
+            List<EmailAggregationGroup> groups = emailAggregationRepository.getEmailAggregationGroups(key, start, end, null);
+            assertEquals(4, groups.size());
+            assertEquals(2, groups.stream().filter(group -> group.recipients().isEmpty()).count());
+
+            // The aggregations of the event type without subscribers are skipped unless they ignore the user preferences.
+            groups = emailAggregationRepository.getEmailAggregationGroups(key, start, end, Set.of("subscribed"));
+            assertEquals(3, groups.size());
+            assertTrue(groups.stream().noneMatch(group -> group.eventType().equals("unsubscribed") && group.recipients().isEmpty()));
+
+            // Only the aggregations of the given groups are read.
+            List<EmailAggregationGroup> subscribedGroups = groups.stream()
+                    .filter(group -> group.eventType().equals("subscribed"))
+                    .collect(Collectors.toList());
+            List<EmailAggregation> aggregations = emailAggregationRepository.getEmailAggregation(key, start, end, subscribedGroups, 0, 10);
+            assertEquals(3, aggregations.size());
+            assertTrue(aggregations.stream().map(EmailAggregation::getEventType).allMatch("subscribed"::equals));
+            assertEquals(1, aggregations.stream().filter(EmailAggregation::isForcedEmail).count());
+
+            // The aggregations are ordered by group, in the order of the given groups.
+            subscribedGroups.sort(Comparator.comparing(group -> group.recipients().isEmpty()));
+            aggregations = emailAggregationRepository.getEmailAggregation(key, start, end, subscribedGroups, 0, 10);
+            assertEquals(List.of(true, false, false), aggregations.stream().map(EmailAggregation::isForcedEmail).collect(Collectors.toList()));
+            Collections.reverse(subscribedGroups);
+            aggregations = emailAggregationRepository.getEmailAggregation(key, start, end, subscribedGroups, 0, 10);
+            assertEquals(List.of(false, false, true), aggregations.stream().map(EmailAggregation::isForcedEmail).collect(Collectors.toList()));
+
+            clearEmailAggregations();
+        });
+    }
+
     @Test
     void addEmailAggregationWithConstraintViolations() {
         statelessSessionFactory.withSession(statelessSession -> {
@@ -0,0 +1,102 @@
+package com.redhat.cloud.notifications.db.repositories;
+
+import com.redhat.cloud.notifications.MicrometerAssertionHelper;
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.EventType;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.Set;
+
+import static com.redhat.cloud.notifications.db.repositories.EmailSubscriberIndex.CACHE_HITS_COUNTER_NAME;
+import static com.redhat.cloud.notifications.db.repositories.EmailSubscriberIndex.CACHE_MISSES_COUNTER_NAME;
+import static com.redhat.cloud.notifications.models.EmailSubscriptionType.DAILY;
+import static com.redhat.cloud.notifications.models.EmailSubscriptionType.INSTANT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class EmailSubscriberIndexTest {
+
+    private static final String ORG_ID = "index-org-id";
+    private static final String BUNDLE_NAME = "index-bundle";
+    private static final String APP_NAME = "index-app";
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    EmailSubscriptionRepository emailSubscriptionRepository;
+
+    @Inject
+    EmailSubscriberIndex emailSubscriberIndex;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    MicrometerAssertionHelper micrometerAssertionHelper;
+
+    @BeforeEach
+    void beforeEach() {
+        featureFlipper.setEmailSubscriberIndexEnabled(true);
+        featureFlipper.setUseEventTypeForSubscriptionEnabled(true);
+        micrometerAssertionHelper.saveCounterValuesBeforeTest(CACHE_HITS_COUNTER_NAME, CACHE_MISSES_COUNTER_NAME);
+    }
+
+    @AfterEach
+    void afterEach() {
+        featureFlipper.setEmailSubscriberIndexEnabled(false);
+        featureFlipper.setUseEventTypeForSubscriptionEnabled(false);
+        micrometerAssertionHelper.clearSavedValues();
+    }
+
+    @Test
+    void testInvalidationOnSubscriptionChange() {
+        Bundle bundle = resourceHelpers.createBundle(BUNDLE_NAME);
+        Application application = resourceHelpers.createApp(bundle.getId(), APP_NAME);
+        EventType eventTypeA = resourceHelpers.createEventType(application.getId(), "event-type-a");
+        EventType eventTypeB = resourceHelpers.createEventType(application.getId(), "event-type-b");
+        resourceHelpers.createEventTypeEmailSubscription(ORG_ID, "user-1", eventTypeA, INSTANT);
+        resourceHelpers.createEventTypeEmailSubscription(ORG_ID, "user-2", eventTypeB, INSTANT);
+        resourceHelpers.createEventTypeEmailSubscription(ORG_ID, "user-3", eventTypeA, DAILY);
+
+        // The first refresh clears the entries which may have been loaded by other tests.
+        emailSubscriberIndex.refresh();
+
+        statelessSessionFactory.withSession(statelessSession -> {
+            // Both event types of the application are served by the same entry.
+            assertEquals(Set.of("user-1"), Set.copyOf(emailSubscriptionRepository.getEmailSubscribersUserId(ORG_ID, eventTypeA, INSTANT)));
+            assertEquals(Set.of("user-2"), Set.copyOf(emailSubscriptionRepository.getEmailSubscribersUserId(ORG_ID, eventTypeB, INSTANT)));
+            assertEquals(Map.of("event-type-a", Set.of("user-3")),
+                    emailSubscriptionRepository.getEmailSubscribersUserIdGroupedByEventType(ORG_ID, BUNDLE_NAME, APP_NAME, DAILY));
+        });
+        micrometerAssertionHelper.assertCounterIncrement(CACHE_MISSES_COUNTER_NAME, 2);
+        micrometerAssertionHelper.assertCounterIncrement(CACHE_HITS_COUNTER_NAME, 1);
+
+        // A subscription which has not been recorded as a change yet is not visible.
+        resourceHelpers.createEventTypeEmailSubscription(ORG_ID, "user-4", eventTypeA, INSTANT);
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertEquals(Set.of("user-1"), Set.copyOf(emailSubscriptionRepository.getEmailSubscribersUserId(ORG_ID, eventTypeA, INSTANT)));
+        });
+
+        resourceHelpers.recordEmailSubscriptionChange(ORG_ID, application.getId());
+        emailSubscriberIndex.refresh();
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertEquals(Set.of("user-1", "user-4"), Set.copyOf(emailSubscriptionRepository.getEmailSubscribersUserId(ORG_ID, eventTypeA, INSTANT)));
+        });
+    }
+}
@@ -65,19 +65,34 @@ public class EndpointRepositoryTest {
 
         statelessSessionFactory.withSession(statelessSession -> {
             for (int i = 1; i <= MAX_SERVER_ERRORS + 1; i++) {
-                assertEquals(i > MAX_SERVER_ERRORS, endpointRepository.incrementEndpointServerErrors(endpoint.getId(), MAX_SERVER_ERRORS));
+                assertEquals(i > MAX_SERVER_ERRORS, endpointRepository.incrementEndpointServerErrors(endpoint.getId(), 1, MAX_SERVER_ERRORS));
                 Endpoint ep = getEndpoint(endpoint.getId());
                 assertEquals(i <= MAX_SERVER_ERRORS, ep.isEnabled());
-                // The server errors counter is not incremented on the last iteration. The endpoint is disabled instead.
-                assertEquals(i <= MAX_SERVER_ERRORS ? i : i - 1, ep.getServerErrors());
+                assertEquals(i, ep.getServerErrors());
             }
+            // The endpoint is only disabled once, the counter of a disabled endpoint is not incremented.
+            assertFalse(endpointRepository.incrementEndpointServerErrors(endpoint.getId(), 1, MAX_SERVER_ERRORS));
+            assertEquals(MAX_SERVER_ERRORS + 1, getEndpoint(endpoint.getId()).getServerErrors());
+        });
+    }
+
+    @Test
+    void testIncrementEndpointServerErrorsInBatch() {
+        Endpoint endpoint = resourceHelpers.createEndpoint(WEBHOOK, null, true, 2);
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertFalse(endpointRepository.incrementEndpointServerErrors(endpoint.getId(), MAX_SERVER_ERRORS - 2, MAX_SERVER_ERRORS));
+            assertEquals(MAX_SERVER_ERRORS, getEndpoint(endpoint.getId()).getServerErrors());
+            assertTrue(endpointRepository.incrementEndpointServerErrors(endpoint.getId(), 5, MAX_SERVER_ERRORS));
+            Endpoint ep = getEndpoint(endpoint.getId());
+            assertFalse(ep.isEnabled());
+            assertEquals(MAX_SERVER_ERRORS + 5, ep.getServerErrors());
         });
     }
 
     @Test
     void testIncrementEndpointServerErrorsWithUnknownId() {
         statelessSessionFactory.withSession(statelessSession -> {
-            assertFalse(endpointRepository.incrementEndpointServerErrors(UUID.randomUUID(), 10));
+            assertFalse(endpointRepository.incrementEndpointServerErrors(UUID.randomUUID(), 1, 10));
         });
     }
 
@@ -20,11 +20,14 @@ import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 
 import java.security.SecureRandom;
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 
 import static com.redhat.cloud.notifications.models.EndpointType.CAMEL;
+import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
 import static com.redhat.cloud.notifications.models.EndpointType.WEBHOOK;
+import static java.time.ZoneOffset.UTC;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -86,6 +89,72 @@ public class NotificationHistoryRepositoryTest {
         assertEquals(history.getDetails(), persistedHistory.getDetails());
     }
 
+    @Test
+    void testUpdateHistoryDetails() {
+        NotificationHistory history = initData(789L, NotificationStatus.PROCESSING, CAMEL, "slack", null);
+
+        statelessSessionFactory.withSession(statelessSession -> {
+            repository.createNotificationHistory(history);
+            history.setStatus(NotificationStatus.SUCCESS);
+            history.setDetails(Map.of("outcome", "delivered"));
+            repository.updateHistoryItem(history);
+        });
+
+        NotificationHistory persistedHistory = entityManager.find(NotificationHistory.class, history.getId());
+        assertEquals(NotificationStatus.SUCCESS, persistedHistory.getStatus());
+        assertEquals(true, persistedHistory.isInvocationResult());
+        assertEquals(Map.of("outcome", "delivered"), persistedHistory.getDetails());
+    }
+
+    @Test
+    void testReadLegacyTextDetails() {
+        NotificationHistory history = initData(1011L, NotificationStatus.SUCCESS, WEBHOOK, null, null);
+        statelessSessionFactory.withSession(statelessSession -> {
+            repository.createNotificationHistory(history);
+        });
+        // The entries created before V1.86.0 only have details in the legacy text column.
+        setLegacyDetails(history.getId(), "{\"legacy\":true}");
+
+        NotificationHistory persistedHistory = entityManager.find(NotificationHistory.class, history.getId());
+        assertEquals(Map.of("legacy", true), persistedHistory.getDetails());
+    }
+
+    @Test
+    void testFailStaleProcessingHistories() {
+        NotificationHistory staleHistory = initData(0L, NotificationStatus.PROCESSING, EMAIL_SUBSCRIPTION, null, Map.of("attempt", 1));
+        NotificationHistory sentHistory = initData(0L, NotificationStatus.SUCCESS, EMAIL_SUBSCRIPTION, null, null);
+        NotificationHistory webhookHistory = initData(0L, NotificationStatus.PROCESSING, WEBHOOK, null, null);
+
+        statelessSessionFactory.withSession(statelessSession -> {
+            repository.createNotificationHistory(staleHistory);
+            repository.createNotificationHistory(sentHistory);
+            repository.createNotificationHistory(webhookHistory);
+            // None of the histories is old enough yet.
+            repository.failStaleProcessingHistories(EMAIL_SUBSCRIPTION, LocalDateTime.now(UTC).minusHours(1L), Map.of("error_message", "stale"));
+        });
+        assertEquals(NotificationStatus.PROCESSING, entityManager.find(NotificationHistory.class, staleHistory.getId()).getStatus());
+
+        statelessSessionFactory.withSession(statelessSession -> {
+            repository.failStaleProcessingHistories(EMAIL_SUBSCRIPTION, LocalDateTime.now(UTC).plusMinutes(1L), Map.of("error_message", "stale"));
+        });
+
+        NotificationHistory failedHistory = entityManager.find(NotificationHistory.class, staleHistory.getId());
+        assertEquals(NotificationStatus.FAILED_INTERNAL, failedHistory.getStatus());
+        assertEquals(false, failedHistory.isInvocationResult());
+        // The details of the history are kept.
+        assertEquals(Map.of("attempt", 1, "error_message", "stale"), failedHistory.getDetails());
+        assertEquals(NotificationStatus.SUCCESS, entityManager.find(NotificationHistory.class, sentHistory.getId()).getStatus());
+        assertEquals(NotificationStatus.PROCESSING, entityManager.find(NotificationHistory.class, webhookHistory.getId()).getStatus());
+    }
+
+    @Transactional
+    void setLegacyDetails(UUID historyId, String details) {
+        entityManager.createNativeQuery("UPDATE notification_history SET details = :details WHERE id = :id")
+                .setParameter("details", details)
+                .setParameter("id", historyId)
+                .executeUpdate();
+    }
+
     @Transactional
     NotificationHistory initData(Long invocationTime, NotificationStatus status, EndpointType endpointType,
             String endpointSubType, Map<String, Object> details) {
@@ -0,0 +1,25 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+@TestProfile(ConcurrentIngressTestProfile.class)
+public class ConcurrentEventConsumerThroughputTest extends EventConsumerThroughputTest {
+
+    @Test
+    void testConcurrentThroughput() {
+        Duration duration = consumeSlowly();
+        assertTrue(maxInFlight.get() > 1);
+        // With 4 workers, the messages should be consumed about 4 times faster than one at a time.
+        assertTrue(duration.compareTo(SEQUENTIAL_DURATION.dividedBy(2L)) < 0, "Consumed in " + duration);
+    }
+}
@@ -0,0 +1,13 @@
+package com.redhat.cloud.notifications.events;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+public class ConcurrentIngressTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of("smallrye.messaging.worker.ingress-worker-pool.max-concurrency", "4");
+    }
+}
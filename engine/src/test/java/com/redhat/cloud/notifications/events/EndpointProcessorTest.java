@@ -1,5 +1,7 @@
 package com.redhat.cloud.notifications.events;
 
+import com.redhat.cloud.notifications.DelayedException;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
 import com.redhat.cloud.notifications.db.repositories.EndpointRepository;
 import com.redhat.cloud.notifications.ingress.Action;
 import com.redhat.cloud.notifications.ingress.Context;
@@ -15,6 +17,7 @@ import com.redhat.cloud.notifications.processors.camel.slack.SlackProcessor;
 import com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -22,8 +25,13 @@ import javax.inject.Inject;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 public class EndpointProcessorTest {
@@ -44,6 +52,14 @@ public class EndpointProcessorTest {
     @InjectMock
     EndpointRepository endpointRepository;
 
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @AfterEach
+    void afterEach() {
+        featureFlipper.setParallelFanOutEnabled(false);
+    }
+
     /**
      * Tests that when an "integration customer test" event is processed, the
      * corresponding endpoint is fetched by the UUID that gets set in the
@@ -170,4 +186,57 @@ public class EndpointProcessorTest {
         Mockito.verify(this.endpointRepository, Mockito.times(1)).getTargetEndpoints(Mockito.anyString(), Mockito.any(EventType.class));
         Mockito.verify(this.webhookProcessor, Mockito.times(1)).process(Mockito.eq(event), Mockito.anyList());
     }
+
+    /**
+     * Tests that the endpoint types are processed concurrently when the parallel fan-out is enabled and that the
+     * exceptions of every type are still rethrown once all types have been processed.
+     */
+    @Test
+    void testParallelFanOut() {
+        featureFlipper.setParallelFanOutEnabled(true);
+
+        final String orgId = "parallel-fan-out-org-id";
+
+        final Endpoint webhookEndpoint = new Endpoint();
+        webhookEndpoint.setId(UUID.randomUUID());
+        webhookEndpoint.setOrgId(orgId);
+        webhookEndpoint.setType(EndpointType.WEBHOOK);
+
+        final Endpoint slackEndpoint = new Endpoint();
+        slackEndpoint.setId(UUID.randomUUID());
+        slackEndpoint.setOrgId(orgId);
+        slackEndpoint.setType(EndpointType.CAMEL);
+        slackEndpoint.setSubType("slack");
+
+        final EventType eventType = new EventType();
+        eventType.setId(UUID.randomUUID());
+
+        final Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setEventType(eventType);
+        event.setOrgId(orgId);
+
+        Mockito.when(this.endpointRepository.getTargetEndpoints(orgId, eventType)).thenReturn(List.of(webhookEndpoint, slackEndpoint));
+
+        // The webhook processor can only complete while the Slack processor is running.
+        final CountDownLatch slackStarted = new CountDownLatch(1);
+        final CountDownLatch webhookDone = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            slackStarted.countDown();
+            assertTrue(webhookDone.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(this.slackProcessor).process(Mockito.eq(event), Mockito.anyList());
+        Mockito.doAnswer(invocation -> {
+            assertTrue(slackStarted.await(10, TimeUnit.SECONDS));
+            webhookDone.countDown();
+            throw new IllegalStateException("Webhook failure");
+        }).when(this.webhookProcessor).process(Mockito.eq(event), Mockito.anyList());
+
+        DelayedException e = assertThrows(DelayedException.class, () -> this.endpointProcessor.process(event));
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals("Webhook failure", e.getSuppressed()[0].getMessage());
+
+        Mockito.verify(this.slackProcessor, Mockito.times(1)).process(Mockito.eq(event), Mockito.anyList());
+        Mockito.verify(this.webhookProcessor, Mockito.times(1)).process(Mockito.eq(event), Mockito.anyList());
+    }
 }
@@ -0,0 +1,127 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.MicrometerAssertionHelper;
+import com.redhat.cloud.notifications.db.repositories.EventRepository;
+import com.redhat.cloud.notifications.db.repositories.EventTypeRepository;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.ingress.Context;
+import com.redhat.cloud.notifications.ingress.Metadata;
+import com.redhat.cloud.notifications.ingress.Payload;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.models.EventTypeKey;
+import io.quarkus.test.junit.mockito.InjectMock;
+import io.smallrye.reactive.messaging.providers.connectors.InMemoryConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static com.redhat.cloud.notifications.TestHelpers.serializeAction;
+import static com.redhat.cloud.notifications.events.EventConsumer.CONSUMED_TIMER_NAME;
+import static com.redhat.cloud.notifications.events.EventConsumer.INGRESS_CHANNEL;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/*
+ * Consumes a fixed number of messages while the endpoint processor is as slow as the downstream services can be. The
+ * subclasses run it with the sequential default configuration and with a concurrent ingress worker pool, then compare
+ * the consumption time with the time needed to process the messages one at a time.
+ */
+public abstract class EventConsumerThroughputTest {
+
+    protected static final int MESSAGES = 8;
+    protected static final Duration PROCESSING_DURATION = Duration.ofMillis(250L);
+    protected static final Duration SEQUENTIAL_DURATION = PROCESSING_DURATION.multipliedBy(MESSAGES);
+
+    @Inject
+    @Any
+    InMemoryConnector inMemoryConnector;
+
+    @InjectMock
+    EndpointProcessor endpointProcessor;
+
+    @InjectMock
+    EventTypeRepository eventTypeRepository;
+
+    @InjectMock
+    EventRepository eventRepository;
+
+    @Inject
+    MicrometerAssertionHelper micrometerAssertionHelper;
+
+    // Highest number of messages processed at the same time.
+    protected final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void beforeEach() {
+        micrometerAssertionHelper.removeDynamicTimer(CONSUMED_TIMER_NAME);
+    }
+
+    @AfterEach
+    void afterEach() {
+        micrometerAssertionHelper.removeDynamicTimer(CONSUMED_TIMER_NAME);
+    }
+
+    protected Duration consumeSlowly() {
+        when(eventTypeRepository.getEventType(any(EventTypeKey.class))).thenReturn(buildEventType());
+        when(eventRepository.create(any(Event.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        AtomicInteger inFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(PROCESSING_DURATION.toMillis());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return null;
+        }).when(endpointProcessor).process(any(Event.class));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            inMemoryConnector.source(INGRESS_CHANNEL).send(serializeAction(buildAction()));
+        }
+        micrometerAssertionHelper.awaitAndAssertTimerIncrement(CONSUMED_TIMER_NAME, MESSAGES);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static EventType buildEventType() {
+        Bundle bundle = new Bundle();
+        bundle.setName("my-bundle");
+        Application app = new Application();
+        app.setName("my-app");
+        app.setBundle(bundle);
+        EventType eventType = new EventType();
+        eventType.setName("my-event-type");
+        eventType.setApplication(app);
+        return eventType;
+    }
+
+    private static Action buildAction() {
+        Action action = new Action();
+        action.setVersion("v1.0.0");
+        action.setBundle("my-bundle");
+        action.setApplication("my-app");
+        action.setEventType("my-event-type");
+        action.setTimestamp(LocalDateTime.now());
+        action.setOrgId(DEFAULT_ORG_ID);
+        action.setRecipients(List.of());
+        action.setEvents(List.of(
+                new com.redhat.cloud.notifications.ingress.Event.EventBuilder()
+                        .withMetadata(new Metadata.MetadataBuilder().build())
+                        .withPayload(new Payload.PayloadBuilder().build())
+                        .build()
+        ));
+        action.setContext(new Context.ContextBuilder().build());
+        return action;
+    }
+}
@@ -0,0 +1,76 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.KafkaMessage;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static java.time.ZoneOffset.UTC;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class KafkaMessageDeduplicatorTest {
+
+    @Inject
+    KafkaMessageDeduplicator kafkaMessageDeduplicator;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Test
+    void testRegisterTwice() {
+        UUID messageId = UUID.randomUUID();
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertFalse(kafkaMessageDeduplicator.isDuplicate(messageId));
+            assertTrue(kafkaMessageDeduplicator.registerMessageId(messageId));
+            assertTrue(kafkaMessageDeduplicator.isDuplicate(messageId));
+            // The primary key contains the registration day, so the second registration is skipped.
+            assertFalse(kafkaMessageDeduplicator.registerMessageId(messageId));
+        });
+    }
+
+    @Test
+    void testRegisteredYesterday() {
+        UUID messageId = UUID.randomUUID();
+        createKafkaMessage(messageId, LocalDate.now(UTC).minusDays(1L).atStartOfDay());
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertTrue(kafkaMessageDeduplicator.isDuplicate(messageId));
+            assertFalse(kafkaMessageDeduplicator.registerMessageId(messageId));
+        });
+    }
+
+    @Test
+    void testRegistrationExpired() {
+        UUID messageId = UUID.randomUUID();
+        createKafkaMessage(messageId, LocalDate.now(UTC).minusDays(2L).atStartOfDay());
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertFalse(kafkaMessageDeduplicator.isDuplicate(messageId));
+            assertTrue(kafkaMessageDeduplicator.registerMessageId(messageId));
+        });
+    }
+
+    @Test
+    void testNullMessageId() {
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertTrue(kafkaMessageDeduplicator.registerMessageId(null));
+            assertTrue(kafkaMessageDeduplicator.registerMessageId(null));
+        });
+    }
+
+    private void createKafkaMessage(UUID messageId, LocalDateTime created) {
+        KafkaMessage kafkaMessage = new KafkaMessage(messageId);
+        kafkaMessage.setCreated(created);
+        statelessSessionFactory.withSession(statelessSession -> {
+            statelessSession.insert(kafkaMessage);
+        });
+    }
+}
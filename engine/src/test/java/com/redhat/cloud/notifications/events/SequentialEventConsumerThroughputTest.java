@@ -0,0 +1,23 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class SequentialEventConsumerThroughputTest extends EventConsumerThroughputTest {
+
+    @Test
+    void testSequentialByDefault() {
+        Duration duration = consumeSlowly();
+        assertEquals(1, maxInFlight.get());
+        assertTrue(duration.compareTo(SEQUENTIAL_DURATION) >= 0, "Consumed in " + duration);
+    }
+}
@@ -0,0 +1,183 @@
+package com.redhat.cloud.notifications.events;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.db.repositories.EventRepository;
+import com.redhat.cloud.notifications.db.repositories.EventTypeRepository;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.ingress.Context;
+import com.redhat.cloud.notifications.ingress.Metadata;
+import com.redhat.cloud.notifications.ingress.Payload;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.Event;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.models.EventTypeKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.mockito.InjectMock;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.providers.connectors.InMemoryConnector;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static com.redhat.cloud.notifications.TestHelpers.serializeAction;
+import static com.redhat.cloud.notifications.events.EventConsumer.INGRESS_CHANNEL;
+import static com.redhat.cloud.notifications.events.KafkaMessageDeduplicator.MESSAGE_ID_HEADER;
+import static com.redhat.cloud.notifications.events.TenantFairScheduler.ORG_BACKLOG_GAUGE_NAME;
+import static com.redhat.cloud.notifications.events.TenantFairScheduler.TAG_KEY_ORG_ID;
+import static com.redhat.cloud.notifications.events.TenantFairScheduler.THROTTLED_COUNTER_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class TenantFairSchedulerTest {
+
+    // The rate of this org is limited to one event per second in application.properties.
+    private static final String FLOODING_ORG_ID = "flooding-org";
+    private static final String BUNDLE = "my-bundle";
+    private static final String APP = "Policies";
+    private static final String EVENT_TYPE = "Any";
+
+    @Inject
+    @Any
+    InMemoryConnector inMemoryConnector;
+
+    @InjectMock
+    EndpointProcessor endpointProcessor;
+
+    @InjectMock
+    EventTypeRepository eventTypeRepository;
+
+    @InjectMock
+    EventRepository eventRepository;
+
+    @Inject
+    TenantFairScheduler tenantFairScheduler;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final List<String> processedOrgIds = new CopyOnWriteArrayList<>();
+    private final List<String> ackedOrgIds = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        featureFlipper.setIngressFairnessEnabled(true);
+        when(eventTypeRepository.getEventType((EventTypeKey) any())).thenCallRealMethod();
+        doAnswer(invocation -> {
+            processedOrgIds.add(invocation.getArgument(0, Event.class).getOrgId());
+            return null;
+        }).when(endpointProcessor).process(any(Event.class));
+    }
+
+    @AfterEach
+    void afterEach() {
+        featureFlipper.setIngressFairnessEnabled(false);
+        processedOrgIds.clear();
+        ackedOrgIds.clear();
+    }
+
+    @Test
+    void testFloodingOrgDoesNotDelayOtherOrgs() {
+        mockGetEventTypeAndCreateEvent();
+        for (int i = 0; i < 5; i++) {
+            inMemoryConnector.source(INGRESS_CHANNEL).send(buildMessage(FLOODING_ORG_ID));
+        }
+        inMemoryConnector.source(INGRESS_CHANNEL).send(buildMessage(DEFAULT_ORG_ID));
+
+        // The event of the other org is processed while most of the flood is still deferred.
+        await().atMost(Duration.ofSeconds(5L)).until(() -> processedOrgIds.contains(DEFAULT_ORG_ID));
+        assertTrue(Collections.frequency(processedOrgIds, FLOODING_ORG_ID) < 5);
+        // The messages of the deferred events are not acknowledged yet.
+        assertTrue(Collections.frequency(ackedOrgIds, FLOODING_ORG_ID) < 5);
+
+        Counter throttledCounter = registry.find(THROTTLED_COUNTER_NAME).tags(TAG_KEY_ORG_ID, FLOODING_ORG_ID).counter();
+        assertNotNull(throttledCounter);
+        assertTrue(throttledCounter.count() > 0);
+
+        // The deferred events are eventually processed, none of them is dropped.
+        await().atMost(Duration.ofSeconds(15L)).until(() -> processedOrgIds.size() == 6);
+        assertEquals(5, Collections.frequency(processedOrgIds, FLOODING_ORG_ID));
+        assertEquals(0, tenantFairScheduler.getBacklog());
+        await().atMost(Duration.ofSeconds(5L)).until(() -> ackedOrgIds.size() == 6);
+        assertEquals(5, Collections.frequency(ackedOrgIds, FLOODING_ORG_ID));
+
+        // Once its token bucket is refilled, the idle org is evicted along with its metrics.
+        await().atMost(Duration.ofSeconds(5L)).until(() -> {
+            tenantFairScheduler.evictIdleOrgs();
+            return registry.find(THROTTLED_COUNTER_NAME).tags(TAG_KEY_ORG_ID, FLOODING_ORG_ID).counter() == null;
+        });
+        assertNull(registry.find(ORG_BACKLOG_GAUGE_NAME).tags(TAG_KEY_ORG_ID, FLOODING_ORG_ID).gauge());
+    }
+
+    private void mockGetEventTypeAndCreateEvent() {
+        Bundle bundle = new Bundle();
+        bundle.setName(BUNDLE);
+        bundle.setDisplayName("Bundle");
+
+        Application app = new Application();
+        app.setDisplayName("Application");
+        app.setBundle(bundle);
+
+        EventType eventType = new EventType();
+        eventType.setDisplayName("Event type");
+        eventType.setApplication(app);
+        when(eventTypeRepository.getEventType(eq(BUNDLE), eq(APP), eq(EVENT_TYPE))).thenReturn(eventType);
+        when(eventRepository.create(any(Event.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private Message<String> buildMessage(String orgId) {
+        Action action = new Action();
+        action.setVersion("v1.0.0");
+        action.setBundle(BUNDLE);
+        action.setApplication(APP);
+        action.setEventType(EVENT_TYPE);
+        action.setTimestamp(LocalDateTime.now());
+        action.setOrgId(orgId);
+        action.setRecipients(List.of());
+        action.setEvents(List.of(
+                new com.redhat.cloud.notifications.ingress.Event.EventBuilder()
+                        .withMetadata(new Metadata.MetadataBuilder().build())
+                        .withPayload(new Payload.PayloadBuilder().withAdditionalProperty("k", "v").build())
+                        .build()
+        ));
+        action.setContext(new Context.ContextBuilder().build());
+
+        OutgoingKafkaRecordMetadata metadata = OutgoingKafkaRecordMetadata.builder()
+                .withHeaders(new RecordHeaders().add(MESSAGE_ID_HEADER, UUID.randomUUID().toString().getBytes(UTF_8)))
+                .build();
+        return Message.of(serializeAction(action)).addMetadata(metadata).withAck(() -> {
+            ackedOrgIds.add(orgId);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.redhat.cloud.notifications.health;
+
+import org.apache.kafka.common.TopicPartition;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stands in for the Kafka brokers during the tests: the records are "produced" and "committed" by the tests and the
+ * resulting offsets are returned to {@link KafkaLagChecker}. The partitions assigned to the consumers of this pod are
+ * also set by the tests.
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class EmbeddedKafkaOffsets implements KafkaOffsetsSource {
+
+    private final Map<TopicPartition, Long> endOffsets = new HashMap<>();
+    private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    private final Map<String, Set<TopicPartition>> assignments = new HashMap<>();
+
+    public synchronized void produce(String topic, int partition, long records) {
+        endOffsets.merge(new TopicPartition(topic, partition), records, Long::sum);
+    }
+
+    public synchronized void commit(String topic, int partition, long offset) {
+        committedOffsets.put(new TopicPartition(topic, partition), offset);
+    }
+
+    public synchronized void assign(String channel, String topic, int... partitions) {
+        Set<TopicPartition> assignment = new HashSet<>();
+        for (int partition : partitions) {
+            assignment.add(new TopicPartition(topic, partition));
+        }
+        assignments.put(channel, assignment);
+    }
+
+    public synchronized void clear() {
+        endOffsets.clear();
+        committedOffsets.clear();
+        assignments.clear();
+    }
+
+    @Override
+    public synchronized Map<TopicPartition, PartitionOffsets> getOffsets(String groupId, Collection<String> topics) {
+        Map<TopicPartition, PartitionOffsets> offsets = new HashMap<>();
+        endOffsets.forEach((partition, endOffset) -> {
+            if (topics.contains(partition.topic())) {
+                offsets.put(partition, new PartitionOffsets(committedOffsets.get(partition), endOffset));
+            }
+        });
+        return offsets;
+    }
+
+    @Override
+    public synchronized Map<TopicPartition, PartitionOffsets> getAssignedOffsets(String channel) {
+        Map<TopicPartition, PartitionOffsets> offsets = new HashMap<>();
+        for (TopicPartition partition : assignments.getOrDefault(channel, Set.of())) {
+            offsets.put(partition, new PartitionOffsets(committedOffsets.get(partition), endOffsets.getOrDefault(partition, 0L)));
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,35 @@
+package com.redhat.cloud.notifications.health;
+
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class KafkaLagCheckerConfigAliasesTest {
+
+    @Test
+    void testDeprecatedAliases() {
+        SmallRyeConfig config = buildConfig(Map.of(
+                "notifications.kafka-lag-checker.enabled", "",
+                "notifications.kafka-consumed-total-checker.enabled", "true",
+                "notifications.kafka-lag-checker.period", "2m",
+                "notifications.kafka-consumed-total-checker.period", "5m",
+                "notifications.kafka-consumed-total-checker.initial-delay", ""
+        ));
+        assertEquals(Optional.of(true), config.getOptionalValue("notifications.kafka-lag-checker.enabled", Boolean.class));
+        assertEquals(Optional.of("2m"), config.getOptionalValue("notifications.kafka-lag-checker.period", String.class));
+        assertEquals(Optional.empty(), config.getOptionalValue("notifications.kafka-lag-checker.initial-delay", String.class));
+    }
+
+    private static SmallRyeConfig buildConfig(Map<String, String> properties) {
+        return new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(properties, "test", 100))
+                .withInterceptors(new KafkaLagCheckerConfigAliases())
+                .build();
+    }
+}
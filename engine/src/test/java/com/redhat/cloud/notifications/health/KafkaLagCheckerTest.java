@@ -0,0 +1,159 @@
+package com.redhat.cloud.notifications.health;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static com.redhat.cloud.notifications.health.KafkaLagChecker.LAG_GAUGE_NAME;
+import static com.redhat.cloud.notifications.health.KafkaLagChecker.TAG_KEY_CHANNEL;
+import static com.redhat.cloud.notifications.health.KafkaLagChecker.TIME_TO_DRAIN_GAUGE_NAME;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+public class KafkaLagCheckerTest {
+
+    private static final String INGRESS_TOPIC = "platform.notifications.ingress";
+
+    @Inject
+    KafkaLagChecker kafkaLagChecker;
+
+    @Inject
+    EmbeddedKafkaOffsets embeddedKafkaOffsets;
+
+    @Inject
+    LivenessService livenessService;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    @Inject
+    MeterRegistry registry;
+
+    // The checker keeps its state between the tests, so the time must keep moving forward.
+    private long now = System.nanoTime();
+
+    @BeforeEach
+    void beforeEach() {
+        embeddedKafkaOffsets.clear();
+        featureFlipper.setKafkaLagCheckerEnabled(true);
+    }
+
+    @AfterEach
+    void afterEach() {
+        featureFlipper.setKafkaLagCheckerEnabled(false);
+    }
+
+    @Test
+    void testLagAndLiveness() {
+        embeddedKafkaOffsets.assign("ingress", INGRESS_TOPIC, 0, 1);
+        // A quiet topic has no lag, the liveness check must not fail even though nothing is consumed.
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 100L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 0, 100L);
+        checkAfter(0L);
+        checkAfter(10L);
+        assertEquals(0D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertEquals(0D, getGauge(TIME_TO_DRAIN_GAUGE_NAME, "ingress"));
+        assertUp();
+
+        // The consumer is falling behind but still making progress: 40 records behind, 5 records consumed per second.
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 50L);
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 1, 40L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 1, 0L);
+        checkAfter(10L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 0, 140L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 1, 10L);
+        checkAfter(10L);
+        assertEquals(40D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertEquals(8D, getGauge(TIME_TO_DRAIN_GAUGE_NAME, "ingress"));
+        assertUp();
+
+        // The consumer stopped committing while there is lag.
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 20L);
+        checkAfter(10L);
+        assertEquals(60D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertEquals(Double.POSITIVE_INFINITY, getGauge(TIME_TO_DRAIN_GAUGE_NAME, "ingress"));
+        assertEquals(List.of("ingress"), kafkaLagChecker.getStalledChannels());
+        HealthCheckResponse response = livenessService.call();
+        assertEquals(HealthCheckResponse.Status.DOWN, response.getStatus());
+        assertEquals("ingress", response.getData().get().get("kafka-stalled-channels"));
+
+        // The other channels are not affected.
+        assertEquals(0D, getGauge(LAG_GAUGE_NAME, "aggregation"));
+
+        // The liveness check recovers once the consumer catches up.
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 0, 170L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 1, 40L);
+        checkAfter(10L);
+        assertEquals(0D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertUp();
+
+        // The liveness check ignores the lag when the checker is disabled.
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 20L);
+        checkAfter(10L);
+        checkAfter(10L);
+        assertFalse(kafkaLagChecker.getStalledChannels().isEmpty());
+        featureFlipper.setKafkaLagCheckerEnabled(false);
+        assertUp();
+    }
+
+    @Test
+    void testPartitionsAssignedToOtherPodsAreIgnored() {
+        embeddedKafkaOffsets.assign("ingress", INGRESS_TOPIC, 0);
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 10L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 0, 10L);
+        // The consumer of partition 1 is stalled in another pod.
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 1, 100L);
+        embeddedKafkaOffsets.commit(INGRESS_TOPIC, 1, 50L);
+        checkAfter(10L);
+        checkAfter(10L);
+        // The gauges still cover the whole consumer group.
+        assertEquals(50D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertEquals(Double.POSITIVE_INFINITY, getGauge(TIME_TO_DRAIN_GAUGE_NAME, "ingress"));
+        assertTrue(kafkaLagChecker.getStalledChannels().isEmpty());
+        assertUp();
+
+        // The partition is then assigned to this pod. The liveness check only fails once it did not move during a full check period.
+        embeddedKafkaOffsets.assign("ingress", INGRESS_TOPIC, 0, 1);
+        checkAfter(10L);
+        assertUp();
+        checkAfter(10L);
+        assertEquals(List.of("ingress"), kafkaLagChecker.getStalledChannels());
+    }
+
+    @Test
+    void testUncommittedPartitionsAreIgnored() {
+        embeddedKafkaOffsets.assign("ingress", INGRESS_TOPIC, 0);
+        embeddedKafkaOffsets.produce(INGRESS_TOPIC, 0, 1000L);
+        checkAfter(10L);
+        checkAfter(10L);
+        assertEquals(0D, getGauge(LAG_GAUGE_NAME, "ingress"));
+        assertTrue(kafkaLagChecker.getStalledChannels().isEmpty());
+        assertUp();
+    }
+
+    private void checkAfter(long seconds) {
+        now += SECONDS.toNanos(seconds);
+        kafkaLagChecker.check(now);
+    }
+
+    private double getGauge(String name, String channel) {
+        return registry.find(name).tag(TAG_KEY_CHANNEL, channel).gauge().value();
+    }
+
+    private void assertUp() {
+        assertEquals(HealthCheckResponse.Status.UP, livenessService.call().getStatus());
+    }
+}
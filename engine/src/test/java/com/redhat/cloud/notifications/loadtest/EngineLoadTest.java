@@ -0,0 +1,217 @@
+package com.redhat.cloud.notifications.loadtest;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import com.redhat.cloud.notifications.config.FeatureFlipper;
+import com.redhat.cloud.notifications.ingress.Action;
+import com.redhat.cloud.notifications.ingress.Context;
+import com.redhat.cloud.notifications.ingress.Event;
+import com.redhat.cloud.notifications.ingress.Metadata;
+import com.redhat.cloud.notifications.ingress.Payload;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.processors.email.EmailSender;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.logging.Log;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.reactive.messaging.providers.connectors.InMemoryConnector;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static com.redhat.cloud.notifications.ReflectionHelper.updateField;
+import static com.redhat.cloud.notifications.TestHelpers.serializeAction;
+import static com.redhat.cloud.notifications.events.EventConsumer.CONSUMED_TIMER_NAME;
+import static com.redhat.cloud.notifications.events.EventConsumer.INGRESS_CHANNEL;
+import static com.redhat.cloud.notifications.loadtest.LoadTestDataset.getBundleName;
+import static com.redhat.cloud.notifications.loadtest.LoadTestDataset.getOrgId;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Pushes the synthetic traffic of the load test scenarios through the engine, from the ingress channel to the mocked
+ * webhook receivers, BOP and RBAC, and writes one report per scenario. It is excluded from the default build and runs
+ * with the {@code load-tests} profile:
+ * <pre>
+ * ./mvnw test -Pload-tests -pl engine -Dloadtest.scenarios=smoke,noisy-tenant -Dloadtest.label=candidate
+ * </pre>
+ * The reports are written to {@code target/loadtest/<label>} unless {@code loadtest.output-dir} is set.
+ */
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+@Tag(EngineLoadTest.LOAD_TEST_TAG)
+public class EngineLoadTest {
+
+    public static final String LOAD_TEST_TAG = "load";
+
+    private static final double[] PERCENTILES = {0.5D, 0.95D, 0.99D};
+    private static boolean percentilesEnabled;
+
+    @Inject
+    @Any
+    InMemoryConnector inMemoryConnector;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    LoadTestDataset dataset;
+
+    @Inject
+    EmailSender emailSender;
+
+    @Inject
+    FeatureFlipper featureFlipper;
+
+    static List<String> scenarios() {
+        return Arrays.asList(System.getProperty("loadtest.scenarios", "smoke").split(","));
+    }
+
+    @ParameterizedTest
+    @MethodSource("scenarios")
+    void run(String scenarioName) {
+        LoadTestScenario scenario = LoadTestScenario.load(scenarioName.trim());
+        String label = System.getProperty("loadtest.label", "current");
+        Path outputDir = Path.of(System.getProperty("loadtest.output-dir", "target/loadtest")).resolve(label);
+
+        // The recipients are fetched from the mocked RBAC and the emails are sent to the mocked BOP.
+        boolean useRbacForFetchingUsers = featureFlipper.isUseRbacForFetchingUsers();
+        featureFlipper.setUseRbacForFetchingUsers(true);
+        setBopUrl(LoadTestMockServers.getBopUrl());
+        LoadTestMockServers mockServers = new LoadTestMockServers(scenario.webhookDelayMs(), scenario.recipientsPerOrg());
+
+        try {
+            List<EventType> eventTypes = dataset.createEventTypes(scenario);
+            for (int i = 0; i < scenario.orgs(); i++) {
+                dataset.createOrg(scenario, getOrgId(scenario, i), eventTypes, LoadTestMockServers.getWebhookUrl());
+            }
+            List<String> payloads = generateTraffic(scenario);
+            int expectedWebhookCalls = payloads.size() * scenario.webhooksPerOrg();
+
+            resetTimers();
+            Statistics statistics = sessionFactory.getStatistics();
+            statistics.clear();
+
+            long start = System.nanoTime();
+            for (String payload : payloads) {
+                inMemoryConnector.source(INGRESS_CHANNEL).send(payload);
+            }
+            await()
+                    .pollInterval(Duration.ofMillis(100L))
+                    .atMost(Duration.ofSeconds(scenario.timeoutSeconds()))
+                    .until(() -> getConsumedCount() >= payloads.size() && mockServers.getWebhookCalls() >= expectedWebhookCalls);
+            long durationMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            LoadTestReport report = new LoadTestReport(scenario, label);
+            report.setDuration(durationMs, payloads.size());
+            report.setCalls(mockServers);
+            report.setStages(registry);
+            report.setDatabaseStatistics(statistics);
+            Path reportFile = report.write(outputDir);
+            Log.infof("Load test scenario %s completed in %d ms, report written to %s%n%s", scenario.name(), durationMs, reportFile, report.toJson().encodePrettily());
+        } finally {
+            mockServers.clear();
+            setBopUrl(ConfigProvider.getConfig().getValue("processor.email.bop_url", String.class));
+            featureFlipper.setUseRbacForFetchingUsers(useRbacForFetchingUsers);
+        }
+    }
+
+    /*
+     * The events are spread over the orgs and event types with a seeded random, so that two runs of the same scenario
+     * send exactly the same traffic.
+     */
+    static List<String> generateTraffic(LoadTestScenario scenario) {
+        Random random = new Random(scenario.seed());
+        int totalWeight = scenario.eventTypes().stream().mapToInt(LoadTestScenario.EventTypeShare::weight).sum();
+        String padding = "x".repeat(scenario.payloadSize());
+
+        List<String> payloads = new ArrayList<>(scenario.totalEvents());
+        for (int i = 0; i < scenario.totalEvents(); i++) {
+            int org = random.nextDouble() < scenario.hotOrgShare() ? 0 : random.nextInt(scenario.orgs());
+            LoadTestScenario.EventTypeShare eventType = pickEventType(scenario.eventTypes(), random.nextInt(totalWeight));
+
+            Action action = new Action();
+            action.setId(new UUID(random.nextLong(), random.nextLong()));
+            action.setVersion("v1.0.0");
+            action.setBundle(getBundleName(scenario));
+            action.setApplication(eventType.application());
+            action.setEventType(eventType.eventType());
+            action.setOrgId(getOrgId(scenario, org));
+            action.setTimestamp(LocalDateTime.now());
+            action.setContext(new Context.ContextBuilder().build());
+            action.setRecipients(List.of());
+            action.setEvents(List.of(
+                    new Event.EventBuilder()
+                            .withMetadata(new Metadata.MetadataBuilder().build())
+                            .withPayload(new Payload.PayloadBuilder()
+                                    .withAdditionalProperty("sequence", i)
+                                    .withAdditionalProperty("padding", padding)
+                                    .build())
+                            .build()
+            ));
+            payloads.add(serializeAction(action));
+        }
+        return payloads;
+    }
+
+    private static LoadTestScenario.EventTypeShare pickEventType(List<LoadTestScenario.EventTypeShare> eventTypes, int weight) {
+        for (LoadTestScenario.EventTypeShare eventType : eventTypes) {
+            weight -= eventType.weight();
+            if (weight < 0) {
+                return eventType;
+            }
+        }
+        throw new IllegalStateException("The event type weights must be positive");
+    }
+
+    /*
+     * The timers are removed before each scenario so that they are created again, with percentiles, and only measure
+     * that scenario. A timer which is held in a field of a bean is no longer reported once removed.
+     */
+    private void resetTimers() {
+        if (!percentilesEnabled) {
+            registry.config().meterFilter(new MeterFilter() {
+                @Override
+                public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                    if (id.getType() != Meter.Type.TIMER) {
+                        return config;
+                    }
+                    return DistributionStatisticConfig.builder().percentiles(PERCENTILES).build().merge(config);
+                }
+            });
+            percentilesEnabled = true;
+        }
+        registry.getMeters().stream()
+                .filter(Timer.class::isInstance)
+                .toList()
+                .forEach(registry::remove);
+    }
+
+    private long getConsumedCount() {
+        return registry.find(CONSUMED_TIMER_NAME).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private void setBopUrl(String bopUrl) {
+        updateField(ClientProxy.unwrap(emailSender), "bopUrl", bopUrl, EmailSender.class);
+    }
+}
@@ -0,0 +1,147 @@
+package com.redhat.cloud.notifications.loadtest;
+
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.models.Application;
+import com.redhat.cloud.notifications.models.BehaviorGroup;
+import com.redhat.cloud.notifications.models.BehaviorGroupAction;
+import com.redhat.cloud.notifications.models.BehaviorGroupActionId;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.EmailSubscription;
+import com.redhat.cloud.notifications.models.EmailSubscriptionId;
+import com.redhat.cloud.notifications.models.Endpoint;
+import com.redhat.cloud.notifications.models.EndpointProperties;
+import com.redhat.cloud.notifications.models.EndpointType;
+import com.redhat.cloud.notifications.models.EventType;
+import com.redhat.cloud.notifications.models.EventTypeBehavior;
+import com.redhat.cloud.notifications.models.EventTypeBehaviorId;
+import com.redhat.cloud.notifications.models.HttpType;
+import com.redhat.cloud.notifications.models.SystemSubscriptionProperties;
+import com.redhat.cloud.notifications.models.WebhookProperties;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.redhat.cloud.notifications.models.EmailSubscriptionType.INSTANT;
+import static com.redhat.cloud.notifications.models.EndpointStatus.READY;
+import static com.redhat.cloud.notifications.models.EndpointType.EMAIL_SUBSCRIPTION;
+import static com.redhat.cloud.notifications.models.EndpointType.WEBHOOK;
+
+/**
+ * Creates the bundle, event types, endpoints, behavior groups and email subscriptions of a load test scenario.
+ */
+@ApplicationScoped
+public class LoadTestDataset {
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    EntityManager entityManager;
+
+    public static String getBundleName(LoadTestScenario scenario) {
+        return "loadtest-" + scenario.name();
+    }
+
+    public static String getOrgId(LoadTestScenario scenario, int index) {
+        return getBundleName(scenario) + "-org-" + index;
+    }
+
+    public static String getUsername(int index) {
+        return "loadtest-user-" + index;
+    }
+
+    /*
+     * Each event type gets a blank instant email template, so that the emails can be rendered without the templates
+     * of the real applications.
+     */
+    public List<EventType> createEventTypes(LoadTestScenario scenario) {
+        List<EventType> eventTypes = new ArrayList<>();
+        for (LoadTestScenario.EventTypeShare share : scenario.eventTypes()) {
+            resourceHelpers.createBlankInstantEmailTemplate(getBundleName(scenario), share.application(), share.eventType());
+            Application app = resourceHelpers.findApp(getBundleName(scenario), share.application());
+            eventTypes.add(resourceHelpers.findEventType(app.getId(), share.eventType()));
+        }
+        return eventTypes;
+    }
+
+    @Transactional
+    public void createOrg(LoadTestScenario scenario, String orgId, List<EventType> eventTypes, String webhookUrl) {
+        Bundle bundle = resourceHelpers.findBundle(getBundleName(scenario));
+
+        BehaviorGroup behaviorGroup = new BehaviorGroup();
+        behaviorGroup.setOrgId(orgId);
+        behaviorGroup.setDisplayName("Load test behavior group");
+        behaviorGroup.setBundle(bundle);
+        behaviorGroup.setBundleId(bundle.getId());
+        entityManager.persist(behaviorGroup);
+
+        for (int i = 0; i < scenario.webhooksPerOrg(); i++) {
+            WebhookProperties properties = new WebhookProperties();
+            properties.setMethod(HttpType.POST);
+            properties.setDisableSslVerification(true);
+            properties.setUrl(webhookUrl);
+            addAction(behaviorGroup, createEndpoint(orgId, WEBHOOK, "Webhook " + i, properties));
+        }
+
+        if (scenario.recipientsPerOrg() > 0) {
+            SystemSubscriptionProperties properties = new SystemSubscriptionProperties();
+            properties.setOnlyAdmins(false);
+            addAction(behaviorGroup, createEndpoint(orgId, EMAIL_SUBSCRIPTION, "Email", properties));
+
+            Set<UUID> applicationIds = new LinkedHashSet<>();
+            for (EventType eventType : eventTypes) {
+                applicationIds.add(eventType.getApplicationId());
+            }
+            for (UUID applicationId : applicationIds) {
+                for (int i = 0; i < scenario.recipientsPerOrg(); i++) {
+                    EmailSubscription subscription = new EmailSubscription();
+                    subscription.setId(new EmailSubscriptionId());
+                    subscription.setOrgId(orgId);
+                    subscription.setUserId(getUsername(i));
+                    subscription.setApplication(entityManager.find(Application.class, applicationId));
+                    subscription.setType(INSTANT);
+                    entityManager.persist(subscription);
+                }
+            }
+        }
+
+        for (EventType eventType : eventTypes) {
+            EventTypeBehavior behavior = new EventTypeBehavior();
+            behavior.setId(new EventTypeBehaviorId());
+            behavior.setEventType(entityManager.find(EventType.class, eventType.getId()));
+            behavior.setBehaviorGroup(behaviorGroup);
+            entityManager.persist(behavior);
+        }
+    }
+
+    private Endpoint createEndpoint(String orgId, EndpointType type, String name, EndpointProperties properties) {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setType(type);
+        endpoint.setOrgId(orgId);
+        endpoint.setEnabled(true);
+        endpoint.setName(name);
+        endpoint.setDescription("Load test endpoint");
+        endpoint.setProperties(properties);
+        endpoint.setStatus(READY);
+        properties.setEndpoint(endpoint);
+
+        entityManager.persist(endpoint);
+        entityManager.persist(endpoint.getProperties());
+        return endpoint;
+    }
+
+    private void addAction(BehaviorGroup behaviorGroup, Endpoint endpoint) {
+        BehaviorGroupAction action = new BehaviorGroupAction();
+        action.setId(new BehaviorGroupActionId());
+        action.setBehaviorGroup(behaviorGroup);
+        action.setEndpoint(endpoint);
+        entityManager.persist(action);
+    }
+}
@@ -0,0 +1,104 @@
+package com.redhat.cloud.notifications.loadtest;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.mockserver.model.HttpRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.redhat.cloud.notifications.MockServerLifecycleManager.getClient;
+import static com.redhat.cloud.notifications.MockServerLifecycleManager.getMockServerUrl;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Stands in for the webhook receivers, BOP and RBAC during a load test and counts the calls they receive.
+ */
+public class LoadTestMockServers {
+
+    public static final String WEBHOOK_PATH = "/loadtest/webhook";
+    public static final String BOP_PATH = "/loadtest/bop";
+    private static final String RBAC_PRINCIPALS_PATH = "/api/rbac/v1/principals/";
+
+    private final AtomicInteger webhookCalls = new AtomicInteger();
+    private final AtomicInteger bopCalls = new AtomicInteger();
+    private final AtomicInteger rbacCalls = new AtomicInteger();
+    private final List<HttpRequest> expectations;
+
+    public LoadTestMockServers(int webhookDelayMs, int recipientsPerOrg) {
+        HttpRequest webhook = new HttpRequest().withPath(WEBHOOK_PATH).withMethod("POST");
+        HttpRequest bop = new HttpRequest().withPath(BOP_PATH).withMethod("POST");
+        HttpRequest rbac = new HttpRequest().withPath(RBAC_PRINCIPALS_PATH).withMethod("GET");
+
+        getClient().withSecure(false)
+                .when(webhook)
+                .respond(request -> {
+                    webhookCalls.incrementAndGet();
+                    return response().withStatusCode(200).withDelay(TimeUnit.MILLISECONDS, webhookDelayMs);
+                });
+        getClient().withSecure(false)
+                .when(bop)
+                .respond(request -> {
+                    bopCalls.incrementAndGet();
+                    return response().withStatusCode(200).withBody("Success");
+                });
+        getClient().withSecure(false)
+                .when(rbac)
+                .respond(request -> {
+                    rbacCalls.incrementAndGet();
+                    int offset = Integer.parseInt(request.getFirstQueryStringParameter("offset"));
+                    int limit = Integer.parseInt(request.getFirstQueryStringParameter("limit"));
+                    return response()
+                            .withStatusCode(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody(buildRbacUsersPage(recipientsPerOrg, offset, limit).encode());
+                });
+
+        expectations = List.of(webhook, bop, rbac);
+    }
+
+    public static String getWebhookUrl() {
+        return getMockServerUrl() + WEBHOOK_PATH;
+    }
+
+    public static String getBopUrl() {
+        return getMockServerUrl() + BOP_PATH;
+    }
+
+    public int getWebhookCalls() {
+        return webhookCalls.get();
+    }
+
+    public int getBopCalls() {
+        return bopCalls.get();
+    }
+
+    public int getRbacCalls() {
+        return rbacCalls.get();
+    }
+
+    public void clear() {
+        for (HttpRequest expectation : expectations) {
+            getClient().clear(expectation);
+        }
+    }
+
+    // Every org has the same users.
+    private static JsonObject buildRbacUsersPage(int usersCount, int offset, int limit) {
+        JsonArray data = new JsonArray();
+        for (int i = offset; i < Math.min(usersCount, offset + limit); i++) {
+            data.add(new JsonObject()
+                    .put("username", LoadTestDataset.getUsername(i))
+                    .put("email", LoadTestDataset.getUsername(i) + "@example.com")
+                    .put("first_name", "Load")
+                    .put("last_name", "Test")
+                    .put("is_active", true)
+                    .put("is_org_admin", i == 0));
+        }
+        return new JsonObject()
+                .put("meta", new JsonObject().put("count", usersCount))
+                .put("links", new JsonObject())
+                .put("data", data);
+    }
+}
@@ -0,0 +1,109 @@
+package com.redhat.cloud.notifications.loadtest;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.vertx.core.json.JsonObject;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Result of a load test run. It is written as JSON so that the runs of two versions of the engine can be compared,
+ * see {@code helpers/loadtest-compare.sh}.
+ */
+public class LoadTestReport {
+
+    private final JsonObject json = new JsonObject();
+
+    public LoadTestReport(LoadTestScenario scenario, String label) {
+        json.put("scenario", scenario.name());
+        json.put("label", label);
+        json.put("events", scenario.totalEvents());
+    }
+
+    public void setDuration(long durationMs, int events) {
+        json.put("duration_ms", durationMs);
+        json.put("throughput_per_second", durationMs == 0L ? 0D : events * 1000D / durationMs);
+    }
+
+    public void setCalls(LoadTestMockServers mockServers) {
+        json.put("calls", new JsonObject()
+                .put("webhook", mockServers.getWebhookCalls())
+                .put("bop", mockServers.getBopCalls())
+                .put("rbac", mockServers.getRbacCalls()));
+    }
+
+    /*
+     * Each engine timer is a stage of the processing. The timers with several tag values are reported separately
+     * because their percentiles cannot be merged.
+     */
+    public void setStages(MeterRegistry registry) {
+        JsonObject stages = new JsonObject();
+        List<Timer> timers = registry.getMeters().stream()
+                .filter(Timer.class::isInstance)
+                .map(Timer.class::cast)
+                .filter(timer -> timer.count() > 0L)
+                .sorted(Comparator.comparing(LoadTestReport::getStageName))
+                .toList();
+        for (Timer timer : timers) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            JsonObject stage = new JsonObject()
+                    .put("count", snapshot.count())
+                    .put("mean_ms", snapshot.mean(MILLISECONDS))
+                    .put("max_ms", snapshot.max(MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                stage.put(String.format("p%d_ms", Math.round(percentile.percentile() * 100D)), percentile.value(MILLISECONDS));
+            }
+            stages.put(getStageName(timer), stage);
+        }
+        json.put("stages", stages);
+    }
+
+    public void setDatabaseStatistics(Statistics statistics) {
+        json.put("db", new JsonObject()
+                .put("statistics_enabled", statistics.isStatisticsEnabled())
+                .put("prepared_statements", statistics.getPrepareStatementCount())
+                .put("queries", statistics.getQueryExecutionCount())
+                .put("entity_inserts", statistics.getEntityInsertCount())
+                .put("entity_updates", statistics.getEntityUpdateCount())
+                .put("transactions", statistics.getTransactionCount()));
+    }
+
+    public JsonObject toJson() {
+        return json;
+    }
+
+    public Path write(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(json.getString("scenario") + ".json");
+            Files.writeString(file, json.encodePrettily(), UTF_8);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String getStageName(Meter meter) {
+        List<Tag> tags = meter.getId().getTags();
+        if (tags.isEmpty()) {
+            return meter.getId().getName();
+        }
+        return tags.stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", meter.getId().getName() + "{", "}"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.redhat.cloud.notifications.loadtest;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Synthetic traffic described by a JSON file from {@code src/test/resources/loadtest}. The fields are described in
+ * the "Running the engine load tests" section of the README.
+ */
+public record LoadTestScenario(
+        String name,
+        int orgs,
+        int eventsPerOrg,
+        double hotOrgShare,
+        List<EventTypeShare> eventTypes,
+        int webhooksPerOrg,
+        int webhookDelayMs,
+        int recipientsPerOrg,
+        int payloadSize,
+        long seed,
+        int timeoutSeconds
+) {
+
+    static final String SCENARIOS_PATH = "/loadtest/";
+
+    public record EventTypeShare(String application, String eventType, int weight) {
+    }
+
+    public int totalEvents() {
+        return orgs * eventsPerOrg;
+    }
+
+    public static LoadTestScenario load(String name) {
+        try (InputStream in = LoadTestScenario.class.getResourceAsStream(SCENARIOS_PATH + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown load test scenario: " + name);
+            }
+            return fromJson(name, new JsonObject(new String(in.readAllBytes(), UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static LoadTestScenario fromJson(String name, JsonObject json) {
+        List<EventTypeShare> eventTypes = new ArrayList<>();
+        JsonArray eventTypesJson = json.getJsonArray("event_types");
+        for (int i = 0; i < eventTypesJson.size(); i++) {
+            JsonObject eventType = eventTypesJson.getJsonObject(i);
+            eventTypes.add(new EventTypeShare(eventType.getString("application"), eventType.getString("event_type"), eventType.getInteger("weight", 1)));
+        }
+        return new LoadTestScenario(
+                name,
+                json.getInteger("orgs"),
+                json.getInteger("events_per_org"),
+                json.getDouble("hot_org_share", 0D),
+                eventTypes,
+                json.getInteger("webhooks_per_org", 0),
+                json.getInteger("webhook_delay_ms", 0),
+                json.getInteger("recipients_per_org", 0),
+                json.getInteger("payload_size", 0),
+                json.getLong("seed", 42L),
+                json.getInteger("timeout_seconds", 300)
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package com.redhat.cloud.notifications.processors;
+
+import com.redhat.cloud.notifications.TestLifecycleManager;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.providers.connectors.InMemoryConnector;
+import io.smallrye.reactive.messaging.providers.connectors.InMemorySink;
+import io.vertx.core.json.JsonObject;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+import java.util.UUID;
+
+import static com.redhat.cloud.notifications.events.EndpointProcessor.SLACK_ENDPOINT_SUBTYPE;
+import static com.redhat.cloud.notifications.events.EndpointProcessor.TEAMS_ENDPOINT_SUBTYPE;
+import static com.redhat.cloud.notifications.processors.ConnectorSender.TOCAMEL_CHANNEL;
+import static com.redhat.cloud.notifications.processors.ConnectorSender.X_RH_NOTIFICATIONS_CONNECTOR_HEADER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+@QuarkusTestResource(TestLifecycleManager.class)
+@TestProfile(DedicatedTopicsTestProfile.class)
+public class ConnectorSenderTest {
+
+    private static final String TEAMS_TOPIC = "platform.notifications.tocamel.teams";
+
+    @Inject
+    @Any
+    InMemoryConnector inMemoryConnector;
+
+    @Inject
+    ConnectorSender connectorSender;
+
+    InMemorySink<String> inMemorySink;
+
+    @BeforeEach
+    @AfterEach
+    void clearInMemorySink() {
+        inMemorySink = inMemoryConnector.sink(TOCAMEL_CHANNEL);
+        inMemorySink.clear();
+    }
+
+    @Test
+    void testDedicatedTopic() {
+        connectorSender.send(new JsonObject(), UUID.randomUUID(), TEAMS_ENDPOINT_SUBTYPE);
+
+        OutgoingKafkaRecordMetadata<?> metadata = getOutgoingKafkaRecordMetadata();
+        assertEquals(TEAMS_TOPIC, metadata.getTopic());
+        // The connector header is still sent while the connectors consume the shared topic.
+        assertEquals(TEAMS_ENDPOINT_SUBTYPE, new String(metadata.getHeaders().lastHeader(X_RH_NOTIFICATIONS_CONNECTOR_HEADER).value(), UTF_8));
+    }
+
+    @Test
+    void testSharedTopic() {
+        connectorSender.send(new JsonObject(), UUID.randomUUID(), SLACK_ENDPOINT_SUBTYPE);
+
+        // Without a topic in the metadata, the message is sent to the topic of the tocamel channel.
+        assertNull(getOutgoingKafkaRecordMetadata().getTopic());
+    }
+
+    private OutgoingKafkaRecordMetadata<?> getOutgoingKafkaRecordMetadata() {
+        await().until(() -> inMemorySink.received().size() == 1);
+        Message<String> message = inMemorySink.received().get(0);
+        return message.getMetadata(OutgoingKafkaRecordMetadata.class).get();
+    }
+}
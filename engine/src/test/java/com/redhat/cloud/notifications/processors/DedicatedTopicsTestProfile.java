@@ -0,0 +1,13 @@
+package com.redhat.cloud.notifications.processors;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+public class DedicatedTopicsTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of("notifications.connector.dedicated-topics", "teams");
+    }
+}
@@ -13,7 +13,9 @@ import com.redhat.cloud.notifications.models.EndpointType;
 import com.redhat.cloud.notifications.models.EventType;
 import com.redhat.cloud.notifications.models.SystemSubscriptionProperties;
 import com.redhat.cloud.notifications.recipients.RecipientResolver;
+import com.redhat.cloud.notifications.recipients.RecipientSettings;
 import com.redhat.cloud.notifications.recipients.User;
+import com.redhat.cloud.notifications.recipients.request.ActionRecipientSettings;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
 import io.quarkus.test.junit.mockito.InjectSpy;
@@ -24,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import javax.inject.Inject;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -35,8 +38,11 @@ import static com.redhat.cloud.notifications.models.EmailSubscriptionType.DAILY;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -111,8 +117,8 @@ class EmailAggregatorTest {
         assertTrue(result.keySet().stream().filter(usr -> usr.getEmail().equals("user-1")).count() == 1);
         User user = result.keySet().stream().findFirst().get();
         assertEquals(4, ((LinkedHashMap) result.get(user).get("policies")).size());
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), anyInt());
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(0), eq(emailAggregator.aggregationMaxPageSize));
+        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyInt(), anyInt());
+        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), eq(0), eq(emailAggregator.aggregationMaxPageSize));
         statelessSessionFactory.withSession(statelessSession -> {
             emailAggregationRepository.purgeOldAggregation(aggregationKey, LocalDateTime.now(ZoneOffset.UTC));
         });
@@ -121,8 +127,9 @@ class EmailAggregatorTest {
         // Test user subscription based on event type
         featureFlipper.setUseEventTypeForSubscriptionEnabled(true);
         result = aggregate();
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), anyInt());
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(0), eq(emailAggregator.aggregationMaxPageSize));
+        // The aggregations of the event type without subscribers are pruned on the DB side and never read.
+        verify(emailAggregationRepository, times(1)).getEmailAggregationGroups(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(Set.of("not-used")));
+        verify(emailAggregationRepository, never()).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyInt(), anyInt());
         reset(emailAggregationRepository); // just reset mockito counter
 
         // nobody subscribed to the right event type yet
@@ -131,9 +138,9 @@ class EmailAggregatorTest {
         resourceHelpers.createEventTypeEmailSubscription("org-1", "user-2", eventType1, DAILY);
         // because after the previous aggregate() call the email_aggregation DB table was not purged, we already have 4 records on database
         result = aggregate();
-        verify(emailAggregationRepository, times(2)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), anyInt());
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(0), eq(emailAggregator.aggregationMaxPageSize));
-        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(5), eq(emailAggregator.aggregationMaxPageSize));
+        verify(emailAggregationRepository, times(2)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyInt(), anyInt());
+        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), eq(0), eq(emailAggregator.aggregationMaxPageSize));
+        verify(emailAggregationRepository, times(1)).getEmailAggregation(any(EmailAggregationKey.class), any(LocalDateTime.class), any(LocalDateTime.class), anyList(), eq(5), eq(emailAggregator.aggregationMaxPageSize));
         assertEquals(1, result.size());
         user = result.keySet().stream().findFirst().get();
         assertTrue(user.getEmail().equals("user-2"));
@@ -141,6 +148,88 @@ class EmailAggregatorTest {
 
     }
 
+    @Test
+    void shouldBuildOneDigestForUsersReceivingTheSameAggregations() {
+        Application application = resourceHelpers.findApp("rhel", "policies");
+        // This test uses its own org because the DB is not cleaned between the tests.
+        EmailAggregationKey digestKey = new EmailAggregationKey("org-3", "rhel", "policies");
+        resourceHelpers.createEmailSubscription("org-3", "user-1", application, DAILY);
+        resourceHelpers.createEmailSubscription("org-3", "user-2", application, DAILY);
+
+        when(endpointRepository.getTargetEmailSubscriptionEndpoints(anyString(), anyString(), anyString(), anyString())).thenReturn(List.of());
+        when(recipientResolver.recipientUsers(anyString(), any(), any())).then(parameters -> {
+            Set<String> users = parameters.getArgument(2);
+            return users.stream().map(usrStr -> {
+                User usr = new User();
+                usr.setUsername(usrStr);
+                usr.setEmail(usrStr);
+                return usr;
+            }).collect(Collectors.toSet());
+        });
+
+        List<Set<User>> digestsRecipients = new ArrayList<>();
+        statelessSessionFactory.withSession(statelessSession -> {
+            emailAggregationRepository.addEmailAggregation(TestHelpers.createEmailAggregation("org-3", "rhel", "policies", RandomStringUtils.random(10), RandomStringUtils.random(10)));
+            emailAggregationRepository.addEmailAggregation(TestHelpers.createEmailAggregation("org-3", "rhel", "policies", RandomStringUtils.random(10), RandomStringUtils.random(10)));
+
+            emailAggregator.aggregate(digestKey, DAILY, LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1), LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1), (users, context) -> {
+                digestsRecipients.add(users);
+                assertEquals(2, ((LinkedHashMap) context.get("policies")).size());
+            });
+            emailAggregationRepository.purgeOldAggregation(digestKey, LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+        });
+
+        // Both users receive the same aggregations, so a single digest is built for them.
+        assertEquals(1, digestsRecipients.size());
+        assertEquals(Set.of("user-1", "user-2"), digestsRecipients.get(0).stream().map(User::getEmail).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void shouldHandOverEachDigestOnceItsGroupsAreRead() {
+        Application application = resourceHelpers.findApp("rhel", "policies");
+        // This test uses its own org because the DB is not cleaned between the tests.
+        EmailAggregationKey digestKey = new EmailAggregationKey("org-4", "rhel", "policies");
+        resourceHelpers.createEmailSubscription("org-4", "user-1", application, DAILY);
+        resourceHelpers.createEmailSubscription("org-4", "user-2", application, DAILY);
+
+        when(endpointRepository.getTargetEmailSubscriptionEndpoints(anyString(), anyString(), anyString(), anyString())).thenReturn(List.of());
+        // Each user only receives the aggregations they are the recipient of.
+        when(recipientResolver.recipientUsers(anyString(), any(), any())).then(parameters -> {
+            Set<RecipientSettings> requests = parameters.getArgument(1);
+            return requests.stream()
+                    .flatMap(request -> ((ActionRecipientSettings) request).getUsers().stream())
+                    .map(usrStr -> {
+                        User usr = new User();
+                        usr.setUsername(usrStr);
+                        usr.setEmail(usrStr);
+                        return usr;
+                    }).collect(Collectors.toSet());
+        });
+        emailAggregator.aggregationMaxPageSize = 1;
+
+        // Number of pages read when each digest is handed over.
+        List<Long> pagesRead = new ArrayList<>();
+        statelessSessionFactory.withSession(statelessSession -> {
+            for (String user : List.of("user-1", "user-2")) {
+                emailAggregationRepository.addEmailAggregation(TestHelpers.createEmailAggregation("org-4", "rhel", "policies", RandomStringUtils.random(10), RandomStringUtils.random(10), user));
+                emailAggregationRepository.addEmailAggregation(TestHelpers.createEmailAggregation("org-4", "rhel", "policies", RandomStringUtils.random(10), RandomStringUtils.random(10), user));
+            }
+            reset(emailAggregationRepository); // just reset mockito counter
+
+            emailAggregator.aggregate(digestKey, DAILY, LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1), LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1), (users, context) -> {
+                assertEquals(1, users.size());
+                assertEquals(2, ((LinkedHashMap) context.get("policies")).size());
+                pagesRead.add(mockingDetails(emailAggregationRepository).getInvocations().stream()
+                        .filter(invocation -> invocation.getMethod().getName().equals("getEmailAggregation"))
+                        .count());
+            });
+            emailAggregationRepository.purgeOldAggregation(digestKey, LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+        });
+
+        // The first digest is handed over when the first row of the second group is read, before the last pages.
+        assertEquals(List.of(3L, 5L), pagesRead);
+    }
+
     private Map<User, Map<String, Object>> aggregate() {
         Map<User, Map<String, Object>> result = new HashMap<>();
         statelessSessionFactory.withSession(statelessSession -> {
@@ -0,0 +1,106 @@
+package com.redhat.cloud.notifications.processors.email;
+
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.models.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.StatelessSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class EmailBatcherTest {
+
+    private static final String ORG_ID = "batch-org-id";
+
+    private EmailBatcher emailBatcher;
+    private Endpoint endpoint;
+
+    @BeforeEach
+    void beforeEach() {
+        emailBatcher = new EmailBatcher();
+        emailBatcher.linger = Duration.ofHours(1L);
+        emailBatcher.maxSize = 2;
+        emailBatcher.sendersCount = 1;
+        emailBatcher.emailSender = mock(EmailSender.class);
+        emailBatcher.statelessSessionFactory = mock(StatelessSessionFactory.class);
+        emailBatcher.registry = new SimpleMeterRegistry();
+        emailBatcher.init();
+        doAnswer(invocation -> {
+            Consumer<StatelessSession> unitOfWork = invocation.getArgument(0);
+            unitOfWork.accept(null);
+            return null;
+        }).when(emailBatcher.statelessSessionFactory).withSession(any(Consumer.class));
+        endpoint = new Endpoint();
+    }
+
+    @Test
+    void testFullBatchIsSentImmediately() throws Exception {
+        UUID historyId1 = UUID.randomUUID();
+        UUID historyId2 = UUID.randomUUID();
+        CompletionStage<Void> firstSent = emailBatcher.add(ORG_ID, historyId1, endpoint, buildEmail("user-1", "user-2"));
+        verify(emailBatcher.emailSender, never()).sendBatch(any(), any(), any());
+        assertFalse(firstSent.toCompletableFuture().isDone());
+
+        CompletionStage<Void> secondSent = emailBatcher.add(ORG_ID, historyId2, endpoint, buildEmail("user-1", "user-2"));
+        // The ingress messages of both events can be acknowledged once the batch is sent.
+        firstSent.toCompletableFuture().get(5L, SECONDS);
+        secondSent.toCompletableFuture().get(5L, SECONDS);
+        ArgumentCaptor<Emails> emails = ArgumentCaptor.forClass(Emails.class);
+        verify(emailBatcher.emailSender, times(1)).sendBatch(eq(List.of(historyId1, historyId2)), eq(endpoint), emails.capture());
+        assertEquals(2, emails.getValue().getEmails().size());
+        assertEquals(0, emailBatcher.getPendingBatchesCount());
+    }
+
+    @Test
+    void testStageIsCompletedWhenTheBatchSendingFails() throws Exception {
+        doThrow(RuntimeException.class).when(emailBatcher.emailSender).sendBatch(any(), any(), any());
+        emailBatcher.add(ORG_ID, UUID.randomUUID(), endpoint, buildEmail("user-1"));
+        CompletionStage<Void> sent = emailBatcher.add(ORG_ID, UUID.randomUUID(), endpoint, buildEmail("user-1"));
+        // The failure is recorded in the histories of the events, their messages do not have to be consumed again.
+        sent.toCompletableFuture().get(5L, SECONDS);
+    }
+
+    @Test
+    void testBatchesAreKeyedByRecipients() {
+        emailBatcher.add(ORG_ID, UUID.randomUUID(), endpoint, buildEmail("user-1"));
+        emailBatcher.add(ORG_ID, UUID.randomUUID(), endpoint, buildEmail("user-2"));
+        assertEquals(2, emailBatcher.getPendingBatchesCount());
+
+        // The batches are not sent before the linger duration is over.
+        emailBatcher.flushExpiredBatches();
+        verify(emailBatcher.emailSender, never()).sendBatch(any(), any(), any());
+
+        emailBatcher.linger = Duration.ZERO;
+        emailBatcher.flushExpiredBatches();
+        verify(emailBatcher.emailSender, timeout(5000L).times(2)).sendBatch(any(), eq(endpoint), any());
+        assertEquals(0, emailBatcher.getPendingBatchesCount());
+    }
+
+    private static Email buildEmail(String... bccList) {
+        Email email = new Email();
+        email.setBccList(Set.of(bccList));
+        email.setSubject("subject");
+        email.setBody("body");
+        return email;
+    }
+}
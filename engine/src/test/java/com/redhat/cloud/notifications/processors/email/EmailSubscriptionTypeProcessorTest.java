@@ -52,9 +52,12 @@ import static com.redhat.cloud.notifications.processors.email.EmailSubscriptionT
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -152,7 +155,9 @@ class EmailSubscriptionTypeProcessorTest {
         User user3 = new User();
         user3.setUsername("user3");
 
-        when(emailSubscriptionRepository.getEmailSubscribersUserId(any(), any(), any(), any(), any()))
+        when(emailSubscriptionRepository.getEmailSubscribersUserId(any(), any(EventType.class), any()))
+            .thenReturn(List.of(user1.getUsername(), user2.getUsername()));
+        when(emailSubscriptionRepository.getEmailSubscribersUserId(any(), anyString(), anyString(), any(), any()))
             .thenReturn(List.of(user1.getUsername(), user2.getUsername()));
         when(recipientResolver.recipientUsers(any(), anySet(), any()))
             .then(invocation -> {
@@ -178,27 +183,30 @@ class EmailSubscriptionTypeProcessorTest {
             micrometerAssertionHelper.assertCounterIncrement(AGGREGATION_COMMAND_REJECTED_COUNTER_NAME, 0);
             micrometerAssertionHelper.assertCounterIncrement(AGGREGATION_COMMAND_ERROR_COUNTER_NAME, 0);
 
+            // The aggregations are purged once the digests were sent, from a digest sender.
+            verify(emailAggregationRepository, timeout(5000L).times(1)).purgeOldAggregation(
+                eq(aggregationCommand1.getAggregationKey()),
+                eq(aggregationCommand1.getEnd())
+            );
+
             // Let's check that EndpointEmailSubscriptionResources#sendEmail was called for each aggregation.
+            // user3 only receives the second aggregation, so two digests are aggregated from a single read of the rows.
             verify(emailAggregationRepository, times(1)).getEmailAggregation(
                 eq(aggregationCommand1.getAggregationKey()),
                 eq(aggregationCommand1.getStart()),
                 eq(aggregationCommand1.getEnd()),
+                anyList(),
                 eq(0),
                 anyInt()
             );
-
-            verify(emailAggregationRepository, times(1)).purgeOldAggregation(
-                eq(aggregationCommand1.getAggregationKey()),
-                eq(aggregationCommand1.getEnd())
-            );
-            verify(emailAggregationRepository, times(1)).getEmailAggregation(
+            // There is no aggregation for the second key, so only the groups are queried.
+            verify(emailAggregationRepository, timeout(5000L).times(1)).getEmailAggregationGroups(
                 eq(aggregationCommand2.getAggregationKey()),
                 eq(aggregationCommand2.getStart()),
                 eq(aggregationCommand2.getEnd()),
-                eq(0),
-                anyInt()
+                any()
             );
-            verify(emailAggregationRepository, times(1)).purgeOldAggregation(
+            verify(emailAggregationRepository, timeout(5000L).times(1)).purgeOldAggregation(
                 eq(aggregationCommand2.getAggregationKey()),
                 eq(aggregationCommand2.getEnd())
             );
@@ -248,7 +256,7 @@ class EmailSubscriptionTypeProcessorTest {
             User user2 = new User();
             user2.setUsername("bar");
 
-            when(emailSubscriptionRepository.getEmailSubscribersUserId(any(), any(), any(), any(), any()))
+            when(emailSubscriptionRepository.getEmailSubscribersUserId(any(), any(EventType.class), any()))
                 .thenReturn(List.of(user1.getUsername(), user2.getUsername()));
             when(recipientResolver.recipientUsers(any(), any(), any()))
                 .thenReturn(Set.of(user1, user2));
@@ -302,6 +302,35 @@ public class AdvisorEmailAggregatorTest {
         this.assertRulesAreEqualAndCorrectOrder(testRules, deactivatedRecommendationsCollection);
     }
 
+    /**
+     * Tests that the rules which were left out of the recommendations are
+     * counted once, and that they are not added back when they are received
+     * again.
+     */
+    @Test
+    void testOverflowCount() {
+        final AdvisorEmailAggregator aggregator = new AdvisorEmailAggregator();
+        aggregator.setMaxEntries(1);
+
+        final Map<String, String> highRiskRule = new HashMap<>(TEST_RULE_1);
+        highRiskRule.put(TOTAL_RISK, "4");
+        final Map<String, String> lowRiskRule = new HashMap<>(TEST_RULE_2);
+        lowRiskRule.put(TOTAL_RISK, "1");
+
+        aggregator.aggregate(createEmailAggregation(NEW_RECOMMENDATION, lowRiskRule));
+        aggregator.aggregate(createEmailAggregation(NEW_RECOMMENDATION, highRiskRule));
+        aggregator.aggregate(createEmailAggregation(NEW_RECOMMENDATION, lowRiskRule));
+        aggregator.aggregate(createEmailAggregation(NEW_RECOMMENDATION, highRiskRule));
+
+        final JsonObject advisor = JsonObject.mapFrom(aggregator.getContext()).getJsonObject(ADVISOR_KEY);
+        final Map<String, Map<String, Object>> newRecommendations = advisor.getJsonObject(NEW_RECOMMENDATIONS).mapTo(Map.class);
+
+        assertEquals(1, newRecommendations.size());
+        assertEquals(2, newRecommendations.get(highRiskRule.get(RULE_ID)).get(CONTENT_SYSTEM_COUNT));
+        assertEquals(1, advisor.getInteger(NEW_RECOMMENDATIONS + AbstractEmailPayloadAggregator.OVERFLOW_SUFFIX));
+        assertEquals(2, advisor.getInteger(AdvisorEmailAggregator.TOTAL_RECOMMENDATION));
+    }
+
     /**
      * Tests that the map sorting and limiting function returns an ordered map
      * of a limited number of items.
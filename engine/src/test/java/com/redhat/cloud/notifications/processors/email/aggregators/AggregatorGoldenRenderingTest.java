@@ -0,0 +1,182 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import com.redhat.cloud.notifications.db.ResourceHelpers;
+import com.redhat.cloud.notifications.db.StatelessSessionFactory;
+import com.redhat.cloud.notifications.db.repositories.TemplateRepository;
+import com.redhat.cloud.notifications.models.AggregationEmailTemplate;
+import com.redhat.cloud.notifications.models.Bundle;
+import com.redhat.cloud.notifications.models.EmailAggregation;
+import com.redhat.cloud.notifications.models.EmailAggregationKey;
+import com.redhat.cloud.notifications.models.Environment;
+import com.redhat.cloud.notifications.models.Template;
+import com.redhat.cloud.notifications.templates.EmailTemplateMigrationService;
+import com.redhat.cloud.notifications.templates.TemplateService;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.inject.Inject;
+import javax.persistence.NoResultException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static com.redhat.cloud.notifications.models.EmailSubscriptionType.DAILY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/*
+ * Each JSON file of the aggregators resources folder contains the payloads of the email aggregations of an application.
+ * The digest of these aggregations is rendered with the daily templates of the application and compared with the
+ * golden subject and body of the aggregators/rendered resources folder. The dates of the digests are fixed so that the
+ * emails do not depend on the time when the test runs.
+ *
+ * When a golden file is missing, or when the test runs with -Dgolden.update=true, the rendered email is written to the
+ * golden file and the test fails: the golden file has to be reviewed and committed with the change that altered it.
+ */
+@QuarkusTest
+class AggregatorGoldenRenderingTest {
+
+    private static final String ORG_ID = "golden-org-id";
+    private static final LocalDateTime START = LocalDateTime.of(2023, 3, 14, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1L);
+    private static final Path RENDERED_DIR = Paths.get("src", "test", "resources", "aggregators", "rendered");
+    private static final boolean UPDATE_GOLDEN_FILES = Boolean.getBoolean("golden.update");
+
+    @Inject
+    ResourceHelpers resourceHelpers;
+
+    @Inject
+    StatelessSessionFactory statelessSessionFactory;
+
+    @Inject
+    TemplateRepository templateRepository;
+
+    @Inject
+    TemplateService templateService;
+
+    @Inject
+    EmailTemplateMigrationService emailTemplateMigrationService;
+
+    @Inject
+    Environment environment;
+
+    @ParameterizedTest
+    @ValueSource(strings = { "advisor", "compliance", "drift", "inventory", "patch", "policies", "resource-optimization", "vulnerability" })
+    void testRenderedDigest(String application) throws IOException {
+        JsonObject payloads = readPayloads(application);
+        String bundleName = payloads.getString("bundle");
+        String appName = payloads.getString("application");
+
+        AbstractEmailPayloadAggregator aggregator = EmailPayloadAggregatorFactory.by(new EmailAggregationKey(ORG_ID, bundleName, appName));
+        assertNotNull(aggregator);
+        if (payloads.containsKey("max_entries")) {
+            aggregator.setMaxEntries(payloads.getInteger("max_entries"));
+        }
+
+        JsonArray aggregations = payloads.getJsonArray("aggregations");
+        for (int i = 0; i < aggregations.size(); i++) {
+            aggregator.aggregate(buildAggregation(bundleName, appName, aggregations.getJsonObject(i)));
+        }
+        aggregator.setStartTime(START);
+        aggregator.setEndTimeKey(END);
+        Map<String, Object> context = aggregator.getContext();
+
+        createAppIfMissing(bundleName, appName);
+        emailTemplateMigrationService.migrate();
+        statelessSessionFactory.withSession(statelessSession -> {
+            AggregationEmailTemplate emailTemplate = templateRepository.findAggregationEmailTemplate(bundleName, appName, DAILY).get();
+            assertGolden(application + "-subject.txt", render(emailTemplate.getSubjectTemplate(), bundleName, context));
+            assertGolden(application + "-body.html", render(emailTemplate.getBodyTemplate(), bundleName, context));
+        });
+
+        // The aggregated data is exposed as read-only views.
+        for (Object value : context.values()) {
+            if (value instanceof Map<?, ?> map) {
+                assertThrows(UnsupportedOperationException.class, map::clear);
+            }
+        }
+    }
+
+    /*
+     * Ansible does not send daily digests: it has no daily template to render and its aggregator rejects the
+     * aggregations. This test fails if that changes, so that the golden files of Ansible are added then.
+     */
+    @Test
+    void testAnsibleHasNoDailyDigest() {
+        AbstractEmailPayloadAggregator aggregator = EmailPayloadAggregatorFactory.by(new EmailAggregationKey(ORG_ID, "application-services", "ansible"));
+        assertInstanceOf(AnsibleEmailAggregator.class, aggregator);
+        assertThrows(RuntimeException.class, () -> aggregator.aggregate(buildAggregation("application-services", "ansible", new JsonObject())));
+
+        createAppIfMissing("application-services", "ansible");
+        emailTemplateMigrationService.migrate();
+        statelessSessionFactory.withSession(statelessSession -> {
+            assertTrue(templateRepository.findAggregationEmailTemplate("application-services", "ansible", DAILY).isEmpty());
+        });
+    }
+
+    private String render(Template template, String bundleName, Map<String, Object> context) {
+        return templateService.compileTemplate(template.getData(), template.getName())
+                .data("action", Map.of("context", context, "bundle", bundleName, "timestamp", END))
+                .data("environment", environment)
+                .data("user", Map.of("firstName", "John", "lastName", "Doe"))
+                .render();
+    }
+
+    private static void assertGolden(String fileName, String rendered) {
+        Path goldenFile = RENDERED_DIR.resolve(fileName);
+        try {
+            if (UPDATE_GOLDEN_FILES || !Files.exists(goldenFile)) {
+                Files.createDirectories(RENDERED_DIR);
+                Files.writeString(goldenFile, rendered, UTF_8);
+                fail("The golden file " + goldenFile + " was written, it has to be reviewed and committed");
+            }
+            assertEquals(Files.readString(goldenFile, UTF_8), rendered, "The rendered email does not match " + goldenFile);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void createAppIfMissing(String bundleName, String appName) {
+        Bundle bundle;
+        try {
+            bundle = resourceHelpers.findBundle(bundleName);
+        } catch (NoResultException e) {
+            bundle = resourceHelpers.createBundle(bundleName);
+        }
+        try {
+            resourceHelpers.findApp(bundleName, appName);
+        } catch (NoResultException e) {
+            resourceHelpers.createApp(bundle.getId(), appName);
+        }
+    }
+
+    private static EmailAggregation buildAggregation(String bundleName, String appName, JsonObject payload) {
+        EmailAggregation aggregation = new EmailAggregation();
+        aggregation.setOrgId(ORG_ID);
+        aggregation.setBundleName(bundleName);
+        aggregation.setApplicationName(appName);
+        aggregation.setPayload(payload);
+        return aggregation;
+    }
+
+    private static JsonObject readPayloads(String application) throws IOException {
+        try (InputStream inputStream = AggregatorGoldenRenderingTest.class.getClassLoader().getResourceAsStream("aggregators/" + application + ".json")) {
+            assertNotNull(inputStream);
+            return new JsonObject(IOUtils.toString(inputStream, UTF_8));
+        }
+    }
+}
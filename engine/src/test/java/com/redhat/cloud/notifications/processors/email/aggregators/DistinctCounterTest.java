@@ -0,0 +1,46 @@
+package com.redhat.cloud.notifications.processors.email.aggregators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.redhat.cloud.notifications.processors.email.aggregators.DistinctCounter.MAX_HASHES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistinctCounterTest {
+
+    @Test
+    void testExactCountUpToTheMaxHashes() {
+        DistinctCounter<Void> counter = new DistinctCounter<>();
+        for (int i = 0; i < MAX_HASHES; i++) {
+            counter.add("host-" + i);
+            counter.add("host-" + i / 2);
+        }
+        assertEquals(MAX_HASHES, counter.count());
+    }
+
+    @Test
+    void testEstimatedCountBeyondTheMaxHashes() {
+        DistinctCounter<Void> counter = new DistinctCounter<>();
+        int distinctKeys = 200_000;
+        for (int i = 0; i < distinctKeys; i++) {
+            counter.add("host-" + i);
+            counter.add("host-" + i / 2);
+        }
+        // The relative standard error is about 3%, the estimate has to be within 4 standard errors.
+        assertTrue(Math.abs(counter.count() - distinctKeys) < distinctKeys * 0.12, "Unexpected estimate: " + counter.count());
+    }
+
+    @Test
+    void testCountByValueKeepsTheLastValueOfEachKey() {
+        DistinctCounter<String> counter = new DistinctCounter<>();
+        counter.put("host-1", "Undersized");
+        counter.put("host-2", "Oversized");
+        counter.put("host-1", "Optimized");
+        counter.add("host-2");
+
+        assertEquals(2, counter.count());
+        assertEquals(Map.of("Optimized", 1, "Oversized", 1), counter.countByValue());
+    }
+}
@@ -6,8 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
@@ -50,24 +49,24 @@ public class PatchEmailPayloadAggregatorTest {
         aggregator.aggregate(PatchTestHelpers.createEmailAggregation(bundle, application, "advisory_4", "test synopsis", bugfix, "host-03"));
         aggregator.aggregate(PatchTestHelpers.createEmailAggregation(bundle, application, "advisory_5", "test synopsis", unspecified, "host-04"));
 
-        ArrayList<LinkedHashMap<String, String>> secAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, security);
+        List<Map<String, String>> secAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, security);
         Assertions.assertEquals(1, secAdvs.size());
         Assertions.assertTrue(secAdvs.get(0).get("name").equals("advisory_1"));
         Assertions.assertTrue(secAdvs.get(0).get("synopsis").equals("test synopsis"));
 
-        ArrayList<LinkedHashMap<String, String>> enhAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, enhancement);
+        List<Map<String, String>> enhAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, enhancement);
         Assertions.assertEquals(2, enhAdvs.size());
         Assertions.assertTrue(enhAdvs.get(0).get("name").equals("advisory_2"));
         Assertions.assertTrue(enhAdvs.get(0).get("synopsis").equals("test synopsis"));
         Assertions.assertTrue(enhAdvs.get(1).get("name").equals("advisory_3"));
         Assertions.assertTrue(enhAdvs.get(1).get("synopsis").equals("test synopsis"));
 
-        ArrayList<LinkedHashMap<String, String>> fixAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, bugfix);
+        List<Map<String, String>> fixAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, bugfix);
         Assertions.assertEquals(1, fixAdvs.size());
         Assertions.assertTrue(fixAdvs.get(0).get("name").equals("advisory_4"));
         Assertions.assertTrue(fixAdvs.get(0).get("synopsis").equals("test synopsis"));
 
-        ArrayList<LinkedHashMap<String, String>> otherAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, other);
+        List<Map<String, String>> otherAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, other);
         Assertions.assertEquals(1, otherAdvs.size());
         Assertions.assertTrue(otherAdvs.get(0).get("name").equals("advisory_5"));
         Assertions.assertTrue(otherAdvs.get(0).get("synopsis").equals("test synopsis"));
@@ -82,10 +81,10 @@ public class PatchEmailPayloadAggregatorTest {
     @Test
     void validatePayloadMultipleEvents() {
         aggregator.aggregate(PatchTestHelpers.createEmailAggregationMultipleEvents(bundle, application));
-        ArrayList<LinkedHashMap<String, String>> enhAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, enhancement);
+        List<Map<String, String>> enhAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, enhancement);
         Assertions.assertTrue(enhAdvs.get(0).get("name").equals("RH-1"));
         Assertions.assertTrue(enhAdvs.get(0).get("synopsis").equals("synopsis"));
-        ArrayList<LinkedHashMap<String, String>> fixAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, bugfix);
+        List<Map<String, String>> fixAdvs = PatchTestHelpers.getAdvisoriesByType(aggregator, bugfix);
         Assertions.assertTrue(fixAdvs.get(0).get("name").equals("RH-2"));
         Assertions.assertTrue(fixAdvs.get(0).get("synopsis").equals("synopsis"));
     }
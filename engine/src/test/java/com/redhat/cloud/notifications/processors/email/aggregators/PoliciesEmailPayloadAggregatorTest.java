@@ -3,6 +3,7 @@ package com.redhat.cloud.notifications.processors.email.aggregators;
 import com.redhat.cloud.notifications.TestHelpers;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -48,6 +49,45 @@ public class PoliciesEmailPayloadAggregatorTest {
         assertEquals(2, getUniqueHostForPolicy(aggregator, "policy-03"));
     }
 
+    @Test
+    void testBoundedHosts() {
+        PoliciesEmailPayloadAggregator aggregator = new PoliciesEmailPayloadAggregator();
+        aggregator.setMaxEntries(2);
+        // The hosts with the same display name are listed by inventory ID, whatever the order of the events.
+        for (int i = 5; i >= 1; i--) {
+            aggregator.aggregate(TestHelpers.createEmailAggregation("org-id", "insights", "policies", "policy-01", "host-0" + i));
+        }
+        // Same host again, it should not be counted twice.
+        aggregator.aggregate(TestHelpers.createEmailAggregation("org-id", "insights", "policies", "policy-01", "host-01"));
+
+        Map<String, Map> policies = (Map<String, Map>) aggregator.getContext().get("policies");
+        List<Map> hosts = (List<Map>) policies.get("policy-01").get("hosts");
+        assertEquals(2, hosts.size());
+        assertEquals("host-01", hosts.get(0).get("inventory_id"));
+        assertEquals("host-02", hosts.get(1).get("inventory_id"));
+        assertEquals(3, policies.get("policy-01").get("hosts_overflow"));
+        assertEquals(5, getUniqueHostForPolicy(aggregator, "policy-01"));
+        assertEquals(5, aggregator.getUniqueHostCount());
+
+        assertThrows(IllegalStateException.class, () -> aggregator.setMaxEntries(10));
+    }
+
+    @Test
+    void testBoundedPolicies() {
+        PoliciesEmailPayloadAggregator aggregator = new PoliciesEmailPayloadAggregator();
+        aggregator.setMaxEntries(1);
+        aggregator.aggregate(TestHelpers.createEmailAggregation("org-id", "insights", "policies", "policy-02", "host-01"));
+        aggregator.aggregate(TestHelpers.createEmailAggregation("org-id", "insights", "policies", "policy-01", "host-02"));
+        aggregator.aggregate(TestHelpers.createEmailAggregation("org-id", "insights", "policies", "policy-02", "host-03"));
+
+        Map<String, Object> context = aggregator.getContext();
+        Map<String, Map> policies = (Map<String, Map>) context.get("policies");
+        assertEquals(List.of("policy-01"), List.copyOf(policies.keySet()));
+        assertEquals(1, context.get("policies_overflow"));
+        assertEquals(2, context.get("policy_count"));
+        assertEquals(3, context.get("unique_system_count"));
+    }
+
     @Test
     void emailWithDifferentOrgIdThrowsError() {
         PoliciesEmailPayloadAggregator aggregator = new PoliciesEmailPayloadAggregator();
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
 
@@ -56,4 +57,17 @@ public class VulnerabilityEmailPayloadAggregatorTest {
             Assertions.assertTrue(uniqueCves.contains(cve));
         });
     }
+
+    @Test
+    void testMostRecentCvesAreKept() {
+        aggregator.setMaxEntries(2);
+        for (String cve : List.of("CVE-2021-9999", "CVE-2023-0002", "CVE-2022-12345", "CVE-2023-0002", "CVE-2023-10001")) {
+            aggregator.aggregate(VulnerabilityTestHelpers.createEmailAggregation(bundle, application, CVSS_EVENT, cve));
+        }
+
+        Assertions.assertEquals(List.of("CVE-2023-10001", "CVE-2023-0002"), VulnerabilityTestHelpers.getReportedCves(aggregator));
+        Map<String, Object> vulnerability = (Map<String, Object>) aggregator.getContext().get("vulnerability");
+        Assertions.assertEquals(4, vulnerability.get("reported_cve_count"));
+        Assertions.assertEquals(2, vulnerability.get("reported_cves_overflow"));
+    }
 }
@@ -0,0 +1,49 @@
+package com.redhat.cloud.notifications.processors.webclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.redhat.cloud.notifications.processors.webclient.WebClientMetrics.CLIENT_TAG_KEY;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientMetrics.PENDING_REQUESTS_GAUGE_NAME;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientMetrics.REJECTED_REQUESTS_COUNTER_NAME;
+import static com.redhat.cloud.notifications.processors.webclient.WebClientProducer.SECURED_CLIENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WebClientMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebClientMetrics webClientMetrics;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        webClientMetrics = new WebClientMetrics();
+        webClientMetrics.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    void testPendingRequests() {
+        String result = webClientMetrics.track(SECURED_CLIENT, () -> {
+            assertEquals(1, pendingRequests());
+            return "response";
+        });
+        assertEquals("response", result);
+        assertEquals(0, pendingRequests());
+    }
+
+    @Test
+    void testRejectedRequests() {
+        assertThrows(ConnectionPoolTooBusyException.class, () -> webClientMetrics.track(SECURED_CLIENT, () -> {
+            throw new ConnectionPoolTooBusyException("Connection pool reached max wait queue size of 1");
+        }));
+        assertEquals(0, pendingRequests());
+        assertEquals(1, meterRegistry.get(REJECTED_REQUESTS_COUNTER_NAME).tag(CLIENT_TAG_KEY, SECURED_CLIENT).counter().count());
+    }
+
+    private double pendingRequests() {
+        return meterRegistry.get(PENDING_REQUESTS_GAUGE_NAME).tag(CLIENT_TAG_KEY, SECURED_CLIENT).gauge().value();
+    }
+}
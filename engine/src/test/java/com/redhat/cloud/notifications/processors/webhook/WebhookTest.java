@@ -19,13 +19,21 @@ import com.redhat.cloud.notifications.models.HttpType;
 import com.redhat.cloud.notifications.models.NotificationHistory;
 import com.redhat.cloud.notifications.models.NotificationStatus;
 import com.redhat.cloud.notifications.models.WebhookProperties;
+import com.redhat.cloud.notifications.processors.webclient.SslVerificationEnabled;
+import com.redhat.cloud.notifications.processors.webhooks.DeliveryRetry;
+import com.redhat.cloud.notifications.processors.webhooks.EndpointErrorCounter;
 import com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor;
 import dev.failsafe.Failsafe;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
+import io.smallrye.reactive.messaging.providers.connectors.InMemoryConnector;
+import io.smallrye.reactive.messaging.providers.connectors.InMemorySink;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.ext.web.client.WebClient;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,15 +42,23 @@ import org.mockito.MockedStatic;
 import org.mockserver.mock.action.ExpectationResponseCallback;
 import org.mockserver.model.HttpRequest;
 
+import javax.enterprise.inject.Any;
 import javax.inject.Inject;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static com.redhat.cloud.notifications.MockServerLifecycleManager.getMockServerUrl;
 import static com.redhat.cloud.notifications.TestConstants.DEFAULT_ORG_ID;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.DELIVERY_RETRY_TIER_1_CHANNEL;
+import static com.redhat.cloud.notifications.processors.webhooks.DeliveryRetryScheduler.TO_DELIVERY_RETRY_CHANNEL;
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.CLIENT_TAG_VALUE;
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.DISABLED_WEBHOOKS_COUNTER;
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.ERROR_TYPE_TAG_KEY;
@@ -55,13 +71,17 @@ import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProc
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.SERVER_TAG_VALUE;
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.SUCCESSFUL_EMAIL_COUNTER;
 import static com.redhat.cloud.notifications.processors.webhooks.WebhookTypeProcessor.SUCCESSFUL_WEBHOOK_COUNTER;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockserver.model.HttpResponse.response;
@@ -86,12 +106,23 @@ public class WebhookTest {
     @Inject
     FeatureFlipper featureFlipper;
 
+    @Inject
+    @Any
+    InMemoryConnector inMemoryConnector;
+
+    @Inject
+    EndpointErrorCounter endpointErrorCounter;
+
     @InjectMock
     IntegrationDisabledNotifier integrationDisabledNotifier;
 
     @InjectMock
     NotificationHistoryRepository notificationHistoryRepository;
 
+    @Inject
+    @SslVerificationEnabled
+    WebClient webClient;
+
     @BeforeEach
     void beforeEach() {
         micrometerAssertionHelper.saveCounterValuesBeforeTest(PROCESSED_WEBHOOK_COUNTER, PROCESSED_EMAIL_COUNTER, FAILED_WEBHOOK_COUNTER, FAILED_EMAIL_COUNTER, RETRIED_WEBHOOK_COUNTER, RETRIED_EMAIL_COUNTER, SUCCESSFUL_WEBHOOK_COUNTER, SUCCESSFUL_EMAIL_COUNTER);
@@ -263,6 +294,164 @@ public class WebhookTest {
         }
     }
 
+    @Test
+    void testDelayedRetry() {
+        featureFlipper.setDelayedDeliveryRetriesEnabled(true);
+        InMemorySink<String> retrySink = inMemoryConnector.sink(TO_DELIVERY_RETRY_CHANNEL);
+        retrySink.clear();
+
+        AtomicInteger callsCounter = new AtomicInteger();
+        HttpRequest mockServerRequest = getMockHttpRequest("/delayed-retry", request -> {
+            if (callsCounter.incrementAndGet() == 1) {
+                return response().withStatusCode(500);
+            } else {
+                return response().withStatusCode(200);
+            }
+        });
+        try {
+            Action action = buildWebhookAction();
+            Event event = new Event();
+            event.setEventWrapper(new EventWrapperAction(action));
+            Endpoint ep = buildWebhookEndpoint(getMockServerUrl() + "/delayed-retry");
+            ep.setOrgId(DEFAULT_ORG_ID);
+            persistEndpointWithProperties(ep);
+
+            // The first attempt fails and the delivery is published to the first delay tier instead of being retried in place.
+            webhookTypeProcessor.process(event, List.of(ep));
+            assertEquals(1, callsCounter.get());
+            ArgumentCaptor<NotificationHistory> historyArgumentCaptor = ArgumentCaptor.forClass(NotificationHistory.class);
+            verify(notificationHistoryRepository, times(1)).createNotificationHistory(historyArgumentCaptor.capture());
+            NotificationHistory history = historyArgumentCaptor.getValue();
+            assertEquals(NotificationStatus.PROCESSING, history.getStatus());
+            assertEquals(1, history.getDetails().get("attempt"));
+
+            assertEquals(1, retrySink.received().size());
+            DeliveryRetry retry = Json.decodeValue(retrySink.received().get(0).getPayload(), DeliveryRetry.class);
+            assertEquals(2, retry.attempt());
+            assertEquals(List.of(history.getId()), retry.historyIds());
+
+            // The retry is consumed without waiting for its delay.
+            DeliveryRetry dueRetry = new DeliveryRetry(retry.endpointId(), retry.endpointType(), retry.orgId(), retry.historyIds(), retry.eventsCount(),
+                    retry.attempt(), 0L, retry.method(), retry.url(), retry.payload());
+            inMemoryConnector.source(DELIVERY_RETRY_TIER_1_CHANNEL).send(Json.encode(dueRetry));
+
+            ArgumentCaptor<NotificationHistory> updateArgumentCaptor = ArgumentCaptor.forClass(NotificationHistory.class);
+            await().atMost(Duration.ofSeconds(10L)).untilAsserted(() ->
+                    verify(notificationHistoryRepository, times(1)).updateHistoryItem(updateArgumentCaptor.capture())
+            );
+            NotificationHistory updatedHistory = updateArgumentCaptor.getValue();
+            assertEquals(history.getId(), updatedHistory.getId());
+            assertEquals(NotificationStatus.SUCCESS, updatedHistory.getStatus());
+            assertEquals(2, updatedHistory.getDetails().get("attempt"));
+            assertEquals(2, callsCounter.get());
+            assertEquals(1, retrySink.received().size());
+        } finally {
+            // Remove expectations
+            MockServerLifecycleManager.getClient().clear(mockServerRequest);
+            featureFlipper.setDelayedDeliveryRetriesEnabled(false);
+        }
+        validateCounters(1, 0, 1, 0, 0, 0, 1, 0);
+    }
+
+    /*
+     * A backlog of retries of a slow endpoint does not hold the retries of the other endpoints, but the records are
+     * still acknowledged in order, so that none of them is committed before the attempts of the previous ones were made.
+     */
+    @Test
+    void testBacklogOfSlowRetries() {
+        HttpRequest slowRequest = new HttpRequest().withPath("/slow-retry").withMethod("POST");
+        MockServerLifecycleManager.getClient()
+                .withSecure(false)
+                .when(slowRequest)
+                .respond(response().withStatusCode(200).withDelay(TimeUnit.SECONDS, 3L));
+        HttpRequest fastRequest = getMockHttpRequest("/fast-retry", request -> response().withStatusCode(200));
+        List<UUID> updatedHistories = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            updatedHistories.add(invocation.getArgument(0, NotificationHistory.class).getId());
+            return true;
+        }).when(notificationHistoryRepository).updateHistoryItem(any(NotificationHistory.class));
+        try {
+            Endpoint slowEndpoint = buildWebhookEndpoint(getMockServerUrl() + "/slow-retry");
+            slowEndpoint.setOrgId(DEFAULT_ORG_ID);
+            persistEndpointWithProperties(slowEndpoint);
+            Endpoint fastEndpoint = buildWebhookEndpoint(getMockServerUrl() + "/fast-retry");
+            fastEndpoint.setOrgId(DEFAULT_ORG_ID);
+            persistEndpointWithProperties(fastEndpoint);
+
+            List<Integer> acks = Collections.synchronizedList(new ArrayList<>());
+            List<Endpoint> endpoints = List.of(slowEndpoint, slowEndpoint, slowEndpoint, fastEndpoint);
+            UUID fastHistoryId = UUID.randomUUID();
+            for (int i = 0; i < endpoints.size(); i++) {
+                Endpoint endpoint = endpoints.get(i);
+                UUID historyId = endpoint == fastEndpoint ? fastHistoryId : UUID.randomUUID();
+                DeliveryRetry dueRetry = new DeliveryRetry(endpoint.getId(), endpoint.getType(), DEFAULT_ORG_ID, List.of(historyId), 1, 2, 0L,
+                        "POST", ((WebhookProperties) endpoint.getProperties()).getUrl(), new JsonObject().encode());
+                int index = i;
+                inMemoryConnector.source(DELIVERY_RETRY_TIER_1_CHANNEL).send(Message.of(Json.encode(dueRetry), () -> {
+                    acks.add(index);
+                    return CompletableFuture.completedFuture(null);
+                }));
+            }
+
+            // The retry of the fast endpoint is made while the slow endpoint is still being called.
+            await().atMost(Duration.ofSeconds(2L)).until(() -> updatedHistories.contains(fastHistoryId));
+            assertTrue(acks.isEmpty());
+
+            await().atMost(Duration.ofSeconds(10L)).until(() -> acks.size() == endpoints.size());
+            assertEquals(List.of(0, 1, 2, 3), acks);
+            assertEquals(endpoints.size(), updatedHistories.size());
+        } finally {
+            // Remove expectations
+            MockServerLifecycleManager.getClient().clear(slowRequest);
+            MockServerLifecycleManager.getClient().clear(fastRequest);
+        }
+    }
+
+    @Test
+    void testDeferredBatchOutcomeIsRecordedInEachHistory() {
+        HttpRequest mockServerRequest = getMockHttpRequest("/deferred-batch", request -> response().withStatusCode(200));
+        // The same outcome instance is given to each update, so its state is copied when the update happens.
+        List<NotificationHistory> updatedHistories = new ArrayList<>();
+        doAnswer(invocation -> {
+            NotificationHistory outcome = invocation.getArgument(0);
+            updatedHistories.add(new NotificationHistory(outcome.getId(), outcome.getInvocationTime(), outcome.isInvocationResult(),
+                    outcome.getStatus(), null, null, outcome.getDetails()));
+            return true;
+        }).when(notificationHistoryRepository).updateHistoryItem(any(NotificationHistory.class));
+        try {
+            String url = getMockServerUrl() + "/deferred-batch";
+            Endpoint ep = buildWebhookEndpoint(url);
+            ep.setType(EndpointType.EMAIL_SUBSCRIPTION);
+            List<Event> events = List.of(buildEvent(), buildEvent(), buildEvent());
+
+            List<UUID> historyIds = new ArrayList<>();
+            for (Event event : events) {
+                historyIds.add(webhookTypeProcessor.persistDeferredHistory(event, ep));
+            }
+            ArgumentCaptor<NotificationHistory> historyArgumentCaptor = ArgumentCaptor.forClass(NotificationHistory.class);
+            verify(notificationHistoryRepository, times(events.size())).createNotificationHistory(historyArgumentCaptor.capture());
+            for (int i = 0; i < events.size(); i++) {
+                NotificationHistory history = historyArgumentCaptor.getAllValues().get(i);
+                assertEquals(historyIds.get(i), history.getId());
+                assertEquals(events.get(i), history.getEvent());
+                assertEquals(NotificationStatus.PROCESSING, history.getStatus());
+            }
+
+            webhookTypeProcessor.doDeferredBatchHttpRequest(historyIds, ep, webClient.postAbs(url), new JsonObject(), "POST", url);
+
+            // Each event keeps its own history, which is updated with the outcome of the single call.
+            assertEquals(historyIds, updatedHistories.stream().map(NotificationHistory::getId).collect(Collectors.toList()));
+            for (NotificationHistory history : updatedHistories) {
+                assertEquals(NotificationStatus.SUCCESS, history.getStatus());
+                assertTrue(history.isInvocationResult());
+            }
+        } finally {
+            // Remove expectations
+            MockServerLifecycleManager.getClient().clear(mockServerRequest);
+        }
+        validateCounters(0, 3, 0, 3, 0, 0, 0, 0);
+    }
+
     @Test
     void testDisableEndpointOnClientError() {
         featureFlipper.setDisableWebhookEndpointsOnFailure(true);
@@ -309,8 +498,15 @@ public class WebhookTest {
                      */
                     webhookTypeProcessor.process(event, List.of(ep));
                 }
-                micrometerAssertionHelper.assertCounterIncrement(DISABLED_WEBHOOKS_COUNTER, 1, ERROR_TYPE_TAG_KEY, SERVER_TAG_VALUE);
-                verify(integrationDisabledNotifier, times(1)).tooManyServerErrors(eq(ep), eq(10));
+            });
+            // The errors are only counted in memory until they are flushed.
+            assertEquals(16, endpointErrorCounter.getPendingErrors(ep.getId()));
+            verify(integrationDisabledNotifier, never()).tooManyServerErrors(any(), anyInt());
+            endpointErrorCounter.flush();
+            assertEquals(0, endpointErrorCounter.getPendingErrors(ep.getId()));
+            micrometerAssertionHelper.assertCounterIncrement(DISABLED_WEBHOOKS_COUNTER, 1, ERROR_TYPE_TAG_KEY, SERVER_TAG_VALUE);
+            verify(integrationDisabledNotifier, times(1)).tooManyServerErrors(eq(ep), eq(10));
+            statelessSessionFactory.withSession(statelessSession -> {
                 assertFalse(getEndpoint(ep.getId()).isEnabled());
             });
         } finally {
@@ -321,6 +517,37 @@ public class WebhookTest {
         featureFlipper.setDisableWebhookEndpointsOnFailure(false);
     }
 
+    @Test
+    void testResetServerErrorsOnSuccess() {
+        featureFlipper.setDisableWebhookEndpointsOnFailure(true);
+
+        HttpRequest mockServerRequest = getMockHttpRequest("/reset-server-errors", request -> response().withStatusCode(200));
+        try {
+            Action action = buildWebhookAction();
+            Event event = new Event();
+            event.setEventWrapper(new EventWrapperAction(action));
+            Endpoint ep = buildWebhookEndpoint(getMockServerUrl() + "/reset-server-errors");
+            ep.setServerErrors(3);
+            persistEndpoint(ep);
+            statelessSessionFactory.withSession(statelessSession -> {
+                webhookTypeProcessor.process(event, List.of(ep));
+                // The reset is only written to the DB during the next flush.
+                assertEquals(3, getEndpoint(ep.getId()).getServerErrors());
+            });
+            endpointErrorCounter.flush();
+            statelessSessionFactory.withSession(statelessSession -> {
+                Endpoint endpoint = getEndpoint(ep.getId());
+                assertTrue(endpoint.isEnabled());
+                assertEquals(0, endpoint.getServerErrors());
+            });
+        } finally {
+            // Remove expectations
+            MockServerLifecycleManager.getClient().clear(mockServerRequest);
+        }
+        validateCounters(1, 0, 1, 0, 0, 0, 0, 0);
+        featureFlipper.setDisableWebhookEndpointsOnFailure(false);
+    }
+
     @Test
     void testEmailsOnlyMode() {
         featureFlipper.setEmailsOnlyMode(true);
@@ -345,6 +572,15 @@ public class WebhookTest {
         });
     }
 
+    void persistEndpointWithProperties(Endpoint endpoint) {
+        endpoint.prePersist();
+        endpoint.getProperties().setEndpoint(endpoint);
+        statelessSessionFactory.withSession(statelessSession -> {
+            statelessSession.insert(endpoint);
+            statelessSession.insert(endpoint.getProperties());
+        });
+    }
+
     Endpoint getEndpoint(UUID id) {
         String hql = "FROM Endpoint WHERE id = :id";
         return statelessSessionFactory.getCurrentSession().createQuery(hql, Endpoint.class)
@@ -391,6 +627,13 @@ public class WebhookTest {
         return webhookActionMessage;
     }
 
+    private static Event buildEvent() {
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setEventWrapper(new EventWrapperAction(buildWebhookAction()));
+        return event;
+    }
+
     private static Endpoint buildWebhookEndpoint(String url) {
         WebhookProperties properties = new WebhookProperties();
         properties.setMethod(HttpType.POST);
@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Runs the engine load test scenarios against a baseline git ref and against the working tree, then prints the
+# throughput, stage latencies and DB statement counts of both runs side by side.
+#
+# Usage: helpers/loadtest-compare.sh <baseline-ref> [comma-separated scenarios]
+#
+# The baseline ref must already contain the load test harness. jq is required.
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+  echo "Usage: $0 <baseline-ref> [comma-separated scenarios]" >&2
+  exit 1
+fi
+
+BASELINE_REF=$1
+SCENARIOS=${2:-smoke}
+ROOT_DIR=$(git rev-parse --show-toplevel)
+OUTPUT_DIR="$ROOT_DIR/engine/target/loadtest"
+WORKTREE_DIR=$(mktemp -d)
+
+cleanup() {
+  git -C "$ROOT_DIR" worktree remove --force "$WORKTREE_DIR" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+run_load_tests() {
+  local dir=$1
+  local label=$2
+  (cd "$dir" && ./mvnw -B -q test -Pload-tests -pl engine -am \
+    -Dtest=EngineLoadTest -Dsurefire.failIfNoSpecifiedTests=false \
+    -Dloadtest.scenarios="$SCENARIOS" -Dloadtest.label="$label" -Dloadtest.output-dir="$OUTPUT_DIR")
+}
+
+format_table() {
+  if command -v column > /dev/null; then
+    column -t -s $'\t'
+  else
+    cat
+  fi
+}
+
+echo "Running the load tests on $BASELINE_REF"
+git -C "$ROOT_DIR" worktree add --detach "$WORKTREE_DIR" "$BASELINE_REF" > /dev/null
+run_load_tests "$WORKTREE_DIR" baseline
+
+echo "Running the load tests on the working tree"
+run_load_tests "$ROOT_DIR" candidate
+
+IFS=',' read -ra SCENARIO_NAMES <<< "$SCENARIOS"
+for SCENARIO in "${SCENARIO_NAMES[@]}"; do
+  BASELINE="$OUTPUT_DIR/baseline/$SCENARIO.json"
+  CANDIDATE="$OUTPUT_DIR/candidate/$SCENARIO.json"
+  echo
+  echo "=== $SCENARIO ==="
+  jq -r -n --slurpfile b "$BASELINE" --slurpfile c "$CANDIDATE" '
+    def row($name; $base; $cand):
+      [$name, ($base // "-" | tostring), ($cand // "-" | tostring),
+       (if ($base | type) == "number" and ($cand | type) == "number" and $base != 0
+        then ((($cand - $base) * 1000 / $base | round) / 10 | tostring) + "%" else "-" end)] | @tsv;
+    $b[0] as $base | $c[0] as $cand |
+    (["metric", "baseline", "candidate", "delta"] | @tsv),
+    row("throughput/s"; $base.throughput_per_second; $cand.throughput_per_second),
+    row("duration ms"; $base.duration_ms; $cand.duration_ms),
+    (["prepared_statements", "queries", "entity_inserts", "entity_updates", "transactions"][] as $k |
+      row("db " + $k; $base.db[$k]; $cand.db[$k])),
+    (["webhook", "bop", "rbac"][] as $k | row("calls " + $k; $base.calls[$k]; $cand.calls[$k])),
+    ((($base.stages | keys) + ($cand.stages | keys) | unique)[] as $stage |
+      ("p50_ms", "p95_ms", "p99_ms") as $p |
+      row($stage + " " + $p; $base.stages[$stage][$p]; $cand.stages[$stage][$p]))
+  ' | format_table
+done